@@ -0,0 +1,132 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.CompactModel;
+import basicneuralnetwork.neuralnetwork.Ensemble;
+import basicneuralnetwork.neuralnetwork.ImageAugmenter;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import basicneuralnetwork.neuralnetwork.SparseInput;
+import org.junit.AfterClass;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe AllocationBudgetTests: Verifica os bytes alocados por chamada nos caminhos críticos da inferência
+ * e do treinamento, para que uma regressão de alocações falhe os testes como uma regressão de correção.
+ * Os limites têm folga sobre os valores medidos; o relatório com as medições é escrito no fim da classe.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class AllocationBudgetTests {
+
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+
+    // Limites, em bytes por chamada, para a rede 400x10x1 dos dígitos (cerca do dobro dos valores medidos:
+    // 216 na predição, 728 e 632 no treinamento denso e esparso, 384 no ensemble de três redes)
+    private static final long GUESS_BUDGET = 512;
+    private static final long TRAIN_BUDGET = 1536;
+    private static final long SPARSE_TRAIN_BUDGET = 1536;
+    private static final long ENSEMBLE_BUDGET = 1024;
+
+    @BeforeClass
+    public static void checkSupport() {
+        Assume.assumeTrue("A JVM não mede alocações por thread.", AllocationMeter.isSupported());
+    }
+
+    @AfterClass
+    public static void printReport() {
+        AllocationMeter.printReport();
+    }
+
+    /**
+     * Testa se a predição do `CompactModel` com um array de trabalho e o `ImageAugmenter` não alocam memória.
+     */
+    @Test
+    public void testFastPathsAllocateNothing() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        File file = File.createTempFile("model_weights", ".txt");
+        file.deleteOnExit();
+        nn.saveWeights(file.getPath());
+
+        CompactModel model = CompactModel.load(file.getPath(), "SIGMOID");
+        double[] input = digitInput(1);
+        double[] output = new double[1];
+        double[] scratch = new double[model.getScratchLength()];
+        assertEquals(0, AllocationMeter.measure("CompactModel.guess(input, output, scratch)", 0,
+                () -> model.guess(input, output, scratch), WARMUP, ITERATIONS));
+
+        ImageAugmenter augmenter = new ImageAugmenter(20, 20);
+        augmenter.setNoiseStdDev(0.05);
+        SplittableRandom random = new SplittableRandom(2);
+        double[] target = new double[400];
+        assertEquals(0, AllocationMeter.measure("ImageAugmenter.augment", 0,
+                () -> augmenter.augment(input, target, random), WARMUP / 10, ITERATIONS / 10));
+    }
+
+    /**
+     * Testa se a predição da `NeuralNetwork` fica dentro do limite de alocações.
+     */
+    @Test
+    public void testGuessBudget() {
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        double[] input = digitInput(3);
+        long perCall = AllocationMeter.measure("NeuralNetwork.guess", GUESS_BUDGET, () -> nn.guess(input), WARMUP, ITERATIONS);
+        assertTrue(perCall + " bytes por predição", perCall <= GUESS_BUDGET);
+    }
+
+    /**
+     * Testa se o treinamento com entradas densas e esparsas fica dentro do limite de alocações por exemplo.
+     */
+    @Test
+    public void testTrainBudgetPerSample() {
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        nn.setLearningRate(1e-9);
+        double[] input = digitInput(4);
+        double[] target = {1};
+        long perSample = AllocationMeter.measure("NeuralNetwork.train", TRAIN_BUDGET,
+                () -> nn.train(input, target), WARMUP, ITERATIONS);
+        assertTrue(perSample + " bytes por exemplo", perSample <= TRAIN_BUDGET);
+
+        SparseInput sparse = SparseInput.fromDense(input);
+        long perSparseSample = AllocationMeter.measure("NeuralNetwork.train(SparseInput)", SPARSE_TRAIN_BUDGET,
+                () -> nn.train(sparse, target), WARMUP, ITERATIONS);
+        assertTrue(perSparseSample + " bytes por exemplo esparso", perSparseSample <= SPARSE_TRAIN_BUDGET);
+    }
+
+    /**
+     * Testa se a predição de um ensemble de três redes fica dentro do limite de alocações.
+     */
+    @Test
+    public void testEnsembleBudget() {
+        List<NeuralNetwork> members = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            members.add(new NeuralNetwork(400, 10, 1));
+        }
+        Ensemble ensemble = new Ensemble(members, Ensemble.Combination.MEAN);
+        double[] input = digitInput(5);
+        double[] output = new double[1];
+        long perCall = AllocationMeter.measure("Ensemble.guess", ENSEMBLE_BUDGET,
+                () -> ensemble.guess(input, output), WARMUP / 4, ITERATIONS / 4);
+        assertTrue(perCall + " bytes por predição", perCall <= ENSEMBLE_BUDGET);
+    }
+
+    // Imagem 20x20 com cerca de um terço dos pixels acesos, como os dígitos normalizados
+    private static double[] digitInput(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] input = new double[400];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextInt(3) == 0 ? random.nextDouble() : 0;
+        }
+        return input;
+    }
+}
@@ -0,0 +1,94 @@
+package UnitTests;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe AllocationMeter: Mede os bytes alocados por chamada de uma operação, com o contador de alocações
+ * da thread atual (`com.sun.management.ThreadMXBean.getThreadAllocatedBytes`), e guarda um relatório das medições.
+ *
+ * A operação é primeiro executada `warmup` vezes, para que as classes estejam carregadas e o JIT tenha compilado
+ * o caminho medido; o resultado é a média das `iterations` execuções seguintes, arredondada para baixo,
+ * pelo que alocações esporádicas (menos de um byte por chamada em média) não contam.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - A operação é medida na thread que chama `measure`; alocações noutras threads não contam.
+ */
+public final class AllocationMeter {
+
+    private static final List<String> report = new ArrayList<>();
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * @return true se a JVM consegue medir as alocações por thread (HotSpot e derivados).
+     */
+    public static boolean isSupported() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return false;
+        }
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+        if (threads.isThreadAllocatedMemorySupported() && !threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled();
+    }
+
+    /**
+     * Mede os bytes alocados por chamada e acrescenta a medição ao relatório.
+     *
+     * @param name Nome da operação no relatório.
+     * @param budget Limite de bytes por chamada (apenas para o relatório; a verificação fica no teste).
+     * @param operation A operação a medir.
+     * @param warmup Número de execuções antes da medição.
+     * @param iterations Número de execuções medidas.
+     * @return Os bytes alocados por chamada.
+     */
+    public static long measure(String name, long budget, Runnable operation, int warmup, int iterations) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < warmup; i++) {
+            operation.run();
+        }
+
+        // O próprio contador pode alocar; o custo de uma leitura é descontado
+        long first = threads.getThreadAllocatedBytes(thread);
+        long second = threads.getThreadAllocatedBytes(thread);
+        long overhead = second - first;
+
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long after = threads.getThreadAllocatedBytes(thread);
+
+        long perCall = Math.max(0, after - before - overhead) / iterations;
+        synchronized (report) {
+            report.add(String.format("%-45s %8d bytes/chamada (limite: %d)", name, perCall, budget));
+        }
+        return perCall;
+    }
+
+    /**
+     * Escreve no stdout as medições feitas até agora e limpa o relatório.
+     */
+    public static void printReport() {
+        synchronized (report) {
+            if (report.isEmpty()) {
+                return;
+            }
+            System.out.println("Relatório de alocações:");
+            for (String line : report) {
+                System.out.println("  " + line);
+            }
+            report.clear();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.AugmentationPipeline;
+import basicneuralnetwork.neuralnetwork.ImageAugmenter;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe AugmentationPipelineTests: Testes unitários para as classes ImageAugmenter e AugmentationPipeline.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class AugmentationPipelineTests {
+
+    /**
+     * Testa se, com todas as transformações desativadas, a imagem aumentada é igual à original.
+     */
+    @Test
+    public void testDisabledTransformationsKeepImage() {
+        ImageAugmenter augmenter = new ImageAugmenter(20, 20);
+        augmenter.setMaxShift(0);
+        augmenter.setMaxRotation(0);
+        augmenter.setElasticAlpha(0);
+        augmenter.setNoiseStdDev(0);
+
+        double[] row = TestFixtures.randomRows(1, 400, 10, 3).get(0);
+        double[] target = new double[400];
+        augmenter.augment(row, target, new SplittableRandom(1));
+        assertArrayEquals(Arrays.copyOf(row, 400), target, 1e-12);
+    }
+
+    /**
+     * Testa se a mesma semente produz a mesma imagem e se a configuração por omissão altera a imagem.
+     */
+    @Test
+    public void testAugmentIsDeterministic() {
+        ImageAugmenter augmenter = new ImageAugmenter(20, 20);
+        double[] row = TestFixtures.randomRows(1, 400, 10, 4).get(0);
+        double[] first = new double[400];
+        double[] second = new double[400];
+
+        augmenter.augment(row, first, new SplittableRandom(9));
+        augmenter.copy().augment(row, second, new SplittableRandom(9));
+        assertArrayEquals(first, second, 0.0);
+        assertFalse(Arrays.equals(Arrays.copyOf(row, 400), first));
+    }
+
+    /**
+     * Testa se o pipeline entrega todos os exemplos da época pela ordem pedida, com os rótulos certos,
+     * e se os lotes não dependem do número de threads.
+     */
+    @Test
+    public void testPipelineIsOrderedAndIndependentOfWorkers() {
+        List<double[]> dataset = TestFixtures.randomRows(50, 400, 10, 5);
+        int[] order = new int[dataset.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = (i * 7) % order.length;
+        }
+
+        List<double[]> single = collectEpochs(dataset, order, 1);
+        List<double[]> parallel = collectEpochs(dataset, order, 3);
+        assertEquals(2 * dataset.size(), single.size());
+        for (int i = 0; i < single.size(); i++) {
+            double[] expectedRow = dataset.get(order[i % order.length]);
+            assertEquals(expectedRow[400], single.get(i)[400], 0.0);
+            assertArrayEquals(single.get(i), parallel.get(i), 0.0);
+        }
+    }
+
+    // Duas épocas com sementes diferentes; cada elemento tem os 400 pixels aumentados seguidos do rótulo
+    private static List<double[]> collectEpochs(List<double[]> dataset, int[] order, int workers) {
+        List<double[]> examples = new ArrayList<>();
+        try (AugmentationPipeline pipeline = new AugmentationPipeline(dataset, new ImageAugmenter(20, 20), workers, 8, 2)) {
+            for (long seed = 1; seed <= 2; seed++) {
+                pipeline.beginEpoch(order, seed);
+                AugmentationPipeline.Batch batch;
+                while ((batch = pipeline.take()) != null) {
+                    for (int i = 0; i < batch.getSize(); i++) {
+                        double[] example = Arrays.copyOf(batch.getInput(i), 401);
+                        example[400] = batch.getTarget(i);
+                        examples.add(example);
+                    }
+                    pipeline.release(batch);
+                }
+            }
+        }
+        return examples;
+    }
+}
@@ -0,0 +1,199 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.CascadeModel;
+import basicneuralnetwork.neuralnetwork.CompactModel;
+import basicneuralnetwork.neuralnetwork.InferenceModel;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe CascadeModelTests: Testes unitários para a classe CascadeModel.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class CascadeModelTests {
+
+    /**
+     * Testa se `tune` encontra o maior número de saídas antecipadas que respeita a acurácia alvo (comparado com
+     * todas as combinações de limiares, com confianças repetidas) e se a cascata reproduz esses números.
+     */
+    @Test
+    public void testTuneMatchesExhaustiveSearch() {
+        // Entrada: a saída do modelo pequeno e a do modelo completo; a confiança do pequeno tem empates
+        InferenceModel firstStage = column(0);
+        InferenceModel fullModel = column(1);
+        SplittableRandom random = new SplittableRandom(11);
+
+        for (int trial = 0; trial < 5; trial++) {
+            List<double[]> validationSet = new ArrayList<>();
+            int fullCorrect = 0;
+            for (int i = 0; i < 150; i++) {
+                double confidence = Math.round(random.nextDouble() * 40) / 40.0;
+                int firstClass = confidence >= 0.5 ? 1 : 0;
+                boolean firstRight = random.nextDouble() < 0.5 + Math.abs(confidence - 0.5);
+                int label = firstRight ? firstClass : 1 - firstClass;
+                boolean fullRight = random.nextDouble() < 0.9;
+                fullCorrect += fullRight ? 1 : 0;
+                validationSet.add(new double[]{confidence, fullRight ? label : 1 - label, label});
+            }
+
+            for (double target : new double[]{fullCorrect / 1.5, fullCorrect / 1.5 - 5, 100}) {
+                CascadeModel.Thresholds thresholds = CascadeModel.tune(firstStage, fullModel, validationSet, target);
+                int[] best = exhaustiveSearch(validationSet, target);
+                assertEquals(best[0] / 150.0, thresholds.getEarlyExitFraction(), 1e-12);
+                assertTrue(thresholds.getAccuracy() >= Math.min(target, fullCorrect / 1.5) - 1e-9);
+
+                CascadeModel cascade = new CascadeModel(firstStage, fullModel, thresholds);
+                int correct = 0;
+                for (double[] row : validationSet) {
+                    correct += (cascade.guess(row)[0] >= 0.5 ? 1 : 0) == (int) row[2] ? 1 : 0;
+                }
+                assertEquals(thresholds.getAccuracy(), correct / 1.5, 1e-9);
+                assertEquals(thresholds.getEarlyExitFraction(), cascade.getEarlyExitFraction(), 1e-12);
+                assertEquals(150, cascade.getGuessCount());
+            }
+        }
+    }
+
+    /**
+     * Testa se uma cascata gravada é carregada com os mesmos limiares e o mesmo modelo pequeno, se as entradas
+     * fáceis não chegam ao modelo completo, se `resetStats` põe as estatísticas a zero e se um arquivo sem cabeçalho
+     * é recusado.
+     */
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        NeuralNetwork small = new NeuralNetwork(4, 2, 1);
+        small.setFeatureIndices(6, new int[]{0, 1, 3, 5});
+        NeuralNetwork full = new NeuralNetwork(6, 8, 1);
+        int[] fullGuesses = new int[1];
+        InferenceModel countingFull = new InferenceModel() {
+            private final CompactModel model = CompactModel.fromNeuralNetwork(full);
+
+            @Override
+            public void guess(double[] input, double[] output) {
+                fullGuesses[0]++;
+                model.guess(input, output);
+            }
+
+            @Override
+            public int getInputNodes() {
+                return 6;
+            }
+
+            @Override
+            public int getOutputNodes() {
+                return 1;
+            }
+        };
+
+        SplittableRandom random = new SplittableRandom(12);
+        List<double[]> validationSet = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            double[] row = new double[7];
+            for (int j = 0; j < 6; j++) {
+                row[j] = random.nextDouble(-3, 3);
+            }
+            row[6] = full.guess(Arrays.copyOf(row, 6))[0] >= 0.5 ? 1 : 0;
+            validationSet.add(row);
+        }
+        CascadeModel.Thresholds thresholds = CascadeModel.tune(CompactModel.fromNeuralNetwork(small), countingFull, validationSet, 100);
+        assertEquals(100, thresholds.getAccuracy(), 0.0);
+
+        File file = File.createTempFile("cascade", ".txt");
+        file.deleteOnExit();
+        CascadeModel.save(file.getPath(), small, thresholds);
+        CascadeModel cascade = CascadeModel.load(file.getPath(), "SIGMOID", countingFull);
+        assertEquals(thresholds.getLowThreshold(), cascade.getLowThreshold(), 0.0);
+        assertEquals(thresholds.getHighThreshold(), cascade.getHighThreshold(), 0.0);
+
+        fullGuesses[0] = 0;
+        for (double[] row : validationSet) {
+            double[] input = Arrays.copyOf(row, 6);
+            double smallOutput = small.guess(input)[0];
+            double output = cascade.guess(input)[0];
+            if (smallOutput <= cascade.getLowThreshold() || smallOutput >= cascade.getHighThreshold()) {
+                assertEquals(smallOutput, output, 1e-12);
+            } else {
+                assertEquals(full.guess(input)[0], output, 1e-12);
+            }
+        }
+        assertEquals(cascade.getGuessCount() - cascade.getEarlyExitCount(), fullGuesses[0]);
+        assertEquals(60, cascade.getGuessCount());
+
+        cascade.resetStats();
+        assertEquals(0, cascade.getGuessCount());
+        assertEquals(0, cascade.getEarlyExitCount());
+        assertEquals(0, cascade.getEarlyExitFraction(), 0.0);
+
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("[0.1, 0.2]");
+        }
+        try {
+            CascadeModel.load(file.getPath(), "SIGMOID", countingFull);
+            fail("Esperada uma IOException para um arquivo sem cabeçalho da cascata.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("cascata"));
+        }
+    }
+
+    // Modelo que devolve uma das entradas
+    private static InferenceModel column(int index) {
+        return new InferenceModel() {
+            @Override
+            public void guess(double[] input, double[] output) {
+                output[0] = input[index];
+            }
+
+            @Override
+            public int getInputNodes() {
+                return 2;
+            }
+
+            @Override
+            public int getOutputNodes() {
+                return 1;
+            }
+        };
+    }
+
+    // Maior número de saídas antecipadas (e a acurácia correspondente) entre todos os pares de limiares
+    // tirados das confianças de validação; sem nenhum par admissível, 0 saídas
+    private static int[] exhaustiveSearch(List<double[]> validationSet, double target) {
+        List<Double> lows = new ArrayList<>();
+        List<Double> highs = new ArrayList<>();
+        lows.add(Double.NEGATIVE_INFINITY);
+        highs.add(Double.POSITIVE_INFINITY);
+        for (double[] row : validationSet) {
+            (row[0] < 0.5 ? lows : highs).add(row[0]);
+        }
+
+        int[] best = {0, -1};
+        for (double low : lows) {
+            for (double high : highs) {
+                int exits = 0;
+                int correct = 0;
+                for (double[] row : validationSet) {
+                    boolean exit = row[0] <= low || row[0] >= high;
+                    double output = exit ? row[0] : row[1];
+                    exits += exit ? 1 : 0;
+                    correct += (output >= 0.5 ? 1 : 0) == (int) row[2] ? 1 : 0;
+                }
+                if (correct * 100.0 / validationSet.size() >= target - 1e-9 && exits > best[0]) {
+                    best = new int[]{exits, correct};
+                }
+            }
+        }
+        return best;
+    }
+}
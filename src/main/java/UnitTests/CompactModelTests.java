@@ -0,0 +1,122 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.CompactModel;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe CompactModelTests: Testes unitários para a classe CompactModel.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class CompactModelTests {
+
+    /**
+     * Testa se o modelo compacto deduz as dimensões do arquivo e dá as mesmas predições que a rede que o gravou.
+     */
+    @Test
+    public void testLoadMatchesNeuralNetwork() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(12, 2, 6, 3);
+        nn.setActivationFunction("TANH");
+        File file = File.createTempFile("model_weights", ".txt");
+        file.deleteOnExit();
+        nn.saveWeights(file.getPath());
+
+        CompactModel model = CompactModel.load(file.getPath(), "TANH");
+        assertEquals(12, model.getInputNodes());
+        assertEquals(3, model.getOutputNodes());
+
+        SplittableRandom random = new SplittableRandom(8);
+        for (int i = 0; i < 10; i++) {
+            double[] input = new double[12];
+            for (int j = 0; j < input.length; j++) {
+                input[j] = random.nextDouble();
+            }
+            assertArrayEquals(nn.guess(input), model.guess(input), 1e-12);
+        }
+    }
+
+    /**
+     * Testa se o cabeçalho de features é aplicado a entradas completas.
+     */
+    @Test
+    public void testLoadWithFeatureHeader() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(3, 4, 1);
+        nn.setFeatureIndices(6, new int[]{0, 3, 4});
+        File file = File.createTempFile("model_weights", ".txt");
+        file.deleteOnExit();
+        nn.saveWeights(file.getPath());
+
+        CompactModel model = CompactModel.load(file.getPath(), "SIGMOID");
+        double[] raw = {0.5, 0.9, 0.1, 0.3, 0.7, 0.2};
+        assertEquals(6, model.getRawInputNodes());
+        assertArrayEquals(nn.guess(raw), model.guess(raw), 1e-12);
+    }
+
+    /**
+     * Testa se `loadCached` cria a cópia binária, a reutiliza e a descarta quando o arquivo de texto muda.
+     */
+    @Test
+    public void testLoadCachedRefreshesStaleCache() throws IOException {
+        File file = File.createTempFile("model_weights", ".txt");
+        File cache = new File(file.getPath() + ".bin");
+        file.deleteOnExit();
+        cache.deleteOnExit();
+
+        NeuralNetwork first = new NeuralNetwork(5, 3, 1);
+        first.saveWeights(file.getPath());
+        double[] input = {0.1, 0.2, 0.3, 0.4, 0.5};
+
+        assertArrayEquals(first.guess(input), CompactModel.loadCached(file.getPath(), "SIGMOID").guess(input), 1e-12);
+        assertTrue(cache.isFile());
+        assertArrayEquals(first.guess(input), CompactModel.loadCached(file.getPath(), "SIGMOID").guess(input), 1e-12);
+
+        NeuralNetwork second = new NeuralNetwork(5, 3, 1);
+        second.saveWeights(file.getPath());
+        assertTrue(file.setLastModified(file.lastModified() + 2000));
+        assertArrayEquals(second.guess(input), CompactModel.loadCached(file.getPath(), "SIGMOID").guess(input), 1e-12);
+    }
+
+    /**
+     * Testa se `loadCached` não usa a cópia binária de um arquivo reescrito com o mesmo tamanho e a mesma data
+     * de modificação (um novo treinamento gravado no mesmo segundo).
+     */
+    @Test
+    public void testLoadCachedDetectsSameSizeRewrite() throws IOException {
+        File file = File.createTempFile("model_weights", ".txt");
+        File cache = new File(file.getPath() + ".bin");
+        file.deleteOnExit();
+        cache.deleteOnExit();
+        double[] input = {0.5, 0.25};
+
+        Files.write(file.toPath(), "[0.25, 0.5]\n[0.75]\n[0.1]\n[0.2]\n".getBytes());
+        long modified = file.lastModified();
+        double[] first = CompactModel.loadCached(file.getPath(), "SIGMOID").guess(input);
+        assertTrue(cache.isFile());
+
+        Files.write(file.toPath(), "[0.75, 0.5]\n[0.25]\n[0.1]\n[0.2]\n".getBytes());
+        assertTrue(file.setLastModified(modified));
+        double[] expected = CompactModel.load(file.getPath(), "SIGMOID").guess(input);
+        assertNotEquals(first[0], expected[0], 1e-6);
+        assertArrayEquals(expected, CompactModel.loadCached(file.getPath(), "SIGMOID").guess(input), 0.0);
+    }
+
+    /**
+     * Testa se um arquivo com um número ímpar de matrizes é rejeitado.
+     */
+    @Test(expected = IOException.class)
+    public void testLoadRejectsIncompleteFile() throws IOException {
+        File file = File.createTempFile("model_weights", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), "[0.1, 0.2]\n[0.3]\n[0.4]\n".getBytes());
+        CompactModel.load(file.getPath(), "SIGMOID");
+    }
+}
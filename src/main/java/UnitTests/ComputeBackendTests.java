@@ -0,0 +1,115 @@
+package UnitTests;
+
+import basicneuralnetwork.computebackends.ComputeBackend;
+import basicneuralnetwork.computebackends.ComputeBackendFactory;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe ComputeBackendTests: Testes unitários para as implementações de ComputeBackend e a ComputeBackendFactory.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class ComputeBackendTests {
+
+    /**
+     * Testa se todos os backends dão exatamente os mesmos resultados, incluindo num número de linhas que não é múltiplo de 4.
+     */
+    @Test
+    public void testBackendsGiveIdenticalResults() {
+        int rows = 7;
+        int cols = 13;
+        SplittableRandom random = new SplittableRandom(2);
+        double[] a = randomArray(random, rows * cols);
+        double[] x = randomArray(random, cols);
+        double[] bias = randomArray(random, rows);
+        double[] errors = randomArray(random, rows);
+
+        ComputeBackend ejml = ComputeBackendFactory.getBackendByKey(ComputeBackend.EJML);
+        ComputeBackend scalar = ComputeBackendFactory.getBackendByKey(ComputeBackend.SCALAR);
+
+        double[] expected = new double[rows];
+        double[] actual = new double[rows];
+        ejml.multiplyAdd(a, rows, cols, x, bias, expected);
+        scalar.multiplyAdd(a, rows, cols, x, bias, actual);
+        assertArrayEquals(expected, actual, 0.0);
+
+        double[] expectedTransposed = new double[cols];
+        double[] actualTransposed = new double[cols];
+        ejml.multiplyTransposed(a, rows, cols, errors, expectedTransposed);
+        scalar.multiplyTransposed(a, rows, cols, errors, actualTransposed);
+        assertArrayEquals(expectedTransposed, actualTransposed, 0.0);
+
+        double[] expectedUpdate = a.clone();
+        double[] actualUpdate = a.clone();
+        ejml.addOuterProduct(expectedUpdate, rows, cols, errors, x);
+        scalar.addOuterProduct(actualUpdate, rows, cols, errors, x);
+        assertArrayEquals(expectedUpdate, actualUpdate, 0.0);
+        assertEquals(a[1 * cols + 2] + errors[1] * x[2], actualUpdate[1 * cols + 2], 0.0);
+    }
+
+    /**
+     * Testa se o treinamento dá os mesmos parâmetros com qualquer backend fixado por configuração.
+     */
+    @Test
+    public void testTrainingIsIndependentOfBackend() {
+        double[][] results = new double[2][];
+        String[] keys = {ComputeBackend.EJML, ComputeBackend.SCALAR};
+        String previous = ComputeBackendFactory.getOverride();
+        try {
+            for (int k = 0; k < keys.length; k++) {
+                ComputeBackendFactory.setOverride(keys[k]);
+                assertEquals(keys[k], ComputeBackendFactory.getBackend(10, 20).getName());
+
+                NeuralNetwork nn = new NeuralNetwork(20, 2, 10, 3);
+                SplittableRandom random = new SplittableRandom(6);
+                nn.importParameters(randomArray(random, nn.getParameterCount()));
+                for (int i = 0; i < 50; i++) {
+                    nn.train(randomArray(random, 20), new double[]{1, 0, i % 2});
+                }
+                results[k] = new double[nn.getParameterCount()];
+                nn.exportParameters(results[k]);
+            }
+        } finally {
+            ComputeBackendFactory.setOverride(previous);
+        }
+        assertArrayEquals(results[0], results[1], 0.0);
+    }
+
+    /**
+     * Testa se a calibração escolhe um backend registado e o memoriza para a forma da camada.
+     */
+    @Test
+    public void testCalibrationRemembersChoice() {
+        String previous = ComputeBackendFactory.getOverride();
+        try {
+            ComputeBackendFactory.setOverride(null);
+            ComputeBackend chosen = ComputeBackendFactory.getBackend(3, 5);
+            assertSame(chosen, ComputeBackendFactory.getBackend(3, 5));
+            assertEquals(chosen.getName(), ComputeBackendFactory.getSelectedBackends().get("3x5"));
+        } finally {
+            ComputeBackendFactory.setOverride(previous);
+        }
+    }
+
+    /**
+     * Testa se um backend desconhecido é rejeitado.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBackendRejected() {
+        ComputeBackendFactory.setOverride("GPU");
+    }
+
+    private static double[] randomArray(SplittableRandom random, int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextDouble(-1, 1);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,187 @@
+package UnitTests;
+
+import basicneuralnetwork.activationfunctions.ActivationFunction;
+import basicneuralnetwork.activationfunctions.SigmoidActivationFunction;
+import basicneuralnetwork.neuralnetwork.ConvolutionalLayer;
+import basicneuralnetwork.neuralnetwork.ConvolutionalNeuralNetwork;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe ConvolutionalNeuralNetworkTests: Testes unitários para as classes ConvolutionalLayer e ConvolutionalNeuralNetwork.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class ConvolutionalNeuralNetworkTests {
+
+    /**
+     * Testa se a convolução com im2col e pooling dá o mesmo resultado que a convolução calculada diretamente,
+     * com duas entradas de canal e uma função de ativação personalizada (ativada antes do pooling).
+     */
+    @Test
+    public void testForwardMatchesDirectConvolution() {
+        int height = 7;
+        int width = 6;
+        int channels = 2;
+        int filters = 3;
+        int kernel = 3;
+        int pool = 2;
+        ConvolutionalLayer layer = new ConvolutionalLayer(height, width, channels, filters, kernel, pool);
+        double[] parameters = new double[layer.getParameterCount()];
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = random.nextDouble(-1, 1);
+        }
+        layer.importParameters(parameters, 0);
+        double[] input = new double[layer.getInputSize()];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextDouble();
+        }
+
+        ActivationFunction sigmoid = new SigmoidActivationFunction();
+        double[] expected = directConvolution(input, parameters, height, width, channels, filters, kernel, pool, sigmoid);
+        assertEquals(3 * 2 * 2, layer.getOutputSize());
+        assertArrayEquals(expected, layer.guess(input, sigmoid), 1e-12);
+
+        // Uma função que não é reconhecida como monótona é aplicada a todas as posições antes do pooling
+        ActivationFunction custom = new ActivationFunction() {
+            public SimpleMatrix applyActivationFunctionToMatrix(SimpleMatrix input) {
+                return sigmoid.applyActivationFunctionToMatrix(input);
+            }
+
+            public SimpleMatrix applyDerivativeOfActivationFunctionToMatrix(SimpleMatrix input) {
+                return sigmoid.applyDerivativeOfActivationFunctionToMatrix(input);
+            }
+
+            public String getName() {
+                return "CUSTOM";
+            }
+        };
+        assertArrayEquals(expected, layer.guess(input, custom), 1e-12);
+    }
+
+    /**
+     * Testa se a rede aprende a distinguir barras verticais de horizontais em qualquer posição, com menos parâmetros
+     * do que uma rede densa com os mesmos neurônios ocultos.
+     */
+    @Test
+    public void testLearnsBarOrientation() {
+        ConvolutionalNeuralNetwork cnn = new ConvolutionalNeuralNetwork(8, 8, 4, 3, 2, 4, 1);
+        cnn.setLearningRate(0.5);
+        cnn.initializeParameters("XAVIER", 1);
+        assertTrue(cnn.getParameterCount() < NeuralNetwork.getParameterCount(64, 1, 4, 1));
+
+        SplittableRandom random = new SplittableRandom(3);
+        for (int i = 0; i < 3000; i++) {
+            boolean vertical = random.nextBoolean();
+            cnn.train(bar(vertical, random.nextInt(8)), new double[]{vertical ? 1 : 0});
+        }
+
+        for (int position = 0; position < 8; position++) {
+            assertTrue(cnn.guess(bar(true, position))[0] > 0.5);
+            assertTrue(cnn.guess(bar(false, position))[0] < 0.5);
+        }
+    }
+
+    /**
+     * Testa se os pesos gravados são carregados por uma rede com as mesmas dimensões e se um arquivo
+     * com outras dimensões é recusado sem alterar a rede.
+     */
+    @Test
+    public void testSaveAndLoadWeights() throws IOException {
+        ConvolutionalNeuralNetwork original = new ConvolutionalNeuralNetwork(10, 10, 3, 3, 2, 5, 2);
+        original.setActivationFunction("TANH");
+        File file = File.createTempFile("conv_weights", ".txt");
+        file.deleteOnExit();
+        original.saveWeights(file.getPath());
+
+        ConvolutionalNeuralNetwork loaded = new ConvolutionalNeuralNetwork(10, 10, 3, 3, 2, 5, 2);
+        loaded.setActivationFunction("TANH");
+        loaded.loadWeights(file.getPath());
+        double[] input = bar(true, 4);
+        double[] padded = new double[100];
+        System.arraycopy(input, 0, padded, 0, input.length);
+        assertArrayEquals(original.guess(padded), loaded.guess(padded), 0.0);
+
+        ConvolutionalNeuralNetwork other = new ConvolutionalNeuralNetwork(10, 10, 3, 5, 2, 5, 2);
+        double[] before = other.guess(padded);
+        try {
+            other.loadWeights(file.getPath());
+            fail("Esperada uma IOException para um arquivo com outras dimensões.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("10 10 1 3 5 2"));
+        }
+        assertArrayEquals(before, other.guess(padded), 0.0);
+
+        try (PrintWriter writer = new PrintWriter(file)) {
+            writer.println("[0.1, 0.2]");
+        }
+        try {
+            loaded.loadWeights(file.getPath());
+            fail("Esperada uma IOException para um arquivo sem cabeçalho de convolução.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("convolução"));
+        }
+    }
+
+    // Imagem 8x8 com uma barra vertical ou horizontal na coluna (ou linha) indicada
+    private static double[] bar(boolean vertical, int position) {
+        double[] image = new double[64];
+        for (int i = 0; i < 8; i++) {
+            image[vertical ? i * 8 + position : position * 8 + i] = 1;
+        }
+        return image;
+    }
+
+    private static double[] directConvolution(double[] input, double[] parameters, int height, int width, int channels,
+                                              int filters, int kernel, int pool, ActivationFunction activationFunction) {
+        int convolutionHeight = height - kernel + 1;
+        int convolutionWidth = width - kernel + 1;
+        int patch = channels * kernel * kernel;
+        double[][][] activated = new double[filters][convolutionHeight][convolutionWidth];
+        for (int f = 0; f < filters; f++) {
+            for (int y = 0; y < convolutionHeight; y++) {
+                for (int x = 0; x < convolutionWidth; x++) {
+                    double sum = parameters[filters * patch + f];
+                    for (int c = 0; c < channels; c++) {
+                        for (int ky = 0; ky < kernel; ky++) {
+                            for (int kx = 0; kx < kernel; kx++) {
+                                sum += parameters[f * patch + (c * kernel + ky) * kernel + kx]
+                                        * input[c * height * width + (y + ky) * width + x + kx];
+                            }
+                        }
+                    }
+                    activated[f][y][x] = activationFunction.apply(sum);
+                }
+            }
+        }
+
+        int outputHeight = convolutionHeight / pool;
+        int outputWidth = convolutionWidth / pool;
+        double[] output = new double[filters * outputHeight * outputWidth];
+        int o = 0;
+        for (int f = 0; f < filters; f++) {
+            for (int y = 0; y < outputHeight; y++) {
+                for (int x = 0; x < outputWidth; x++) {
+                    double max = Double.NEGATIVE_INFINITY;
+                    for (int py = 0; py < pool; py++) {
+                        for (int px = 0; px < pool; px++) {
+                            max = Math.max(max, activated[f][y * pool + py][x * pool + px]);
+                        }
+                    }
+                    output[o++] = max;
+                }
+            }
+        }
+        return output;
+    }
+}
@@ -0,0 +1,95 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.CrossValidation;
+import basicneuralnetwork.neuralnetwork.DataPreprocessor;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import basicneuralnetwork.neuralnetwork.TrainingOptions;
+import org.junit.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe CrossValidationTests: Testes unitários para a classe CrossValidation.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class CrossValidationTests {
+
+    /**
+     * Testa se a validação cruzada treina um modelo por partição e agrega as métricas.
+     */
+    @Test
+    public void testRunAggregatesFolds() {
+        List<double[]> dataset = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            double[] row = new double[401];
+            for (int j = 0; j < 400; j++) {
+                row[j] = Math.random();
+            }
+            row[400] = (i % 3 == 0) ? 1 : 0;
+            dataset.add(row);
+        }
+
+        TrainingOptions options = new TrainingOptions(0.0, 3, 100);
+        options.setSeed(5L);
+        CrossValidation.Result result = CrossValidation.run(new NeuralNetwork(400, 6, 1), dataset, 3, true, options, 3);
+
+        assertEquals(3, result.getFolds());
+        double sum = 0.0;
+        for (int f = 0; f < 3; f++) {
+            assertEquals(3, result.getIterations(f));
+            assertTrue(result.getAccuracy(f) >= 0 && result.getAccuracy(f) <= 100);
+            sum += result.getMSE(f);
+        }
+        assertEquals(sum / 3, result.getMeanMSE(), 1e-12);
+        assertTrue(result.getStdMSE() >= 0);
+    }
+
+    /**
+     * Testa se a partição excluída de cada modelo só é lida na avaliação final: com uma thread, as partições são
+     * treinadas por ordem, e as linhas da partição f só podem aparecer nas duas leituras (MSE e acurácia) que
+     * terminam o treinamento da partição f.
+     */
+    @Test
+    public void testHeldOutFoldOnlyScored() {
+        List<double[]> rows = TestFixtures.randomRows(24, 4, 2, 1);
+        List<Integer> reads = Collections.synchronizedList(new ArrayList<>());
+        List<double[]> dataset = new AbstractList<double[]>() {
+            @Override
+            public double[] get(int index) {
+                reads.add(index);
+                return rows.get(index);
+            }
+
+            @Override
+            public int size() {
+                return rows.size();
+            }
+        };
+
+        TrainingOptions options = new TrainingOptions(0.0, 20, 3);
+        options.setSeed(9L);
+        CrossValidation.run(new NeuralNetwork(4, 3, 1), dataset, 4, true, options, 1);
+        int[][] folds = DataPreprocessor.kFoldIndices(rows, 4, true, 9L);
+
+        // A primeira passagem é a divisão em partições
+        int position = rows.size();
+        for (int[] fold : folds) {
+            while (position < reads.size() && Arrays.binarySearch(fold, reads.get(position)) < 0) {
+                position++;
+            }
+            for (int i = 0; i < 2 * fold.length; i++, position++) {
+                assertTrue(position < reads.size());
+                assertTrue(Arrays.binarySearch(fold, reads.get(position)) >= 0);
+            }
+        }
+        assertEquals(reads.size(), position);
+    }
+}
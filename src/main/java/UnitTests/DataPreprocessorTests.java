@@ -111,4 +111,124 @@ public class DataPreprocessorTests {
         assertEquals(0, trainSet.size());
         assertEquals(10, testSet.size());
     }
+
+    /**
+     * Testa se `kFoldIndices` divide os índices em partições disjuntas que cobrem o conjunto inteiro
+     * e, com estratificação, mantêm a proporção de rótulos.
+     */
+    @Test
+    public void testKFoldIndicesStratified() {
+        List<double[]> dataset = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            dataset.add(new double[]{i, i < 5 ? 1 : 0});
+        }
+
+        int[][] folds = DataPreprocessor.kFoldIndices(dataset, 5, true, 1L);
+
+        boolean[] seen = new boolean[dataset.size()];
+        for (int[] fold : folds) {
+            assertEquals(4, fold.length);
+            int positives = 0;
+            for (int index : fold) {
+                assertFalse(seen[index]);
+                seen[index] = true;
+                positives += (int) dataset.get(index)[1];
+            }
+            assertEquals(1, positives);
+        }
+
+        int[] train = DataPreprocessor.complementIndices(dataset.size(), folds[0]);
+        assertEquals(16, train.length);
+        for (int index : folds[0]) {
+            assertTrue(Arrays.binarySearch(train, index) < 0);
+        }
+    }
+
+    /**
+     * Testa se `indexView` devolve as linhas originais, sem cópias.
+     */
+    @Test
+    public void testIndexViewSharesRows() {
+        List<double[]> dataset = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            dataset.add(new double[]{i, 0});
+        }
+
+        List<double[]> view = DataPreprocessor.indexView(dataset, new int[]{1, 3});
+        assertEquals(2, view.size());
+        assertSame(dataset.get(1), view.get(0));
+        assertSame(dataset.get(3), view.get(1));
+    }
+
+    /**
+     * Testa se `selectFeatures` descarta as features constantes e `compactDataset` mantém as restantes e o rótulo.
+     */
+    @Test
+    public void testSelectFeaturesDropsConstantColumns() {
+        List<double[]> dataset = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            dataset.add(new double[]{0.0, i / 10.0, 0.5, 1e-5 * (i % 2), i % 2});
+        }
+
+        int[] features = DataPreprocessor.selectFeatures(dataset, 4, DataPreprocessor.DEFAULT_VARIANCE_THRESHOLD);
+        assertArrayEquals(new int[]{1}, features);
+
+        List<double[]> compact = DataPreprocessor.compactDataset(dataset, features);
+        assertEquals(10, compact.size());
+        assertArrayEquals(new double[]{0.3, 1}, compact.get(3), 0.0);
+    }
+
+    /**
+     * Testa se o limiar de `selectFeatures` é relativo à maior variância: com os pixels na escala de `loadDataset`
+     * ([0, 1/255]) as features que variam são mantidas, e o resultado não muda com a escala.
+     */
+    @Test
+    public void testSelectFeaturesAtDatasetScale() throws IOException {
+        List<double[]> dataset = new ArrayList<>();
+        List<double[]> scaled = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            double[] row = {0.0, (i % 5) / 255.0 / 255.0 * 40, i % 2 / 255.0, 1 / 255.0, 1e-9 * (i % 3), i % 2};
+            dataset.add(row);
+            double[] scaledRow = row.clone();
+            for (int j = 0; j < 5; j++) {
+                scaledRow[j] *= 255;
+            }
+            scaled.add(scaledRow);
+        }
+
+        int[] features = DataPreprocessor.selectFeatures(dataset, 5, DataPreprocessor.DEFAULT_VARIANCE_THRESHOLD);
+        assertArrayEquals(new int[]{1, 2}, features);
+        assertArrayEquals(features, DataPreprocessor.selectFeatures(scaled, 5, DataPreprocessor.DEFAULT_VARIANCE_THRESHOLD));
+
+        // No conjunto de dados real, nenhuma variância passa de 1e-4, mas os pixels que variam são mantidos
+        List<double[]> trainSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(DataPreprocessor.loadDataset("dataset/dataset/dataset.csv", "dataset/dataset/labels.csv"),
+                0.6, trainSet, new ArrayList<>());
+        features = DataPreprocessor.selectFeatures(trainSet, 400, DataPreprocessor.DEFAULT_VARIANCE_THRESHOLD);
+        assertTrue(features.length > 100 && features.length < 400);
+    }
+
+    /**
+     * Testa se `parseLabeledRow` normaliza os pixels, lê o rótulo e recusa rótulos inválidos.
+     */
+    @Test
+    public void testParseLabeledRow() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            line.append(i == 5 ? "255" : "0").append(',');
+        }
+
+        double[] row = DataPreprocessor.parseLabeledRow(line + "1");
+        assertEquals(401, row.length);
+        assertEquals(1.0, row[5], 0.0);
+        assertEquals(0.0, row[6], 0.0);
+        assertEquals(1.0, row[400], 0.0);
+
+        try {
+            DataPreprocessor.parseLabeledRow(line + "2");
+            fail("Esperada uma IOException para um rótulo inválido.");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("Rótulo inválido"));
+        }
+    }
 }
@@ -1,6 +1,7 @@
 package UnitTests;
 
 import basicneuralnetwork.neuralnetwork.DigitClassifier;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
 import org.junit.Test;
 
 import java.io.*;
@@ -162,4 +163,211 @@ public class DigitClassifierTests {
             System.setErr(originalErr);
         }
     }
+
+    /**
+     * Testa se um arquivo de pesos com valores inválidos é reportado como erro ao carregar os pesos,
+     * no modo normal e no modo de arranque rápido.
+     */
+    @Test
+    public void testMalformedWeightsFile() throws IOException {
+        String input = generateRepeatedString("0,", 399) + "0";
+
+        InputStream originalIn = System.in;
+        PrintStream originalErr = System.err;
+
+        File weightsFile = new File("src/main/java/model_weights.txt");
+        File tempFile = new File("model_weights_backup.txt");
+        assertTrue(weightsFile.renameTo(tempFile));
+
+        try {
+            try (PrintWriter writer = new PrintWriter(weightsFile)) {
+                writer.println("[0.1, abc, 0.3]");
+                writer.println("[0.5]");
+            }
+            for (String[] arguments : new String[][]{{}, {"--fast"}}) {
+                ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+                System.setIn(new ByteArrayInputStream(input.getBytes()));
+                System.setErr(new PrintStream(errorStream));
+
+                DigitClassifier.main(arguments);
+
+                String errorOutput = errorStream.toString().trim();
+                assertTrue(errorOutput, errorOutput.startsWith("Erro ao carregar os pesos:"));
+                assertTrue(errorOutput, errorOutput.contains("abc"));
+            }
+        } finally {
+            weightsFile.delete();
+            tempFile.renameTo(weightsFile);
+            System.setIn(originalIn);
+            System.setErr(originalErr);
+        }
+    }
+
+    /**
+     * Testa se o modo de arranque rápido dá a mesma predição que o modo normal e só escreve o tempo quando pedido.
+     */
+    @Test
+    public void testFastModeMatchesDefault() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            sb.append(i % 7 == 0 ? "200" : "0").append(i < 399 ? "," : "");
+        }
+        String input = sb.toString();
+
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+
+        try {
+            String[] outputs = new String[2];
+            String[][] arguments = {{}, {"--fast", "--timing"}};
+            String timingOutput = "";
+            for (int run = 0; run < 2; run++) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+                System.setIn(new ByteArrayInputStream(input.getBytes()));
+                System.setOut(new PrintStream(outputStream));
+                System.setErr(new PrintStream(errorStream));
+
+                DigitClassifier.main(arguments[run]);
+
+                outputs[run] = outputStream.toString().trim();
+                if (run == 0) {
+                    assertTrue(errorStream.toString().trim().isEmpty());
+                } else {
+                    timingOutput = errorStream.toString();
+                }
+            }
+
+            assertEquals(outputs[0], outputs[1]);
+            assertTrue(timingOutput.contains("primeira predição"));
+        } finally {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+    }
+
+    /**
+     * Testa se um ensemble com várias cópias do modelo gravado classifica como o próprio modelo.
+     */
+    @Test
+    public void testEnsembleMatchesSingleModel() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            sb.append(i % 5 == 0 ? "180" : "0").append(i < 399 ? "," : "");
+        }
+        String input = sb.toString();
+        String weights = "src/main/java/model_weights.txt";
+
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+
+        try {
+            String[] outputs = new String[2];
+            String[][] arguments = {{}, {"--ensemble", weights + "," + weights + "," + weights}};
+            for (int run = 0; run < 2; run++) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+                System.setIn(new ByteArrayInputStream(input.getBytes()));
+                System.setOut(new PrintStream(outputStream));
+                System.setErr(new PrintStream(errorStream));
+
+                DigitClassifier.main(arguments[run]);
+
+                outputs[run] = outputStream.toString().trim();
+                assertTrue(errorStream.toString().trim().isEmpty());
+            }
+
+            assertEquals(outputs[0], outputs[1]);
+        } finally {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+    }
+
+    /**
+     * Testa se o modo `--stream` classifica cada linha, reporta as linhas inválidas sem parar
+     * e escreve o relatório de latências a pedido e no fim.
+     */
+    @Test
+    public void testStreamModeReportsLatency() {
+        String valid = generateRepeatedString("0,", 399) + "0";
+        String input = valid + "\n" + generateRepeatedString("0,", 19) + "0\n"
+                + DigitClassifier.LATENCY_COMMAND + "\n" + valid + "\n";
+
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+        try {
+            System.setIn(new ByteArrayInputStream(input.getBytes()));
+            System.setOut(new PrintStream(outputStream));
+            System.setErr(new PrintStream(errorStream));
+
+            DigitClassifier.main(new String[]{"--stream", "--latency"});
+        } finally {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+
+        String[] predictions = outputStream.toString().trim().split("\\R");
+        assertEquals(2, predictions.length);
+        assertEquals(predictions[0], predictions[1]);
+
+        String errors = errorStream.toString();
+        assertTrue(errors.contains("Erro ao processar a entrada: Erro: Esperados 400 valores de entrada."));
+        assertEquals(2, errors.split("Latências:", -1).length - 1);
+        assertTrue(errors.contains("predição: n=2 "));
+    }
+
+    /**
+     * Testa se, no modo `--stream` com `--cascade`, as estatísticas de saídas antecipadas só contam as linhas
+     * da entrada e não a predição de aquecimento.
+     */
+    @Test
+    public void testCascadeStatsExcludeWarmUp() throws IOException {
+        File weights = File.createTempFile("cascade_weights", ".txt");
+        File cascadeFile = File.createTempFile("cascade", ".txt");
+        weights.deleteOnExit();
+        cascadeFile.deleteOnExit();
+        new NeuralNetwork(400, 2, 1).saveWeights(weights.getPath());
+        try (PrintWriter writer = new PrintWriter(cascadeFile);
+             BufferedReader reader = new BufferedReader(new FileReader(weights))) {
+            // Limiares que fazem todas as entradas sair no modelo pequeno
+            writer.println("# cascade 0.49 0.5");
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.println(line);
+            }
+        }
+
+        String valid = generateRepeatedString("0,", 399) + "0";
+        String input = valid + "\n" + valid + "\n" + valid + "\n";
+
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+
+        ByteArrayOutputStream errorStream = new ByteArrayOutputStream();
+        try {
+            System.setIn(new ByteArrayInputStream(input.getBytes()));
+            System.setOut(new PrintStream(new ByteArrayOutputStream()));
+            System.setErr(new PrintStream(errorStream));
+
+            DigitClassifier.main(new String[]{"--stream", "--cascade", cascadeFile.getPath()});
+        } finally {
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+
+        String errors = errorStream.toString();
+        assertTrue(errors, errors.contains("Saídas antecipadas: 3 de 3 predições"));
+    }
 }
@@ -1,10 +1,20 @@
 package UnitTests;
 
+import basicneuralnetwork.neuralnetwork.AsyncCheckpointer;
 import basicneuralnetwork.neuralnetwork.DigitTrainer;
 import basicneuralnetwork.neuralnetwork.NeuralNetwork;
 import basicneuralnetwork.neuralnetwork.DataPreprocessor;
+import basicneuralnetwork.neuralnetwork.ImageAugmenter;
+import basicneuralnetwork.neuralnetwork.TrainingCheckpoint;
+import basicneuralnetwork.neuralnetwork.TrainingMetricsSink;
+import basicneuralnetwork.neuralnetwork.TrainingOptions;
+import basicneuralnetwork.neuralnetwork.TrainingState;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -125,4 +135,348 @@ public class DigitTrainerTests {
 
         DigitTrainer.evaluateNeuralNetwork(nn, testSet);
     }
+
+    /**
+     * Testa se o sink de métricas mantém em memória apenas as últimas iterações registadas.
+     */
+    @Test
+    public void testMetricsSinkKeepsOnlyLastIterations() throws IOException {
+        try (TrainingMetricsSink sink = new TrainingMetricsSink(3)) {
+            for (int i = 1; i <= 5; i++) {
+                sink.record(i, i * 0.1, i * 0.2);
+            }
+
+            assertEquals(5, sink.getRecordedCount());
+            assertEquals(3, sink.size());
+            assertEquals(3, sink.getIteration(0));
+            assertEquals(5, sink.getIteration(2));
+            assertEquals(0.5, sink.getTrainMse(2), 1e-12);
+            assertEquals(1.0, sink.getValidationMse(2), 1e-12);
+        }
+    }
+
+    /**
+     * Testa se o treinamento grava uma linha por iteração no CSV do sink de métricas.
+     */
+    @Test
+    public void testTrainNeuralNetworkStreamsMetricsToCsv() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        nn.setLearningRate(0.01);
+
+        List<double[]> trainSet = TestFixtures.randomRows(10, 400, 2, 8);
+
+        File csv = File.createTempFile("mse_history", ".csv");
+        csv.deleteOnExit();
+
+        TrainingOptions options = new TrainingOptions(0.0, 4, 100);
+        try (TrainingMetricsSink sink = new TrainingMetricsSink(csv.getPath(), 2)) {
+            options.setMetricsSink(sink);
+            DigitTrainer.trainNeuralNetwork(nn, trainSet, trainSet, options);
+            assertEquals(2, sink.size());
+        }
+
+        List<String> lines = Files.readAllLines(csv.toPath(), StandardCharsets.UTF_8);
+        assertEquals(5, lines.size());
+        assertEquals(TrainingMetricsSink.CSV_HEADER.trim(), lines.get(0));
+        assertTrue(lines.get(4).startsWith("4,"));
+    }
+
+    /**
+     * Testa se o checkpoint gravado em segundo plano restaura os mesmos pesos e o mesmo estado.
+     */
+    @Test
+    public void testCheckpointIsRestorable() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        nn.setLearningRate(0.05);
+        TrainingState state = new TrainingState(nn, 42L);
+        state.setIteration(7);
+        state.setPatienceCounter(2);
+
+        File checkpoint = File.createTempFile("training_checkpoint", ".bin");
+        checkpoint.deleteOnExit();
+
+        try (AsyncCheckpointer checkpointer = new AsyncCheckpointer(nn, checkpoint.getPath())) {
+            assertTrue(checkpointer.checkpoint(nn, state));
+            checkpointer.awaitIdle();
+            assertEquals(1, checkpointer.getWrittenCount());
+        }
+
+        TrainingCheckpoint restored = TrainingCheckpoint.read(checkpoint.getPath());
+        NeuralNetwork loaded = restored.restoreNeuralNetwork();
+        TrainingState loadedState = restored.restoreTrainingState();
+
+        double[] input = new double[400];
+        input[7] = 1.0;
+        assertArrayEquals(nn.guess(input), loaded.guess(input), 0.0);
+        assertEquals(0.05, loaded.getLearningRate(), 0.0);
+        assertEquals(7, loadedState.getIteration());
+        assertEquals(2, loadedState.getPatienceCounter());
+        assertEquals(42L, loadedState.getSeed());
+    }
+
+    /**
+     * Testa se um treinamento retomado a partir de um checkpoint termina com os mesmos pesos
+     * que um treinamento sem interrupções.
+     */
+    @Test
+    public void testResumeContinuesExactly() throws IOException {
+        List<double[]> trainSet = TestFixtures.randomRows(10, 400, 2, 9);
+
+        NeuralNetwork uninterrupted = new NeuralNetwork(400, 10, 1);
+        NeuralNetwork interrupted = uninterrupted.copy();
+
+        TrainingOptions options = new TrainingOptions(0.0, 6, 100);
+        options.setSeed(7L);
+        options.setShuffle(true);
+        DigitTrainer.trainNeuralNetwork(uninterrupted, trainSet, trainSet, options);
+
+        File checkpoint = File.createTempFile("training_checkpoint", ".bin");
+        checkpoint.deleteOnExit();
+
+        TrainingOptions firstHalf = new TrainingOptions(0.0, 3, 100);
+        firstHalf.setSeed(7L);
+        firstHalf.setShuffle(true);
+        try (AsyncCheckpointer checkpointer = new AsyncCheckpointer(interrupted, checkpoint.getPath())) {
+            firstHalf.setCheckpointer(checkpointer);
+            DigitTrainer.trainNeuralNetwork(interrupted, trainSet, trainSet, firstHalf);
+        }
+
+        NeuralNetwork resumed = DigitTrainer.resume(checkpoint.getPath(), trainSet, trainSet, options);
+
+        double[] expected = new double[uninterrupted.getParameterCount()];
+        double[] actual = new double[resumed.getParameterCount()];
+        uninterrupted.exportParameters(expected);
+        resumed.exportParameters(actual);
+        assertArrayEquals(expected, actual, 0.0);
+    }
+
+    /**
+     * Testa se um treinamento retomado com `TrainingOptions` novos (com outra semente) valida na mesma subamostra
+     * do conjunto de validação que o treinamento original, que vem da semente guardada no checkpoint.
+     */
+    @Test
+    public void testResumeKeepsValidationSample() throws IOException {
+        List<double[]> trainSet = TestFixtures.randomRows(10, 400, 2, 1);
+        List<double[]> validationSet = TestFixtures.randomRows(10, 400, 2, 2);
+        NeuralNetwork uninterrupted = new NeuralNetwork(400, 10, 1);
+        NeuralNetwork interrupted = uninterrupted.copy();
+
+        TrainingOptions options = new TrainingOptions(0.0, 6, 100);
+        options.setSeed(7L);
+        options.setValidationSampleSize(4);
+        try (TrainingMetricsSink sink = new TrainingMetricsSink(6)) {
+            options.setMetricsSink(sink);
+            DigitTrainer.trainNeuralNetwork(uninterrupted, trainSet, validationSet, options);
+
+            File checkpoint = File.createTempFile("training_checkpoint", ".bin");
+            checkpoint.deleteOnExit();
+            TrainingOptions firstHalf = new TrainingOptions(0.0, 3, 100);
+            firstHalf.setSeed(7L);
+            firstHalf.setValidationSampleSize(4);
+            try (AsyncCheckpointer checkpointer = new AsyncCheckpointer(interrupted, checkpoint.getPath())) {
+                firstHalf.setCheckpointer(checkpointer);
+                DigitTrainer.trainNeuralNetwork(interrupted, trainSet, validationSet, firstHalf);
+            }
+
+            TrainingOptions restarted = new TrainingOptions(0.0, 6, 100);
+            restarted.setSeed(99L);
+            restarted.setValidationSampleSize(4);
+            try (TrainingMetricsSink resumedSink = new TrainingMetricsSink(6)) {
+                restarted.setMetricsSink(resumedSink);
+                DigitTrainer.resume(checkpoint.getPath(), trainSet, validationSet, restarted);
+
+                assertEquals(3, resumedSink.size());
+                for (int i = 0; i < resumedSink.size(); i++) {
+                    assertEquals(sink.getIteration(3 + i), resumedSink.getIteration(i));
+                    assertEquals(sink.getValidationMse(3 + i), resumedSink.getValidationMse(i), 0.0);
+                }
+            }
+        }
+    }
+
+    /**
+     * Testa se, após o Early Stopping, a rede fica com os pesos da melhor iteração de validação.
+     */
+    @Test
+    public void testTrainNeuralNetworkRestoresBestWeights() {
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        nn.setLearningRate(0.5);
+
+        List<double[]> trainSet = new ArrayList<>();
+        List<double[]> validationSet = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            double[] row = new double[401];
+            for (int j = 0; j < 400; j++) {
+                row[j] = Math.random();
+            }
+            row[400] = (i % 2 == 0) ? 0 : 1;
+            trainSet.add(row);
+
+            double[] flipped = row.clone();
+            flipped[400] = 1 - row[400];
+            validationSet.add(flipped);
+        }
+
+        TrainingOptions options = new TrainingOptions(0.0, 30, 3);
+        try (TrainingMetricsSink sink = new TrainingMetricsSink(30)) {
+            options.setMetricsSink(sink);
+            DigitTrainer.trainNeuralNetwork(nn, trainSet, validationSet, options);
+
+            double bestValidationMSE = Double.MAX_VALUE;
+            for (int i = 0; i < sink.size(); i++) {
+                bestValidationMSE = Math.min(bestValidationMSE, sink.getValidationMse(i));
+            }
+            assertEquals(bestValidationMSE, DigitTrainer.calculateMSE(nn, validationSet), 1e-12);
+        } catch (IOException e) {
+            fail("Erro ao fechar o sink: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Testa se a validação em pipeline produz os mesmos pesos e as mesmas métricas que a validação em série.
+     */
+    @Test
+    public void testPipelinedValidationMatchesSerial() throws IOException {
+        List<double[]> trainSet = TestFixtures.randomRows(10, 400, 2, 3);
+        List<double[]> validationSet = TestFixtures.randomRows(6, 400, 2, 4);
+
+        NeuralNetwork serial = new NeuralNetwork(400, 10, 1);
+        NeuralNetwork pipelined = serial.copy();
+
+        TrainingOptions serialOptions = new TrainingOptions(0.0, 5, 100);
+        TrainingOptions pipelinedOptions = new TrainingOptions(0.0, 5, 100);
+        pipelinedOptions.setPipelinedValidation(true);
+
+        try (TrainingMetricsSink serialSink = new TrainingMetricsSink(5);
+             TrainingMetricsSink pipelinedSink = new TrainingMetricsSink(5)) {
+            serialOptions.setMetricsSink(serialSink);
+            pipelinedOptions.setMetricsSink(pipelinedSink);
+            DigitTrainer.trainNeuralNetwork(serial, trainSet, validationSet, serialOptions);
+            DigitTrainer.trainNeuralNetwork(pipelined, trainSet, validationSet, pipelinedOptions);
+
+            assertEquals(5, pipelinedSink.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(serialSink.getIteration(i), pipelinedSink.getIteration(i));
+                assertEquals(serialSink.getValidationMse(i), pipelinedSink.getValidationMse(i), 0.0);
+            }
+        }
+
+        double[] expected = new double[serial.getParameterCount()];
+        double[] actual = new double[pipelined.getParameterCount()];
+        serial.exportParameters(expected);
+        pipelined.exportParameters(actual);
+        assertArrayEquals(expected, actual, 0.0);
+    }
+
+    /**
+     * Testa se, com `validationInterval`, só as iterações validadas (e a última) têm MSE de validação.
+     */
+    @Test
+    public void testValidationIntervalSkipsIterations() throws IOException {
+        List<double[]> trainSet = TestFixtures.randomRows(10, 400, 2, 5);
+
+        TrainingOptions options = new TrainingOptions(0.0, 5, 100);
+        options.setValidationInterval(2);
+        options.setValidationSampleSize(4);
+        options.setPipelinedValidation(true);
+        try (TrainingMetricsSink sink = new TrainingMetricsSink(5)) {
+            options.setMetricsSink(sink);
+            DigitTrainer.trainNeuralNetwork(new NeuralNetwork(400, 10, 1), trainSet, trainSet, options);
+
+            assertEquals(5, sink.size());
+            assertTrue(Double.isNaN(sink.getValidationMse(0)));
+            assertFalse(Double.isNaN(sink.getValidationMse(1)));
+            assertTrue(Double.isNaN(sink.getValidationMse(2)));
+            assertFalse(Double.isNaN(sink.getValidationMse(3)));
+            assertFalse(Double.isNaN(sink.getValidationMse(4)));
+        }
+    }
+
+    /**
+     * Testa se o Early Stopping aplicado com uma iteração de atraso restaura os pesos da melhor iteração validada.
+     */
+    @Test
+    public void testPipelinedValidationRestoresBestWeights() throws IOException {
+        List<double[]> trainSet = TestFixtures.randomRows(10, 400, 2, 6);
+        List<double[]> validationSet = new ArrayList<>();
+        for (double[] row : trainSet) {
+            double[] flipped = row.clone();
+            flipped[400] = 1 - row[400];
+            validationSet.add(flipped);
+        }
+
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        nn.setLearningRate(0.5);
+        TrainingOptions options = new TrainingOptions(0.0, 30, 3);
+        options.setPipelinedValidation(true);
+        try (TrainingMetricsSink sink = new TrainingMetricsSink(30)) {
+            options.setMetricsSink(sink);
+            DigitTrainer.trainNeuralNetwork(nn, trainSet, validationSet, options);
+
+            double bestValidationMSE = Double.MAX_VALUE;
+            for (int i = 0; i < sink.size(); i++) {
+                if (!Double.isNaN(sink.getValidationMse(i))) {
+                    bestValidationMSE = Math.min(bestValidationMSE, sink.getValidationMse(i));
+                }
+            }
+            assertEquals(bestValidationMSE, DigitTrainer.calculateMSE(nn, validationSet), 1e-12);
+        }
+    }
+
+    /**
+     * Testa se o treinamento com entradas esparsas (escolhido automaticamente abaixo do limiar de densidade)
+     * produz os mesmos pesos que o treinamento denso.
+     */
+    @Test
+    public void testSparseTrainingMatchesDense() {
+        List<double[]> trainSet = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            double[] row = new double[401];
+            for (int j = i; j < 400; j += 7) {
+                row[j] = Math.random();
+            }
+            row[400] = (i % 2 == 0) ? 0 : 1;
+            trainSet.add(row);
+        }
+
+        NeuralNetwork dense = new NeuralNetwork(400, 10, 1);
+        NeuralNetwork sparse = dense.copy();
+
+        TrainingOptions denseOptions = new TrainingOptions(0.0, 3, 100);
+        denseOptions.setSparseDensityThreshold(0.0);
+        TrainingOptions sparseOptions = new TrainingOptions(0.0, 3, 100);
+        DigitTrainer.trainNeuralNetwork(dense, trainSet, trainSet, denseOptions);
+        DigitTrainer.trainNeuralNetwork(sparse, trainSet, trainSet, sparseOptions);
+
+        double[] expected = new double[dense.getParameterCount()];
+        double[] actual = new double[sparse.getParameterCount()];
+        dense.exportParameters(expected);
+        sparse.exportParameters(actual);
+        assertArrayEquals(expected, actual, 1e-12);
+    }
+
+    /**
+     * Testa se o treinamento com augmentation dá os mesmos pesos com uma ou várias threads de augmentation.
+     */
+    @Test
+    public void testAugmentedTrainingIndependentOfWorkers() {
+        List<double[]> trainSet = TestFixtures.randomRows(40, 400, 2, 7);
+        NeuralNetwork single = new NeuralNetwork(400, 10, 1);
+        NeuralNetwork parallel = single.copy();
+
+        TrainingOptions singleOptions = new TrainingOptions(0.0, 3, 100);
+        singleOptions.setSeed(11);
+        singleOptions.setAugmentation(new ImageAugmenter(20, 20), 1);
+        TrainingOptions parallelOptions = new TrainingOptions(0.0, 3, 100);
+        parallelOptions.setSeed(11);
+        parallelOptions.setAugmentation(new ImageAugmenter(20, 20), 3);
+        DigitTrainer.trainNeuralNetwork(single, trainSet, trainSet, singleOptions);
+        DigitTrainer.trainNeuralNetwork(parallel, trainSet, trainSet, parallelOptions);
+
+        double[] expected = new double[single.getParameterCount()];
+        double[] actual = new double[parallel.getParameterCount()];
+        single.exportParameters(expected);
+        parallel.exportParameters(actual);
+        assertArrayEquals(expected, actual, 0.0);
+    }
 }
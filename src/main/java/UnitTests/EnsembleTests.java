@@ -0,0 +1,159 @@
+package UnitTests;
+
+import basicneuralnetwork.activationfunctions.SigmoidActivationFunction;
+import basicneuralnetwork.neuralnetwork.Ensemble;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe EnsembleTests: Testes unitários para a classe Ensemble.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class EnsembleTests {
+
+    /**
+     * Testa se a média do ensemble é a média das predições dos membros, com membros de dimensões diferentes
+     * e com mapeamento de features, e se a avaliação em paralelo dá o mesmo resultado.
+     */
+    @Test
+    public void testMeanMatchesMemberAverage() {
+        List<NeuralNetwork> members = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            NeuralNetwork nn = new NeuralNetwork(8, 5, 2);
+            nn.setActivationFunction(i % 2 == 0 ? "SIGMOID" : "TANH");
+            members.add(nn);
+        }
+        NeuralNetwork deeper = new NeuralNetwork(5, 2, 3, 2);
+        deeper.setFeatureIndices(8, new int[]{0, 2, 3, 5, 7});
+        members.add(deeper);
+
+        Ensemble ensemble = new Ensemble(members, Ensemble.Combination.MEAN);
+        assertEquals(2, ensemble.getStackCount());
+        assertEquals(8, ensemble.getInputNodes());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Ensemble parallel = new Ensemble(members, Ensemble.Combination.MEAN, 0, executor);
+            SplittableRandom random = new SplittableRandom(3);
+            for (int n = 0; n < 20; n++) {
+                double[] input = randomInput(random, 8);
+                double[] expected = new double[2];
+                for (NeuralNetwork nn : members) {
+                    double[] output = nn.guess(input);
+                    expected[0] += output[0] / members.size();
+                    expected[1] += output[1] / members.size();
+                }
+                double[] actual = ensemble.guess(input);
+                assertArrayEquals(expected, actual, 1e-12);
+                assertArrayEquals(actual, parallel.guess(input), 0.0);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Testa se um membro com uma função de ativação registada com `addActivationFunction` usa essa função.
+     */
+    @Test
+    public void testCustomActivationFunction() {
+        NeuralNetwork nn = new NeuralNetwork(4, 3, 1);
+        nn.addActivationFunction("SOFTSIGN", new SigmoidActivationFunction() {
+            @Override
+            public double apply(double value) {
+                return value / (1 + Math.abs(value));
+            }
+
+            @Override
+            public String getName() {
+                return "SOFTSIGN";
+            }
+        });
+        nn.setActivationFunction("SOFTSIGN");
+
+        Ensemble ensemble = new Ensemble(Arrays.asList(nn), Ensemble.Combination.MEAN);
+        SplittableRandom random = new SplittableRandom(4);
+        for (int n = 0; n < 10; n++) {
+            double[] input = randomInput(random, 4);
+            assertArrayEquals(nn.guess(input), ensemble.guess(input), 1e-12);
+        }
+    }
+
+    /**
+     * Testa se a concordância antecipada na maioria dá a mesma classe que a votação completa
+     * e avalia menos membros quando estes concordam.
+     */
+    @Test
+    public void testEarlyAgreementMatchesFullVote() {
+        List<NeuralNetwork> members = new ArrayList<>();
+        NeuralNetwork base = new NeuralNetwork(6, 4, 1);
+        for (int i = 0; i < 5; i++) {
+            members.add(i < 3 ? base.copy() : new NeuralNetwork(6, 4, 1));
+        }
+
+        Ensemble full = new Ensemble(members, Ensemble.Combination.VOTE);
+        Ensemble early = new Ensemble(members, Ensemble.Combination.VOTE, 3, null);
+        SplittableRandom random = new SplittableRandom(5);
+        for (int n = 0; n < 50; n++) {
+            double[] input = randomInput(random, 6);
+            assertEquals(full.guess(input)[0] >= 0.5, early.guess(input)[0] >= 0.5);
+        }
+
+        // Os três primeiros membros são iguais, por isso a avaliação pára sempre no terceiro
+        assertEquals(3.0, early.getMeanEvaluatedMembers(), 0.0);
+        assertEquals(5.0, full.getMeanEvaluatedMembers(), 0.0);
+    }
+
+    /**
+     * Testa se o ensemble carregado dos arquivos de pesos dá as mesmas predições que o criado com as redes.
+     */
+    @Test
+    public void testLoadMatchesNetworks() throws IOException {
+        List<NeuralNetwork> members = new ArrayList<>();
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            NeuralNetwork nn = new NeuralNetwork(7, 3, 1);
+            File file = File.createTempFile("model_weights", ".txt");
+            file.deleteOnExit();
+            nn.saveWeights(file.getPath());
+            members.add(nn);
+            files.add(file.getPath());
+        }
+
+        Ensemble created = new Ensemble(members, Ensemble.Combination.MEAN);
+        Ensemble loaded = Ensemble.load(files, "SIGMOID", Ensemble.Combination.MEAN, 0);
+        SplittableRandom random = new SplittableRandom(7);
+        for (int n = 0; n < 10; n++) {
+            double[] input = randomInput(random, 7);
+            assertArrayEquals(created.guess(input), loaded.guess(input), 1e-12);
+        }
+
+        try {
+            Ensemble.load(Arrays.asList(files.get(0)), "SIGMOID", Ensemble.Combination.MEAN, 1);
+            fail("Esperada uma IllegalArgumentException para concordância antecipada com a média.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("Concordância antecipada inválida"));
+        }
+    }
+
+    private static double[] randomInput(SplittableRandom random, int length) {
+        double[] input = new double[length];
+        for (int i = 0; i < length; i++) {
+            input[i] = random.nextDouble();
+        }
+        return input;
+    }
+}
@@ -0,0 +1,150 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.HotSwappableModel;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe HotSwappableModelTests: Testes unitários para a classe HotSwappableModel.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class HotSwappableModelTests {
+
+    private static final double[] INPUT = {0.1, 0.2, 0.3, 0.4};
+
+    /**
+     * Testa se `reload` publica os novos pesos e conta o recarregamento.
+     */
+    @Test
+    public void testReloadPublishesNewVersion() throws IOException {
+        File weights = File.createTempFile("model_weights", ".txt");
+        weights.deleteOnExit();
+
+        NeuralNetwork first = new NeuralNetwork(4, 1, 5, 1);
+        first.saveWeights(weights.getPath());
+
+        try (HotSwappableModel model = HotSwappableModel.fromWeightsFile(weights.getPath(), 4, 1, 5, 1, "SIGMOID")) {
+            assertArrayEquals(first.guess(INPUT), model.guess(INPUT), 0.0);
+            NeuralNetwork oldVersion = model.getCurrent();
+
+            NeuralNetwork second = new NeuralNetwork(4, 1, 5, 1);
+            second.saveWeights(weights.getPath());
+
+            assertTrue(model.reload());
+            assertEquals(2, model.getVersion());
+            assertEquals(1, model.getReloadCount());
+            assertArrayEquals(second.guess(INPUT), model.guess(INPUT), 0.0);
+
+            // A versão anterior continua intacta para as predições que ainda a usam
+            assertArrayEquals(first.guess(INPUT), oldVersion.guess(INPUT), 0.0);
+        }
+    }
+
+    /**
+     * Testa se um arquivo inválido é rejeitado e a versão atual continua em uso.
+     */
+    @Test
+    public void testInvalidReloadKeepsCurrentVersion() throws IOException {
+        File weights = File.createTempFile("model_weights", ".txt");
+        weights.deleteOnExit();
+
+        NeuralNetwork first = new NeuralNetwork(4, 1, 5, 1);
+        first.saveWeights(weights.getPath());
+
+        try (HotSwappableModel model = HotSwappableModel.fromWeightsFile(weights.getPath(), 4, 1, 5, 1, "SIGMOID")) {
+            try (PrintWriter writer = new PrintWriter(weights)) {
+                writer.println("[0.1, 0.2]");
+            }
+
+            assertFalse(model.reload());
+            assertEquals(1, model.getVersion());
+            assertEquals(1, model.getFailedReloadCount());
+            assertNotNull(model.getLastFailure());
+            assertArrayEquals(first.guess(INPUT), model.guess(INPUT), 0.0);
+        }
+    }
+
+    /**
+     * Testa se um modelo treinado de novo com outras features (mas com as mesmas entradas completas) é publicado,
+     * e se uma versão que recebe outro número de entradas é rejeitada.
+     */
+    @Test
+    public void testReloadWithDifferentFeatureSets() throws IOException {
+        File weights = File.createTempFile("model_weights", ".txt");
+        weights.deleteOnExit();
+
+        NeuralNetwork first = new NeuralNetwork(3, 1, 5, 1);
+        first.setFeatureIndices(4, new int[]{0, 1, 3});
+        first.saveWeights(weights.getPath());
+
+        try (HotSwappableModel model = HotSwappableModel.fromWeightsFile(weights.getPath(), 4, 1, 5, 1, "SIGMOID")) {
+            assertArrayEquals(first.guess(INPUT), model.guess(INPUT), 0.0);
+
+            NeuralNetwork second = new NeuralNetwork(2, 1, 5, 1);
+            second.setFeatureIndices(4, new int[]{1, 2});
+            second.saveWeights(weights.getPath());
+
+            assertTrue(model.getLastFailure(), model.reload());
+            assertEquals(2, model.getVersion());
+            assertEquals(2, model.getCurrent().getInputNodes());
+            assertArrayEquals(second.guess(INPUT), model.guess(INPUT), 0.0);
+        }
+
+        AtomicReference<NeuralNetwork> next = new AtomicReference<>(first);
+        try (HotSwappableModel model = new HotSwappableModel(next::get)) {
+            NeuralNetwork wider = new NeuralNetwork(3, 1, 5, 1);
+            wider.setFeatureIndices(6, new int[]{0, 2, 5});
+            next.set(wider);
+
+            assertFalse(model.reload());
+            assertEquals(1, model.getVersion());
+            assertTrue(model.getLastFailure().contains("6 entradas"));
+            assertSame(first, model.getCurrent());
+        }
+    }
+
+    /**
+     * Testa se as predições feitas durante recarregamentos sucessivos nunca falham.
+     */
+    @Test
+    public void testGuessDuringReloads() throws Exception {
+        File weights = File.createTempFile("model_weights", ".txt");
+        weights.deleteOnExit();
+        new NeuralNetwork(4, 1, 5, 1).saveWeights(weights.getPath());
+
+        try (HotSwappableModel model = HotSwappableModel.fromWeightsFile(weights.getPath(), 4, 1, 5, 1, "SIGMOID")) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get()) {
+                        double output = model.guess(INPUT)[0];
+                        assertTrue(output >= 0 && output <= 1);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            reader.start();
+
+            for (int i = 0; i < 20; i++) {
+                assertTrue(model.reload());
+            }
+            running.set(false);
+            reader.join();
+
+            assertNull(failure.get());
+            assertEquals(20, model.getReloadCount());
+        }
+    }
+}
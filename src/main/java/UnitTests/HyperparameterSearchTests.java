@@ -0,0 +1,86 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.HyperparameterSearch;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe HyperparameterSearchTests: Testes unitários para a classe HyperparameterSearch.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class HyperparameterSearchTests {
+
+    /**
+     * Testa se a grelha contém todas as combinações e a amostragem aleatória respeita os limites.
+     */
+    @Test
+    public void testGridAndRandomConfigurations() {
+        List<HyperparameterSearch.Configuration> grid = HyperparameterSearch.grid(
+                new int[]{5, 10}, new double[]{0.01, 0.1}, new String[]{"SIGMOID", "TANH"}, new int[]{5});
+        assertEquals(8, grid.size());
+
+        List<HyperparameterSearch.Configuration> random = HyperparameterSearch.random(
+                20, new int[]{5, 10}, 0.001, 0.1, new String[]{"SIGMOID"}, new int[]{3, 5}, 11L);
+        assertEquals(20, random.size());
+        for (HyperparameterSearch.Configuration configuration : random) {
+            assertTrue(configuration.getLearningRate() >= 0.001 && configuration.getLearningRate() <= 0.1);
+            assertTrue(configuration.getHiddenNodes() == 5 || configuration.getHiddenNodes() == 10);
+        }
+    }
+
+    /**
+     * Testa se `run` treina todas as configurações e devolve os resultados ordenados pelo MSE de validação.
+     */
+    @Test
+    public void testRunSortsByValidationMSE() {
+        List<double[]> dataset = TestFixtures.randomRows(12, 400, 2, 1);
+        List<HyperparameterSearch.Configuration> configurations = HyperparameterSearch.grid(
+                new int[]{4, 8}, new double[]{0.01, 0.5}, new String[]{"SIGMOID"}, new int[]{100});
+
+        try (HyperparameterSearch search = new HyperparameterSearch(dataset, dataset, 2)) {
+            search.setMseThreshold(0.0);
+            List<HyperparameterSearch.Trial> trials = search.run(configurations, 3);
+
+            assertEquals(4, trials.size());
+            for (int i = 0; i < trials.size(); i++) {
+                assertEquals(3, trials.get(i).getIterations());
+                if (i > 0) {
+                    assertTrue(trials.get(i - 1).getValidationMSE() <= trials.get(i).getValidationMSE());
+                }
+            }
+        }
+    }
+
+    /**
+     * Testa se o successive halving elimina candidatos e só os sobreviventes recebem o orçamento máximo.
+     */
+    @Test
+    public void testSuccessiveHalvingTerminatesLosers() {
+        List<double[]> dataset = TestFixtures.randomRows(12, 400, 2, 2);
+        List<HyperparameterSearch.Configuration> configurations = HyperparameterSearch.random(
+                4, new int[]{4, 8}, 0.01, 0.5, new String[]{"SIGMOID"}, new int[]{100}, 3L);
+
+        try (HyperparameterSearch search = new HyperparameterSearch(dataset, dataset, 4)) {
+            search.setMseThreshold(0.0);
+            List<HyperparameterSearch.Trial> trials = search.successiveHalving(configurations, 1, 2, 4);
+
+            assertEquals(4, trials.size());
+            assertFalse(trials.get(0).isTerminated());
+            assertEquals(4, trials.get(0).getIterations());
+
+            int terminated = 0;
+            for (HyperparameterSearch.Trial trial : trials) {
+                if (trial.isTerminated()) {
+                    terminated++;
+                    assertTrue(trial.getIterations() < 4);
+                }
+            }
+            assertEquals(3, terminated);
+        }
+    }
+}
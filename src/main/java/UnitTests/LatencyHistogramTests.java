@@ -0,0 +1,105 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.HotSwappableModel;
+import basicneuralnetwork.neuralnetwork.LatencyHistogram;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe LatencyHistogramTests: Testes unitários para a classe LatencyHistogram.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class LatencyHistogramTests {
+
+    /**
+     * Testa se os percentis ficam dentro do erro relativo dos intervalos e se a média e o máximo são exatos.
+     */
+    @Test
+    public void testPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram("predição");
+        for (long micros = 1; micros <= 10_000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(5_000_500, snapshot.getMean(), 1e-6);
+
+        double[] percentiles = {50, 90, 99, 99.9};
+        for (double percentile : percentiles) {
+            double expected = percentile / 100 * 10_000_000;
+            long actual = snapshot.getPercentile(percentile);
+            assertTrue(percentile + ": " + actual, actual >= expected && actual <= expected * (1 + 1.0 / 64));
+        }
+        assertEquals(10_000_000, snapshot.getPercentile(100));
+        assertTrue(snapshot.format().startsWith("predição: n=10000 "));
+    }
+
+    /**
+     * Testa se os valores pequenos são exatos e se o snapshot de um histograma vazio dá zeros.
+     */
+    @Test
+    public void testSmallValuesAndEmptyHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram("leitura");
+        assertEquals(0, histogram.snapshot().getPercentile(99));
+
+        histogram.record(3);
+        histogram.record(5);
+        histogram.record(-7);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.getCount());
+        assertEquals(0, snapshot.getPercentile(10));
+        assertEquals(3, snapshot.getPercentile(50));
+        assertEquals(5, snapshot.getPercentile(99.9));
+    }
+
+    /**
+     * Testa se os registos de várias threads são todos somados no snapshot.
+     */
+    @Test
+    public void testRecordersOfAllThreadsAreMerged() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram("carregamento");
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            long value = (t + 1) * 1_000_000L;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(value);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(40_000, snapshot.getCount());
+        assertEquals(4_000_000, snapshot.getMax());
+        assertEquals(2_500_000, snapshot.getMean(), 1e-6);
+    }
+
+    /**
+     * Testa se o `HotSwappableModel` regista a duração de cada predição no histograma configurado.
+     */
+    @Test
+    public void testHotSwappableModelRecordsGuesses() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(4, 3, 1);
+        LatencyHistogram histogram = new LatencyHistogram("predição");
+        try (HotSwappableModel model = new HotSwappableModel(() -> nn)) {
+            model.setLatencyHistogram(histogram);
+            for (int i = 0; i < 5; i++) {
+                model.guess(new double[]{0.1, 0.2, 0.3, 0.4});
+            }
+        }
+        assertEquals(5, histogram.snapshot().getCount());
+        assertTrue(histogram.snapshot().getMax() > 0);
+    }
+}
@@ -0,0 +1,75 @@
+package UnitTests;
+
+import basicneuralnetwork.activationfunctions.SigmoidActivationFunction;
+import basicneuralnetwork.neuralnetwork.InferenceModel;
+import basicneuralnetwork.neuralnetwork.ModelCodeGenerator;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe ModelCodeGeneratorTests: Testes unitários para a classe ModelCodeGenerator.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class ModelCodeGeneratorTests {
+
+    /**
+     * Testa se a classe compilada em memória dá as mesmas predições que a rede, com várias camadas escondidas.
+     */
+    @Test
+    public void testCompiledModelMatchesNetwork() throws IOException {
+        for (String activation : new String[]{"SIGMOID", "TANH", "RELU"}) {
+            NeuralNetwork nn = new NeuralNetwork(30, 3, 7, 4);
+            nn.setActivationFunction(activation);
+
+            InferenceModel model = ModelCodeGenerator.compile(nn, "Generated" + activation);
+            assertEquals(30, model.getInputNodes());
+            assertEquals(4, model.getOutputNodes());
+
+            SplittableRandom random = new SplittableRandom(5);
+            for (int i = 0; i < 20; i++) {
+                double[] input = new double[30];
+                for (int j = 0; j < input.length; j++) {
+                    input[j] = random.nextDouble(-1, 1);
+                }
+                assertArrayEquals(nn.guess(input), model.guess(input), 1e-12);
+            }
+        }
+    }
+
+    /**
+     * Testa se a classe gerada aplica o mapeamento de features a entradas completas e aceita entradas reduzidas.
+     */
+    @Test
+    public void testCompiledModelWithFeatureMapping() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(3, 4, 1);
+        nn.setFeatureIndices(6, new int[]{1, 2, 5});
+        InferenceModel model = ModelCodeGenerator.compile(nn, "GeneratedFeatures");
+
+        double[] raw = {0.9, 0.1, 0.2, 0.7, 0.4, 0.3};
+        assertArrayEquals(nn.guess(raw), model.guess(raw), 1e-12);
+        assertArrayEquals(nn.guess(new double[]{0.1, 0.2, 0.3}), model.guess(new double[]{0.1, 0.2, 0.3}), 1e-12);
+    }
+
+    /**
+     * Testa se o gerador rejeita funções de ativação personalizadas, cuja fórmula não conhece.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testCustomActivationRejected() {
+        NeuralNetwork nn = new NeuralNetwork(2, 2, 1);
+        nn.addActivationFunction("CUSTOM", new SigmoidActivationFunction() {
+            @Override
+            public String getName() {
+                return "CUSTOM";
+            }
+        });
+        nn.setActivationFunction("CUSTOM");
+        ModelCodeGenerator.generateSource(nn, "", "Custom");
+    }
+}
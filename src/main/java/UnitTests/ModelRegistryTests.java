@@ -0,0 +1,134 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.ModelRegistry;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe ModelRegistryTests: Testes unitários para a classe ModelRegistry.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class ModelRegistryTests {
+
+    /**
+     * Testa se pedidos simultâneos para o mesmo modelo provocam um único carregamento.
+     */
+    @Test
+    public void testConcurrentRequestsLoadOnce() throws Exception {
+        ModelRegistry registry = new ModelRegistry(1L << 20);
+        AtomicInteger loadCount = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        registry.register("digits", () -> {
+            loadCount.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return new NeuralNetwork(400, 10, 1);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<NeuralNetwork>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> registry.get("digits")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+
+            NeuralNetwork first = results.get(0).get();
+            for (Future<NeuralNetwork> result : results) {
+                assertSame(first, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, loadCount.get());
+        assertSame(registry.get("digits"), registry.get("digits"));
+        assertEquals(1, registry.getLoadCount());
+    }
+
+    /**
+     * Testa se um pedido que falha a cache enquanto outro termina o carregamento usa o modelo já carregado
+     * em vez de o carregar de novo (carregamentos instantâneos, repetidos para apanhar essa janela).
+     */
+    @Test(timeout = 30000)
+    public void testFinishedLoadIsNotRepeated() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int round = 0; round < 20000; round++) {
+                ModelRegistry registry = new ModelRegistry(1L << 20);
+                AtomicInteger loadCount = new AtomicInteger();
+                NeuralNetwork model = new NeuralNetwork(4, 2, 1);
+                registry.register("digits", () -> {
+                    loadCount.incrementAndGet();
+                    return model;
+                });
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<NeuralNetwork>> results = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return registry.get("digits");
+                    }));
+                }
+                start.countDown();
+                for (Future<NeuralNetwork> result : results) {
+                    assertSame(model, result.get());
+                }
+                assertEquals(1, loadCount.get());
+                assertEquals(4, registry.getHitCount() + registry.getMissCount());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Testa se os modelos usados há mais tempo são descartados quando o orçamento de memória é ultrapassado.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsedWithinBudget() throws IOException {
+        long modelBytes = ModelRegistry.estimateBytes(new NeuralNetwork(400, 10, 1));
+        ModelRegistry registry = new ModelRegistry(2 * modelBytes);
+        for (String id : new String[]{"a", "b", "c"}) {
+            registry.register(id, () -> new NeuralNetwork(400, 10, 1));
+        }
+
+        registry.get("a");
+        registry.get("b");
+        registry.get("a");
+        registry.get("c");
+
+        assertTrue(registry.isCached("a"));
+        assertFalse(registry.isCached("b"));
+        assertTrue(registry.isCached("c"));
+        assertEquals(1, registry.getEvictionCount());
+        assertTrue(registry.getUsedBytes() <= registry.getMemoryBudgetBytes());
+    }
+
+    /**
+     * Testa se pedir um modelo não registado lança IOException.
+     */
+    @Test(expected = IOException.class)
+    public void testUnknownModel() throws IOException {
+        new ModelRegistry(1024).get("unknown");
+    }
+}
@@ -1,9 +1,20 @@
 package UnitTests;
 
 import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import basicneuralnetwork.neuralnetwork.SparseInput;
+import basicneuralnetwork.neuralnetwork.SparseNeuralNetwork;
+import basicneuralnetwork.neuralnetwork.TrainingCheckpoint;
+import basicneuralnetwork.neuralnetwork.TrainingState;
+import basicneuralnetwork.utilities.NeuralNetworkJsonCodec;
 import org.ejml.simple.SimpleMatrix;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.SplittableRandom;
+
 import static org.junit.Assert.*;
 
 /**
@@ -170,4 +181,262 @@ public class NeuralNetworkTests {
         assertEquals(1, output.length);
         assertTrue(output[0] >= 0 && output[0] <= 1); // Saída sigmoidal
     }
+
+    /**
+     * Testa se `exportParameters` e `importParameters` copiam todos os pesos e vieses sem perdas.
+     */
+    @Test
+    public void testExportImportParameters() {
+        NeuralNetwork source = new NeuralNetwork(4, 2, 5, 1);
+        NeuralNetwork target = new NeuralNetwork(4, 2, 5, 1);
+
+        double[] buffer = new double[source.getParameterCount()];
+        assertEquals(4 * 5 + 5 * 5 + 5 * 1 + 5 + 5 + 1, buffer.length);
+
+        source.exportParameters(buffer);
+        target.importParameters(buffer);
+
+        double[] input = {0.1, 0.2, 0.3, 0.4};
+        assertArrayEquals(source.guess(input), target.guess(input), 0.0);
+    }
+
+    /**
+     * Testa se `mergeInto` escreve na rede de destino sem substituir as suas matrizes
+     * e se cada valor vem de um dos progenitores.
+     */
+    @Test
+    public void testMergeIntoReusesMatrices() {
+        NeuralNetwork nn1 = new NeuralNetwork(4, 1, 5, 1);
+        NeuralNetwork nn2 = new NeuralNetwork(4, 1, 5, 1);
+        NeuralNetwork child = new NeuralNetwork(4, 1, 5, 1);
+        SimpleMatrix childWeights = child.getWeights()[0];
+
+        nn1.mergeInto(nn2, 0.5, child, new SplittableRandom(1));
+
+        assertSame(childWeights, child.getWeights()[0]);
+        for (int i = 0; i < childWeights.getNumElements(); i++) {
+            double value = childWeights.get(i);
+            assertTrue(value == nn1.getWeights()[0].get(i) || value == nn2.getWeights()[0].get(i));
+        }
+    }
+
+    /**
+     * Testa se `copyFrom` deixa a rede com as mesmas saídas que a original.
+     */
+    @Test
+    public void testCopyFrom() {
+        NeuralNetwork original = new NeuralNetwork(4, 2, 5, 1);
+        original.setLearningRate(0.3);
+        NeuralNetwork target = new NeuralNetwork(4, 2, 5, 1);
+
+        target.copyFrom(original);
+
+        double[] input = {0.1, 0.2, 0.3, 0.4};
+        assertArrayEquals(original.guess(input), target.guess(input), 0.0);
+        assertEquals(0.3, target.getLearningRate(), 0.0);
+    }
+
+    /**
+     * Testa se a rede gravada em JSON é lida com as mesmas dimensões, hiperparâmetros e saídas.
+     */
+    @Test
+    public void testWriteAndReadFromFile() throws IOException {
+        NeuralNetwork original = new NeuralNetwork(4, 2, 5, 1);
+        original.setActivationFunction("TANH");
+        original.setLearningRate(0.2);
+
+        File file = File.createTempFile("nn_data", "");
+        file.deleteOnExit();
+        File json = new File(file.getPath() + ".json");
+        json.deleteOnExit();
+
+        original.writeToFile(file.getPath());
+        NeuralNetwork loaded = NeuralNetwork.readFromFile(json.getPath());
+
+        assertNotNull(loaded);
+        assertArrayEquals(original.getDimensions(), loaded.getDimensions());
+        assertEquals("TANH", loaded.getActivationFunctionName());
+        assertEquals(0.2, loaded.getLearningRate(), 0.0);
+
+        double[] input = {0.1, 0.2, 0.3, 0.4};
+        assertArrayEquals(original.guess(input), loaded.guess(input), 0.0);
+    }
+
+    /**
+     * Testa se um JSON com um número errado de pesos é rejeitado.
+     */
+    @Test(expected = IOException.class)
+    public void testReadJsonWithWrongWeightCount() throws IOException {
+        String json = "{\"format\":1,\"inputNodes\":2,\"hiddenLayers\":1,\"hiddenNodes\":1,\"outputNodes\":1,"
+                + "\"weights\":[[0.1],[0.2]],\"biases\":[[0.0],[0.0]]}";
+
+        NeuralNetworkJsonCodec.read(new StringReader(json));
+    }
+
+    /**
+     * Testa se a predição e o treinamento com uma entrada esparsa dão o mesmo resultado que com a entrada densa.
+     */
+    @Test
+    public void testSparseInputMatchesDense() {
+        double[] dense = new double[50];
+        SplittableRandom random = new SplittableRandom(4);
+        for (int i = 0; i < dense.length; i += 3) {
+            dense[i] = random.nextDouble();
+        }
+        SparseInput sparse = SparseInput.fromDense(dense);
+        assertEquals(17, sparse.getNonZeroCount());
+        assertArrayEquals(dense, sparse.toDense(), 0.0);
+
+        NeuralNetwork denseNetwork = new NeuralNetwork(50, 2, 8, 3);
+        NeuralNetwork sparseNetwork = denseNetwork.copy();
+        assertArrayEquals(denseNetwork.guess(dense), sparseNetwork.guess(sparse), 1e-12);
+
+        double[] target = {1, 0, 1};
+        for (int i = 0; i < 5; i++) {
+            denseNetwork.train(dense, target);
+            sparseNetwork.train(sparse, target);
+        }
+
+        double[] expected = new double[denseNetwork.getParameterCount()];
+        double[] actual = new double[sparseNetwork.getParameterCount()];
+        denseNetwork.exportParameters(expected);
+        sparseNetwork.exportParameters(actual);
+        assertArrayEquals(expected, actual, 1e-12);
+    }
+
+    /**
+     * Testa se uma rede com mapeamento de features aceita a entrada completa e a reduzida,
+     * e se `loadWeights` ajusta uma rede criada com a largura completa ao modelo reduzido.
+     */
+    @Test
+    public void testFeatureMappingSaveAndLoad() throws IOException {
+        NeuralNetwork compact = new NeuralNetwork(3, 4, 1);
+        compact.setFeatureIndices(6, new int[]{1, 2, 5});
+
+        double[] raw = {0.9, 0.1, 0.2, 0.8, 0.7, 0.3};
+        double[] reduced = {0.1, 0.2, 0.3};
+        assertArrayEquals(compact.guess(reduced), compact.guess(raw), 0.0);
+        assertArrayEquals(compact.guess(reduced), compact.guess(SparseInput.fromDense(raw)), 1e-12);
+
+        File file = File.createTempFile("model_weights", ".txt");
+        file.deleteOnExit();
+        compact.saveWeights(file.getPath());
+
+        NeuralNetwork loaded = new NeuralNetwork(6, 4, 1);
+        loaded.loadWeights(file.getPath());
+        assertEquals(3, loaded.getInputNodes());
+        assertEquals(6, loaded.getRawInputNodes());
+        assertArrayEquals(new int[]{1, 2, 5}, loaded.getFeatureIndices());
+        assertArrayEquals(compact.guess(raw), loaded.guess(raw), 0.0);
+
+        StringWriter json = new StringWriter();
+        NeuralNetworkJsonCodec.write(compact, json);
+        NeuralNetwork fromJson = NeuralNetworkJsonCodec.read(new StringReader(json.toString()));
+        assertArrayEquals(new int[]{1, 2, 5}, fromJson.getFeatureIndices());
+        assertArrayEquals(compact.guess(raw), fromJson.guess(raw), 0.0);
+    }
+
+    /**
+     * Testa se `prune` remove a fração pedida de pesos, se estes continuam a zero depois de treinar
+     * e se o modelo CSR faz as mesmas predições que a rede.
+     */
+    @Test
+    public void testPruneAndSparseModel() {
+        NeuralNetwork nn = new NeuralNetwork(40, 2, 10, 2);
+        nn.prune(0.8);
+        assertTrue(nn.isPruned());
+        assertEquals(0.8, nn.getSparsity(), 0.01);
+
+        double[] input = new double[40];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = i / 40.0;
+        }
+        for (int i = 0; i < 5; i++) {
+            nn.train(input, new double[]{1, 0});
+        }
+        assertEquals(0.8, nn.getSparsity(), 0.01);
+
+        SparseNeuralNetwork sparse = nn.toSparseModel();
+        assertEquals(Math.round(0.2 * (40 * 10 + 10 * 10 + 10 * 2)), sparse.getNonZeroCount(), 2);
+        assertArrayEquals(nn.guess(input), sparse.guess(input), 1e-12);
+    }
+
+    /**
+     * Testa se uma rede podada continua podada depois de gravada e lida de novo (arquivo de pesos, JSON e checkpoint):
+     * as ligações removidas ficam a zero quando o treinamento continua.
+     */
+    @Test
+    public void testPruneMasksSurviveReload() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(40, 2, 10, 2);
+        nn.prune(0.8);
+        double[] expected = new double[nn.getParameterCount()];
+        nn.exportParameters(expected);
+
+        File weights = File.createTempFile("model_weights", ".txt");
+        weights.deleteOnExit();
+        nn.saveWeights(weights.getPath());
+        NeuralNetwork fromWeights = new NeuralNetwork(40, 2, 10, 2);
+        fromWeights.loadWeights(weights.getPath());
+
+        StringWriter json = new StringWriter();
+        NeuralNetworkJsonCodec.write(nn, json);
+        NeuralNetwork fromJson = NeuralNetworkJsonCodec.read(new StringReader(json.toString()));
+
+        File checkpointFile = File.createTempFile("checkpoint", ".bin");
+        checkpointFile.deleteOnExit();
+        TrainingCheckpoint checkpoint = new TrainingCheckpoint(nn);
+        checkpoint.capture(nn, new TrainingState(nn, 42L));
+        checkpoint.write(checkpointFile.getPath());
+        NeuralNetwork fromCheckpoint = TrainingCheckpoint.read(checkpointFile.getPath()).restoreNeuralNetwork();
+
+        double[] input = new double[40];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = i / 40.0;
+        }
+        for (NeuralNetwork loaded : new NeuralNetwork[]{fromWeights, fromJson, fromCheckpoint}) {
+            double[] actual = new double[loaded.getParameterCount()];
+            loaded.exportParameters(actual);
+            assertArrayEquals(expected, actual, 0.0);
+            assertTrue(loaded.isPruned());
+
+            for (int i = 0; i < 5; i++) {
+                loaded.train(input, new double[]{1, 0});
+            }
+            loaded.exportParameters(actual);
+            for (int i = 0; i < actual.length; i++) {
+                if (expected[i] == 0) {
+                    assertEquals(0.0, actual[i], 0.0);
+                }
+            }
+            assertEquals(0.8, loaded.getSparsity(), 0.01);
+        }
+
+        NeuralNetwork unpruned = new NeuralNetwork(40, 2, 10, 2);
+        unpruned.saveWeights(weights.getPath());
+        NeuralNetwork loadedUnpruned = new NeuralNetwork(40, 2, 10, 2);
+        loadedUnpruned.loadWeights(weights.getPath());
+        assertFalse(loadedUnpruned.isPruned());
+    }
+
+    /**
+     * Testa se os pesos de uma rede podada gravados em CSR são lidos de volta sem alterações.
+     */
+    @Test
+    public void testSparseJsonRoundTrip() throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(40, 10, 1);
+        nn.prune(0.9);
+
+        StringWriter dense = new StringWriter();
+        StringWriter sparse = new StringWriter();
+        NeuralNetworkJsonCodec.write(nn, dense);
+        NeuralNetworkJsonCodec.write(nn, sparse, true);
+        assertTrue(sparse.toString().length() < dense.toString().length());
+
+        NeuralNetwork loaded = NeuralNetworkJsonCodec.read(new StringReader(sparse.toString()));
+        double[] expected = new double[nn.getParameterCount()];
+        double[] actual = new double[loaded.getParameterCount()];
+        nn.exportParameters(expected);
+        loaded.exportParameters(actual);
+        assertArrayEquals(expected, actual, 0.0);
+    }
 }
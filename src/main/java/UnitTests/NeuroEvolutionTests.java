@@ -0,0 +1,66 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import basicneuralnetwork.neuralnetwork.NeuroEvolution;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe NeuroEvolutionTests: Testes unitários para a classe NeuroEvolution.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class NeuroEvolutionTests {
+
+    private static final double[][] XOR_INPUTS = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    private static final double[] XOR_TARGETS = {0, 1, 1, 0};
+
+    /**
+     * Aptidão: MSE negativo da rede no problema XOR.
+     */
+    private static double xorFitness(NeuralNetwork nn) {
+        double mse = 0;
+        for (int i = 0; i < XOR_INPUTS.length; i++) {
+            double error = nn.guess(XOR_INPUTS[i])[0] - XOR_TARGETS[i];
+            mse += error * error;
+        }
+        return -mse / XOR_INPUTS.length;
+    }
+
+    /**
+     * Testa se a melhor aptidão nunca diminui entre gerações (elitismo) e se melhora ao longo da evolução.
+     */
+    @Test
+    public void testBestFitnessImproves() {
+        NeuralNetwork prototype = new NeuralNetwork(2, 4, 1);
+
+        try (NeuroEvolution evolution = new NeuroEvolution(prototype, 60, NeuroEvolutionTests::xorFitness, 4, 3L)) {
+            double initial = evolution.getBestFitness();
+            double previous = initial;
+            for (int i = 0; i < 40; i++) {
+                double best = evolution.evolve();
+                assertTrue(best >= previous);
+                previous = best;
+            }
+
+            assertEquals(40, evolution.getGeneration());
+            assertTrue(previous > initial);
+            assertEquals(previous, xorFitness(evolution.getBest()), 1e-12);
+        }
+    }
+
+    /**
+     * Testa se a mesma semente produz a mesma evolução.
+     */
+    @Test
+    public void testSameSeedIsReproducible() {
+        NeuralNetwork prototype = new NeuralNetwork(2, 4, 1);
+
+        try (NeuroEvolution first = new NeuroEvolution(prototype, 30, NeuroEvolutionTests::xorFitness, 3, 11L);
+             NeuroEvolution second = new NeuroEvolution(prototype, 30, NeuroEvolutionTests::xorFitness, 3, 11L)) {
+            assertEquals(first.evolve(10), second.evolve(10), 0.0);
+        }
+    }
+}
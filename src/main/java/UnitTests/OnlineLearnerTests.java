@@ -0,0 +1,130 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import basicneuralnetwork.neuralnetwork.OnlineLearner;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe OnlineLearnerTests: Testes unitários para a classe OnlineLearner.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class OnlineLearnerTests {
+
+    /**
+     * Testa se o treinamento online aplica os exemplos pela ordem, como `train` chamado diretamente,
+     * e se o snapshot inicial não é alterado.
+     */
+    @Test
+    public void testUpdatesMatchSequentialTraining() throws InterruptedException {
+        NeuralNetwork initial = new NeuralNetwork(6, 4, 1);
+        NeuralNetwork reference = initial.copy();
+        List<double[]> rows = TestFixtures.randomRows(200, 6, 2, 1);
+
+        try (OnlineLearner learner = new OnlineLearner(initial, 2, 50, 60_000)) {
+            OnlineLearner.Snapshot first = learner.getSnapshot();
+            for (double[] row : rows) {
+                learner.submit(row);
+                assertTrue(learner.getQueueSize() <= 2);
+            }
+            learner.flush();
+
+            for (double[] row : rows) {
+                reference.train(Arrays.copyOf(row, 6), new double[]{row[6]});
+            }
+            assertArrayEquals(TestFixtures.parameters(reference), TestFixtures.parameters(learner.getSnapshot().getModel()), 0.0);
+            assertArrayEquals(TestFixtures.parameters(initial), TestFixtures.parameters(first.getModel()), 0.0);
+            assertEquals(200, learner.getUpdateCount());
+            assertEquals(0, learner.getUnpublishedCount());
+            assertTrue(learner.getMaxLagNanos() >= learner.getMeanLagNanos());
+        }
+    }
+
+    /**
+     * Testa se, sem pedidos de flush, as versões só são publicadas a cada `publishEveryUpdates` exemplos.
+     */
+    @Test
+    public void testPublishesAtConfiguredCadence() throws InterruptedException {
+        try (OnlineLearner learner = new OnlineLearner(new NeuralNetwork(6, 4, 1), 100, 10, 3_600_000)) {
+            for (double[] row : TestFixtures.randomRows(25, 6, 2, 2)) {
+                learner.submit(row);
+            }
+            while (learner.getUpdateCount() < 25) {
+                Thread.sleep(1);
+            }
+
+            assertEquals(2, learner.getSnapshot().getVersion());
+            assertEquals(20, learner.getSnapshot().getUpdateCount());
+            assertEquals(5, learner.getUnpublishedCount());
+
+            learner.flush();
+            assertEquals(3, learner.getSnapshot().getVersion());
+            assertEquals(25, learner.getSnapshot().getUpdateCount());
+        }
+    }
+
+    /**
+     * Testa se `consume` aceita as linhas válidas, ignora as inválidas e se `offer` recusa exemplos mal dimensionados.
+     */
+    @Test
+    public void testConsumeSkipsInvalidRows() throws Exception {
+        StringBuilder valid = new StringBuilder();
+        for (int i = 0; i < 400; i++) {
+            valid.append(i % 3 == 0 ? "128" : "0").append(',');
+        }
+        String input = valid + "1\n" + "1,2,3\n" + "\n" + valid + "0\n";
+
+        try (OnlineLearner learner = new OnlineLearner(new NeuralNetwork(400, 4, 1), 8, 100, 10)) {
+            assertEquals(2, learner.consume(new BufferedReader(new StringReader(input))));
+            assertEquals(1, learner.getInvalidRowCount());
+
+            learner.flush();
+            assertEquals(2, learner.getSnapshot().getUpdateCount());
+
+            try {
+                learner.offer(new double[10], 1, TimeUnit.MILLISECONDS);
+                fail("Esperada uma IllegalArgumentException para um exemplo mal dimensionado.");
+            } catch (IllegalArgumentException e) {
+                assertEquals(0, learner.getRejectedCount());
+            }
+        }
+    }
+
+    /**
+     * Testa se `submit` com a fila cheia deixa de esperar quando a thread de treinamento termina
+     * (aqui por interrupção), em vez de bloquear para sempre.
+     */
+    @Test(timeout = 10000)
+    public void testSubmitFailsWhenTrainerStops() throws InterruptedException {
+        try (OnlineLearner learner = new OnlineLearner(new NeuralNetwork(6, 4, 1), 1, 10, 60_000)) {
+            Thread trainer = null;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().equals("online-learner")) {
+                    trainer = thread;
+                }
+            }
+            assertNotNull(trainer);
+            trainer.interrupt();
+            trainer.join();
+
+            List<double[]> rows = TestFixtures.randomRows(2, 6, 2, 3);
+            learner.submit(rows.get(0));
+            try {
+                learner.submit(rows.get(1));
+                fail("Esperada uma IllegalStateException com a thread de treinamento terminada.");
+            } catch (IllegalStateException e) {
+                assertEquals(1, learner.getAcceptedCount());
+                assertEquals(1, learner.getQueueSize());
+            }
+        }
+    }
+}
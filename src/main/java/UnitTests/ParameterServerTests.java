@@ -0,0 +1,216 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.DigitTrainer;
+import basicneuralnetwork.neuralnetwork.GradientCompression;
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import basicneuralnetwork.neuralnetwork.ParameterServer;
+import basicneuralnetwork.neuralnetwork.ParameterServerWorker;
+import basicneuralnetwork.utilities.MatrixUtilities;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe ParameterServerTests: Testes unitários para as classes ParameterServer, ParameterServerWorker
+ * e GradientCompression, com os workers em threads ligadas ao servidor por localhost.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class ParameterServerTests {
+
+    /**
+     * Testa se o modo síncrono com dois workers aprende o conjunto de dados e dá sempre os mesmos parâmetros,
+     * independentemente da ordem de chegada das atualizações, e se também aprende com as atualizações comprimidas.
+     */
+    @Test(timeout = 30000)
+    public void testSynchronousTrainingIsDeterministic() throws Exception {
+        SplittableRandom random = new SplittableRandom(5);
+        List<double[]> dataset = TestFixtures.separableDataset(random, 80);
+        List<double[]> validationSet = TestFixtures.separableDataset(random, 40);
+
+        NeuralNetwork first = train(dataset, GradientCompression.NONE);
+        NeuralNetwork second = train(dataset, GradientCompression.NONE);
+        NeuralNetwork compressed = train(dataset, new GradientCompression(0.25, true));
+
+        assertTrue(DigitTrainer.calculateAccuracy(first, validationSet) >= 90);
+        assertArrayEquals(TestFixtures.parameters(first), TestFixtures.parameters(second), 0.0);
+        assertTrue(DigitTrainer.calculateAccuracy(compressed, validationSet) >= 90);
+    }
+
+    /**
+     * Testa se, no modo assíncrono, um worker não fica mais de `maxStaleness` atualizações à frente de um worker
+     * que ainda não se ligou, e se o treinamento continua quando este se liga.
+     */
+    @Test(timeout = 30000)
+    public void testBoundedStalenessBlocksFastWorker() throws Exception {
+        SplittableRandom random = new SplittableRandom(6);
+        List<double[]> dataset = TestFixtures.separableDataset(random, 80);
+        List<double[]> validationSet = TestFixtures.separableDataset(random, 40);
+        NeuralNetwork nn = network();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try (ParameterServer server = new ParameterServer(nn, 2, 2)) {
+            int port = server.start(0);
+            Future<?> fast = executor.submit(worker(nn, dataset.subList(0, 40), 1, GradientCompression.NONE, port));
+            while (server.getUpdateCount() < 3) {
+                Thread.sleep(5);
+            }
+            Thread.sleep(100);
+            assertEquals(3, server.getUpdateCount());
+
+            Future<?> slow = executor.submit(worker(nn, dataset.subList(40, 80), 1, GradientCompression.NONE, port));
+            fast.get();
+            slow.get();
+            server.awaitCompletion();
+
+            assertEquals(2 * 40 * 20, server.getUpdateCount());
+            assertEquals(server.getUpdateCount(), server.getVersion());
+            assertTrue(server.getWaitNanos() >= 100_000_000L);
+            double[] trained = new double[nn.getParameterCount()];
+            server.exportParameters(trained);
+            nn.importParameters(trained);
+            assertTrue(DigitTrainer.calculateAccuracy(nn, validationSet) >= 90);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Testa se o top-k envia só os maiores valores, se o float16 arredonda com o erro da meia precisão
+     * e se o resíduo guarda exatamente o que não foi enviado.
+     */
+    @Test
+    public void testCompressionKeepsResidual() throws IOException {
+        SplittableRandom random = new SplittableRandom(7);
+        double[] update = new double[100];
+        for (int i = 0; i < update.length; i++) {
+            update[i] = MatrixUtilities.nextGaussian(random) * 0.01;
+        }
+
+        GradientCompression topK = new GradientCompression(0.1, false);
+        double[] residual = new double[update.length];
+        double[] decoded = roundTrip(topK, update, residual, 1 + 4 + 4 + 10 * 12);
+        int sent = 0;
+        for (int i = 0; i < update.length; i++) {
+            if (decoded[i] != 0) {
+                sent++;
+                assertEquals(update[i], decoded[i], 0.0);
+                assertEquals(0.0, residual[i], 0.0);
+            } else {
+                assertTrue(Math.abs(update[i]) <= Math.abs(residual[i]) + 1e-18);
+            }
+            assertEquals(update[i], decoded[i] + residual[i], 0.0);
+        }
+        assertEquals(10, sent);
+
+        GradientCompression half = new GradientCompression(1.0, true);
+        decoded = roundTrip(half, update, null, 1 + 4 + 100 * 2);
+        for (int i = 0; i < update.length; i++) {
+            assertEquals(update[i], decoded[i], Math.max(Math.abs(update[i]) * 0x1p-11, 0x1p-25));
+        }
+
+        // Com o resíduo, a soma das atualizações recebidas converge para a soma das enviadas
+        GradientCompression both = new GradientCompression(0.05, true);
+        residual = new double[update.length];
+        double[] received = new double[update.length];
+        for (int round = 0; round < 50; round++) {
+            double[] step = roundTrip(both, update, residual, 1 + 4 + 4 + 5 * 6);
+            for (int i = 0; i < update.length; i++) {
+                received[i] += step[i];
+            }
+        }
+        for (int i = 0; i < update.length; i++) {
+            assertEquals(50 * update[i], received[i] + residual[i], 1e-12);
+        }
+    }
+
+    /**
+     * Testa se um worker com uma rede de outras dimensões é recusado e se o servidor reporta a falha.
+     */
+    @Test(timeout = 30000)
+    public void testWorkerWithOtherNetworkIsRejected() throws Exception {
+        List<double[]> dataset = TestFixtures.separableDataset(new SplittableRandom(8), 10);
+        try (ParameterServer server = new ParameterServer(network(), 1, 0)) {
+            int port = server.start(0);
+            NeuralNetwork other = new NeuralNetwork(2, 5, 1);
+            try {
+                new ParameterServerWorker(other, dataset, 5, 1, GradientCompression.NONE, 1).run("localhost", port);
+                fail("Esperada uma IOException para uma rede com outras dimensões.");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("parâmetros"));
+            }
+            try {
+                server.awaitCompletion();
+                fail("Esperada uma IOException do servidor.");
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("worker"));
+            }
+        }
+    }
+
+    // Treina no modo síncrono com dois workers, cada um com metade do conjunto de dados, e devolve a rede treinada
+    private static NeuralNetwork train(List<double[]> dataset, GradientCompression compression) throws Exception {
+        NeuralNetwork nn = network();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try (ParameterServer server = new ParameterServer(nn, 2, 0)) {
+            int port = server.start(0);
+            int half = dataset.size() / 2;
+            List<Future<?>> workers = new ArrayList<>();
+            workers.add(executor.submit(worker(nn, dataset.subList(0, half), 5, compression, port)));
+            workers.add(executor.submit(worker(nn, dataset.subList(half, dataset.size()), 5, compression, port)));
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            server.awaitCompletion();
+            assertEquals(half / 5 * 20, server.getVersion());
+
+            double[] trained = new double[nn.getParameterCount()];
+            server.exportParameters(trained);
+            nn.importParameters(trained);
+            return nn;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Callable<Void> worker(NeuralNetwork nn, List<double[]> shard, int batchSize,
+                                         GradientCompression compression, int port) {
+        NeuralNetwork copy = nn.copy();
+        return () -> {
+            new ParameterServerWorker(copy, shard, batchSize, 20, compression, 1).run("localhost", port);
+            return null;
+        };
+    }
+
+    private static NeuralNetwork network() {
+        NeuralNetwork nn = new NeuralNetwork(2, 4, 1);
+        nn.setLearningRate(0.5);
+        nn.initializeParameters("XAVIER", 1);
+        return nn;
+    }
+
+    private static double[] roundTrip(GradientCompression compression, double[] update, double[] residual, int expectedBytes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        assertEquals(expectedBytes, compression.encode(update, residual, out));
+        assertEquals(expectedBytes, bytes.size());
+
+        double[] decoded = new double[update.length];
+        GradientCompression.decodeAdd(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())), decoded);
+        return decoded;
+    }
+}
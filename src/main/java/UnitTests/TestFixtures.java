@@ -0,0 +1,73 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Classe TestFixtures: Dados e utilitários partilhados pelos testes unitários.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Os conjuntos de dados gerados só dependem dos argumentos (incluindo a semente).
+ */
+public final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    /**
+     * @param nn Rede neural.
+     * @return Um novo array com os pesos e vieses da rede, pela ordem de `NeuralNetwork.exportParameters`.
+     */
+    public static double[] parameters(NeuralNetwork nn) {
+        double[] buffer = new double[nn.getParameterCount()];
+        nn.exportParameters(buffer);
+        return buffer;
+    }
+
+    /**
+     * Exemplos com entradas aleatórias em [0, 1) seguidas de um rótulo que percorre as classes pela ordem
+     * (0, 1, ..., classes - 1, 0, ...).
+     *
+     * @param count Número de exemplos.
+     * @param inputs Número de entradas de cada exemplo (400 para as imagens 20x20).
+     * @param classes Número de rótulos diferentes.
+     * @param seed Semente das entradas.
+     * @return Os exemplos.
+     */
+    public static List<double[]> randomRows(int count, int inputs, int classes, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<double[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double[] row = new double[inputs + 1];
+            for (int j = 0; j < inputs; j++) {
+                row[j] = random.nextDouble();
+            }
+            row[inputs] = i % classes;
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Exemplos com duas entradas em [0, 1); o rótulo é 1 quando a primeira é maior do que a segunda.
+     *
+     * @param random Gerador das entradas.
+     * @param size Número de exemplos.
+     * @return Os exemplos.
+     */
+    public static List<double[]> separableDataset(SplittableRandom random, int size) {
+        List<double[]> dataset = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            double x = random.nextDouble();
+            double y = random.nextDouble();
+            dataset.add(new double[]{x, y, x > y ? 1 : 0});
+        }
+        return dataset;
+    }
+}
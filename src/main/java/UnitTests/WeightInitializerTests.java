@@ -0,0 +1,110 @@
+package UnitTests;
+
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import basicneuralnetwork.neuralnetwork.TimeToAccuracyBenchmark;
+import basicneuralnetwork.weightinitializers.WeightInitializer;
+import basicneuralnetwork.weightinitializers.WeightInitializerFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Classe WeightInitializerTests: Testes unitários para os inicializadores de pesos e o TimeToAccuracyBenchmark.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ */
+public class WeightInitializerTests {
+
+    /**
+     * Testa se a mesma semente dá sempre os mesmos pesos e se sementes diferentes dão pesos diferentes.
+     */
+    @Test
+    public void testSeededInitializationIsReproducible() {
+        for (String key : new String[]{WeightInitializer.UNIFORM, WeightInitializer.XAVIER, WeightInitializer.HE}) {
+            NeuralNetwork first = new NeuralNetwork(20, 2, 8, 3);
+            NeuralNetwork second = new NeuralNetwork(20, 2, 8, 3);
+            NeuralNetwork other = new NeuralNetwork(20, 2, 8, 3);
+            first.initializeParameters(key, 42);
+            second.initializeParameters(key, 42);
+            other.initializeParameters(key, 43);
+
+            double[] a = TestFixtures.parameters(first);
+            assertArrayEquals(key, a, TestFixtures.parameters(second), 0.0);
+            assertFalse(key, Arrays.equals(a, TestFixtures.parameters(other)));
+        }
+
+        try {
+            new NeuralNetwork(2, 2, 1).initializeParameters("LECUN", 1);
+            fail("Esperada uma IllegalArgumentException para um inicializador desconhecido.");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("LECUN"));
+        }
+    }
+
+    /**
+     * Testa se os pesos de Xavier ficam dentro do limite e os de He têm a variância 2 / fanIn, com biases a 0.
+     */
+    @Test
+    public void testXavierAndHeScaleWithFanIn() {
+        int fanIn = 400;
+        int fanOut = 100;
+        double[] weights = new double[fanIn * fanOut];
+        double[] biases = new double[fanOut];
+
+        WeightInitializer xavier = WeightInitializerFactory.getWeightInitializerByKey(WeightInitializer.XAVIER);
+        xavier.initializeWeights(weights, fanIn, fanOut, new SplittableRandom(1));
+        xavier.initializeBiases(biases, fanIn, new SplittableRandom(1));
+        double limit = Math.sqrt(6.0 / (fanIn + fanOut));
+        for (double weight : weights) {
+            assertTrue(Math.abs(weight) <= limit);
+        }
+        assertEquals(limit * limit / 3, variance(weights), limit * limit / 30);
+        assertArrayEquals(new double[fanOut], biases, 0.0);
+
+        WeightInitializer he = WeightInitializerFactory.getWeightInitializerByKey(WeightInitializer.HE);
+        he.initializeWeights(weights, fanIn, fanOut, new SplittableRandom(2));
+        assertEquals(2.0 / fanIn, variance(weights), 0.2 / fanIn);
+
+        assertEquals(WeightInitializer.HE, WeightInitializerFactory.getDefaultKey("RELU"));
+        assertEquals(WeightInitializer.XAVIER, WeightInitializerFactory.getDefaultKey("SIGMOID"));
+    }
+
+    /**
+     * Testa se o benchmark pára ao atingir a acurácia alvo e se as épocas são as mesmas para a mesma semente.
+     */
+    @Test
+    public void testBenchmarkStopsAtTarget() {
+        SplittableRandom random = new SplittableRandom(3);
+        List<double[]> trainSet = TestFixtures.separableDataset(random, 60);
+        List<double[]> validationSet = TestFixtures.separableDataset(random, 40);
+
+        TimeToAccuracyBenchmark benchmark = new TimeToAccuracyBenchmark(trainSet, validationSet, 90, 200);
+        TimeToAccuracyBenchmark.Configuration configuration =
+                new TimeToAccuracyBenchmark.Configuration(4, 0.5, "SIGMOID", WeightInitializer.XAVIER);
+        TimeToAccuracyBenchmark.Result result = benchmark.run(configuration, 1, 2);
+
+        assertEquals(2, result.getReachedCount());
+        for (TimeToAccuracyBenchmark.Run run : result.getRuns()) {
+            assertTrue(run.getAccuracy() >= 90);
+            assertTrue(run.getEpochs() < 200);
+            assertEquals(run.getEpochs(), benchmark.run(configuration, run.getSeed()).getEpochs());
+        }
+        assertFalse(Double.isInfinite(result.getMedianSeconds()));
+    }
+
+    private static double variance(double[] values) {
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (double value : values) {
+            sum += value;
+            sumOfSquares += value * value;
+        }
+        double mean = sum / values.length;
+        return sumOfSquares / values.length - mean * mean;
+    }
+}
@@ -20,4 +20,15 @@ public interface ActivationFunction {
 
     String getName();
 
+    // Activation function for a single value
+    // The default goes through the matrix version, the built-in functions override it with the plain formula
+    default double apply(double value) {
+        return applyActivationFunctionToMatrix(new SimpleMatrix(1, 1, true, value)).get(0, 0);
+    }
+
+    // Derivative for a single value (again of the already activated value)
+    default double applyDerivative(double value) {
+        return applyDerivativeOfActivationFunctionToMatrix(new SimpleMatrix(1, 1, true, value)).get(0, 0);
+    }
+
 }
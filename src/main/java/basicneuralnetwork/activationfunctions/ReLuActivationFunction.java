@@ -41,6 +41,16 @@ public class ReLuActivationFunction implements ActivationFunction {
         return output;
     }
 
+    @Override
+    public double apply(double value) {
+        return value > 0 ? value : 0;
+    }
+
+    @Override
+    public double applyDerivative(double value) {
+        return value > 0 ? 1 : 0;
+    }
+
     public String getName() {
         return NAME;
     }
@@ -43,6 +43,16 @@ public class SigmoidActivationFunction implements ActivationFunction {
         return output;
     }
 
+    @Override
+    public double apply(double value) {
+        return 1 / (1 + Math.exp(-value));
+    }
+
+    @Override
+    public double applyDerivative(double value) {
+        return value * (1 - value);
+    }
+
     public String getName() {
         return NAME;
     }
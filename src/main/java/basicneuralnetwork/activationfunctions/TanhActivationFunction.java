@@ -42,6 +42,16 @@ public class TanhActivationFunction implements ActivationFunction {
         return output;
     }
 
+    @Override
+    public double apply(double value) {
+        return Math.tanh(value);
+    }
+
+    @Override
+    public double applyDerivative(double value) {
+        return 1 - (value * value);
+    }
+
     public String getName() {
         return NAME;
     }
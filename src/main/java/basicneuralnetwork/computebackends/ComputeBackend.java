@@ -0,0 +1,25 @@
+package basicneuralnetwork.computebackends;
+
+// Linear algebra kernels used by NeuralNetwork for the forward and backward pass
+// All matrices are dense and row-major (the layout of the data array of an EJML DMatrixRMaj / SimpleMatrix),
+// vectors are plain arrays. The kernels work in place on arrays owned by the caller and never allocate them.
+//
+// Implementations have to be stateless (they are shared by all networks and threads) and have to add the
+// products of every sum in the same order as EJML (index 0 first), so that the choice of backend only changes
+// the speed and never the results.
+public interface ComputeBackend {
+
+    String EJML = "EJML";
+    String SCALAR = "SCALAR";
+
+    // y = a * x + bias, with a of size rows x cols; bias may be null
+    void multiplyAdd(double[] a, int rows, int cols, double[] x, double[] bias, double[] y);
+
+    // y = transpose(a) * x, with a of size rows x cols (x has rows values, y has cols values)
+    void multiplyTransposed(double[] a, int rows, int cols, double[] x, double[] y);
+
+    // a = a + x * transpose(y), with a of size rows x cols (x has rows values, y has cols values)
+    void addOuterProduct(double[] a, int rows, int cols, double[] x, double[] y);
+
+    String getName();
+}
@@ -0,0 +1,148 @@
+package basicneuralnetwork.computebackends;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Chooses the ComputeBackend for every layer shape
+// By default (AUTO) the first use of a shape runs a short calibration: every registered backend does a few
+// forward/backward steps of that shape and the fastest one is remembered for the rest of the run.
+// For reproducible benchmarks the choice can be fixed with -Dbasicneuralnetwork.computeBackend=EJML (or SCALAR)
+// or with setOverride.
+public class ComputeBackendFactory {
+
+    public static final String PROPERTY = "basicneuralnetwork.computeBackend";
+    public static final String AUTO = "AUTO";
+
+    // Calibration budget: about CALIBRATION_WORK multiply-adds per timed round
+    private static final int CALIBRATION_WORK = 200_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int TIMED_ROUNDS = 5;
+
+    private static final Map<String, ComputeBackend> backendMap = Collections.synchronizedMap(new LinkedHashMap<>());
+    private static final Map<Long, ComputeBackend> selectedBackends = new ConcurrentHashMap<>();
+
+    private static volatile String override = System.getProperty(PROPERTY, AUTO);
+
+    static {
+        ComputeBackend ejml = new EjmlComputeBackend();
+        backendMap.put(ejml.getName(), ejml);
+
+        ComputeBackend scalar = new ScalarComputeBackend();
+        backendMap.put(scalar.getName(), scalar);
+    }
+
+    private ComputeBackendFactory() {
+    }
+
+    // Backend for a rows x cols weight matrix
+    public static ComputeBackend getBackend(int rows, int cols) {
+        String key = override;
+        if (!AUTO.equals(key)) {
+            return getBackendByKey(key);
+        }
+        return selectedBackends.computeIfAbsent(shapeKey(rows, cols), shape -> calibrate(rows, cols));
+    }
+
+    public static ComputeBackend getBackendByKey(String key) {
+        ComputeBackend backend = backendMap.get(key);
+        if (backend == null) {
+            throw new IllegalArgumentException("Unknown compute backend: " + key);
+        }
+        return backend;
+    }
+
+    // Registers an additional backend; it takes part in the calibration of every shape from now on
+    public static void addBackend(String key, ComputeBackend backend) {
+        backendMap.put(key, backend);
+        selectedBackends.clear();
+    }
+
+    // Fixes the backend for all shapes, null or AUTO goes back to the calibrated choice
+    public static void setOverride(String key) {
+        if (key != null && !AUTO.equals(key)) {
+            getBackendByKey(key);
+        }
+        override = key == null ? AUTO : key;
+    }
+
+    public static String getOverride() {
+        return override;
+    }
+
+    // The calibrated choices so far, e.g. {"10x400": "SCALAR", "1x10": "EJML"}
+    public static Map<String, String> getSelectedBackends() {
+        Map<String, String> result = new TreeMap<>();
+        for (Map.Entry<Long, ComputeBackend> entry : selectedBackends.entrySet()) {
+            long shape = entry.getKey();
+            result.put((shape >>> 32) + "x" + (int) shape, entry.getValue().getName());
+        }
+        return result;
+    }
+
+    private static long shapeKey(int rows, int cols) {
+        return ((long) rows << 32) | (cols & 0xFFFFFFFFL);
+    }
+
+    // Times one training step (forward, error propagation and weight update) of the shape with every backend
+    // and returns the one with the smallest best round
+    private static ComputeBackend calibrate(int rows, int cols) {
+        ComputeBackend[] backends;
+        synchronized (backendMap) {
+            backends = backendMap.values().toArray(new ComputeBackend[0]);
+        }
+        if (backends.length == 1) {
+            return backends[0];
+        }
+
+        SplittableRandom random = new SplittableRandom(rows * 31L + cols);
+        double[] a = new double[rows * cols];
+        double[] x = new double[cols];
+        double[] bias = new double[rows];
+        double[] y = new double[rows];
+        double[] transposed = new double[cols];
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextDouble(-1, 1);
+        }
+        for (int i = 0; i < cols; i++) {
+            x[i] = random.nextDouble();
+        }
+        // Tiny gradients, so the repeated weight updates do not make the values grow
+        double[] gradient = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            gradient[i] = random.nextDouble(-1e-9, 1e-9);
+        }
+
+        int iterations = Math.max(1, CALIBRATION_WORK / Math.max(1, rows * cols));
+        long[] best = new long[backends.length];
+        Arrays.fill(best, Long.MAX_VALUE);
+
+        // Rounds alternate between the backends, so that JIT compilation and noise affect all of them alike
+        for (int round = 0; round < WARMUP_ROUNDS + TIMED_ROUNDS; round++) {
+            for (int b = 0; b < backends.length; b++) {
+                long start = System.nanoTime();
+                for (int i = 0; i < iterations; i++) {
+                    backends[b].multiplyAdd(a, rows, cols, x, bias, y);
+                    backends[b].multiplyTransposed(a, rows, cols, gradient, transposed);
+                    backends[b].addOuterProduct(a, rows, cols, gradient, x);
+                }
+                long elapsed = System.nanoTime() - start;
+                if (round >= WARMUP_ROUNDS) {
+                    best[b] = Math.min(best[b], elapsed);
+                }
+            }
+        }
+
+        int fastest = 0;
+        for (int b = 1; b < backends.length; b++) {
+            if (best[b] < best[fastest]) {
+                fastest = b;
+            }
+        }
+        return backends[fastest];
+    }
+}
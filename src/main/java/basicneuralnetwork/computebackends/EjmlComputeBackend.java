@@ -0,0 +1,30 @@
+package basicneuralnetwork.computebackends;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+
+// Backend on top of EJML's in-place operations (CommonOps_DDRM)
+// The arrays are wrapped, not copied, so only the small DMatrixRMaj headers are allocated per call
+public class EjmlComputeBackend implements ComputeBackend {
+
+    public void multiplyAdd(double[] a, int rows, int cols, double[] x, double[] bias, double[] y) {
+        CommonOps_DDRM.mult(DMatrixRMaj.wrap(rows, cols, a), DMatrixRMaj.wrap(cols, 1, x), DMatrixRMaj.wrap(rows, 1, y));
+        if (bias != null) {
+            for (int r = 0; r < rows; r++) {
+                y[r] += bias[r];
+            }
+        }
+    }
+
+    public void multiplyTransposed(double[] a, int rows, int cols, double[] x, double[] y) {
+        CommonOps_DDRM.multTransA(DMatrixRMaj.wrap(rows, cols, a), DMatrixRMaj.wrap(rows, 1, x), DMatrixRMaj.wrap(cols, 1, y));
+    }
+
+    public void addOuterProduct(double[] a, int rows, int cols, double[] x, double[] y) {
+        CommonOps_DDRM.multAddTransB(DMatrixRMaj.wrap(rows, 1, x), DMatrixRMaj.wrap(cols, 1, y), DMatrixRMaj.wrap(rows, cols, a));
+    }
+
+    public String getName() {
+        return EJML;
+    }
+}
@@ -0,0 +1,76 @@
+package basicneuralnetwork.computebackends;
+
+// Hand-written backend with plain loops
+// multiplyAdd works on blocks of 4 rows: every value of x is loaded once per block and the 4 sums are independent,
+// so they can be computed in parallel by the CPU while every single sum still adds its products in order.
+// The other two kernels run over contiguous rows of a, which the JIT can unroll and vectorize.
+public class ScalarComputeBackend implements ComputeBackend {
+
+    public void multiplyAdd(double[] a, int rows, int cols, double[] x, double[] bias, double[] y) {
+        int r = 0;
+        for (; r + 3 < rows; r += 4) {
+            int row0 = r * cols;
+            int row1 = row0 + cols;
+            int row2 = row1 + cols;
+            int row3 = row2 + cols;
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            for (int c = 0; c < cols; c++) {
+                double value = x[c];
+                sum0 += a[row0 + c] * value;
+                sum1 += a[row1 + c] * value;
+                sum2 += a[row2 + c] * value;
+                sum3 += a[row3 + c] * value;
+            }
+            if (bias != null) {
+                sum0 += bias[r];
+                sum1 += bias[r + 1];
+                sum2 += bias[r + 2];
+                sum3 += bias[r + 3];
+            }
+            y[r] = sum0;
+            y[r + 1] = sum1;
+            y[r + 2] = sum2;
+            y[r + 3] = sum3;
+        }
+
+        // Remaining rows
+        for (; r < rows; r++) {
+            int row = r * cols;
+            double sum = 0;
+            for (int c = 0; c < cols; c++) {
+                sum += a[row + c] * x[c];
+            }
+            y[r] = bias != null ? sum + bias[r] : sum;
+        }
+    }
+
+    public void multiplyTransposed(double[] a, int rows, int cols, double[] x, double[] y) {
+        for (int c = 0; c < cols; c++) {
+            y[c] = 0;
+        }
+        for (int r = 0; r < rows; r++) {
+            int row = r * cols;
+            double value = x[r];
+            for (int c = 0; c < cols; c++) {
+                y[c] += a[row + c] * value;
+            }
+        }
+    }
+
+    public void addOuterProduct(double[] a, int rows, int cols, double[] x, double[] y) {
+        for (int r = 0; r < rows; r++) {
+            int row = r * cols;
+            double value = x[r];
+            for (int c = 0; c < cols; c++) {
+                a[row + c] += value * y[c];
+            }
+        }
+    }
+
+    public String getName() {
+        return SCALAR;
+    }
+}
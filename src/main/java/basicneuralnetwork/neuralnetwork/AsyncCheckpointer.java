@@ -0,0 +1,181 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe AsyncCheckpointer: Grava checkpoints periódicos de um treinamento sem o interromper.
+ * Os pesos e o `TrainingState` são copiados para um `TrainingCheckpoint` pré-alocado e serializados
+ * numa thread em segundo plano; o arquivo pode depois ser usado por `DigitTrainer.resume`.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Existe no máximo uma gravação em curso; um pedido de checkpoint feito durante uma gravação é ignorado.
+ * - O arquivo de destino é substituído de forma atómica, pelo que contém sempre um checkpoint completo.
+ */
+public class AsyncCheckpointer implements Closeable {
+
+    private final Path path;
+    private final Path temporaryPath;
+    private final TrainingCheckpoint snapshot;
+
+    private final Object lock = new Object();
+    private final AtomicBoolean writing = new AtomicBoolean(false);
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    private boolean requested;
+    private boolean closed;
+    private IOException failure;
+    private final Thread writerThread;
+
+    /**
+     * Cria um checkpointer para redes com as mesmas dimensões de `nn`.
+     *
+     * @param nn Rede neural usada para dimensionar o buffer.
+     * @param filePath Caminho do arquivo de checkpoint.
+     */
+    public AsyncCheckpointer(NeuralNetwork nn, String filePath) {
+        this.path = Paths.get(filePath);
+        this.temporaryPath = Paths.get(filePath + ".tmp");
+        this.snapshot = new TrainingCheckpoint(nn);
+
+        this.writerThread = new Thread(this::writeLoop, "checkpoint-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Copia os pesos atuais e o estado do treinamento para o buffer e agenda a sua gravação.
+     * Se a gravação anterior ainda estiver em curso, o pedido é ignorado para não atrasar o treinamento.
+     *
+     * @param nn A rede neural a guardar.
+     * @param state O estado do treinamento.
+     * @return true se o checkpoint foi agendado, false se foi ignorado.
+     */
+    public boolean checkpoint(NeuralNetwork nn, TrainingState state) {
+        if (!writing.compareAndSet(false, true)) {
+            skippedCount.incrementAndGet();
+            return false;
+        }
+
+        snapshot.capture(nn, state);
+        synchronized (lock) {
+            if (closed) {
+                writing.set(false);
+                throw new IllegalStateException("Erro: O checkpointer já foi fechado.");
+            }
+            requested = true;
+            lock.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Bloqueia até que não haja nenhuma gravação em curso.
+     *
+     * @throws IOException Se a última gravação tiver falhado.
+     */
+    public void awaitIdle() throws IOException {
+        synchronized (lock) {
+            while (writing.get()) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Erro: Interrompido enquanto aguardava a gravação do checkpoint.", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Aguarda a gravação em curso e termina a thread de escrita.
+     *
+     * @throws IOException Se a última gravação tiver falhado.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            awaitIdle();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return O número de checkpoints gravados com sucesso.
+     */
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    /**
+     * @return O número de pedidos ignorados por haver uma gravação em curso.
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public String getPath() {
+        return path.toString();
+    }
+
+    // Corpo da thread de escrita: espera por um pedido, grava o buffer e liberta-o para o próximo checkpoint
+    private void writeLoop() {
+        while (true) {
+            synchronized (lock) {
+                while (!requested && !closed) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (!requested) {
+                    return;
+                }
+                requested = false;
+            }
+
+            IOException error = null;
+            try {
+                write();
+                writtenCount.incrementAndGet();
+            } catch (IOException e) {
+                error = e;
+            }
+
+            synchronized (lock) {
+                failure = error;
+                writing.set(false);
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void write() throws IOException {
+        snapshot.write(temporaryPath.toString());
+
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classe AugmentationPipeline: Produz, em threads de trabalho, lotes de exemplos aumentados com um `ImageAugmenter`
+ * enquanto o treinamento consome os lotes anteriores. As imagens aumentadas são escritas em buffers reutilizados
+ * (um pequeno conjunto fixo por thread), pelo que nenhuma cópia aumentada do conjunto de dados é guardada.
+ *
+ * Em cada época, o lote k contém os exemplos `order[k * batchSize ...]` e é produzido pela thread `k % workers`
+ * com um gerador aleatório derivado apenas da semente da época e de k. Os lotes são entregues por ordem,
+ * pelo que o resultado do treinamento não depende do número de threads.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Um lote devolvido por `take` só é reutilizado depois de `release`.
+ * - `beginEpoch` só pode ser chamado depois de todos os lotes da época anterior terem sido consumidos.
+ * - O conjunto de dados não é alterado.
+ */
+public class AugmentationPipeline implements AutoCloseable {
+
+    /**
+     * Um lote de exemplos aumentados. Os arrays pertencem ao pipeline e são reescritos depois de `release`.
+     */
+    public static class Batch {
+        private final int worker;
+        private final double[][] inputs;
+        private final double[] targets;
+        private int size;
+
+        private Batch(int worker, int batchSize, int inputLength) {
+            this.worker = worker;
+            this.inputs = new double[batchSize][inputLength];
+            this.targets = new double[batchSize];
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        public double[] getInput(int i) {
+            return inputs[i];
+        }
+
+        public double getTarget(int i) {
+            return targets[i];
+        }
+    }
+
+    private static final long POLL_MILLIS = 100;
+
+    private final List<double[]> dataset;
+    private final int batchSize;
+    private final int workers;
+    private final List<BlockingQueue<Batch>> free;
+    private final List<BlockingQueue<Batch>> ready;
+    private final Thread[] threads;
+
+    // Época atual, publicada por beginEpoch sob `lock`
+    private final Object lock = new Object();
+    private final int[] order;
+    private int epoch;
+    private long epochSeed;
+    private int batchCount;
+
+    private int nextBatch;
+    private long waitNanos;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    /**
+     * @param dataset Conjunto de dados; cada linha tem os pixels da imagem seguidos do rótulo.
+     * @param augmenter Configuração das transformações (cada thread usa uma cópia).
+     * @param workers Número de threads de trabalho.
+     * @param batchSize Número de exemplos por lote.
+     * @param buffersPerWorker Número de lotes que cada thread pode ter preparados à frente do consumo.
+     */
+    public AugmentationPipeline(List<double[]> dataset, ImageAugmenter augmenter, int workers, int batchSize, int buffersPerWorker) {
+        int inputLength = augmenter.getWidth() * augmenter.getHeight();
+        if (!dataset.isEmpty() && dataset.get(0).length - 1 != inputLength) {
+            throw new IllegalArgumentException("Erro: As linhas têm " + (dataset.get(0).length - 1)
+                    + " pixels, mas as imagens são " + augmenter.getWidth() + "x" + augmenter.getHeight() + ".");
+        }
+        if (workers <= 0 || batchSize <= 0 || buffersPerWorker <= 0) {
+            throw new IllegalArgumentException("Erro: O número de threads, o tamanho do lote e o número de buffers devem ser positivos.");
+        }
+
+        this.dataset = dataset;
+        this.batchSize = batchSize;
+        this.workers = workers;
+        this.order = new int[dataset.size()];
+        this.free = new ArrayList<>(workers);
+        this.ready = new ArrayList<>(workers);
+        this.threads = new Thread[workers];
+
+        for (int w = 0; w < workers; w++) {
+            free.add(new ArrayBlockingQueue<>(buffersPerWorker));
+            ready.add(new ArrayBlockingQueue<>(buffersPerWorker));
+            for (int b = 0; b < buffersPerWorker; b++) {
+                free.get(w).add(new Batch(w, batchSize, inputLength));
+            }
+
+            int worker = w;
+            ImageAugmenter workerAugmenter = augmenter.copy();
+            threads[w] = new Thread(() -> run(worker, workerAugmenter), "augmentation-" + w);
+            threads[w].setDaemon(true);
+            threads[w].start();
+        }
+    }
+
+    /**
+     * Inicia uma época: as threads começam a produzir os lotes dos exemplos pela ordem indicada.
+     *
+     * @param order Índices das linhas do conjunto de dados, pela ordem de treinamento (o array é copiado).
+     * @param seed Semente das transformações desta época.
+     */
+    public void beginEpoch(int[] order, long seed) {
+        if (order.length != this.order.length) {
+            throw new IllegalArgumentException("Erro: A ordem tem " + order.length + " índices (esperado: " + this.order.length + ").");
+        }
+        synchronized (lock) {
+            if (nextBatch < batchCount) {
+                throw new IllegalStateException("Erro: A época anterior ainda tem lotes por consumir.");
+            }
+            System.arraycopy(order, 0, this.order, 0, order.length);
+            epochSeed = seed;
+            batchCount = (order.length + batchSize - 1) / batchSize;
+            nextBatch = 0;
+            epoch++;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Devolve o próximo lote da época, esperando que esteja pronto.
+     *
+     * @return O lote, ou null se a época já não tiver mais lotes.
+     */
+    public Batch take() {
+        if (nextBatch >= batchCount) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        BlockingQueue<Batch> queue = ready.get(nextBatch % workers);
+        try {
+            Batch batch;
+            while ((batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS)) == null) {
+                checkFailure();
+                if (closed) {
+                    throw new IllegalStateException("Erro: Pipeline de augmentation fechado.");
+                }
+            }
+            nextBatch++;
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro: Espera por um lote aumentado interrompida.", e);
+        } finally {
+            waitNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Devolve um lote ao pipeline, para ser reutilizado.
+     */
+    public void release(Batch batch) {
+        free.get(batch.worker).add(batch);
+    }
+
+    /**
+     * @return O tempo total, em nanossegundos, que o consumidor esperou por lotes. Perto de 0 quando as threads
+     *         produzem pelo menos tão depressa quanto o treinamento consome.
+     */
+    public long getWaitNanos() {
+        return waitNanos;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    private void run(int worker, ImageAugmenter augmenter) {
+        int lastEpoch = 0;
+        try {
+            while (!closed) {
+                long seed;
+                int count;
+                synchronized (lock) {
+                    while (epoch == lastEpoch) {
+                        lock.wait();
+                    }
+                    lastEpoch = epoch;
+                    seed = epochSeed;
+                    count = batchCount;
+                }
+
+                for (int k = worker; k < count; k += workers) {
+                    Batch batch = free.get(worker).take();
+                    fill(batch, k, seed, augmenter);
+                    ready.get(worker).put(batch);
+                }
+            }
+        } catch (InterruptedException e) {
+            // close()
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        }
+    }
+
+    // `order` só muda em beginEpoch, depois de todos os lotes da época anterior terem sido consumidos
+    private void fill(Batch batch, int k, long seed, ImageAugmenter augmenter) {
+        SplittableRandom random = new SplittableRandom(seed + 0x9E3779B97F4A7C15L * (k + 1));
+        int start = k * batchSize;
+        batch.size = Math.min(batchSize, order.length - start);
+        for (int i = 0; i < batch.size; i++) {
+            double[] row = dataset.get(order[start + i]);
+            augmenter.augment(row, batch.inputs[i], random);
+            batch.targets[i] = row[row.length - 1];
+        }
+    }
+
+    private void checkFailure() {
+        Throwable cause = failure;
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause != null) {
+            throw new IllegalStateException("Erro numa thread de augmentation: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe CascadeModel: Modelo de inferência em cascata com saída antecipada, para redes com uma saída.
+ *
+ * Cada entrada passa primeiro por um modelo pequeno (por exemplo, uma rede com poucos neurônios ocultos, ou uma versão
+ * podada do modelo completo). Se a saída desse modelo for <= `lowThreshold` ou >= `highThreshold`, é a resposta;
+ * caso contrário, a entrada é avaliada pelo modelo completo. Quanto mais entradas fáceis houver, menor é o custo
+ * médio por predição, e `tune` escolhe os limiares que maximizam as saídas antecipadas sem descer abaixo de uma
+ * acurácia alvo num conjunto de validação.
+ *
+ * O arquivo de `save` começa com a linha `# cascade <lowThreshold> <highThreshold>`, seguida dos pesos do modelo
+ * pequeno no formato de `NeuralNetwork.saveWeights`; o modelo completo é carregado à parte.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `lowThreshold` < 0.5 <= `highThreshold`, pelo que uma saída antecipada nunca muda a classe dada pelo modelo pequeno.
+ * - O modelo é imutável (exceto as estatísticas); `guess` pode ser chamado em simultâneo por várias threads.
+ */
+public class CascadeModel implements InferenceModel {
+
+    static final String CASCADE_HEADER = "# cascade ";
+
+    /**
+     * Limiares escolhidos por `tune`, com a acurácia e a fração de saídas antecipadas no conjunto de validação.
+     */
+    public static class Thresholds {
+        private final double lowThreshold;
+        private final double highThreshold;
+        private final double accuracy;
+        private final double earlyExitFraction;
+
+        private Thresholds(double lowThreshold, double highThreshold, double accuracy, double earlyExitFraction) {
+            this.lowThreshold = lowThreshold;
+            this.highThreshold = highThreshold;
+            this.accuracy = accuracy;
+            this.earlyExitFraction = earlyExitFraction;
+        }
+
+        public double getLowThreshold() {
+            return lowThreshold;
+        }
+
+        public double getHighThreshold() {
+            return highThreshold;
+        }
+
+        /**
+         * @return A percentagem de exemplos de validação classificados corretamente pela cascata.
+         */
+        public double getAccuracy() {
+            return accuracy;
+        }
+
+        /**
+         * @return A fração de exemplos de validação respondidos pelo modelo pequeno.
+         */
+        public double getEarlyExitFraction() {
+            return earlyExitFraction;
+        }
+    }
+
+    private final InferenceModel firstStage;
+    private final InferenceModel fullModel;
+    private final double lowThreshold;
+    private final double highThreshold;
+
+    private final AtomicLong guessCount = new AtomicLong();
+    private final AtomicLong earlyExitCount = new AtomicLong();
+
+    /**
+     * @param firstStage O modelo pequeno, avaliado em todas as entradas.
+     * @param fullModel O modelo completo, avaliado quando o pequeno não tem confiança suficiente.
+     * @param lowThreshold Saídas do modelo pequeno até este valor são respondidas com a classe 0
+     *                     (`Double.NEGATIVE_INFINITY` para nunca sair antecipadamente com a classe 0).
+     * @param highThreshold Saídas do modelo pequeno a partir deste valor são respondidas com a classe 1
+     *                      (`Double.POSITIVE_INFINITY` para nunca sair antecipadamente com a classe 1).
+     */
+    public CascadeModel(InferenceModel firstStage, InferenceModel fullModel, double lowThreshold, double highThreshold) {
+        if (firstStage.getOutputNodes() != 1 || fullModel.getOutputNodes() != 1) {
+            throw new IllegalArgumentException("Erro: A cascata só suporta modelos com uma saída.");
+        }
+        if (!(lowThreshold < 0.5) || !(highThreshold >= 0.5)) {
+            throw new IllegalArgumentException("Erro: Limiares inválidos (" + lowThreshold + ", " + highThreshold
+                    + "); o inferior deve ser menor do que 0.5 e o superior pelo menos 0.5.");
+        }
+        this.firstStage = firstStage;
+        this.fullModel = fullModel;
+        this.lowThreshold = lowThreshold;
+        this.highThreshold = highThreshold;
+    }
+
+    /**
+     * @param firstStage O modelo pequeno.
+     * @param fullModel O modelo completo.
+     * @param thresholds Limiares escolhidos por `tune`.
+     */
+    public CascadeModel(InferenceModel firstStage, InferenceModel fullModel, Thresholds thresholds) {
+        this(firstStage, fullModel, thresholds.getLowThreshold(), thresholds.getHighThreshold());
+    }
+
+    /**
+     * Escolhe os limiares com o maior número de saídas antecipadas num conjunto de validação cuja acurácia
+     * (com a classe dada por uma saída >= 0.5) seja pelo menos `targetAccuracy`. Se nem sem saídas antecipadas
+     * a acurácia alvo for atingida, os limiares desativam as saídas antecipadas.
+     *
+     * Os exemplos com saída do modelo pequeno < 0.5 só podem sair pelo limiar inferior, e os restantes só pelo
+     * superior; cada limiar corresponde assim a um prefixo dos exemplos do seu lado, ordenados pela confiança.
+     * Com as somas prefixas da diferença de acertos entre os dois modelos, cada limiar inferior é combinado com
+     * o maior limiar superior admissível por pesquisa binária (O(n log n) no total).
+     *
+     * @param firstStage O modelo pequeno.
+     * @param fullModel O modelo completo.
+     * @param validationSet Exemplos com os valores de entrada seguidos do rótulo (0 ou 1).
+     * @param targetAccuracy Acurácia mínima, em percentagem (por exemplo, a do modelo completo).
+     * @return Os limiares escolhidos.
+     */
+    public static Thresholds tune(InferenceModel firstStage, InferenceModel fullModel, List<double[]> validationSet, double targetAccuracy) {
+        int n = validationSet.size();
+        if (n == 0) {
+            throw new IllegalArgumentException("Erro: O conjunto de validação está vazio.");
+        }
+
+        double[] confidences = new double[n];
+        int[] gains = new int[n];
+        int fullCorrect = 0;
+        double[] output = new double[1];
+        List<Integer> lowSide = new ArrayList<>();
+        List<Integer> highSide = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            double[] row = validationSet.get(i);
+            double[] input = new double[row.length - 1];
+            System.arraycopy(row, 0, input, 0, input.length);
+            int label = (int) row[row.length - 1];
+
+            firstStage.guess(input, output);
+            confidences[i] = output[0];
+            int firstHit = (output[0] >= 0.5 ? 1 : 0) == label ? 1 : 0;
+            fullModel.guess(input, output);
+            int fullHit = (output[0] >= 0.5 ? 1 : 0) == label ? 1 : 0;
+
+            fullCorrect += fullHit;
+            gains[i] = firstHit - fullHit;
+            (confidences[i] < 0.5 ? lowSide : highSide).add(i);
+        }
+
+        // Do mais confiante para o menos confiante, de cada lado
+        lowSide.sort(Comparator.comparingDouble(i -> confidences[i]));
+        highSide.sort(Comparator.comparingDouble(i -> -confidences[i]));
+        int[] lowGains = prefixGains(lowSide, gains, confidences);
+        int[] highGains = prefixGains(highSide, gains, confidences);
+
+        // suffixMax[b] = maior ganho com pelo menos b saídas pelo limiar superior; não cresce com b
+        int[] suffixMax = new int[highGains.length];
+        suffixMax[highGains.length - 1] = highGains[highGains.length - 1];
+        for (int b = highGains.length - 2; b >= 0; b--) {
+            suffixMax[b] = Math.max(highGains[b], suffixMax[b + 1]);
+        }
+
+        // Ganho mínimo sobre o modelo completo para atingir a acurácia alvo
+        int required = (int) Math.ceil(targetAccuracy * n / 100 - 1e-9) - fullCorrect;
+        int bestLow = 0;
+        int bestHigh = 0;
+        int bestGain = 0;
+        boolean feasible = false;
+        for (int a = 0; a < lowGains.length; a++) {
+            if (lowGains[a] == Integer.MIN_VALUE) {
+                continue;
+            }
+            int needed = required - lowGains[a];
+            if (suffixMax[0] < needed) {
+                continue;
+            }
+            // Maior b com suffixMax[b] >= needed, que é também o maior b com highGains[b] >= needed
+            int lo = 0;
+            int hi = suffixMax.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (suffixMax[mid] >= needed) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            int gain = lowGains[a] + highGains[lo];
+            if (!feasible || a + lo > bestLow + bestHigh || (a + lo == bestLow + bestHigh && gain > bestGain)) {
+                feasible = true;
+                bestLow = a;
+                bestHigh = lo;
+                bestGain = gain;
+            }
+        }
+        if (!feasible) {
+            bestLow = 0;
+            bestHigh = 0;
+            bestGain = 0;
+        }
+
+        double low = bestLow == 0 ? Double.NEGATIVE_INFINITY : confidences[lowSide.get(bestLow - 1)];
+        double high = bestHigh == 0 ? Double.POSITIVE_INFINITY : confidences[highSide.get(bestHigh - 1)];
+        return new Thresholds(low, high, (fullCorrect + bestGain) * 100.0 / n, (bestLow + bestHigh) / (double) n);
+    }
+
+    // Ganho acumulado dos primeiros `k` exemplos de um lado, para k = 0..size; um prefixo que separaria exemplos
+    // com a mesma confiança não corresponde a nenhum limiar e fica com Integer.MIN_VALUE
+    private static int[] prefixGains(List<Integer> side, int[] gains, double[] confidences) {
+        int[] prefix = new int[side.size() + 1];
+        int sum = 0;
+        for (int k = 1; k <= side.size(); k++) {
+            sum += gains[side.get(k - 1)];
+            prefix[k] = sum;
+        }
+        for (int k = 1; k < side.size(); k++) {
+            if (confidences[side.get(k - 1)] == confidences[side.get(k)]) {
+                prefix[k] = Integer.MIN_VALUE;
+            }
+        }
+        return prefix;
+    }
+
+    /**
+     * Faz uma predição com o modelo pequeno e, se este não tiver confiança suficiente, com o modelo completo.
+     */
+    @Override
+    public void guess(double[] input, double[] output) {
+        firstStage.guess(input, output);
+        double confidence = output[0];
+        if (confidence <= lowThreshold || confidence >= highThreshold) {
+            earlyExitCount.incrementAndGet();
+        } else {
+            fullModel.guess(input, output);
+        }
+        guessCount.incrementAndGet();
+    }
+
+    /**
+     * Grava um modelo pequeno e os seus limiares (ver o formato na descrição da classe).
+     *
+     * @param filename Caminho do arquivo.
+     * @param firstStage O modelo pequeno.
+     * @param thresholds Os limiares.
+     * @throws IOException Se o arquivo não puder ser escrito.
+     */
+    public static void save(String filename, NeuralNetwork firstStage, Thresholds thresholds) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.println(CASCADE_HEADER + thresholds.getLowThreshold() + " " + thresholds.getHighThreshold());
+            firstStage.saveWeights(writer);
+        }
+    }
+
+    /**
+     * Carrega uma cascata gravada por `save`; o modelo pequeno é carregado como um `CompactModel`.
+     *
+     * @param filename Caminho do arquivo.
+     * @param activationFunction Nome da função de ativação do modelo pequeno ("SIGMOID", "TANH" ou "RELU").
+     * @param fullModel O modelo completo.
+     * @return A cascata.
+     * @throws IOException Se o arquivo não existir ou não tiver o formato esperado.
+     */
+    public static CascadeModel load(String filename, String activationFunction, InferenceModel fullModel) throws IOException {
+        String text;
+        try {
+            text = new String(Files.readAllBytes(Paths.get(filename)), StandardCharsets.ISO_8859_1);
+        } catch (NoSuchFileException e) {
+            throw new IOException(filename + " (Arquivo não encontrado)", e);
+        }
+
+        int end = text.indexOf('\n');
+        if (!text.startsWith(CASCADE_HEADER) || end < 0) {
+            throw new IOException("Erro: `" + filename + "` não começa com o cabeçalho da cascata.");
+        }
+        String[] header = text.substring(CASCADE_HEADER.length(), end).trim().split(" ");
+        double low;
+        double high;
+        try {
+            low = Double.parseDouble(header[0]);
+            high = Double.parseDouble(header[1]);
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IOException("Erro: Cabeçalho da cascata inválido em `" + filename + "`.", e);
+        }
+        if (!(low < 0.5) || !(high >= 0.5)) {
+            throw new IOException("Erro: Limiares inválidos em `" + filename + "`.");
+        }
+
+        CompactModel firstStage = CompactModel.parse(text.substring(end + 1), CompactModel.activationCode(activationFunction), filename);
+        return new CascadeModel(firstStage, fullModel, low, high);
+    }
+
+    @Override
+    public int getInputNodes() {
+        return fullModel.getInputNodes();
+    }
+
+    @Override
+    public int getOutputNodes() {
+        return 1;
+    }
+
+    public InferenceModel getFirstStage() {
+        return firstStage;
+    }
+
+    public InferenceModel getFullModel() {
+        return fullModel;
+    }
+
+    public double getLowThreshold() {
+        return lowThreshold;
+    }
+
+    public double getHighThreshold() {
+        return highThreshold;
+    }
+
+    public long getGuessCount() {
+        return guessCount.get();
+    }
+
+    /**
+     * @return O número de predições respondidas só pelo modelo pequeno.
+     */
+    public long getEarlyExitCount() {
+        return earlyExitCount.get();
+    }
+
+    /**
+     * @return A fração das predições respondidas só pelo modelo pequeno (0 antes da primeira predição).
+     */
+    public double getEarlyExitFraction() {
+        long guesses = guessCount.get();
+        return guesses == 0 ? 0 : earlyExitCount.get() / (double) guesses;
+    }
+
+    /**
+     * Põe a zero as estatísticas, por exemplo depois de uma predição de aquecimento.
+     * Não deve ser chamado enquanto houver predições em curso noutras threads.
+     */
+    public void resetStats() {
+        guessCount.set(0);
+        earlyExitCount.set(0);
+    }
+}
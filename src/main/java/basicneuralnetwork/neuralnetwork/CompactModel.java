@@ -0,0 +1,453 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Classe CompactModel: Modelo de inferência com arranque rápido, para processos que fazem uma única predição
+ * (como `DigitClassifier`). Lê o arquivo de pesos de `NeuralNetwork.saveWeights` com um parser próprio e guarda
+ * os pesos em arrays simples: não carrega EJML, Gson, a fábrica de funções de ativação nem usa reflexão,
+ * pelo que poucas classes são carregadas antes da primeira predição.
+ *
+ * As dimensões das camadas são deduzidas do arquivo (o número de linhas de cada camada é o tamanho do seu viés).
+ * Numa JVM acabada de arrancar, converter os milhares de valores em texto é a parte mais lenta do carregamento;
+ * `loadCached` guarda por isso uma cópia binária dos pesos ao lado do arquivo de texto e usa-a enquanto este não mudar.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - O modelo é imutável; `guess` pode ser chamado em simultâneo por várias threads.
+ * - As predições são iguais às de uma `NeuralNetwork` que carregue o mesmo arquivo com a mesma função de ativação.
+ */
+public class CompactModel implements InferenceModel {
+
+    // Sufixo e identificação ("CMOD") da cópia binária usada por `loadCached`
+    private static final String CACHE_SUFFIX = ".bin";
+    private static final int CACHE_MAGIC = 0x434D4F44;
+    private static final int CACHE_VERSION = 2;
+
+    private static final int SIGMOID = 0;
+    private static final int TANH = 1;
+    private static final int RELU = 2;
+
+    private final int activation;
+    private final int inputNodes;
+    private final int rawInputNodes;
+    private final int[] featureIndices;
+    private final double[][] weights;
+    private final double[][] biases;
+    private final int scratchLength;
+
+    private CompactModel(int activation, int rawInputNodes, int[] featureIndices, double[][] weights, double[][] biases) {
+        this.activation = activation;
+        this.weights = weights;
+        this.biases = biases;
+        this.inputNodes = weights[0].length / biases[0].length;
+        this.rawInputNodes = featureIndices != null ? rawInputNodes : inputNodes;
+        this.featureIndices = featureIndices;
+
+        int largest = 0;
+        for (int layer = 0; layer < biases.length - 1; layer++) {
+            largest = Math.max(largest, biases[layer].length);
+        }
+        this.scratchLength = 2 * largest;
+    }
+
+    /**
+     * Carrega um arquivo escrito por `NeuralNetwork.saveWeights`, incluindo o cabeçalho opcional de features.
+     *
+     * @param filename Caminho do arquivo.
+     * @param activationFunction Nome da função de ativação predefinida ("SIGMOID", "TANH" ou "RELU").
+     * @return O modelo.
+     * @throws IOException Se o arquivo não existir ou não tiver o formato esperado.
+     */
+    public static CompactModel load(String filename, String activationFunction) throws IOException {
+        int activation = activationCode(activationFunction);
+
+        String text;
+        try {
+            text = new String(Files.readAllBytes(Paths.get(filename)), StandardCharsets.ISO_8859_1);
+        } catch (NoSuchFileException e) {
+            throw new IOException(filename + " (Arquivo não encontrado)", e);
+        }
+        return parse(text, activation, filename);
+    }
+
+    // Converte o texto de um arquivo de pesos; `filename` só é usado nas mensagens de erro
+    static CompactModel parse(String text, int activation, String filename) throws IOException {
+        int position = 0;
+        int rawInputNodes = -1;
+        int[] features = null;
+        if (text.startsWith(NeuralNetwork.FEATURE_HEADER)) {
+            int end = lineEnd(text, 0);
+            String[] header = text.substring(NeuralNetwork.FEATURE_HEADER.length(), end).trim().split(" ");
+            try {
+                rawInputNodes = Integer.parseInt(header[0]);
+                features = parseIndices(header.length > 1 ? header[1] : "");
+            } catch (NumberFormatException e) {
+                throw new IOException("Erro: Cabeçalho de features inválido em `" + filename + "`.", e);
+            }
+            position = end;
+        }
+
+        List<double[]> matrices = new ArrayList<>();
+        while (position < text.length()) {
+            int end = lineEnd(text, position);
+            if (text.indexOf('[', position) >= 0 && text.indexOf('[', position) < end) {
+                matrices.add(parseLine(text, position, end, filename));
+            }
+            position = end + 1;
+        }
+
+        if (matrices.isEmpty() || matrices.size() % 2 != 0) {
+            throw new IOException("Erro: `" + filename + "` tem " + matrices.size() + " matrizes (esperado um número par).");
+        }
+
+        int layers = matrices.size() / 2;
+        double[][] weights = new double[layers][];
+        double[][] biases = new double[layers][];
+        int previousNodes = -1;
+        for (int layer = 0; layer < layers; layer++) {
+            weights[layer] = matrices.get(layer);
+            biases[layer] = matrices.get(layers + layer);
+            int rows = biases[layer].length;
+            if (rows == 0 || weights[layer].length % rows != 0
+                    || (previousNodes >= 0 && weights[layer].length != rows * previousNodes)) {
+                throw new IOException("Erro: `" + filename + "` tem dimensões inconsistentes na camada " + layer + ".");
+            }
+            previousNodes = rows;
+        }
+
+        if (features != null) {
+            int inputNodes = weights[0].length / biases[0].length;
+            if (features.length != inputNodes) {
+                throw new IOException("Erro: Cabeçalho de features inválido em `" + filename + "`.");
+            }
+            for (int i = 0; i < features.length; i++) {
+                if (features[i] < 0 || features[i] >= rawInputNodes || (i > 0 && features[i] <= features[i - 1])) {
+                    throw new IOException("Erro: Cabeçalho de features inválido em `" + filename + "`.");
+                }
+            }
+        }
+
+        return new CompactModel(activation, rawInputNodes, features, weights, biases);
+    }
+
+    /**
+     * Cria um modelo com uma cópia dos pesos atuais de uma rede (as alterações posteriores da rede não o afetam).
+     *
+     * @param nn A rede, com a função de ativação "SIGMOID", "TANH" ou "RELU".
+     * @return O modelo.
+     */
+    public static CompactModel fromNeuralNetwork(NeuralNetwork nn) {
+        int layers = nn.getWeights().length;
+        double[][] weights = new double[layers][];
+        double[][] biases = new double[layers][];
+        for (int layer = 0; layer < layers; layer++) {
+            weights[layer] = nn.getWeights()[layer].getDDRM().getData().clone();
+            biases[layer] = nn.getBiases()[layer].getDDRM().getData().clone();
+        }
+        int[] features = nn.getFeatureIndices();
+        return new CompactModel(activationCode(nn.getActivationFunctionName()), nn.getRawInputNodes(),
+                features != null ? features.clone() : null, weights, biases);
+    }
+
+    /**
+     * Carrega o modelo da cópia binária `filename + ".bin"` se esta corresponder ao tamanho e ao CRC-32 do conteúdo
+     * atual do arquivo de texto; caso contrário converte o texto como `load` e (re)escreve a cópia binária.
+     * O conteúdo é comparado (e não a data de modificação) para que um arquivo reescrito com o mesmo tamanho
+     * no mesmo segundo não seja servido a partir da cópia antiga; ler os bytes é muito mais rápido do que convertê-los.
+     * Uma cópia que não possa ser escrita (por exemplo, num diretório só de leitura) é ignorada.
+     *
+     * @param filename Caminho do arquivo de pesos em texto.
+     * @param activationFunction Nome da função de ativação predefinida.
+     * @return O modelo.
+     * @throws IOException Se o arquivo de texto não existir ou não tiver o formato esperado.
+     */
+    public static CompactModel loadCached(String filename, String activationFunction) throws IOException {
+        int activation = activationCode(activationFunction);
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(Paths.get(filename));
+        } catch (NoSuchFileException e) {
+            throw new IOException(filename + " (Arquivo não encontrado)", e);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        long checksum = crc.getValue();
+
+        File cache = new File(filename + CACHE_SUFFIX);
+        if (cache.isFile()) {
+            CompactModel model = readCache(cache, activation, bytes.length, checksum);
+            if (model != null) {
+                return model;
+            }
+        }
+
+        CompactModel model = parse(new String(bytes, StandardCharsets.ISO_8859_1), activation, filename);
+        try {
+            model.writeCache(cache, bytes.length, checksum);
+        } catch (IOException e) {
+            // Sem cópia binária: o próximo arranque volta a ler o texto
+        }
+        return model;
+    }
+
+    /**
+     * Faz uma predição. Aceita a entrada completa ou, se o modelo tiver mapeamento de features, a entrada reduzida.
+     */
+    @Override
+    public void guess(double[] input, double[] output) {
+        guess(input, output, new double[scratchLength]);
+    }
+
+    /**
+     * Predição sem alocações: as ativações das camadas escondidas ficam em `scratch`.
+     *
+     * @param input Valores de entrada (completos ou reduzidos, como em `guess(double[], double[])`).
+     * @param output Array com pelo menos `getOutputNodes()` elementos, onde é escrita a saída.
+     * @param scratch Array de trabalho com pelo menos `getScratchLength()` elementos (um por thread).
+     */
+    public void guess(double[] input, double[] output, double[] scratch) {
+        boolean raw = featureIndices != null && input.length == rawInputNodes && rawInputNodes != inputNodes;
+        if (!raw && input.length != inputNodes) {
+            throw new IllegalArgumentException("Erro: Esperados " + rawInputNodes + " valores de entrada.");
+        }
+
+        // As camadas escondidas alternam entre as duas metades de `scratch`; a última escreve em `output`
+        int half = scratchLength / 2;
+        double[] activations = input;
+        int inOffset = 0;
+        for (int layer = 0; layer < weights.length; layer++) {
+            double[] w = weights[layer];
+            double[] b = biases[layer];
+            int cols = w.length / b.length;
+            boolean last = layer == weights.length - 1;
+            double[] result = last ? output : scratch;
+            int outOffset = last ? 0 : (layer % 2) * half;
+
+            for (int r = 0; r < b.length; r++) {
+                int row = r * cols;
+                double sum = 0;
+                if (layer == 0 && raw) {
+                    for (int c = 0; c < cols; c++) {
+                        sum += w[row + c] * activations[featureIndices[c]];
+                    }
+                } else {
+                    for (int c = 0; c < cols; c++) {
+                        sum += w[row + c] * activations[inOffset + c];
+                    }
+                }
+                result[outOffset + r] = activate(sum + b[r]);
+            }
+            activations = result;
+            inOffset = outOffset;
+        }
+    }
+
+    /**
+     * @return O tamanho mínimo do array de trabalho de `guess(double[], double[], double[])`.
+     */
+    public int getScratchLength() {
+        return scratchLength;
+    }
+
+    @Override
+    public int getInputNodes() {
+        return inputNodes;
+    }
+
+    public int getRawInputNodes() {
+        return rawInputNodes;
+    }
+
+    @Override
+    public int getOutputNodes() {
+        return biases[biases.length - 1].length;
+    }
+
+    // Pesos de cada camada (por linhas) e vieses, partilhados sem cópia com quem reutiliza o modelo (ver `Ensemble`)
+    double[][] getLayerWeights() {
+        return weights;
+    }
+
+    double[][] getLayerBiases() {
+        return biases;
+    }
+
+    int[] getFeatureIndices() {
+        return featureIndices;
+    }
+
+    String getActivationFunctionName() {
+        switch (activation) {
+            case SIGMOID:
+                return "SIGMOID";
+            case TANH:
+                return "TANH";
+            default:
+                return "RELU";
+        }
+    }
+
+    // Devolve null se a cópia não for deste arquivo de texto (ou estiver corrompida), para que seja reescrita
+    private static CompactModel readCache(File cache, int activation, long sourceLength, long sourceChecksum) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(cache.toPath()));
+            if (buffer.getInt() != CACHE_MAGIC || buffer.getInt() != CACHE_VERSION
+                    || buffer.getLong() != sourceLength || buffer.getLong() != sourceChecksum) {
+                return null;
+            }
+
+            int rawInputNodes = buffer.getInt();
+            int featureCount = buffer.getInt();
+            int[] features = null;
+            if (featureCount >= 0) {
+                features = new int[featureCount];
+                buffer.asIntBuffer().get(features);
+                buffer.position(buffer.position() + 4 * featureCount);
+            }
+
+            int layers = buffer.getInt();
+            double[][] weights = new double[layers][];
+            double[][] biases = new double[layers][];
+            for (int layer = 0; layer < layers; layer++) {
+                weights[layer] = readDoubles(buffer);
+                biases[layer] = readDoubles(buffer);
+            }
+            return new CompactModel(activation, rawInputNodes, features, weights, biases);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer) {
+        double[] values = new double[buffer.getInt()];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + 8 * values.length);
+        return values;
+    }
+
+    // Escreve num arquivo temporário e move-o no fim, para que um processo concorrente nunca leia uma cópia incompleta
+    private void writeCache(File cache, long sourceLength, long sourceChecksum) throws IOException {
+        int size = 4 + 4 + 8 + 8 + 4 + 4 + (featureIndices != null ? 4 * featureIndices.length : 0) + 4;
+        for (int layer = 0; layer < weights.length; layer++) {
+            size += 4 + 8 * weights[layer].length + 4 + 8 * biases[layer].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).putLong(sourceLength).putLong(sourceChecksum);
+        buffer.putInt(rawInputNodes);
+        if (featureIndices != null) {
+            buffer.putInt(featureIndices.length);
+            for (int feature : featureIndices) {
+                buffer.putInt(feature);
+            }
+        } else {
+            buffer.putInt(-1);
+        }
+        buffer.putInt(weights.length);
+        for (int layer = 0; layer < weights.length; layer++) {
+            writeDoubles(buffer, weights[layer]);
+            writeDoubles(buffer, biases[layer]);
+        }
+
+        File temporary = new File(cache.getPath() + ".tmp");
+        Files.write(temporary.toPath(), buffer.array());
+        Files.move(temporary.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeDoubles(ByteBuffer buffer, double[] values) {
+        buffer.putInt(values.length);
+        for (double value : values) {
+            buffer.putDouble(value);
+        }
+    }
+
+    private double activate(double x) {
+        switch (activation) {
+            case SIGMOID:
+                return 1 / (1 + Math.exp(-x));
+            case TANH:
+                return Math.tanh(x);
+            default:
+                return x > 0 ? x : 0;
+        }
+    }
+
+    static int activationCode(String name) {
+        switch (name) {
+            case "SIGMOID":
+                return SIGMOID;
+            case "TANH":
+                return TANH;
+            case "RELU":
+                return RELU;
+            default:
+                throw new IllegalArgumentException("Erro: Função de ativação não suportada: " + name);
+        }
+    }
+
+    private static int lineEnd(String text, int from) {
+        int end = text.indexOf('\n', from);
+        return end < 0 ? text.length() : end;
+    }
+
+    // Uma linha "[v, v, ...]" escrita como Arrays.toString, percorrida sem split nem expressões regulares
+    private static double[] parseLine(String text, int start, int end, String filename) throws IOException {
+        int open = text.indexOf('[', start);
+        int close = text.lastIndexOf(']', end);
+        if (close < open) {
+            throw new IOException("Erro: Linha sem `]` em `" + filename + "`.");
+        }
+
+        int count = 0;
+        boolean empty = true;
+        for (int i = open + 1; i < close; i++) {
+            char ch = text.charAt(i);
+            if (ch == ',') {
+                count++;
+            } else if (ch != ' ') {
+                empty = false;
+            }
+        }
+        double[] values = new double[empty ? 0 : count + 1];
+
+        int index = 0;
+        int tokenStart = open + 1;
+        for (int i = open + 1; i <= close && !empty; i++) {
+            if (i == close || text.charAt(i) == ',') {
+                String token = text.substring(tokenStart, i).trim();
+                try {
+                    values[index++] = Double.parseDouble(token);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Erro: Valor inválido em `" + filename + "`: " + token, e);
+                }
+                tokenStart = i + 1;
+            }
+        }
+        return values;
+    }
+
+    private static int[] parseIndices(String text) {
+        if (text.isEmpty()) {
+            return new int[0];
+        }
+        String[] tokens = text.split(",");
+        int[] indices = new int[tokens.length];
+        for (int i = 0; i < tokens.length; i++) {
+            indices[i] = Integer.parseInt(tokens[i].trim());
+        }
+        return indices;
+    }
+}
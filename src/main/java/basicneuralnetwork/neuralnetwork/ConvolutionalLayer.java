@@ -0,0 +1,324 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.Exceptions.WrongDimensionException;
+import basicneuralnetwork.activationfunctions.ActivationFunction;
+import basicneuralnetwork.activationfunctions.ReLuActivationFunction;
+import basicneuralnetwork.activationfunctions.SigmoidActivationFunction;
+import basicneuralnetwork.activationfunctions.TanhActivationFunction;
+import basicneuralnetwork.weightinitializers.WeightInitializer;
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+
+import java.util.SplittableRandom;
+
+/**
+ * Classe ConvolutionalLayer: Camada de convolução (passo 1, sem padding), seguida da função de ativação e,
+ * opcionalmente, de max-pooling sem sobreposição. Todos os filtros partilham os pesos por todas as posições da imagem,
+ * pelo que a camada tem apenas `filters * (channels * kernelSize² + 1)` parâmetros.
+ *
+ * A convolução é reduzida a um produto de matrizes (im2col): as janelas `kernelSize x kernelSize` da entrada
+ * são copiadas para as colunas de uma matriz `(channels * kernelSize²) x (outputHeight * outputWidth)`, e a saída
+ * de todos os filtros é `weights * columns + biases`, calculada pelo EJML. No treinamento, os pesos recebem
+ * `gradients * transpose(columns)` com a mesma matriz de colunas.
+ *
+ * As entradas e saídas são arrays planos: canal a canal, linha a linha (a saída tem um canal por filtro).
+ * O treinamento segue a convenção de `NeuralNetwork`: os erros são `target - output` e o gradiente de cada posição
+ * é `derivada(saída ativada) * erro * learningRate`.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `kernelSize` não é maior do que a altura nem a largura da entrada; `poolSize` não é maior do que a saída da convolução.
+ * - `poolSize` igual a 1 desativa o max-pooling; as linhas e colunas que não completam uma janela de pooling são ignoradas.
+ * - `guess` não altera a camada e pode ser chamado em simultâneo por várias threads.
+ */
+public class ConvolutionalLayer {
+
+    /**
+     * Resultados intermédios de uma passagem, guardados para o treinamento.
+     */
+    static class Forward {
+        private final double[] columns;
+        private final double[] output;
+        private final int[] poolIndices;
+
+        private Forward(double[] columns, double[] output, int[] poolIndices) {
+            this.columns = columns;
+            this.output = output;
+            this.poolIndices = poolIndices;
+        }
+
+        double[] getOutput() {
+            return output;
+        }
+    }
+
+    private final int inputHeight;
+    private final int inputWidth;
+    private final int channels;
+    private final int filters;
+    private final int kernelSize;
+    private final int poolSize;
+
+    private final int convolutionHeight;
+    private final int convolutionWidth;
+    private final int outputHeight;
+    private final int outputWidth;
+    private final int patchSize;
+
+    // filters x patchSize, linha a linha; um bias por filtro
+    private final DMatrixRMaj weights;
+    private final double[] biases;
+
+    /**
+     * @param inputHeight Altura da entrada (por exemplo, 20 para as imagens dos dígitos).
+     * @param inputWidth Largura da entrada.
+     * @param channels Número de canais da entrada (1 para imagens em tons de cinza).
+     * @param filters Número de filtros, isto é, de canais da saída.
+     * @param kernelSize Lado da janela de cada filtro.
+     * @param poolSize Lado da janela do max-pooling, ou 1 para não fazer pooling.
+     */
+    public ConvolutionalLayer(int inputHeight, int inputWidth, int channels, int filters, int kernelSize, int poolSize) {
+        if (inputHeight <= 0 || inputWidth <= 0 || channels <= 0 || filters <= 0) {
+            throw new IllegalArgumentException(String.format("Erro: Dimensões inválidas da camada de convolução (%dx%dx%d, %d filtros).",
+                    inputHeight, inputWidth, channels, filters));
+        }
+        if (kernelSize <= 0 || kernelSize > inputHeight || kernelSize > inputWidth) {
+            throw new IllegalArgumentException(String.format("Erro: Tamanho de filtro inválido (%d) para uma entrada %dx%d.",
+                    kernelSize, inputHeight, inputWidth));
+        }
+        int convolutionHeight = inputHeight - kernelSize + 1;
+        int convolutionWidth = inputWidth - kernelSize + 1;
+        if (poolSize <= 0 || poolSize > convolutionHeight || poolSize > convolutionWidth) {
+            throw new IllegalArgumentException(String.format("Erro: Tamanho de pooling inválido (%d) para uma saída %dx%d.",
+                    poolSize, convolutionHeight, convolutionWidth));
+        }
+
+        this.inputHeight = inputHeight;
+        this.inputWidth = inputWidth;
+        this.channels = channels;
+        this.filters = filters;
+        this.kernelSize = kernelSize;
+        this.poolSize = poolSize;
+        this.convolutionHeight = convolutionHeight;
+        this.convolutionWidth = convolutionWidth;
+        this.outputHeight = convolutionHeight / poolSize;
+        this.outputWidth = convolutionWidth / poolSize;
+        this.patchSize = channels * kernelSize * kernelSize;
+        this.weights = new DMatrixRMaj(filters, patchSize);
+        this.biases = new double[filters];
+    }
+
+    /**
+     * Cópia independente de outra camada, com os mesmos pesos.
+     *
+     * @param other A camada a copiar.
+     */
+    public ConvolutionalLayer(ConvolutionalLayer other) {
+        this(other.inputHeight, other.inputWidth, other.channels, other.filters, other.kernelSize, other.poolSize);
+        System.arraycopy(other.weights.data, 0, weights.data, 0, weights.data.length);
+        System.arraycopy(other.biases, 0, biases, 0, biases.length);
+    }
+
+    /**
+     * Gera pesos e biases novos. O fan-in de cada filtro é `channels * kernelSize²` e o fan-out `filters * kernelSize²`.
+     *
+     * @param weightInitializer O inicializador (por exemplo, Xavier ou He).
+     * @param random Gerador aleatório, partilhado com as outras camadas da rede.
+     */
+    public void initializeParameters(WeightInitializer weightInitializer, SplittableRandom random) {
+        weightInitializer.initializeWeights(weights.data, patchSize, filters * kernelSize * kernelSize, random);
+        weightInitializer.initializeBiases(biases, patchSize, random);
+    }
+
+    /**
+     * Aplica a camada a uma entrada.
+     *
+     * @param input Entrada com `getInputSize()` valores.
+     * @param activationFunction Função de ativação aplicada depois da convolução (antes do pooling).
+     * @return A saída, com `getOutputSize()` valores.
+     */
+    public double[] guess(double[] input, ActivationFunction activationFunction) {
+        return forward(input, activationFunction).output;
+    }
+
+    // Passagem completa, com os resultados intermédios de que `train` precisa
+    Forward forward(double[] input, ActivationFunction activationFunction) {
+        if (input.length != getInputSize()) {
+            throw new WrongDimensionException(input.length, getInputSize(), "Input");
+        }
+
+        int positions = convolutionHeight * convolutionWidth;
+        double[] columns = im2col(input);
+
+        // sums = weights * columns + biases, um filtro por linha
+        double[] sums = new double[filters * positions];
+        CommonOps_DDRM.mult(weights, DMatrixRMaj.wrap(patchSize, positions, columns), DMatrixRMaj.wrap(filters, positions, sums));
+        for (int f = 0; f < filters; f++) {
+            int offset = f * positions;
+            for (int p = 0; p < positions; p++) {
+                sums[offset + p] += biases[f];
+            }
+        }
+
+        // As funções incluídas são monótonas, pelo que o máximo de cada janela pode ser escolhido antes da ativação,
+        // que passa a ser calculada só uma vez por janela; as outras são aplicadas a todas as posições primeiro
+        boolean monotonic = activationFunction instanceof SigmoidActivationFunction
+                || activationFunction instanceof TanhActivationFunction || activationFunction instanceof ReLuActivationFunction;
+        if (poolSize == 1 || !monotonic) {
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] = activationFunction.apply(sums[i]);
+            }
+            if (poolSize == 1) {
+                return new Forward(columns, sums, null);
+            }
+        }
+
+        // Max-pooling: guarda a posição do máximo de cada janela, que é a única a receber o erro no treinamento
+        double[] output = new double[getOutputSize()];
+        int[] poolIndices = new int[output.length];
+        int o = 0;
+        for (int f = 0; f < filters; f++) {
+            for (int oy = 0; oy < outputHeight; oy++) {
+                for (int ox = 0; ox < outputWidth; ox++) {
+                    int best = f * positions + oy * poolSize * convolutionWidth + ox * poolSize;
+                    for (int py = 0; py < poolSize; py++) {
+                        int row = f * positions + (oy * poolSize + py) * convolutionWidth + ox * poolSize;
+                        for (int px = 0; px < poolSize; px++) {
+                            if (sums[row + px] > sums[best]) {
+                                best = row + px;
+                            }
+                        }
+                    }
+                    output[o] = monotonic ? activationFunction.apply(sums[best]) : sums[best];
+                    poolIndices[o++] = best;
+                }
+            }
+        }
+        return new Forward(columns, output, poolIndices);
+    }
+
+    /**
+     * Atualiza os pesos e biases com os erros da saída de uma passagem.
+     *
+     * @param forward A passagem feita com os pesos atuais.
+     * @param outputErrors Os erros de cada valor da saída (`target - output`), por exemplo de `NeuralNetwork.trainAndPropagateErrors`.
+     * @param activationFunction A função de ativação usada na passagem.
+     * @param learningRate Taxa de aprendizagem.
+     */
+    void train(Forward forward, double[] outputErrors, ActivationFunction activationFunction, double learningRate) {
+        if (outputErrors.length != getOutputSize()) {
+            throw new WrongDimensionException(outputErrors.length, getOutputSize(), "Output");
+        }
+
+        // Só as posições que chegam à saída recebem erro: todas sem pooling, ou a do máximo de cada janela
+        // O valor ativado dessas posições é o da própria saída
+        int positions = convolutionHeight * convolutionWidth;
+        double[] output = forward.output;
+        double[] gradients = new double[filters * positions];
+        for (int o = 0; o < output.length; o++) {
+            int position = forward.poolIndices == null ? o : forward.poolIndices[o];
+            gradients[position] = activationFunction.applyDerivative(output[o]) * outputErrors[o] * learningRate;
+        }
+        for (int f = 0; f < filters; f++) {
+            int offset = f * positions;
+            double sum = 0;
+            for (int p = 0; p < positions; p++) {
+                sum += gradients[offset + p];
+            }
+            biases[f] += sum;
+        }
+
+        // weights += gradients * transpose(columns)
+        CommonOps_DDRM.multAddTransB(DMatrixRMaj.wrap(filters, positions, gradients),
+                DMatrixRMaj.wrap(patchSize, positions, forward.columns), weights);
+    }
+
+    // Cada coluna tem a janela de uma posição da saída: canal a canal, linha a linha
+    private double[] im2col(double[] input) {
+        int positions = convolutionHeight * convolutionWidth;
+        double[] columns = new double[patchSize * positions];
+        int row = 0;
+        for (int c = 0; c < channels; c++) {
+            int channelOffset = c * inputHeight * inputWidth;
+            for (int ky = 0; ky < kernelSize; ky++) {
+                for (int kx = 0; kx < kernelSize; kx++) {
+                    int column = row * positions;
+                    for (int oy = 0; oy < convolutionHeight; oy++) {
+                        System.arraycopy(input, channelOffset + (oy + ky) * inputWidth + kx, columns, column, convolutionWidth);
+                        column += convolutionWidth;
+                    }
+                    row++;
+                }
+            }
+        }
+        return columns;
+    }
+
+    public int getParameterCount() {
+        return weights.data.length + biases.length;
+    }
+
+    /**
+     * Copia os pesos e depois os biases para `buffer`, a partir de `offset`.
+     *
+     * @return A posição seguinte do buffer.
+     */
+    public int exportParameters(double[] buffer, int offset) {
+        System.arraycopy(weights.data, 0, buffer, offset, weights.data.length);
+        System.arraycopy(biases, 0, buffer, offset + weights.data.length, biases.length);
+        return offset + getParameterCount();
+    }
+
+    /**
+     * Substitui os pesos e biases pelos valores de `buffer` a partir de `offset`, pela ordem de `exportParameters`.
+     *
+     * @return A posição seguinte do buffer.
+     */
+    public int importParameters(double[] buffer, int offset) {
+        System.arraycopy(buffer, offset, weights.data, 0, weights.data.length);
+        System.arraycopy(buffer, offset + weights.data.length, biases, 0, biases.length);
+        return offset + getParameterCount();
+    }
+
+    public int getInputSize() {
+        return inputHeight * inputWidth * channels;
+    }
+
+    public int getOutputSize() {
+        return outputHeight * outputWidth * filters;
+    }
+
+    public int getInputHeight() {
+        return inputHeight;
+    }
+
+    public int getInputWidth() {
+        return inputWidth;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    public int getFilters() {
+        return filters;
+    }
+
+    public int getKernelSize() {
+        return kernelSize;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public int getOutputHeight() {
+        return outputHeight;
+    }
+
+    public int getOutputWidth() {
+        return outputWidth;
+    }
+}
@@ -0,0 +1,267 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.Exceptions.WrongDimensionException;
+import basicneuralnetwork.activationfunctions.ActivationFunction;
+import basicneuralnetwork.activationfunctions.ActivationFunctionFactory;
+import basicneuralnetwork.weightinitializers.WeightInitializer;
+import basicneuralnetwork.weightinitializers.WeightInitializerFactory;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.SplittableRandom;
+
+/**
+ * Classe ConvolutionalNeuralNetwork: Uma `ConvolutionalLayer` seguida de uma `NeuralNetwork` densa, que recebe
+ * a saída da convolução (depois do pooling) como entrada. As duas partes usam a mesma função de ativação
+ * e a mesma taxa de aprendizagem.
+ *
+ * Para as imagens 20x20 dos dígitos, 4 filtros 5x5 com pooling 4x4 dão 64 entradas à parte densa, em vez de 400,
+ * pelo que, com 10 neurônios ocultos, a rede inteira tem 765 parâmetros em vez dos 4021 de uma `NeuralNetwork` densa.
+ * Os pixels devem estar entre 0 e 1: com os valores de `DataPreprocessor.loadDataset` (divididos outra vez por 255)
+ * as somas dos filtros ficam quase constantes e a convolução não aprende.
+ *
+ * O arquivo de pesos começa com a linha `# convolution <altura> <largura> <canais> <filtros> <filtro> <pooling>`,
+ * seguida dos pesos e dos biases da convolução e das linhas da parte densa, no formato de `NeuralNetwork.saveWeights`.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - A parte densa tem `getConvolutionalLayer().getOutputSize()` entradas e não usa mapeamento de features.
+ * - `guess` não altera a rede e pode ser chamado em simultâneo por várias threads, mas não durante `train`.
+ */
+public class ConvolutionalNeuralNetwork {
+
+    static final String CONVOLUTION_HEADER = "# convolution ";
+
+    private final ActivationFunctionFactory activationFunctionFactory = new ActivationFunctionFactory();
+
+    private final ConvolutionalLayer convolution;
+    private final NeuralNetwork dense;
+
+    /**
+     * Rede com uma entrada de um canal e uma camada oculta densa.
+     *
+     * @param inputHeight Altura da imagem.
+     * @param inputWidth Largura da imagem.
+     * @param filters Número de filtros da convolução.
+     * @param kernelSize Lado dos filtros.
+     * @param poolSize Lado do max-pooling, ou 1 sem pooling.
+     * @param hiddenNodes Neurónios da camada oculta densa.
+     * @param outputNodes Neurónios da saída.
+     */
+    public ConvolutionalNeuralNetwork(int inputHeight, int inputWidth, int filters, int kernelSize, int poolSize,
+                                      int hiddenNodes, int outputNodes) {
+        this(new ConvolutionalLayer(inputHeight, inputWidth, 1, filters, kernelSize, poolSize), 1, hiddenNodes, outputNodes);
+    }
+
+    /**
+     * @param convolution A camada de convolução (os seus pesos são substituídos por valores aleatórios).
+     * @param hiddenLayers Número de camadas ocultas densas.
+     * @param hiddenNodes Neurónios de cada camada oculta densa.
+     * @param outputNodes Neurónios da saída.
+     */
+    public ConvolutionalNeuralNetwork(ConvolutionalLayer convolution, int hiddenLayers, int hiddenNodes, int outputNodes) {
+        this.convolution = convolution;
+        this.dense = new NeuralNetwork(convolution.getOutputSize(), hiddenLayers, hiddenNodes, outputNodes);
+
+        // Os mesmos valores iniciais que a parte densa: uniformes em [-1, 1], sem semente fixa
+        convolution.initializeParameters(WeightInitializerFactory.getWeightInitializerByKey(WeightInitializer.UNIFORM), new SplittableRandom());
+    }
+
+    private ConvolutionalNeuralNetwork(ConvolutionalNeuralNetwork other) {
+        this.convolution = new ConvolutionalLayer(other.convolution);
+        this.dense = other.dense.copy();
+    }
+
+    /**
+     * Faz uma predição.
+     *
+     * @param input A imagem, com `getInputNodes()` valores (canal a canal, linha a linha).
+     * @return A saída da rede.
+     */
+    public double[] guess(double[] input) {
+        return dense.guess(convolution.guess(input, getActivationFunction()));
+    }
+
+    /**
+     * Treina a rede com um exemplo: primeiro a parte densa, depois a convolução com os erros da entrada da parte densa.
+     *
+     * @param input A imagem.
+     * @param target A saída esperada.
+     */
+    public void train(double[] input, double[] target) {
+        if (target.length != dense.getOutputNodes()) {
+            throw new WrongDimensionException(target.length, dense.getOutputNodes(), "Output");
+        }
+        ActivationFunction activationFunction = getActivationFunction();
+        ConvolutionalLayer.Forward forward = convolution.forward(input, activationFunction);
+        double[] errors = dense.trainAndPropagateErrors(forward.getOutput(), target);
+        convolution.train(forward, errors, activationFunction, dense.getLearningRate());
+    }
+
+    /**
+     * Gera pesos novos para a convolução e para a parte densa com o inicializador indicado.
+     *
+     * @param weightInitializerKey UNIFORM, XAVIER, HE ou outro registado em `WeightInitializerFactory`.
+     * @param seed Semente; a mesma semente dá sempre os mesmos pesos.
+     */
+    public void initializeParameters(String weightInitializerKey, long seed) {
+        WeightInitializer weightInitializer = WeightInitializerFactory.getWeightInitializerByKey(weightInitializerKey);
+        SplittableRandom random = new SplittableRandom(seed);
+        convolution.initializeParameters(weightInitializer, random);
+        dense.initializeParameters(weightInitializer, random.nextLong());
+    }
+
+    public ConvolutionalNeuralNetwork copy() {
+        return new ConvolutionalNeuralNetwork(this);
+    }
+
+    public int getParameterCount() {
+        return convolution.getParameterCount() + dense.getParameterCount();
+    }
+
+    /**
+     * Copia os parâmetros da convolução e depois os da parte densa para um buffer com `getParameterCount()` valores.
+     */
+    public void exportParameters(double[] buffer) {
+        if (buffer.length != getParameterCount()) {
+            throw new WrongDimensionException(buffer.length, getParameterCount(), "Parameter");
+        }
+        double[] denseParameters = new double[dense.getParameterCount()];
+        dense.exportParameters(denseParameters);
+        int offset = convolution.exportParameters(buffer, 0);
+        System.arraycopy(denseParameters, 0, buffer, offset, denseParameters.length);
+    }
+
+    /**
+     * Substitui todos os parâmetros pelos valores de um buffer preenchido por `exportParameters`.
+     */
+    public void importParameters(double[] buffer) {
+        if (buffer.length != getParameterCount()) {
+            throw new WrongDimensionException(buffer.length, getParameterCount(), "Parameter");
+        }
+        int offset = convolution.importParameters(buffer, 0);
+        double[] denseParameters = new double[dense.getParameterCount()];
+        System.arraycopy(buffer, offset, denseParameters, 0, denseParameters.length);
+        dense.importParameters(denseParameters);
+    }
+
+    /**
+     * Grava a rede num arquivo de pesos (ver o formato na descrição da classe).
+     *
+     * @param filename Caminho do arquivo.
+     * @throws IOException Se o arquivo não puder ser escrito.
+     */
+    public void saveWeights(String filename) throws IOException {
+        double[] parameters = new double[convolution.getParameterCount()];
+        convolution.exportParameters(parameters, 0);
+        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
+            writer.printf("%s%d %d %d %d %d %d%n", CONVOLUTION_HEADER, convolution.getInputHeight(), convolution.getInputWidth(),
+                    convolution.getChannels(), convolution.getFilters(), convolution.getKernelSize(), convolution.getPoolSize());
+            NeuralNetwork.writeParameters(writer, parameters,
+                    new int[]{convolution.getParameterCount() - convolution.getFilters(), convolution.getFilters()});
+            dense.saveWeights(writer);
+        }
+    }
+
+    /**
+     * Carrega os pesos de um arquivo gravado por `saveWeights` por uma rede com as mesmas dimensões.
+     * Se o arquivo for inválido, a rede não é alterada.
+     *
+     * @param filename Caminho do arquivo.
+     * @throws IOException Se o arquivo não puder ser lido ou não corresponder às dimensões da rede.
+     */
+    public void loadWeights(String filename) throws IOException {
+        double[] convolutionParameters = new double[convolution.getParameterCount()];
+        NeuralNetwork loadedDense = dense.copy();
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String header = reader.readLine();
+            String expected = String.format("%s%d %d %d %d %d %d", CONVOLUTION_HEADER, convolution.getInputHeight(), convolution.getInputWidth(),
+                    convolution.getChannels(), convolution.getFilters(), convolution.getKernelSize(), convolution.getPoolSize());
+            if (header == null || !header.trim().equals(expected)) {
+                throw new IOException("Erro: `" + filename + "` não tem uma camada de convolução com as dimensões da rede (esperado: "
+                        + expected.substring(CONVOLUTION_HEADER.length()) + ").");
+            }
+
+            int weightCount = convolution.getParameterCount() - convolution.getFilters();
+            double[] weights = parseLine(reader.readLine(), weightCount, filename);
+            double[] biases = parseLine(reader.readLine(), convolution.getFilters(), filename);
+            System.arraycopy(weights, 0, convolutionParameters, 0, weightCount);
+            System.arraycopy(biases, 0, convolutionParameters, weightCount, biases.length);
+
+            loadedDense.loadWeights(reader, filename);
+        }
+
+        if (loadedDense.getInputNodes() != convolution.getOutputSize() || loadedDense.getFeatureIndices() != null) {
+            throw new IOException("Erro: A parte densa de `" + filename + "` não corresponde à saída da convolução.");
+        }
+        convolution.importParameters(convolutionParameters, 0);
+        dense.copyFrom(loadedDense);
+    }
+
+    // Uma linha no formato de `NeuralNetwork.writeParameters`, com o número de valores indicado
+    private static double[] parseLine(String line, int length, String filename) throws IOException {
+        if (line == null) {
+            throw new IOException("Erro: `" + filename + "` termina antes dos pesos da convolução.");
+        }
+        String[] tokens = line.replace("[", "").replace("]", "").trim().split(",");
+        if (tokens.length != length) {
+            throw new IOException("Erro: `" + filename + "` tem " + tokens.length + " valores na convolução (esperado: " + length + ").");
+        }
+        double[] values = new double[length];
+        try {
+            for (int i = 0; i < length; i++) {
+                values[i] = Double.parseDouble(tokens[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Erro: Valor inválido na convolução de `" + filename + "`.", e);
+        }
+        return values;
+    }
+
+    public void setActivationFunction(String activationFunction) {
+        dense.setActivationFunction(activationFunction);
+    }
+
+    public void addActivationFunction(String key, ActivationFunction activationFunction) {
+        activationFunctionFactory.addActivationFunction(key, activationFunction);
+        dense.addActivationFunction(key, activationFunction);
+    }
+
+    public String getActivationFunctionName() {
+        return dense.getActivationFunctionName();
+    }
+
+    public double getLearningRate() {
+        return dense.getLearningRate();
+    }
+
+    public void setLearningRate(double learningRate) {
+        dense.setLearningRate(learningRate);
+    }
+
+    public int getInputNodes() {
+        return convolution.getInputSize();
+    }
+
+    public int getOutputNodes() {
+        return dense.getOutputNodes();
+    }
+
+    public ConvolutionalLayer getConvolutionalLayer() {
+        return convolution;
+    }
+
+    public NeuralNetwork getDenseNetwork() {
+        return dense;
+    }
+
+    private ActivationFunction getActivationFunction() {
+        return activationFunctionFactory.getActivationFunctionByKey(dense.getActivationFunctionName());
+    }
+}
@@ -0,0 +1,189 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Classe CrossValidation: Validação cruzada k-fold, opcionalmente estratificada.
+ * Os k modelos treinam em paralelo sobre vistas por índices do mesmo conjunto de dados, sem copiar linhas.
+ * O Early Stopping de cada modelo usa uma parte dos seus próprios exemplos de treinamento (1/k, estratificada como
+ * as partições), e a partição excluída só é usada uma vez, para avaliar o modelo final.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Cada exemplo pertence a exatamente uma partição.
+ * - A partição excluída de um modelo não influencia o seu treinamento (nem a paragem nem os pesos restaurados).
+ * - Todos os modelos partem dos mesmos pesos iniciais (cópias do protótipo).
+ * - O conjunto de dados não é alterado durante a validação.
+ */
+public class CrossValidation {
+
+    /**
+     * As métricas de cada partição e a sua média e desvio padrão.
+     */
+    public static class Result {
+        private final double[] mse;
+        private final double[] accuracy;
+        private final int[] iterations;
+
+        private Result(int k) {
+            this.mse = new double[k];
+            this.accuracy = new double[k];
+            this.iterations = new int[k];
+        }
+
+        public int getFolds() {
+            return mse.length;
+        }
+
+        public double getMSE(int fold) {
+            return mse[fold];
+        }
+
+        public double getAccuracy(int fold) {
+            return accuracy[fold];
+        }
+
+        public int getIterations(int fold) {
+            return iterations[fold];
+        }
+
+        public double getMeanMSE() {
+            return mean(mse);
+        }
+
+        public double getStdMSE() {
+            return std(mse);
+        }
+
+        public double getMeanAccuracy() {
+            return mean(accuracy);
+        }
+
+        public double getStdAccuracy() {
+            return std(accuracy);
+        }
+
+        /**
+         * Escreve no console as métricas de cada partição e o resumo.
+         */
+        public void print() {
+            System.out.println("\nValidação cruzada:");
+            for (int f = 0; f < mse.length; f++) {
+                System.out.printf("Partição %d - Iterações: %d, MSE: %.5f, Acurácia: %.2f%%%n", f + 1, iterations[f], mse[f], accuracy[f]);
+            }
+            System.out.printf("MSE: %.5f ± %.5f%n", getMeanMSE(), getStdMSE());
+            System.out.printf("Acurácia: %.2f%% ± %.2f%%%n", getMeanAccuracy(), getStdAccuracy());
+        }
+
+        private static double mean(double[] values) {
+            double sum = 0.0;
+            for (double value : values) {
+                sum += value;
+            }
+            return sum / values.length;
+        }
+
+        // Desvio padrão amostral (n - 1), o habitual para estimativas a partir de k partições
+        private static double std(double[] values) {
+            double mean = mean(values);
+            double sum = 0.0;
+            for (double value : values) {
+                sum += (value - mean) * (value - mean);
+            }
+            return Math.sqrt(sum / (values.length - 1));
+        }
+    }
+
+    /**
+     * Executa a validação cruzada da rede de `DigitTrainer` com 5 partições estratificadas e escreve o resumo.
+     *
+     * @param args Argumentos da linha de comando (não utilizados).
+     * @throws IOException Em caso de erro ao carregar os arquivos do conjunto de dados.
+     */
+    public static void main(String[] args) throws IOException {
+        List<double[]> dataset = DataPreprocessor.loadDataset("dataset/dataset/dataset.csv", "dataset/dataset/labels.csv");
+
+        NeuralNetwork prototype = new NeuralNetwork(400, 10, 1);
+        prototype.setActivationFunction("SIGMOID");
+        prototype.setLearningRate(0.01);
+
+        TrainingOptions options = new TrainingOptions(0.001, 2000, 10);
+        options.setSeed(42L);
+        run(prototype, dataset, 5, true, options, Runtime.getRuntime().availableProcessors()).print();
+    }
+
+    /**
+     * Treina um modelo por partição, em paralelo, e avalia cada um na partição excluída.
+     * Cada conjunto de treinamento precisa de pelo menos 2 exemplos, para separar a validação do Early Stopping.
+     *
+     * @param prototype Rede cujas dimensões, pesos iniciais, função de ativação e taxa de aprendizagem são copiados por cada modelo.
+     * @param dataset Conjunto de dados completo.
+     * @param k Número de partições.
+     * @param stratified Se verdadeiro, cada partição mantém a proporção de rótulos do conjunto inteiro.
+     * @param options Parâmetros do treinamento de cada modelo; a semente também define as partições.
+     * @param threads Número máximo de modelos a treinar ao mesmo tempo.
+     * @return As métricas de cada partição.
+     */
+    public static Result run(NeuralNetwork prototype, List<double[]> dataset, int k, boolean stratified, TrainingOptions options, int threads) {
+        int[][] folds = DataPreprocessor.kFoldIndices(dataset, k, stratified, options.getSeed());
+        Result result = new Result(k);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, k)), runnable -> {
+            Thread thread = new Thread(runnable, "cross-validation");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> futures = new ArrayList<>(k);
+            for (int f = 0; f < k; f++) {
+                int fold = f;
+                futures.add(executor.submit(() -> {
+                    List<double[]> heldOut = DataPreprocessor.indexView(dataset, folds[fold]);
+                    List<double[]> foldTrainSet = DataPreprocessor.indexView(dataset, DataPreprocessor.complementIndices(dataset.size(), folds[fold]));
+
+                    // Validação do Early Stopping tirada do treinamento desta partição, nunca da partição excluída
+                    int innerFolds = Math.max(2, Math.min(k, foldTrainSet.size()));
+                    int[] stopping = DataPreprocessor.kFoldIndices(foldTrainSet, innerFolds, stratified, options.getSeed() + fold)[0];
+                    List<double[]> validationSet = DataPreprocessor.indexView(foldTrainSet, stopping);
+                    List<double[]> trainSet = DataPreprocessor.indexView(foldTrainSet, DataPreprocessor.complementIndices(foldTrainSet.size(), stopping));
+
+                    NeuralNetwork nn = prototype.copy();
+                    TrainingOptions foldOptions = new TrainingOptions(options);
+                    foldOptions.setVerbose(false);
+                    TrainingState state = new TrainingState(nn, options.getSeed() + fold);
+                    DigitTrainer.trainNeuralNetwork(nn, trainSet, validationSet, foldOptions, state);
+
+                    result.iterations[fold] = state.getIteration();
+                    result.mse[fold] = DigitTrainer.calculateMSE(nn, heldOut);
+                    result.accuracy[fold] = DigitTrainer.calculateAccuracy(nn, heldOut);
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro: Validação cruzada interrompida.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("Erro no treinamento de uma partição: " + cause.getMessage(), cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return result;
+    }
+}
@@ -18,6 +18,13 @@ import java.util.*;
  */
 public class DataPreprocessor {
 
+    /**
+     * Limiar de `selectFeatures`: fração da maior variância das features abaixo da qual uma feature é considerada
+     * constante. É relativo porque a escala dos pixels depende do conjunto de dados (os de `dataset.csv` ficam
+     * abaixo de 0,004 e a maior variância é da ordem de 4e-6, pelo que um limiar absoluto descartaria todos).
+     */
+    public static final double DEFAULT_VARIANCE_THRESHOLD = 1e-4;
+
     /**
      * Carrega o conjunto de dados e os rótulos de arquivos CSV.
      * Realiza a validação, normalização dos dados e adiciona o rótulo como último valor de cada linha.
@@ -93,4 +100,202 @@ public class DataPreprocessor {
         trainSet.addAll(dataset.subList(0, splitIndex));
         testSet.addAll(dataset.subList(splitIndex, dataset.size()));
     }
+
+    /**
+     * Converte uma linha de um fluxo de exemplos rotulados (por exemplo, a entrada padrão ou um socket):
+     * os 400 valores dos pixels seguidos do rótulo, separados por vírgula.
+     * Os pixels são validados e normalizados como em `loadDataset`.
+     *
+     * @param line A linha a converter.
+     * @return Um array com os 400 pixels normalizados seguidos do rótulo.
+     * @throws IOException Se a linha não tiver 401 valores, tiver um valor não numérico ou um rótulo diferente de 0 e 1.
+     */
+    public static double[] parseLabeledRow(String line) throws IOException {
+        String[] values = line.trim().split(",");
+        if (values.length != 401) {
+            throw new IOException(String.format("Erro: A linha tem %d valores (esperado: 400 pixels e o rótulo).", values.length));
+        }
+
+        double[] row = new double[401];
+        for (int i = 0; i < 400; i++) {
+            try {
+                row[i] = Math.max(0, Double.parseDouble(values[i])) / 255.0;
+            } catch (NumberFormatException e) {
+                throw new IOException("Erro: Valor inválido encontrado na entrada: " + values[i]);
+            }
+        }
+
+        String label = values[400].trim();
+        if (!label.equals("0") && !label.equals("1")) {
+            throw new IOException("Erro: Rótulo inválido (" + label + ").");
+        }
+        row[400] = label.equals("1") ? 1 : 0;
+        return row;
+    }
+
+    /**
+     * Deteta as features (pixels) com variância nula ou quase nula no conjunto de dados, que não ajudam a rede
+     * a distinguir os exemplos, e devolve os índices das restantes.
+     * O resultado é usado com `NeuralNetwork.setFeatureIndices` e `compactDataset`.
+     *
+     * O limiar é relativo à maior variância das features, e não um valor absoluto: multiplicar todos os valores
+     * por uma constante não muda as features escolhidas, pelo que o mesmo limiar serve para pixels em [0, 1]
+     * e para os de `loadDataset`, que ficam em [0, 1/255]. Se todas as features forem constantes, nenhuma é mantida.
+     *
+     * @param dataset Conjunto de dados (normalmente o de treinamento).
+     * @param inputWidth Número de features de cada linha (sem o rótulo).
+     * @param varianceThreshold Fração da maior variância (por exemplo `DEFAULT_VARIANCE_THRESHOLD`); as features
+     *                          com variância igual ou inferior a esta fração da maior variância são descartadas.
+     * @return Os índices das features mantidas, por ordem crescente.
+     */
+    public static int[] selectFeatures(List<double[]> dataset, int inputWidth, double varianceThreshold) {
+        double[] sum = new double[inputWidth];
+        double[] sumOfSquares = new double[inputWidth];
+        for (double[] row : dataset) {
+            for (int i = 0; i < inputWidth; i++) {
+                sum[i] += row[i];
+                sumOfSquares[i] += row[i] * row[i];
+            }
+        }
+
+        double[] variances = new double[inputWidth];
+        double maxVariance = 0;
+        for (int i = 0; i < inputWidth; i++) {
+            double mean = sum[i] / dataset.size();
+            variances[i] = sumOfSquares[i] / dataset.size() - mean * mean;
+            maxVariance = Math.max(maxVariance, variances[i]);
+        }
+
+        int[] kept = new int[inputWidth];
+        int count = 0;
+        for (int i = 0; i < inputWidth; i++) {
+            if (variances[i] > varianceThreshold * maxVariance) {
+                kept[count++] = i;
+            }
+        }
+        return Arrays.copyOf(kept, count);
+    }
+
+    /**
+     * Cria um conjunto de dados só com as features indicadas, seguidas do rótulo.
+     *
+     * @param dataset Conjunto de dados com todas as features e o rótulo no fim de cada linha.
+     * @param featureIndices Índices das features a manter (de `selectFeatures`).
+     * @return Uma nova lista com uma linha reduzida por linha original.
+     */
+    public static List<double[]> compactDataset(List<double[]> dataset, int[] featureIndices) {
+        List<double[]> compact = new ArrayList<>(dataset.size());
+        for (double[] row : dataset) {
+            double[] reduced = new double[featureIndices.length + 1];
+            for (int i = 0; i < featureIndices.length; i++) {
+                reduced[i] = row[featureIndices[i]];
+            }
+            reduced[featureIndices.length] = row[row.length - 1];
+            compact.add(reduced);
+        }
+        return compact;
+    }
+
+    /**
+     * Divide os índices do conjunto de dados em `k` partições (folds) disjuntas, baralhadas com a semente indicada.
+     * Com estratificação, cada partição fica com aproximadamente a mesma proporção de cada rótulo que o conjunto inteiro.
+     *
+     * @param dataset Conjunto de dados; o rótulo é o último valor de cada linha.
+     * @param k Número de partições (entre 2 e o número de exemplos).
+     * @param stratified Se verdadeiro, os exemplos de cada rótulo são distribuídos igualmente pelas partições.
+     * @param seed Semente da ordem aleatória.
+     * @return Os índices de cada partição, por ordem crescente.
+     */
+    public static int[][] kFoldIndices(List<double[]> dataset, int k, boolean stratified, long seed) {
+        if (k < 2 || k > dataset.size()) {
+            throw new IllegalArgumentException(String.format("Erro: Número de partições inválido (%d) para %d exemplos.", k, dataset.size()));
+        }
+
+        // Grupos de índices a distribuir: um por rótulo, ou um único grupo sem estratificação
+        Map<Double, List<Integer>> groups = new TreeMap<>();
+        for (int i = 0; i < dataset.size(); i++) {
+            double[] row = dataset.get(i);
+            double key = stratified ? row[row.length - 1] : 0;
+            groups.computeIfAbsent(key, label -> new ArrayList<>()).add(i);
+        }
+
+        List<List<Integer>> folds = new ArrayList<>(k);
+        for (int f = 0; f < k; f++) {
+            folds.add(new ArrayList<>());
+        }
+
+        // Distribuição circular que continua entre grupos, para que as partições difiram no máximo num exemplo
+        Random random = new Random(seed);
+        int next = 0;
+        for (List<Integer> group : groups.values()) {
+            Collections.shuffle(group, random);
+            for (int index : group) {
+                folds.get(next).add(index);
+                next = (next + 1) % k;
+            }
+        }
+
+        int[][] result = new int[k][];
+        for (int f = 0; f < k; f++) {
+            List<Integer> fold = folds.get(f);
+            result[f] = new int[fold.size()];
+            for (int i = 0; i < fold.size(); i++) {
+                result[f][i] = fold.get(i);
+            }
+            Arrays.sort(result[f]);
+        }
+        return result;
+    }
+
+    /**
+     * Índices do conjunto de dados que não pertencem à partição indicada (o conjunto de treinamento dessa partição).
+     *
+     * @param size Número de exemplos do conjunto de dados.
+     * @param fold Índices da partição, por ordem crescente.
+     * @return Os restantes índices, por ordem crescente.
+     */
+    public static int[] complementIndices(int size, int[] fold) {
+        int[] result = new int[size - fold.length];
+        int position = 0;
+        int f = 0;
+        for (int i = 0; i < size; i++) {
+            if (f < fold.length && fold[f] == i) {
+                f++;
+                continue;
+            }
+            result[position++] = i;
+        }
+        return result;
+    }
+
+    /**
+     * Vista apenas de leitura de um subconjunto das linhas, sem as copiar.
+     *
+     * @param dataset Conjunto de dados original.
+     * @param indices Índices das linhas a incluir.
+     * @return Uma lista cujo elemento i é `dataset.get(indices[i])`.
+     */
+    public static List<double[]> indexView(List<double[]> dataset, int[] indices) {
+        return new IndexView(dataset, indices);
+    }
+
+    private static class IndexView extends AbstractList<double[]> implements RandomAccess {
+        private final List<double[]> dataset;
+        private final int[] indices;
+
+        private IndexView(List<double[]> dataset, int[] indices) {
+            this.dataset = dataset;
+            this.indices = indices;
+        }
+
+        @Override
+        public double[] get(int index) {
+            return dataset.get(indices[index]);
+        }
+
+        @Override
+        public int size() {
+            return indices.length;
+        }
+    }
 }
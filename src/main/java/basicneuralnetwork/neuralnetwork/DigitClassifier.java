@@ -1,7 +1,13 @@
 package basicneuralnetwork.neuralnetwork;
 
 import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Classe DigitClassifier: Implementa um programa para classificar dígitos usando uma rede neural pré-treinada.
  * O programa lê uma linha de entrada contendo 400 valores de pixels, carrega o modelo treinado, realiza a predição e imprime o resultado (0 ou 1).
@@ -16,50 +22,268 @@ import java.io.InputStreamReader;
  * - A predição realizada pela rede neural deve resultar em um valor no intervalo [0, 1].
  * - O programa deve interpretar corretamente a saída da rede neural e imprimir apenas `0` ou `1`.
  * - Em caso de erro na leitura da entrada ou carregamento dos pesos, o programa deve lidar com a exceção de forma apropriada.
+ *
+ * Como cada imagem é classificada por uma JVM nova, o arranque domina o tempo de execução. A opção `--fast` usa o
+ * `CompactModel` (sem EJML nem Gson) e o perfil Maven `appcds` gera um arquivo AppCDS com as classes carregadas numa
+ * execução de treino do classificador (requer JDK 13 ou superior):
+ *
+ *     mvn -Pappcds package
+ *     java -XX:SharedArchiveFile=target/digit-classifier.jsa -cp target/basic_neural_network-v0.5-jar-with-dependencies.jar \
+ *          basicneuralnetwork.neuralnetwork.DigitClassifier --fast --timing < imagem.csv
+ *
+ * O AppCDS só aceita classes em JARs e o classpath tem de ser o mesmo usado para gerar o arquivo.
  */
 public class DigitClassifier {
+
+    private static final String WEIGHTS_FILE = "src/main/java/model_weights.txt";
+
+    /**
+     * Linha que, no modo `--stream`, escreve no stderr o relatório de latências em vez de ser classificada.
+     */
+    public static final String LATENCY_COMMAND = "#latency";
+
+    /**
+     * Classifica uma imagem, ou uma imagem por linha com `--stream`.
+     *
+     * @param args Opções: `--fast` usa o `CompactModel` (arranque rápido, sem EJML), `--timing` escreve no stderr
+     *             o tempo até a primeira predição, `--input <arquivo>` lê a imagem da primeira linha do arquivo
+     *             em vez da entrada padrão e `--ensemble <arquivo1,arquivo2,...>` classifica por votação de vários
+     *             modelos gravados (ver `Ensemble`). Com `--cascade <arquivo>`, o modelo pequeno e os limiares
+     *             gravados por `DigitTrainer --cascade` respondem às entradas fáceis e só as restantes chegam ao modelo
+     *             (ver `CascadeModel`); no fim de `--stream` é escrita no stderr a fração de saídas antecipadas.
+     *             Com `--stream`, o modelo é carregado uma vez e cada linha da entrada é classificada até ao fim
+     *             da entrada. Com `--latency`, é escrito no stderr, no fim (ou quando o processo termina),
+     *             o relatório das latências de carregamento, leitura e predição.
+     */
     public static void main(String[] args) {
+        long startNanos = System.nanoTime();
+        boolean fast = false;
+        boolean timing = false;
+        boolean stream = false;
+        boolean latency = false;
+        String inputFile = null;
+        List<String> ensembleFiles = null;
+        String cascadeFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--fast")) {
+                fast = true;
+            } else if (args[i].equals("--timing")) {
+                timing = true;
+            } else if (args[i].equals("--stream")) {
+                stream = true;
+            } else if (args[i].equals("--latency")) {
+                latency = true;
+            } else if (args[i].equals("--input") && i + 1 < args.length) {
+                inputFile = args[++i];
+            } else if (args[i].equals("--ensemble") && i + 1 < args.length) {
+                ensembleFiles = Arrays.asList(args[++i].split(","));
+            } else if (args[i].equals("--cascade") && i + 1 < args.length) {
+                cascadeFile = args[++i];
+            }
+        }
+
+        // Os histogramas só são criados quando são usados, para não atrasar o arranque do caminho `--fast`
+        LatencyHistogram[] histograms = stream || latency ? new LatencyHistogram[]{
+                new LatencyHistogram("carregamento"), new LatencyHistogram("leitura"), new LatencyHistogram("predição")} : null;
+
         try {
-            BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
-            String inputLine = reader.readLine();
-            String[] inputValues = inputLine.trim().split(",");
+            BufferedReader reader = inputFile != null
+                    ? new BufferedReader(new FileReader(inputFile))
+                    : new BufferedReader(new InputStreamReader(System.in));
+            try {
+                if (stream) {
+                    classifyStream(reader, fast, ensembleFiles, cascadeFile, histograms, latency);
+                    return;
+                }
 
-            if (inputValues.length != 400) {
-                throw new IllegalArgumentException("Erro: Esperados 400 valores de entrada.");
-            }
+                long parseStart = System.nanoTime();
+                double[] inputPixels = parseInput(reader.readLine());
+                record(histograms, 1, parseStart);
 
-            for (String value : inputValues) {
+                InferenceModel model;
+                long loadStart = System.nanoTime();
                 try {
-                    Double.parseDouble(value);
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("Erro: Valor inválido encontrado na entrada: " + value);
+                    model = loadModel(fast, ensembleFiles, cascadeFile);
+                } catch (IOException e) {
+                    System.err.println("Erro ao carregar os pesos: " + e.getMessage());
+                    return;
+                }
+                record(histograms, 0, loadStart);
+
+                long forwardStart = System.nanoTime();
+                double[] output = model.guess(inputPixels);
+                record(histograms, 2, forwardStart);
+
+                int prediction = output[0] >= 0.5 ? 1 : 0;
+
+                System.out.println(prediction);
+
+                if (timing) {
+                    reportTiming(startNanos);
+                }
+                if (latency) {
+                    reportLatency(histograms);
+                }
+            } finally {
+                if (inputFile != null) {
+                    reader.close();
                 }
             }
+        } catch (Exception e) {
+            System.err.println("Erro ao processar a entrada: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converte uma linha com 400 valores de pixels separados por vírgula na entrada normalizada da rede.
+     *
+     * @param inputLine A linha lida.
+     * @return Os pixels divididos por 255.
+     * @throws IllegalArgumentException Se a linha não tiver 400 valores numéricos.
+     */
+    public static double[] parseInput(String inputLine) {
+        String[] inputValues = inputLine.trim().split(",");
 
+        if (inputValues.length != 400) {
+            throw new IllegalArgumentException("Erro: Esperados 400 valores de entrada.");
+        }
 
-            double[] inputPixels = new double[400];
-            for (int i = 0; i < 400; i++) {
+        double[] inputPixels = new double[400];
+        for (int i = 0; i < 400; i++) {
+            try {
                 inputPixels[i] = Double.parseDouble(inputValues[i]);
-                inputPixels[i] /= 255.0;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Erro: Valor inválido encontrado na entrada: " + inputValues[i]);
             }
+            inputPixels[i] /= 255.0;
+        }
+        return inputPixels;
+    }
+
+    // Modo `--stream`: uma predição por linha; as linhas inválidas são reportadas no stderr e ignoradas
+    private static void classifyStream(BufferedReader reader, boolean fast, List<String> ensembleFiles, String cascadeFile,
+                                       LatencyHistogram[] histograms, boolean latency) throws IOException {
+        Thread shutdownReport = null;
+        if (latency) {
+            shutdownReport = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    reportLatency(histograms);
+                }
+            }, "latency-report");
+            Runtime.getRuntime().addShutdownHook(shutdownReport);
+        }
+
+        InferenceModel model;
+        double[] output;
+        long loadStart = System.nanoTime();
+        try {
+            model = loadModel(fast, ensembleFiles, cascadeFile);
+        } catch (IOException e) {
+            System.err.println("Erro ao carregar os pesos: " + e.getMessage());
+            return;
+        }
+        // Uma predição de aquecimento: a escolha do ComputeBackend (e a primeira compilação) conta no carregamento
+        // e não na latência da primeira linha
+        output = new double[model.getOutputNodes()];
+        model.guess(new double[400], output);
+        if (model instanceof CascadeModel) {
+            ((CascadeModel) model).resetStats();
+        }
+        record(histograms, 0, loadStart);
 
-            NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
-            nn.setActivationFunction("SIGMOID");
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            if (line.trim().equals(LATENCY_COMMAND)) {
+                reportLatency(histograms);
+                continue;
+            }
 
             try {
-                nn.loadWeights("src/main/java/model_weights.txt");
-            } catch (Exception e) {
-                System.err.println("Erro ao carregar os pesos: " + e.getMessage());
-                return;
+                long parseStart = System.nanoTime();
+                double[] inputPixels = parseInput(line);
+                record(histograms, 1, parseStart);
+
+                long forwardStart = System.nanoTime();
+                model.guess(inputPixels, output);
+                record(histograms, 2, forwardStart);
+
+                System.out.println(output[0] >= 0.5 ? 1 : 0);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Erro ao processar a entrada: " + e.getMessage());
             }
+        }
 
-            double[] output = nn.guess(inputPixels);
+        if (shutdownReport != null) {
+            Runtime.getRuntime().removeShutdownHook(shutdownReport);
+            reportLatency(histograms);
+        }
+        if (model instanceof CascadeModel) {
+            CascadeModel cascade = (CascadeModel) model;
+            System.err.printf("Saídas antecipadas: %d de %d predições (%.1f%%).%n", cascade.getEarlyExitCount(),
+                    cascade.getGuessCount(), cascade.getEarlyExitFraction() * 100);
+        }
+    }
 
-            int prediction = output[0] >= 0.5 ? 1 : 0;
+    // Classes anónimas em vez de lambdas: a primeira lambda carrega a infraestrutura de invokedynamic,
+    // o que atrasaria o arranque do caminho `--fast`
+    private static InferenceModel loadModel(boolean fast, List<String> ensembleFiles, String cascadeFile) throws IOException {
+        if (cascadeFile != null) {
+            return CascadeModel.load(cascadeFile, "SIGMOID", loadModel(fast, ensembleFiles, null));
+        }
+        if (ensembleFiles != null) {
+            // Votação com concordância antecipada na maioria: a classe é a da votação completa, mas a avaliação
+            // pára assim que metade dos modelos mais um concordam
+            return Ensemble.load(ensembleFiles, "SIGMOID", Ensemble.Combination.VOTE, ensembleFiles.size() / 2 + 1);
+        }
+        if (fast) {
+            // Caminho de arranque rápido: só classes do JDK e `CompactModel`/`InferenceModel` são carregadas
+            return CompactModel.loadCached(WEIGHTS_FILE, "SIGMOID");
+        }
 
-            System.out.println(prediction);
-        } catch (Exception e) {
-            System.err.println("Erro ao processar a entrada: " + e.getMessage());
+        final NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        nn.setActivationFunction("SIGMOID");
+        nn.loadWeights(WEIGHTS_FILE);
+        return new InferenceModel() {
+            @Override
+            public void guess(double[] input, double[] output) {
+                double[] result = nn.guess(input);
+                System.arraycopy(result, 0, output, 0, result.length);
+            }
+
+            @Override
+            public int getInputNodes() {
+                return 400;
+            }
+
+            @Override
+            public int getOutputNodes() {
+                return nn.getOutputNodes();
+            }
+        };
+    }
+
+    private static void record(LatencyHistogram[] histograms, int stage, long startNanos) {
+        if (histograms != null) {
+            histograms[stage].recordSince(startNanos);
         }
     }
+
+    private static void reportLatency(LatencyHistogram[] histograms) {
+        System.err.println("Latências:");
+        for (LatencyHistogram histogram : histograms) {
+            System.err.println("  " + histogram.snapshot().format());
+        }
+    }
+
+    // Tempo desde o início de `main` e, aproximadamente, desde o arranque da JVM (em milissegundos)
+    // java.lang.management só é carregado aqui, depois da predição, para não entrar na própria medição
+    private static void reportTiming(long startNanos) {
+        double mainMillis = (System.nanoTime() - startNanos) / 1e6;
+        long jvmMillis = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+        System.err.printf("Tempo até a primeira predição: %.1f ms em main, %d ms desde o arranque da JVM%n", mainMillis, jvmMillis);
+    }
 }
@@ -1,8 +1,16 @@
 package basicneuralnetwork.neuralnetwork;
 
-import java.io.FileWriter;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 /**
  * Classe DigitTrainer: Implementa um programa de reconhecimento de dígitos usando redes neurais.
  * A classe gerencia o carregamento, pré-processamento de dados, treinamento da rede neural e avaliação.
@@ -21,64 +29,151 @@ import java.util.*;
  */
 public class DigitTrainer {
     /**
-     * Lista para armazenar o histórico de MSE para treinamento e validação
+     * Capacidade do histórico de MSE mantido em memória durante o treinamento.
      */
-    private static final List<Double> trainMseHistory = new ArrayList<>();
-    private static final List<Double> validationMseHistory = new ArrayList<>();
+    private static final int METRICS_CAPACITY = 1024;
 
     /**
-     * Exporta o histórico do MSE para um arquivo CSV para posterior visualização.
-     *
-     * @param trainMseHistory Histórico do MSE do conjunto de treinamento.
-     * @param validationMseHistory Histórico do MSE do conjunto de validação.
-     * @param filePath Caminho para salvar o arquivo CSV.
-     * @throws IOException Em caso de erro ao escrever o arquivo.
+     * Número de iterações entre checkpoints gravados durante o treinamento.
      */
-    public static void exportMseHistoryToCsv(List<Double> trainMseHistory, List<Double> validationMseHistory, String filePath) throws IOException {
-        try (FileWriter writer = new FileWriter(filePath)) {
-            writer.write("Iteração,MSE_Treino,MSE_Validação\n");
+    private static final int CHECKPOINT_INTERVAL = 25;
 
-            for (int i = 0; i < trainMseHistory.size(); i++) {
-                writer.write((i + 1) + "," + trainMseHistory.get(i) + "," + validationMseHistory.get(i) + "\n");
-            }
-        }
-    }
+    private static final String CHECKPOINT_PATH = "src/main/java/training_checkpoint.bin";
+    private static final String MSE_HISTORY_PATH = "src/main/java/plot_mse/mse_history.csv";
+
+    /**
+     * Número de exemplos aumentados por lote, e de lotes que cada thread de augmentation prepara à frente do treinamento.
+     */
+    private static final int AUGMENTATION_BATCH_SIZE = 32;
+    private static final int AUGMENTATION_BUFFERS = 4;
+
+    /**
+     * Treinamento online: capacidade da fila de exemplos e cadência de publicação dos snapshots.
+     */
+    private static final int ONLINE_QUEUE_CAPACITY = 1024;
+    private static final int ONLINE_PUBLISH_UPDATES = 100;
+    private static final long ONLINE_PUBLISH_MILLIS = 1000;
+
+    /**
+     * Treinamento distribuído: exemplos por atualização enviada ao servidor e épocas de cada worker.
+     * Os workers baralham o shard em cada época, e com os pixels na escala de `loadDataset` o SGD baralhado
+     * precisa de várias centenas de épocas para sair dos 50%.
+     */
+    private static final int DISTRIBUTED_BATCH_SIZE = 32;
+    private static final int DISTRIBUTED_EPOCHS = 1000;
+
+    /**
+     * Cascata: neurônios ocultos do modelo pequeno que responde às entradas fáceis.
+     */
+    private static final int CASCADE_HIDDEN_NODES = 2;
+
+    private static final String WEIGHTS_PATH = "src/main/java/model_weights.txt";
+    private static final String CASCADE_PATH = "src/main/java/model_cascade.txt";
+    private static final String DATA_PATH = "dataset/dataset/dataset.csv";
+    private static final String LABELS_PATH = "dataset/dataset/labels.csv";
 
     /**
      * Função principal que inicializa a execução do programa.
      * Configura a rede neural, realiza o pré-processamento dos dados,
      * treina a rede neural, avalia o desempenho e calcula o tempo total de execução.
      *
-     * @param args Argumentos da linha de comando.
+     * @param args Argumentos da linha de comando. Com `--resume`, o treinamento continua a partir do último checkpoint;
+     *             com `--augment`, os exemplos de treinamento são aumentados (deslocamentos, rotações, deformações elásticas)
+     *             em cada iteração. Com `--online`, o modelo gravado é atualizado continuamente com os exemplos
+     *             rotulados lidos da entrada padrão (ou, com `--port <porta>`, das ligações TCP recebidas nessa porta),
+     *             uma linha por exemplo com os 400 pixels seguidos do rótulo. Com `--init <UNIFORM|XAVIER|HE>`,
+     *             os pesos iniciais são gerados por esse `WeightInitializer` com a semente do treinamento.
+     *             Com `--parameter-server <porta> --workers <n>`, o processo é o `ParameterServer` de um treinamento
+     *             distribuído (síncrono, ou com `--staleness <s>` assíncrono com esse atraso máximo), e com
+     *             `--worker <host:porta> --shard <i> --workers <n>` treina o shard i de n para esse servidor,
+     *             opcionalmente com `--epochs <n>`, e com `--top-k <fração>` e `--float16` para comprimir as atualizações.
+     *             Com `--cascade [acurácia]`, é treinado o modelo pequeno de um `CascadeModel` para o modelo gravado,
+     *             com os limiares escolhidos para essa acurácia num conjunto de calibração tirado do treinamento
+     *             (por omissão, a acurácia do modelo gravado nesse conjunto).
      * @throws IOException Em caso de erro ao carregar os arquivos do conjunto de dados.
      */
     public static void main(String[] args) throws IOException {
         long startTime = System.nanoTime();
 
+        List<String> arguments = Arrays.asList(args);
+        if (arguments.contains("--online")) {
+            int portIndex = arguments.indexOf("--port");
+            Integer port = portIndex >= 0 && portIndex + 1 < args.length ? Integer.valueOf(args[portIndex + 1]) : null;
+            trainOnline(port);
+            return;
+        }
+        if (arguments.contains("--cascade")) {
+            trainCascade(getOption(arguments, "--cascade", null));
+            return;
+        }
+        if (arguments.contains("--parameter-server")) {
+            runParameterServer(arguments);
+            return;
+        }
+        if (arguments.contains("--worker")) {
+            runWorker(arguments);
+            return;
+        }
 
-        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
-        nn.setActivationFunction("SIGMOID");
-        nn.setLearningRate(0.01);
-
+        boolean resume = arguments.contains("--resume");
+        boolean augment = arguments.contains("--augment");
+        TrainingCheckpoint checkpoint = resume ? TrainingCheckpoint.read(CHECKPOINT_PATH) : null;
 
-        String dataFilePath = "dataset/dataset/dataset.csv";
-        String labelFilePath = "dataset/dataset/labels.csv";
-        List<double[]> dataset = DataPreprocessor.loadDataset(dataFilePath, labelFilePath);
+        List<double[]> dataset = DataPreprocessor.loadDataset(DATA_PATH, LABELS_PATH);
 
 
         List<double[]> trainSet = new ArrayList<>();
         List<double[]> testSet = new ArrayList<>();
         DataPreprocessor.splitDataset(dataset, 0.6, trainSet, testSet);
 
+        // Os pixels constantes no conjunto de treinamento são descartados; o mapeamento é gravado com o modelo
+        NeuralNetwork nn;
+        if (checkpoint != null) {
+            nn = checkpoint.restoreNeuralNetwork();
+        } else {
+            nn = createNeuralNetwork(trainSet);
+        }
+
+        // Com augmentation, as transformações precisam das imagens completas; a rede mapeia-as para as features
+        if (nn.getFeatureIndices() != null) {
+            if (!augment) {
+                trainSet = DataPreprocessor.compactDataset(trainSet, nn.getFeatureIndices());
+            }
+            testSet = DataPreprocessor.compactDataset(testSet, nn.getFeatureIndices());
+        }
+
 
-        trainNeuralNetwork(nn, trainSet, testSet, 0.001, 2000, 10);
+        TrainingOptions options = new TrainingOptions(0.001, 2000, 10);
+        options.setCheckpointInterval(CHECKPOINT_INTERVAL);
+        int initIndex = arguments.indexOf("--init");
+        if (checkpoint == null && initIndex >= 0 && initIndex + 1 < args.length) {
+            nn.initializeParameters(args[initIndex + 1], options.getSeed());
+        }
+        if (augment) {
+            options.setAugmentation(new ImageAugmenter(20, 20), Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+        }
+        TrainingState state;
+        TrainingMetricsSink metricsSink;
+        if (checkpoint != null) {
+            state = checkpoint.restoreTrainingState();
+            metricsSink = TrainingMetricsSink.resume(MSE_HISTORY_PATH, METRICS_CAPACITY, state.getIteration());
+            System.out.printf("Retomando o treinamento a partir da iteração %d.%n", state.getIteration());
+        } else {
+            state = new TrainingState(nn, options.getSeed());
+            metricsSink = new TrainingMetricsSink(MSE_HISTORY_PATH, METRICS_CAPACITY);
+        }
 
-        exportMseHistoryToCsv(trainMseHistory, validationMseHistory, "src/main/java/plot_mse/mse_history.csv");
+        try (TrainingMetricsSink sink = metricsSink;
+             AsyncCheckpointer checkpointer = new AsyncCheckpointer(nn, CHECKPOINT_PATH)) {
+            options.setMetricsSink(sink);
+            options.setCheckpointer(checkpointer);
+            trainNeuralNetwork(nn, trainSet, testSet, options, state);
+        }
 
         evaluateNeuralNetwork(nn, testSet);
 
         try {
-            nn.saveWeights("src/main/java/model_weights.txt");
+            nn.saveWeights(WEIGHTS_PATH);
             System.out.println("Pesos da rede neural salvos com sucesso.");
         } catch (IOException e) {
             System.err.println("Erro ao salvar os pesos: " + e.getMessage());
@@ -88,6 +183,214 @@ public class DigitTrainer {
         System.out.printf("\nTempo total de execução: %.3f segundos%n", totalTime);
     }
 
+    // Rede dos dígitos, só com os pixels que variam no conjunto de treinamento; o mapeamento é gravado com o modelo
+    private static NeuralNetwork createNeuralNetwork(List<double[]> trainSet) {
+        return createNeuralNetwork(trainSet, 10);
+    }
+
+    private static NeuralNetwork createNeuralNetwork(List<double[]> trainSet, int hiddenNodes) {
+        int[] features = DataPreprocessor.selectFeatures(trainSet, 400, DataPreprocessor.DEFAULT_VARIANCE_THRESHOLD);
+        if (features.length == 0) {
+            throw new IllegalArgumentException("Erro: Todas as features do conjunto de treinamento são constantes.");
+        }
+        NeuralNetwork nn = new NeuralNetwork(features.length, hiddenNodes, 1);
+        nn.setFeatureIndices(400, features);
+        nn.setActivationFunction("SIGMOID");
+        nn.setLearningRate(0.01);
+        System.out.printf("Features usadas: %d de 400 (as restantes são constantes).%n", features.length);
+        return nn;
+    }
+
+    // Valor da opção `name`, ou `defaultValue` se não foi indicada
+    private static String getOption(List<String> arguments, String name, String defaultValue) {
+        int index = arguments.indexOf(name);
+        return index >= 0 && index + 1 < arguments.size() ? arguments.get(index + 1) : defaultValue;
+    }
+
+    /**
+     * Treina o modelo pequeno de uma cascata para o modelo gravado em `WEIGHTS_PATH` e escolhe os limiares com
+     * `CascadeModel.tune`. A cascata é gravada em `CASCADE_PATH`, onde `DigitClassifier --cascade` a carrega.
+     *
+     * O conjunto de treinamento é dividido em três: os exemplos de treinamento do modelo pequeno, os da sua paragem
+     * antecipada e os de calibração dos limiares. O conjunto de teste só é usado para reportar as acurácias
+     * e a fração de saídas antecipadas da cascata.
+     *
+     * @param targetAccuracy Acurácia alvo em percentagem, ou null para a acurácia do modelo gravado na calibração.
+     * @throws IOException Em caso de erro ao carregar os dados ou o modelo, ou ao gravar a cascata.
+     */
+    private static void trainCascade(String targetAccuracy) throws IOException {
+        List<double[]> trainSet = new ArrayList<>();
+        List<double[]> testSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(DataPreprocessor.loadDataset(DATA_PATH, LABELS_PATH), 0.6, trainSet, testSet);
+        List<double[]> fitSet = new ArrayList<>();
+        List<double[]> heldOutSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(trainSet, 0.6, fitSet, heldOutSet);
+        List<double[]> validationSet = new ArrayList<>();
+        List<double[]> calibrationSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(heldOutSet, 0.5, validationSet, calibrationSet);
+        CompactModel fullModel = CompactModel.load(WEIGHTS_PATH, "SIGMOID");
+
+        NeuralNetwork firstStage = createNeuralNetwork(fitSet, CASCADE_HIDDEN_NODES);
+        TrainingOptions options = new TrainingOptions(0.001, 2000, 10);
+        options.setVerbose(false);
+        trainNeuralNetwork(firstStage, DataPreprocessor.compactDataset(fitSet, firstStage.getFeatureIndices()),
+                DataPreprocessor.compactDataset(validationSet, firstStage.getFeatureIndices()), options);
+        CompactModel firstStageModel = CompactModel.fromNeuralNetwork(firstStage);
+
+        double target = targetAccuracy != null ? Double.parseDouble(targetAccuracy) : calculateAccuracy(fullModel, calibrationSet);
+        CascadeModel.Thresholds thresholds = CascadeModel.tune(firstStageModel, fullModel, calibrationSet, target);
+        CascadeModel.save(CASCADE_PATH, firstStage, thresholds);
+
+        CascadeModel cascade = new CascadeModel(firstStageModel, fullModel, thresholds);
+        System.out.printf("Calibração (%d exemplos): cascata %.2f%% (alvo %.2f%%), limiares <= %.4f ou >= %.4f.%n",
+                calibrationSet.size(), thresholds.getAccuracy(), target, thresholds.getLowThreshold(), thresholds.getHighThreshold());
+        System.out.printf("Acurácia no teste: modelo completo %.2f%%, modelo pequeno %.2f%%, cascata %.2f%%.%n",
+                calculateAccuracy(fullModel, testSet), calculateAccuracy(firstStageModel, testSet), calculateAccuracy(cascade, testSet));
+        System.out.printf("%.1f%% das entradas de teste saem no modelo pequeno.%n", cascade.getEarlyExitFraction() * 100);
+        System.out.println("Cascata gravada em " + CASCADE_PATH + ".");
+    }
+
+    // Acurácia de um modelo de inferência com uma saída, com o limiar de 0.5
+    private static double calculateAccuracy(InferenceModel model, List<double[]> dataset) {
+        double[] input = new double[dataset.get(0).length - 1];
+        double[] output = new double[1];
+        int correct = 0;
+        for (double[] row : dataset) {
+            System.arraycopy(row, 0, input, 0, input.length);
+            model.guess(input, output);
+            if ((output[0] >= 0.5 ? 1 : 0) == (int) row[input.length]) {
+                correct++;
+            }
+        }
+        return correct * 100.0 / dataset.size();
+    }
+
+    /**
+     * Servidor de um treinamento distribuído: espera que os workers treinem os seus shards, avalia a rede final
+     * e grava os pesos. Os workers calculam as mesmas features porque partem do mesmo conjunto de treinamento.
+     *
+     * @param arguments Argumentos da linha de comando (ver `main`).
+     * @throws IOException Em caso de erro ao carregar os dados ou na ligação de um worker.
+     */
+    private static void runParameterServer(List<String> arguments) throws IOException {
+        int port = Integer.parseInt(getOption(arguments, "--parameter-server", "0"));
+        int workers = Integer.parseInt(getOption(arguments, "--workers", "1"));
+        int staleness = Integer.parseInt(getOption(arguments, "--staleness", "0"));
+
+        List<double[]> trainSet = new ArrayList<>();
+        List<double[]> testSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(DataPreprocessor.loadDataset(DATA_PATH, LABELS_PATH), 0.6, trainSet, testSet);
+        NeuralNetwork nn = createNeuralNetwork(trainSet);
+        String init = getOption(arguments, "--init", null);
+        if (init != null) {
+            nn.initializeParameters(init, new Random().nextLong());
+        }
+
+        long start = System.nanoTime();
+        try (ParameterServer server = new ParameterServer(nn, workers, staleness)) {
+            System.out.printf("Parameter server na porta %d, à espera de %d workers (%s).%n", server.start(port), workers,
+                    staleness == 0 ? "síncrono" : "atraso máximo " + staleness);
+            server.awaitCompletion();
+
+            double[] parameters = new double[nn.getParameterCount()];
+            server.exportParameters(parameters);
+            nn.importParameters(parameters);
+            System.out.printf("Treinamento distribuído concluído em %.3f s: %d atualizações, versão %d, %.1f MB recebidos, "
+                            + "atraso médio %.2f versões (máximo %d), %.1f s de espera dos workers.%n",
+                    (System.nanoTime() - start) / 1e9, server.getUpdateCount(), server.getVersion(),
+                    server.getBytesReceived() / 1e6, server.getMeanObservedStaleness(), server.getMaxObservedStaleness(),
+                    server.getWaitNanos() / 1e9);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Erro: Treinamento distribuído interrompido.", e);
+        }
+
+        evaluateNeuralNetwork(nn, DataPreprocessor.compactDataset(testSet, nn.getFeatureIndices()));
+        nn.saveWeights(WEIGHTS_PATH);
+        System.out.println("Pesos da rede neural salvos com sucesso.");
+    }
+
+    /**
+     * Worker de um treinamento distribuído: treina os exemplos de treinamento com índice `shard` módulo `workers`.
+     *
+     * @param arguments Argumentos da linha de comando (ver `main`).
+     * @throws IOException Em caso de erro ao carregar os dados ou na ligação ao servidor.
+     */
+    private static void runWorker(List<String> arguments) throws IOException {
+        String address = getOption(arguments, "--worker", "localhost:0");
+        int separator = address.lastIndexOf(':');
+        String host = address.substring(0, separator);
+        int port = Integer.parseInt(address.substring(separator + 1));
+        int shard = Integer.parseInt(getOption(arguments, "--shard", "0"));
+        int workers = Integer.parseInt(getOption(arguments, "--workers", "1"));
+        int epochs = Integer.parseInt(getOption(arguments, "--epochs", String.valueOf(DISTRIBUTED_EPOCHS)));
+        GradientCompression compression = new GradientCompression(
+                Double.parseDouble(getOption(arguments, "--top-k", "1")), arguments.contains("--float16"));
+
+        List<double[]> trainSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(DataPreprocessor.loadDataset(DATA_PATH, LABELS_PATH), 0.6, trainSet, new ArrayList<>());
+        NeuralNetwork nn = createNeuralNetwork(trainSet);
+        List<double[]> rows = new ArrayList<>();
+        for (int i = shard; i < trainSet.size(); i += workers) {
+            rows.add(trainSet.get(i));
+        }
+
+        ParameterServerWorker worker = new ParameterServerWorker(nn, DataPreprocessor.compactDataset(rows, nn.getFeatureIndices()),
+                DISTRIBUTED_BATCH_SIZE, epochs, compression, new Random().nextLong());
+        long start = System.nanoTime();
+        worker.run(host, port);
+        System.out.printf("Shard %d de %d (%d exemplos) concluído em %.3f s: %d atualizações, %.1f MB enviados (%.1f MB sem compressão).%n",
+                shard, workers, rows.size(), (System.nanoTime() - start) / 1e9, worker.getBatchCount(),
+                worker.getBytesSent() / 1e6, worker.getUncompressedBytes() / 1e6);
+    }
+
+    /**
+     * Treinamento online: carrega o modelo gravado e aplica-lhe, um a um, os exemplos recebidos. Os pesos publicados
+     * são gravados no fim da entrada padrão ou de cada ligação, onde um `HotSwappableModel` os pode recarregar.
+     *
+     * @param port Porta TCP onde são aceites ligações (uma de cada vez), ou null para ler a entrada padrão.
+     * @throws IOException Em caso de erro ao carregar o modelo ou ao ler os exemplos.
+     */
+    private static void trainOnline(Integer port) throws IOException {
+        NeuralNetwork nn = new NeuralNetwork(400, 10, 1);
+        nn.setActivationFunction("SIGMOID");
+        nn.setLearningRate(0.01);
+        nn.loadWeights(WEIGHTS_PATH);
+
+        try (OnlineLearner learner = new OnlineLearner(nn, ONLINE_QUEUE_CAPACITY, ONLINE_PUBLISH_UPDATES, ONLINE_PUBLISH_MILLIS)) {
+            if (port == null) {
+                learner.consume(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)));
+                saveOnlineModel(learner);
+            } else {
+                try (ServerSocket server = new ServerSocket(port)) {
+                    System.out.printf("À espera de exemplos na porta %d.%n", server.getLocalPort());
+                    while (true) {
+                        try (Socket socket = server.accept()) {
+                            learner.consume(new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)));
+                        } catch (IOException e) {
+                            System.err.println("Erro na ligação: " + e.getMessage());
+                        }
+                        saveOnlineModel(learner);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Erro: Treinamento online interrompido.", e);
+        }
+    }
+
+    // Espera que os exemplos recebidos estejam publicados, grava essa versão e mostra as métricas de atualização
+    private static void saveOnlineModel(OnlineLearner learner) throws IOException, InterruptedException {
+        learner.flush();
+        OnlineLearner.Snapshot snapshot = learner.getSnapshot();
+        snapshot.getModel().saveWeights(WEIGHTS_PATH);
+        System.out.printf("Versão %d gravada: %d exemplos aplicados, %d linhas inválidas, atraso médio %.3f ms (máximo %.3f ms), "
+                        + "%.1f ms de espera por lugar na fila.%n",
+                snapshot.getVersion(), snapshot.getUpdateCount(), learner.getInvalidRowCount(),
+                learner.getMeanLagNanos() / 1e6, learner.getMaxLagNanos() / 1e6, learner.getBlockedNanos() / 1e6);
+    }
+
     /**
      * Calcula o erro médio quadrático (MSE) da rede neural para um conjunto de dados.
      *
@@ -99,8 +402,8 @@ public class DigitTrainer {
         double mse = 0.0;
 
         for (double[] row : dataset) {
-            double[] input = Arrays.copyOfRange(row, 0, 400);
-            double target = row[400];
+            double[] input = Arrays.copyOfRange(row, 0, row.length - 1);
+            double target = row[row.length - 1];
             double prediction = nn.guess(input)[0];
             mse += Math.pow(prediction - target, 2);
         }
@@ -108,6 +411,46 @@ public class DigitTrainer {
         return mse / dataset.size();
     }
 
+    // MSE com as entradas esparsas já construídas, quando existem
+    private static double calculateMSE(NeuralNetwork nn, List<double[]> dataset, SparseInput[] sparseInputs) {
+        if (sparseInputs == null) {
+            return calculateMSE(nn, dataset);
+        }
+
+        double mse = 0.0;
+        for (int i = 0; i < sparseInputs.length; i++) {
+            double[] row = dataset.get(i);
+            double target = row[row.length - 1];
+            double prediction = nn.guess(sparseInputs[i])[0];
+            mse += Math.pow(prediction - target, 2);
+        }
+
+        return mse / dataset.size();
+    }
+
+    /**
+     * Calcula a acurácia da rede neural num conjunto de dados, com o limiar de 0.5 na saída.
+     *
+     * @param nn A instância da rede neural.
+     * @param dataset O conjunto de dados a ser avaliado.
+     * @return A percentagem de exemplos classificados corretamente.
+     */
+    public static double calculateAccuracy(NeuralNetwork nn, List<double[]> dataset) {
+        int inputNodes = nn.getInputNodes();
+        double[] input = new double[inputNodes];
+        int correct = 0;
+
+        for (double[] row : dataset) {
+            System.arraycopy(row, 0, input, 0, inputNodes);
+            int predictedLabel = (nn.guess(input)[0] >= 0.5) ? 1 : 0;
+            if (predictedLabel == (int) row[inputNodes]) {
+                correct++;
+            }
+        }
+
+        return (correct / (double) dataset.size()) * 100;
+    }
+
     /**
      * Treina a rede neural com divisão do conjunto de dados em treinamento e validação.
      * Utiliza Early Stopping para evitar overfitting.
@@ -120,49 +463,334 @@ public class DigitTrainer {
      * @param patience Número de iterações sem melhora antes de parar.
      */
     public static void trainNeuralNetwork(NeuralNetwork nn, List<double[]> trainSet, List<double[]> validationSet, double mseThreshold, int maxIterations, int patience) {
-        double bestValidationMSE = Double.MAX_VALUE;
-        int patienceCounter = 0;
+        trainNeuralNetwork(nn, trainSet, validationSet, new TrainingOptions(mseThreshold, maxIterations, patience));
+    }
 
-        System.out.println("\nInício do treinamento da rede neural com Early Stopping...\n");
+    /**
+     * Treina a rede neural com divisão do conjunto de dados em treinamento e validação.
+     * Utiliza Early Stopping para evitar overfitting e envia as métricas de cada iteração
+     * para o `TrainingMetricsSink` definido nas opções, se existir.
+     * Quando o Early Stopping é acionado, a rede fica com os pesos da iteração com o menor MSE de validação.
+     * As opções permitem validar apenas a cada `validationInterval` iterações, com uma subamostra fixa do conjunto
+     * de validação, e em pipeline com a iteração seguinte (ver `TrainingOptions.setPipelinedValidation`).
+     * Se as opções tiverem um `AsyncCheckpointer`, é gravado um checkpoint a cada `checkpointInterval` iterações
+     * e outro com os pesos finais. Se tiverem um `ImageAugmenter`, cada iteração treina com variações novas dos
+     * exemplos, preparadas em paralelo por um `AugmentationPipeline`.
+     *
+     * @param nn A instância da rede neural.
+     * @param trainSet Conjunto de treinamento.
+     * @param validationSet Conjunto de validação.
+     * @param options Parâmetros do treinamento.
+     */
+    public static void trainNeuralNetwork(NeuralNetwork nn, List<double[]> trainSet, List<double[]> validationSet, TrainingOptions options) {
+        trainNeuralNetwork(nn, trainSet, validationSet, options, new TrainingState(nn, options.getSeed()));
+    }
 
-        for (int iteration = 1; iteration <= maxIterations; iteration++) {
-            double trainMSE = 0.0;
+    /**
+     * Continua o treinamento da rede neural a partir do estado indicado.
+     * O número de iterações, o Early Stopping e a ordem dos exemplos continuam exatamente onde o estado parou,
+     * pelo que um treinamento retomado de um checkpoint produz o mesmo resultado que um treinamento sem interrupções.
+     * Com a validação em pipeline, a validação ainda pendente quando o checkpoint foi gravado não é retomada.
+     *
+     * @param nn A instância da rede neural.
+     * @param trainSet Conjunto de treinamento.
+     * @param validationSet Conjunto de validação.
+     * @param options Parâmetros do treinamento.
+     * @param state Estado do treinamento, atualizado no fim de cada iteração.
+     */
+    public static void trainNeuralNetwork(NeuralNetwork nn, List<double[]> trainSet, List<double[]> validationSet, TrainingOptions options, TrainingState state) {
+        int maxIterations = options.getMaxIterations();
+        AsyncCheckpointer checkpointer = options.getCheckpointer();
+
+        List<double[]> validationRows = selectValidationRows(validationSet, options.getValidationSampleSize(), state.getSeed());
+
+        // Com augmentation, os exemplos de cada iteração são produzidos por threads de trabalho
+        AugmentationPipeline augmentation = options.getAugmenter() == null ? null
+                : new AugmentationPipeline(trainSet, options.getAugmenter(), options.getAugmentationWorkers(),
+                        AUGMENTATION_BATCH_SIZE, AUGMENTATION_BUFFERS);
+
+        // Representação esparsa das entradas, construída uma vez, ou null se os dados forem demasiado densos
+        SparseInput[] sparseTrain = augmentation != null ? null : toSparseInputs(trainSet, options.getSparseDensityThreshold());
+        SparseInput[] sparseValidation = sparseTrain == null ? null
+                : toSparseInputs(validationRows, options.getSparseDensityThreshold());
+
+        // Ordem dos exemplos, reutilizada em todas as iterações
+        int[] order = new int[trainSet.size()];
+
+        // Com a validação em pipeline, os pesos de cada iteração são copiados para `snapshot` e validados numa
+        // thread própria enquanto a iteração seguinte treina; o resultado só é aplicado no fim dessa iteração
+        ExecutorService validator = null;
+        NeuralNetwork snapshot = null;
+        Future<Double> pendingValidation = null;
+        int pendingIteration = 0;
+        double pendingTrainMSE = 0.0;
+        if (options.isPipelinedValidation()) {
+            validator = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "validation");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshot = nn.copy();
+        }
 
-            for (double[] row : trainSet) {
-                double[] input = Arrays.copyOfRange(row, 0, 400);
-                double[] target = {row[400]};
-                nn.train(input, target);
+        boolean verbose = options.isVerbose();
+        if (verbose) {
+            System.out.println("\nInício do treinamento da rede neural com Early Stopping...\n");
+        }
 
-                double prediction = nn.guess(input)[0];
-                trainMSE += Math.pow(prediction - target[0], 2);
+        try {
+            while (state.getIteration() < maxIterations && !hasStopped(state, options)) {
+                int iteration = state.getIteration() + 1;
+                fillTrainingOrder(order, options.isShuffle() ? new SplittableRandom(state.getSeed() + iteration) : null);
+
+                double trainMSE = 0.0;
+
+                if (augmentation != null) {
+                    trainMSE = trainAugmented(nn, augmentation, order, state.getSeed() + iteration);
+                } else {
+                    for (int index : order) {
+                        double[] row = trainSet.get(index);
+                        double[] target = {row[row.length - 1]};
+                        double prediction;
+                        if (sparseTrain != null) {
+                            nn.train(sparseTrain[index], target);
+                            prediction = nn.guess(sparseTrain[index])[0];
+                        } else {
+                            double[] input = Arrays.copyOfRange(row, 0, row.length - 1);
+                            nn.train(input, target);
+                            prediction = nn.guess(input)[0];
+                        }
+                        trainMSE += Math.pow(prediction - target[0], 2);
+                    }
+                }
+                trainMSE /= trainSet.size();
+
+                if (pendingValidation != null) {
+                    applyValidation(state, options, pendingIteration, pendingTrainMSE, awaitValidation(pendingValidation), snapshot);
+                    pendingValidation = null;
+                }
+
+                state.setIteration(iteration);
+                boolean validate = iteration % options.getValidationInterval() == 0 || iteration == maxIterations;
+
+                if (validate && validator == null) {
+                    applyValidation(state, options, iteration, trainMSE, calculateMSE(nn, validationRows, sparseValidation), nn);
+                } else if (validate && !hasStopped(state, options)) {
+                    snapshot.copyFrom(nn);
+                    NeuralNetwork validated = snapshot;
+                    pendingValidation = validator.submit(() -> calculateMSE(validated, validationRows, sparseValidation));
+                    pendingIteration = iteration;
+                    pendingTrainMSE = trainMSE;
+                } else {
+                    recordIteration(options, iteration, trainMSE, Double.NaN);
+                }
+
+                if (checkpointer != null && iteration % options.getCheckpointInterval() == 0) {
+                    checkpointer.checkpoint(nn, state);
+                }
             }
-            trainMSE /= trainSet.size();
 
-            double validationMSE = calculateMSE(nn, validationSet);
+            if (pendingValidation != null) {
+                applyValidation(state, options, pendingIteration, pendingTrainMSE, awaitValidation(pendingValidation), snapshot);
+            }
+        } finally {
+            if (validator != null) {
+                validator.shutdownNow();
+            }
+            if (augmentation != null) {
+                augmentation.close();
+            }
+        }
 
-            trainMseHistory.add(trainMSE);
-            validationMseHistory.add(validationMSE);
+        if (hasStopped(state, options) && state.getBestIteration() != state.getIteration()) {
+            nn.importParameters(state.getBestParameters());
+            if (verbose) {
+                System.out.printf("Pesos restaurados da iteração %d (MSE Validação: %.5f).%n", state.getBestIteration(), state.getBestValidationMSE());
+            }
+        }
 
-            System.out.printf("Iteração %d - MSE Treino: %.5f, MSE Validação: %.5f%n", iteration, trainMSE, validationMSE);
+        if (checkpointer != null) {
+            try {
+                checkpointer.awaitIdle();
+                checkpointer.checkpoint(nn, state);
+            } catch (IOException e) {
+                System.err.println("Erro ao gravar o checkpoint: " + e.getMessage());
+            }
+        }
 
-            if (validationMSE < bestValidationMSE) {
-                bestValidationMSE = validationMSE;
-                patienceCounter = 0;
-            } else {
-                patienceCounter++;
+        if (verbose) {
+            System.out.println("\nTreinamento concluído.");
+        }
+    }
+
+    /**
+     * Retoma um treinamento interrompido a partir de um checkpoint gravado por `AsyncCheckpointer`.
+     *
+     * @param checkpointPath Caminho do checkpoint.
+     * @param trainSet Conjunto de treinamento (o mesmo do treinamento original).
+     * @param validationSet Conjunto de validação (o mesmo do treinamento original).
+     * @param options Parâmetros do treinamento.
+     * @return A rede neural restaurada e treinada até ao fim.
+     * @throws IOException Se o checkpoint não puder ser lido.
+     */
+    public static NeuralNetwork resume(String checkpointPath, List<double[]> trainSet, List<double[]> validationSet, TrainingOptions options) throws IOException {
+        TrainingCheckpoint checkpoint = TrainingCheckpoint.read(checkpointPath);
+        NeuralNetwork nn = checkpoint.restoreNeuralNetwork();
+        TrainingState state = checkpoint.restoreTrainingState();
+
+        System.out.printf("Retomando o treinamento a partir da iteração %d.%n", state.getIteration());
+        trainNeuralNetwork(nn, trainSet, validationSet, options, state);
+        return nn;
+    }
+
+    // Uma iteração com os exemplos aumentados pelo pipeline; devolve a soma dos erros quadráticos
+    private static double trainAugmented(NeuralNetwork nn, AugmentationPipeline augmentation, int[] order, long seed) {
+        double squaredError = 0.0;
+        double[] target = new double[1];
+
+        augmentation.beginEpoch(order, seed);
+        AugmentationPipeline.Batch batch;
+        while ((batch = augmentation.take()) != null) {
+            try {
+                for (int i = 0; i < batch.getSize(); i++) {
+                    target[0] = batch.getTarget(i);
+                    nn.train(batch.getInput(i), target);
+                    double prediction = nn.guess(batch.getInput(i))[0];
+                    squaredError += Math.pow(prediction - target[0], 2);
+                }
+            } finally {
+                augmentation.release(batch);
             }
+        }
+        return squaredError;
+    }
+
+    // Verifica se o Early Stopping já foi acionado numa iteração anterior (por exemplo, antes de um checkpoint final)
+    private static boolean hasStopped(TrainingState state, TrainingOptions options) {
+        return state.getBestIteration() > 0
+                && (state.getBestValidationMSE() <= options.getMseThreshold() || state.getPatienceCounter() >= options.getPatience());
+    }
 
-            if (validationMSE <= mseThreshold) {
-                System.out.printf("Parada antecipada: Erro no conjunto de validação atingiu o limiar (%.5f).%n", mseThreshold);
-                break;
+    // Regista o resultado da validação de uma iteração e atualiza a melhor iteração e a paciência
+    // `validated` é a rede com os pesos dessa iteração (a própria rede, ou a cópia validada em segundo plano)
+    private static void applyValidation(TrainingState state, TrainingOptions options, int iteration, double trainMSE, double validationMSE, NeuralNetwork validated) {
+        recordIteration(options, iteration, trainMSE, validationMSE);
+
+        if (validationMSE < state.getBestValidationMSE()) {
+            state.setBestValidationMSE(validationMSE);
+            state.setBestIteration(iteration);
+            validated.exportParameters(state.getBestParameters());
+            state.setPatienceCounter(0);
+        } else {
+            state.setPatienceCounter(state.getPatienceCounter() + 1);
+        }
+
+        if (!options.isVerbose()) {
+            return;
+        }
+        if (validationMSE <= options.getMseThreshold()) {
+            System.out.printf("Parada antecipada: Erro no conjunto de validação atingiu o limiar (%.5f).%n", options.getMseThreshold());
+        } else if (state.getPatienceCounter() >= options.getPatience()) {
+            System.out.printf("Parada antecipada: Nenhuma melhora no conjunto de validação por %d validações.%n", options.getPatience());
+        }
+    }
+
+    // Envia as métricas de uma iteração para o sink e para o console; `validationMSE` é NaN nas iterações não validadas
+    private static void recordIteration(TrainingOptions options, int iteration, double trainMSE, double validationMSE) {
+        if (options.getMetricsSink() != null) {
+            options.getMetricsSink().record(iteration, trainMSE, validationMSE);
+        }
+
+        if (!options.isVerbose()) {
+            return;
+        }
+        if (Double.isNaN(validationMSE)) {
+            System.out.printf("Iteração %d - MSE Treino: %.5f%n", iteration, trainMSE);
+        } else {
+            System.out.printf("Iteração %d - MSE Treino: %.5f, MSE Validação: %.5f%n", iteration, trainMSE, validationMSE);
+        }
+    }
+
+    private static double awaitValidation(Future<Double> validation) {
+        try {
+            return validation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro: Treinamento interrompido durante a validação.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
             }
-            if (patienceCounter >= patience) {
-                System.out.printf("Parada antecipada: Nenhuma melhora no conjunto de validação por %d iterações.%n", patience);
-                break;
+            throw new IllegalStateException("Erro na validação: " + cause.getMessage(), cause);
+        }
+    }
+
+    // Converte as entradas para `SparseInput` se a densidade média for inferior ao limiar; caso contrário devolve null
+    private static SparseInput[] toSparseInputs(List<double[]> dataset, double densityThreshold) {
+        if (dataset.isEmpty()) {
+            return null;
+        }
+
+        int inputNodes = dataset.get(0).length - 1;
+        long nonZero = 0;
+        for (double[] row : dataset) {
+            for (int i = 0; i < inputNodes; i++) {
+                if (row[i] != 0) {
+                    nonZero++;
+                }
             }
         }
+        if (nonZero >= densityThreshold * dataset.size() * inputNodes) {
+            return null;
+        }
+
+        SparseInput[] sparseInputs = new SparseInput[dataset.size()];
+        for (int i = 0; i < sparseInputs.length; i++) {
+            sparseInputs[i] = SparseInput.fromDense(dataset.get(i), inputNodes);
+        }
+        return sparseInputs;
+    }
 
-        System.out.println("\nTreinamento concluído.");
+    // Escolhe uma subamostra fixa do conjunto de validação (Fisher-Yates parcial), mantendo a ordem original
+    private static List<double[]> selectValidationRows(List<double[]> validationSet, int sampleSize, long seed) {
+        if (sampleSize <= 0 || sampleSize >= validationSet.size()) {
+            return validationSet;
+        }
+
+        int[] indices = new int[validationSet.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(indices.length - i);
+            int swap = indices[i];
+            indices[i] = indices[j];
+            indices[j] = swap;
+        }
+        Arrays.sort(indices, 0, sampleSize);
+
+        List<double[]> sample = new ArrayList<>(sampleSize);
+        for (int i = 0; i < sampleSize; i++) {
+            sample.add(validationSet.get(indices[i]));
+        }
+        return sample;
+    }
+
+    // Preenche a ordem dos exemplos de uma iteração: sequencial, ou baralhada com Fisher-Yates
+    private static void fillTrainingOrder(int[] order, SplittableRandom random) {
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (random != null) {
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = order[i];
+                order[i] = order[j];
+                order[j] = swap;
+            }
+        }
     }
 
 
@@ -179,8 +807,8 @@ public class DigitTrainer {
 
         System.out.println("\nAvaliação no conjunto de teste:");
         for (double[] row : testSet) {
-            double[] input = Arrays.copyOfRange(row, 0, 400);
-            double target = row[400];
+            double[] input = Arrays.copyOfRange(row, 0, row.length - 1);
+            double target = row[row.length - 1];
             double prediction = nn.guess(input)[0];
             int predictedLabel = (prediction >= 0.5) ? 1 : 0;
 
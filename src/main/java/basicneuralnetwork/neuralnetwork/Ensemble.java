@@ -0,0 +1,443 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.activationfunctions.ActivationFunction;
+import basicneuralnetwork.activationfunctions.ActivationFunctionFactory;
+import basicneuralnetwork.computebackends.ComputeBackendFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe Ensemble: Modelo de inferência que combina as saídas de várias redes treinadas de forma independente,
+ * pela média ou por votação.
+ *
+ * Os membros com as mesmas dimensões e o mesmo mapeamento de features formam uma pilha: os pesos de cada camada
+ * de todos os membros da pilha estão num único array, um membro a seguir ao outro. Como todos os membros recebem
+ * a mesma entrada, a primeira camada (a maior) de uma pilha inteira é um único produto matriz-vetor, feito pelo
+ * `ComputeBackend` escolhido para essas dimensões; as camadas seguintes são calculadas membro a membro sobre os
+ * mesmos arrays. Com um `ExecutorService`, os membros são divididos em grupos avaliados em paralelo.
+ *
+ * Na votação, cada membro vota na classe da sua saída (saída >= 0.5 para uma rede com uma saída, a maior saída
+ * nos restantes casos) e o resultado é a fração de votos de cada classe; para uma saída, é a fração de votos em 1.
+ * Com concordância antecipada, os membros são avaliados um a um, pela ordem dada, e a avaliação pára assim que
+ * uma classe tiver o número de votos pedido. Com esse número igual à maioria dos membros, a classe vencedora é
+ * sempre a da votação completa.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - O modelo é imutável; `guess` pode ser chamado em simultâneo por várias threads.
+ * - Todos os membros têm a mesma entrada completa e o mesmo número de saídas.
+ * - Cada membro dá as mesmas saídas que a rede de onde foi copiado.
+ */
+public class Ensemble implements InferenceModel {
+
+    /**
+     * Forma de combinar as saídas dos membros.
+     */
+    public enum Combination {
+        MEAN,
+        VOTE
+    }
+
+    // Membros com as mesmas dimensões e o mesmo mapeamento de features, com os pesos de cada camada contíguos
+    private static class Stack {
+        private final int[] members;
+        private final ActivationFunction[] activations;
+        private final int[] featureIndices;
+        private final int inputNodes;
+        private final int[] rows;
+        private final int[] cols;
+        private final double[][] weights;
+        private final double[][] biases;
+
+        private Stack(List<Member> stackMembers, int[] indices) {
+            Member first = stackMembers.get(0);
+            int layers = first.biases.length;
+            this.members = indices;
+            this.activations = new ActivationFunction[indices.length];
+            this.featureIndices = first.featureIndices;
+            this.rows = new int[layers];
+            this.cols = new int[layers];
+            this.weights = new double[layers][];
+            this.biases = new double[layers][];
+
+            for (int l = 0; l < layers; l++) {
+                rows[l] = first.biases[l].length;
+                cols[l] = first.weights[l].length / rows[l];
+                weights[l] = new double[indices.length * rows[l] * cols[l]];
+                biases[l] = new double[indices.length * rows[l]];
+            }
+            this.inputNodes = cols[0];
+
+            for (int m = 0; m < indices.length; m++) {
+                Member member = stackMembers.get(m);
+                activations[m] = member.activation;
+                for (int l = 0; l < layers; l++) {
+                    System.arraycopy(member.weights[l], 0, weights[l], m * rows[l] * cols[l], rows[l] * cols[l]);
+                    System.arraycopy(member.biases[l], 0, biases[l], m * rows[l], rows[l]);
+                }
+            }
+        }
+
+        private int size() {
+            return members.length;
+        }
+    }
+
+    // Pesos de um membro, antes de ser colocado numa pilha
+    private static class Member {
+        private final double[][] weights;
+        private final double[][] biases;
+        private final int[] featureIndices;
+        private final int rawInputNodes;
+        private final ActivationFunction activation;
+
+        private Member(double[][] weights, double[][] biases, int[] featureIndices, int rawInputNodes, ActivationFunction activation) {
+            this.weights = weights;
+            this.biases = biases;
+            this.featureIndices = featureIndices;
+            this.rawInputNodes = rawInputNodes;
+            this.activation = activation;
+        }
+
+        // Chave das pilhas: dimensões das camadas e mapeamento de features
+        private String shapeKey() {
+            StringBuilder key = new StringBuilder();
+            for (int l = 0; l < biases.length; l++) {
+                key.append(weights[l].length / biases[l].length).append('x').append(biases[l].length).append(' ');
+            }
+            return key.append(Arrays.toString(featureIndices)).toString();
+        }
+    }
+
+    private final Stack[] stacks;
+    private final Stack[] memberStack;
+    private final int[] memberLocal;
+    private final int memberCount;
+    private final int rawInputNodes;
+    private final int outputNodes;
+    private final Combination combination;
+    private final int earlyAgreement;
+    private final ExecutorService executor;
+    private final int parallelism;
+
+    private final AtomicLong guessCount = new AtomicLong();
+    private final AtomicLong evaluatedCount = new AtomicLong();
+
+    /**
+     * Cria um ensemble avaliado na thread que chama `guess`, sem concordância antecipada.
+     *
+     * @param members As redes do ensemble (os pesos são copiados).
+     * @param combination Forma de combinar as saídas.
+     */
+    public Ensemble(List<NeuralNetwork> members, Combination combination) {
+        this(members, combination, 0, null);
+    }
+
+    /**
+     * @param members As redes do ensemble (os pesos são copiados).
+     * @param combination Forma de combinar as saídas.
+     * @param earlyAgreement Número de votos iguais que termina a avaliação (só com `VOTE`; 0 desativa).
+     * @param executor Executor para avaliar grupos de membros em paralelo, ou null para avaliar na thread que chama
+     *                 `guess`. Não é usado com concordância antecipada, que avalia os membros um a um.
+     */
+    public Ensemble(List<NeuralNetwork> members, Combination combination, int earlyAgreement, ExecutorService executor) {
+        this(toMembers(members), combination, earlyAgreement, executor);
+    }
+
+    private Ensemble(Member[] members, Combination combination, int earlyAgreement, ExecutorService executor) {
+        if (members.length == 0) {
+            throw new IllegalArgumentException("Erro: O ensemble precisa de pelo menos um membro.");
+        }
+        if (earlyAgreement < 0 || earlyAgreement > members.length || (earlyAgreement > 0 && combination != Combination.VOTE)) {
+            throw new IllegalArgumentException("Erro: Concordância antecipada inválida (" + earlyAgreement
+                    + "); só é permitida na votação, com no máximo " + members.length + " votos.");
+        }
+
+        Member first = members[0];
+        this.rawInputNodes = first.rawInputNodes;
+        this.outputNodes = first.biases[first.biases.length - 1].length;
+        this.memberCount = members.length;
+        this.combination = combination;
+        this.earlyAgreement = earlyAgreement;
+        this.executor = executor;
+        this.parallelism = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < members.length; i++) {
+            Member member = members[i];
+            int outputs = member.biases[member.biases.length - 1].length;
+            if (member.rawInputNodes != rawInputNodes || outputs != outputNodes) {
+                throw new IllegalArgumentException("Erro: O membro " + i + " tem " + member.rawInputNodes + " entradas e "
+                        + outputs + " saídas (esperado: " + rawInputNodes + " e " + outputNodes + ").");
+            }
+            groups.computeIfAbsent(member.shapeKey(), key -> new ArrayList<>()).add(i);
+        }
+
+        this.stacks = new Stack[groups.size()];
+        this.memberStack = new Stack[memberCount];
+        this.memberLocal = new int[memberCount];
+        int s = 0;
+        for (List<Integer> group : groups.values()) {
+            List<Member> stackMembers = new ArrayList<>();
+            int[] indices = new int[group.size()];
+            for (int m = 0; m < indices.length; m++) {
+                indices[m] = group.get(m);
+                stackMembers.add(members[indices[m]]);
+            }
+            stacks[s] = new Stack(stackMembers, indices);
+            for (int m = 0; m < indices.length; m++) {
+                memberStack[indices[m]] = stacks[s];
+                memberLocal[indices[m]] = m;
+            }
+            s++;
+        }
+    }
+
+    /**
+     * Carrega um ensemble de arquivos escritos por `NeuralNetwork.saveWeights`; as dimensões de cada membro são
+     * deduzidas do seu arquivo, como em `CompactModel.load`.
+     *
+     * @param filenames Os arquivos dos membros.
+     * @param activationFunction Nome da função de ativação predefinida de todos os membros.
+     * @param combination Forma de combinar as saídas.
+     * @param earlyAgreement Número de votos iguais que termina a avaliação (só com `VOTE`; 0 desativa).
+     * @return O ensemble.
+     * @throws IOException Se algum arquivo não existir ou não tiver o formato esperado.
+     */
+    public static Ensemble load(List<String> filenames, String activationFunction, Combination combination, int earlyAgreement) throws IOException {
+        ActivationFunction activation = activationFunction(
+                new ActivationFunctionFactory().getActivationFunctionByKey(activationFunction), activationFunction);
+        Member[] members = new Member[filenames.size()];
+        for (int i = 0; i < members.length; i++) {
+            CompactModel model = CompactModel.load(filenames.get(i), activationFunction);
+            members[i] = new Member(model.getLayerWeights(), model.getLayerBiases(), model.getFeatureIndices(),
+                    model.getRawInputNodes(), activation);
+        }
+        return new Ensemble(members, combination, earlyAgreement, null);
+    }
+
+    /**
+     * Faz uma predição combinando as saídas dos membros. Aceita a entrada completa; se nenhum membro tiver
+     * mapeamento de features, é a própria entrada das redes.
+     */
+    @Override
+    public void guess(double[] input, double[] output) {
+        if (input.length != rawInputNodes) {
+            throw new IllegalArgumentException("Erro: Esperados " + rawInputNodes + " valores de entrada.");
+        }
+
+        double[] memberOutputs = new double[memberCount * outputNodes];
+        int evaluated;
+        if (earlyAgreement > 0) {
+            evaluated = evaluateUntilAgreement(input, memberOutputs);
+        } else {
+            evaluateAll(input, memberOutputs);
+            evaluated = memberCount;
+        }
+
+        if (combination == Combination.MEAN) {
+            Arrays.fill(output, 0, outputNodes, 0);
+            for (int m = 0; m < evaluated; m++) {
+                for (int k = 0; k < outputNodes; k++) {
+                    output[k] += memberOutputs[m * outputNodes + k];
+                }
+            }
+            for (int k = 0; k < outputNodes; k++) {
+                output[k] /= evaluated;
+            }
+        } else {
+            int[] votes = new int[Math.max(2, outputNodes)];
+            for (int m = 0; m < evaluated; m++) {
+                votes[vote(memberOutputs, m)]++;
+            }
+            for (int k = 0; k < outputNodes; k++) {
+                output[k] = votes[outputNodes == 1 ? 1 : k] / (double) evaluated;
+            }
+        }
+
+        guessCount.incrementAndGet();
+        evaluatedCount.addAndGet(evaluated);
+    }
+
+    @Override
+    public int getInputNodes() {
+        return rawInputNodes;
+    }
+
+    @Override
+    public int getOutputNodes() {
+        return outputNodes;
+    }
+
+    public int getMemberCount() {
+        return memberCount;
+    }
+
+    /**
+     * @return O número de pilhas (grupos de membros com as mesmas dimensões).
+     */
+    public int getStackCount() {
+        return stacks.length;
+    }
+
+    /**
+     * @return O número médio de membros avaliados por predição (menor do que o número de membros
+     *         quando a concordância antecipada termina a avaliação mais cedo).
+     */
+    public double getMeanEvaluatedMembers() {
+        long guesses = guessCount.get();
+        return guesses == 0 ? 0 : evaluatedCount.get() / (double) guesses;
+    }
+
+    private void evaluateAll(double[] input, double[] memberOutputs) {
+        if (executor == null || memberCount < 2) {
+            for (Stack stack : stacks) {
+                evaluate(stack, 0, stack.size(), input, memberOutputs);
+            }
+            return;
+        }
+
+        // Grupos de membros consecutivos da mesma pilha; o primeiro é avaliado nesta thread
+        int chunk = (memberCount + parallelism - 1) / parallelism;
+        List<int[]> ranges = new ArrayList<>();
+        for (int s = 0; s < stacks.length; s++) {
+            for (int from = 0; from < stacks[s].size(); from += chunk) {
+                ranges.add(new int[]{s, from, Math.min(stacks[s].size(), from + chunk)});
+            }
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < ranges.size(); i++) {
+            int[] range = ranges.get(i);
+            futures.add(executor.submit(() -> evaluate(stacks[range[0]], range[1], range[2], input, memberOutputs)));
+        }
+        int[] own = ranges.get(0);
+        evaluate(stacks[own[0]], own[1], own[2], input, memberOutputs);
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro: Avaliação do ensemble interrompida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro na avaliação de um membro do ensemble: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Avalia os membros pela ordem dada até uma classe ter `earlyAgreement` votos; devolve o número avaliado
+    private int evaluateUntilAgreement(double[] input, double[] memberOutputs) {
+        int[] votes = new int[Math.max(2, outputNodes)];
+        for (int m = 0; m < memberCount; m++) {
+            evaluate(memberStack[m], memberLocal[m], memberLocal[m] + 1, input, memberOutputs);
+            if (++votes[vote(memberOutputs, m)] >= earlyAgreement) {
+                return m + 1;
+            }
+        }
+        return memberCount;
+    }
+
+    private int vote(double[] memberOutputs, int member) {
+        int offset = member * outputNodes;
+        if (outputNodes == 1) {
+            return memberOutputs[offset] >= 0.5 ? 1 : 0;
+        }
+        int best = 0;
+        for (int k = 1; k < outputNodes; k++) {
+            if (memberOutputs[offset + k] > memberOutputs[offset + best]) {
+                best = k;
+            }
+        }
+        return best;
+    }
+
+    // Calcula as saídas dos membros [from, to) de uma pilha e escreve-as nas posições desses membros no ensemble
+    private static void evaluate(Stack stack, int from, int to, double[] input, double[] memberOutputs) {
+        double[] x = input;
+        if (stack.featureIndices != null && input.length != stack.inputNodes) {
+            x = new double[stack.inputNodes];
+            for (int i = 0; i < x.length; i++) {
+                x[i] = input[stack.featureIndices[i]];
+            }
+        }
+
+        int members = to - from;
+        double[] activations = x;
+        for (int l = 0; l < stack.rows.length; l++) {
+            int rows = stack.rows[l];
+            int cols = stack.cols[l];
+            double[] w = stack.weights[l];
+            double[] b = stack.biases[l];
+            double[] result = new double[members * rows];
+
+            if (l == 0 && members == stack.size()) {
+                // Pilha inteira: as primeiras camadas de todos os membros formam uma só matriz
+                ComputeBackendFactory.getBackend(members * rows, cols).multiplyAdd(w, members * rows, cols, x, b, result);
+            } else {
+                for (int m = 0; m < members; m++) {
+                    int weightOffset = (from + m) * rows * cols;
+                    int inputOffset = l == 0 ? 0 : m * cols;
+                    for (int r = 0; r < rows; r++) {
+                        int row = weightOffset + r * cols;
+                        double sum = 0;
+                        for (int c = 0; c < cols; c++) {
+                            sum += w[row + c] * activations[inputOffset + c];
+                        }
+                        result[m * rows + r] = sum + b[(from + m) * rows + r];
+                    }
+                }
+            }
+
+            for (int m = 0; m < members; m++) {
+                ActivationFunction activation = stack.activations[from + m];
+                for (int r = m * rows; r < (m + 1) * rows; r++) {
+                    result[r] = activation.apply(result[r]);
+                }
+            }
+            activations = result;
+        }
+
+        int outputs = stack.rows[stack.rows.length - 1];
+        for (int m = 0; m < members; m++) {
+            System.arraycopy(activations, m * outputs, memberOutputs, stack.members[from + m] * outputs, outputs);
+        }
+    }
+
+    private static Member[] toMembers(List<NeuralNetwork> networks) {
+        Member[] members = new Member[networks.size()];
+        for (int i = 0; i < members.length; i++) {
+            NeuralNetwork nn = networks.get(i);
+            int layers = nn.getWeights().length;
+            double[][] weights = new double[layers][];
+            double[][] biases = new double[layers][];
+            for (int l = 0; l < layers; l++) {
+                weights[l] = nn.getWeights()[l].getDDRM().getData().clone();
+                biases[l] = nn.getBiases()[l].getDDRM().getData().clone();
+            }
+            int[] features = nn.getFeatureIndices();
+            int raw = features != null ? nn.getRawInputNodes() : nn.getInputNodes();
+            // A função da própria rede, que inclui as registadas com `addActivationFunction`
+            members[i] = new Member(weights, biases, features, raw, activationFunction(nn.getActivationFunction(), nn.getActivationFunctionName()));
+        }
+        return members;
+    }
+
+    private static ActivationFunction activationFunction(ActivationFunction activation, String name) {
+        if (activation == null) {
+            throw new IllegalArgumentException("Erro: Função de ativação não suportada: " + name);
+        }
+        return activation;
+    }
+}
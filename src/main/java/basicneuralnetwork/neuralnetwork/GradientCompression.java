@@ -0,0 +1,239 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.Exceptions.WrongDimensionException;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Classe GradientCompression: Codifica as atualizações que os `ParameterServerWorker` enviam ao `ParameterServer`.
+ *
+ * Com top-k, só os `k` valores com maior módulo são enviados, cada um com o seu índice; com float16, cada valor
+ * ocupa 2 bytes em vez de 8. O que não é enviado (os valores fora do top-k e o erro de arredondamento do float16)
+ * fica no resíduo do worker e é somado à atualização seguinte, pelo que nenhuma parte da atualização se perde.
+ *
+ * Formato (DataOutputStream, big-endian): flags (byte: 1 = top-k, 2 = float16), length, e depois
+ * `length` valores, ou `count` seguido de `count` pares (índice, valor) com top-k.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - 0 < `topKFraction` <= 1; com 1, todos os valores são enviados sem índices.
+ * - `decodeAdd` de uma atualização codificada por `encode` dá exatamente a atualização menos o novo resíduo.
+ */
+public class GradientCompression {
+
+    /**
+     * Sem compressão: todos os valores em double.
+     */
+    public static final GradientCompression NONE = new GradientCompression(1.0, false);
+
+    private static final int TOP_K = 1;
+    private static final int FLOAT16 = 2;
+
+    private final double topKFraction;
+    private final boolean float16;
+
+    /**
+     * @param topKFraction Fração dos valores enviados (os de maior módulo), ou 1 para enviar todos.
+     * @param float16 Se os valores são enviados em meia precisão.
+     */
+    public GradientCompression(double topKFraction, boolean float16) {
+        if (!(topKFraction > 0 && topKFraction <= 1)) {
+            throw new IllegalArgumentException("Erro: A fração do top-k deve estar em ]0, 1].");
+        }
+        this.topKFraction = topKFraction;
+        this.float16 = float16;
+    }
+
+    /**
+     * Escreve `update` mais o resíduo acumulado e guarda no resíduo a parte que não foi enviada.
+     *
+     * @param update A atualização (não é alterada).
+     * @param residual O resíduo do worker, com o tamanho de `update`, ou null para descartar o que não é enviado.
+     * @param out Destino.
+     * @return O número de bytes escritos.
+     * @throws IOException Se a escrita falhar.
+     */
+    public int encode(double[] update, double[] residual, DataOutputStream out) throws IOException {
+        if (residual != null && residual.length != update.length) {
+            throw new WrongDimensionException(residual.length, update.length, "Residual");
+        }
+        double[] values = update.clone();
+        if (residual != null) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] += residual[i];
+            }
+        }
+
+        boolean sparse = topKFraction < 1;
+        out.writeByte((sparse ? TOP_K : 0) | (float16 ? FLOAT16 : 0));
+        out.writeInt(values.length);
+
+        if (sparse) {
+            int count = getK(values.length);
+            double threshold = topKThreshold(values, count);
+            out.writeInt(count);
+            int written = 0;
+            for (int i = 0; i < values.length; i++) {
+                double sent = 0;
+                if (written < count && Math.abs(values[i]) >= threshold) {
+                    out.writeInt(i);
+                    sent = writeValue(out, values[i]);
+                    written++;
+                }
+                if (residual != null) {
+                    residual[i] = values[i] - sent;
+                }
+            }
+        } else {
+            for (int i = 0; i < values.length; i++) {
+                double sent = writeValue(out, values[i]);
+                if (residual != null) {
+                    residual[i] = values[i] - sent;
+                }
+            }
+        }
+        // `out.size()` deixa de contar a partir de 2 GB, por isso o tamanho é calculado
+        int valueBytes = float16 ? 2 : 8;
+        return sparse ? 1 + 4 + 4 + getK(values.length) * (4 + valueBytes) : 1 + 4 + values.length * valueBytes;
+    }
+
+    /**
+     * Lê uma atualização escrita por `encode` (com qualquer compressão) e soma-a a `target`.
+     *
+     * @param in Origem.
+     * @param target Array onde a atualização é somada.
+     * @throws IOException Se a leitura falhar ou a atualização não tiver o tamanho de `target`.
+     */
+    public static void decodeAdd(DataInputStream in, double[] target) throws IOException {
+        int flags = in.readByte();
+        int length = in.readInt();
+        if (length != target.length) {
+            throw new IOException("Erro: Atualização com " + length + " valores (esperado: " + target.length + ").");
+        }
+        boolean half = (flags & FLOAT16) != 0;
+
+        if ((flags & TOP_K) != 0) {
+            int count = in.readInt();
+            if (count < 0 || count > length) {
+                throw new IOException("Erro: Atualização com " + count + " valores de " + length + ".");
+            }
+            for (int i = 0; i < count; i++) {
+                int index = in.readInt();
+                if (index < 0 || index >= length) {
+                    throw new IOException("Erro: Índice " + index + " fora da atualização.");
+                }
+                target[index] += readValue(in, half);
+            }
+        } else {
+            for (int i = 0; i < length; i++) {
+                target[i] += readValue(in, half);
+            }
+        }
+    }
+
+    /**
+     * @param length Número de parâmetros.
+     * @return O número de valores enviados por atualização.
+     */
+    public int getK(int length) {
+        return topKFraction < 1 ? Math.max(1, (int) Math.ceil(length * topKFraction)) : length;
+    }
+
+    public double getTopKFraction() {
+        return topKFraction;
+    }
+
+    public boolean isFloat16() {
+        return float16;
+    }
+
+    // Módulo do k-ésimo maior valor
+    private static double topKThreshold(double[] values, int k) {
+        double[] magnitudes = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            magnitudes[i] = Math.abs(values[i]);
+        }
+        Arrays.sort(magnitudes);
+        return magnitudes[values.length - k];
+    }
+
+    // Escreve um valor e devolve o valor que o servidor vai ler
+    private double writeValue(DataOutputStream out, double value) throws IOException {
+        if (!float16) {
+            out.writeDouble(value);
+            return value;
+        }
+        short half = toHalf(value);
+        out.writeShort(half);
+        return fromHalf(half);
+    }
+
+    private static double readValue(DataInputStream in, boolean half) throws IOException {
+        return half ? fromHalf(in.readShort()) : in.readDouble();
+    }
+
+    /**
+     * Converte para meia precisão (IEEE 754 binary16), com arredondamento para o par mais próximo.
+     * Os valores acima de 65504 ficam infinitos e os abaixo de 2^-24 ficam 0.
+     */
+    static short toHalf(double value) {
+        int bits = Float.floatToIntBits((float) value);
+        int sign = (bits >>> 16) & 0x8000;
+        int floatExponent = (bits >>> 23) & 0xff;
+        int mantissa = bits & 0x7fffff;
+
+        if (floatExponent == 0xff) {
+            return (short) (sign | 0x7c00 | (mantissa != 0 ? 0x200 : 0));
+        }
+        int exponent = floatExponent - 127 + 15;
+        if (exponent >= 0x1f) {
+            return (short) (sign | 0x7c00);
+        }
+        if (exponent <= 0) {
+            // Subnormal: a mantissa, com o bit implícito, é deslocada para o expoente mínimo
+            if (exponent < -10) {
+                return (short) sign;
+            }
+            mantissa |= 0x800000;
+            int shift = 14 - exponent;
+            int half = mantissa >> shift;
+            int remainder = mantissa & ((1 << shift) - 1);
+            int halfway = 1 << (shift - 1);
+            if (remainder > halfway || (remainder == halfway && (half & 1) != 0)) {
+                half++;
+            }
+            return (short) (sign | half);
+        }
+
+        int half = (exponent << 10) | (mantissa >> 13);
+        int remainder = mantissa & 0x1fff;
+        if (remainder > 0x1000 || (remainder == 0x1000 && (half & 1) != 0)) {
+            half++; // Um transporte para o expoente continua correto (até ao infinito)
+        }
+        return (short) (sign | half);
+    }
+
+    /**
+     * Converte um valor em meia precisão para double.
+     */
+    static double fromHalf(short half) {
+        int bits = half & 0xffff;
+        int exponent = (bits >>> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+
+        double value;
+        if (exponent == 0) {
+            value = mantissa * 0x1p-24;
+        } else if (exponent == 0x1f) {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            value = (1024 + mantissa) * Math.scalb(1.0, exponent - 25);
+        }
+        return (bits & 0x8000) != 0 ? -value : value;
+    }
+}
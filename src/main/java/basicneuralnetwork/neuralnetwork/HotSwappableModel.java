@@ -0,0 +1,216 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Classe HotSwappableModel: Modelo de inferência cujos pesos podem ser substituídos sem reiniciar o processo
+ * nem pausar as predições.
+ * Cada nova versão é carregada e validada fora do caminho das predições e publicada com uma única troca atómica
+ * de referência; as predições já em curso terminam com a versão anterior.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Uma versão publicada nunca é alterada; cada recarregamento cria uma rede nova.
+ * - Uma nova versão só é publicada se receber o mesmo número de entradas (antes da seleção de features) e devolver
+ *   o mesmo número de saídas que a atual, e se tiver apenas pesos finitos. As camadas internas e as features
+ *   mantidas podem mudar, por exemplo num modelo treinado de novo com outros dados.
+ * - Se o recarregamento falhar, a versão atual continua em uso.
+ */
+public class HotSwappableModel implements AutoCloseable {
+
+    private final ModelRegistry.ModelLoader loader;
+    private final AtomicReference<NeuralNetwork> current = new AtomicReference<>();
+
+    private final Object reloadLock = new Object();
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong reloadCount = new AtomicLong();
+    private final AtomicLong failedReloadCount = new AtomicLong();
+    private volatile String lastFailure;
+    private volatile LatencyHistogram latency;
+
+    private ScheduledExecutorService watcher;
+
+    /**
+     * Carrega a primeira versão do modelo.
+     *
+     * @param loader Forma de carregar cada versão do modelo.
+     * @throws IOException Se a primeira versão não puder ser carregada.
+     */
+    public HotSwappableModel(ModelRegistry.ModelLoader loader) throws IOException {
+        this.loader = loader;
+        NeuralNetwork initial = loader.load();
+        validate(initial, null);
+        current.set(initial);
+        version.set(1);
+    }
+
+    /**
+     * Cria um modelo a partir de um arquivo gravado por `NeuralNetwork.saveWeights`.
+     *
+     * @param weightsPath Caminho do arquivo de pesos.
+     * @param inputNodes Número de entradas.
+     * @param hiddenLayers Número de camadas ocultas.
+     * @param hiddenNodes Número de neurônios por camada oculta.
+     * @param outputNodes Número de saídas.
+     * @param activationFunction Chave da função de ativação.
+     * @return O modelo carregado.
+     * @throws IOException Se o arquivo não puder ser carregado.
+     */
+    public static HotSwappableModel fromWeightsFile(String weightsPath, int inputNodes, int hiddenLayers, int hiddenNodes, int outputNodes, String activationFunction) throws IOException {
+        return new HotSwappableModel(() -> {
+            NeuralNetwork nn = new NeuralNetwork(inputNodes, hiddenLayers, hiddenNodes, outputNodes);
+            nn.setActivationFunction(activationFunction);
+            nn.loadWeights(weightsPath);
+            return nn;
+        });
+    }
+
+    /**
+     * Faz uma predição com a versão publicada no momento da chamada.
+     *
+     * @param input Valores de entrada.
+     * @return A saída da rede.
+     */
+    public double[] guess(double[] input) {
+        LatencyHistogram histogram = latency;
+        if (histogram == null) {
+            return current.get().guess(input);
+        }
+        long start = System.nanoTime();
+        double[] output = current.get().guess(input);
+        histogram.recordSince(start);
+        return output;
+    }
+
+    /**
+     * @param latency Histograma onde é registada a duração de cada predição, ou null para não medir.
+     */
+    public void setLatencyHistogram(LatencyHistogram latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * @return A versão atual da rede (não deve ser alterada).
+     */
+    public NeuralNetwork getCurrent() {
+        return current.get();
+    }
+
+    /**
+     * Carrega, valida e publica uma nova versão. Recarregamentos simultâneos são executados um de cada vez.
+     *
+     * @return true se a nova versão foi publicada, false se o carregamento ou a validação falharam.
+     */
+    public boolean reload() {
+        synchronized (reloadLock) {
+            try {
+                NeuralNetwork candidate = loader.load();
+                validate(candidate, current.get());
+                current.set(candidate);
+                version.incrementAndGet();
+                reloadCount.incrementAndGet();
+                lastFailure = null;
+                return true;
+            } catch (Exception e) {
+                failedReloadCount.incrementAndGet();
+                lastFailure = e.getMessage();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Verifica periodicamente a data de modificação e o tamanho do arquivo e recarrega o modelo quando mudam.
+     *
+     * @param filePath Arquivo a observar (normalmente o mesmo de onde o modelo é carregado).
+     * @param pollIntervalMillis Intervalo entre verificações, em milissegundos.
+     */
+    public synchronized void watch(String filePath, long pollIntervalMillis) {
+        if (watcher != null) {
+            throw new IllegalStateException("Erro: O modelo já está a observar um arquivo.");
+        }
+        File file = new File(filePath);
+        long[] lastSeen = {file.lastModified(), file.length()};
+
+        watcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "model-file-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watcher.scheduleWithFixedDelay(() -> {
+            long modified = file.lastModified();
+            long length = file.length();
+            if (modified != lastSeen[0] || length != lastSeen[1]) {
+                lastSeen[0] = modified;
+                lastSeen[1] = length;
+                reload();
+            }
+        }, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return O número da versão publicada (1 para a versão inicial).
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getReloadCount() {
+        return reloadCount.get();
+    }
+
+    public long getFailedReloadCount() {
+        return failedReloadCount.get();
+    }
+
+    /**
+     * @return A mensagem do último recarregamento falhado, ou null se o último teve sucesso.
+     */
+    public String getLastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * Pára a observação do arquivo, se existir.
+     */
+    @Override
+    public synchronized void close() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+            watcher = null;
+        }
+    }
+
+    private static void validate(NeuralNetwork candidate, NeuralNetwork reference) throws IOException {
+        if (candidate == null) {
+            throw new IOException("Erro: O carregamento não devolveu nenhum modelo.");
+        }
+        if (reference != null && (callerInputNodes(candidate) != callerInputNodes(reference)
+                || candidate.getOutputNodes() != reference.getOutputNodes())) {
+            throw new IOException("Erro: A nova versão tem " + callerInputNodes(candidate) + " entradas e "
+                    + candidate.getOutputNodes() + " saídas, mas a atual tem " + callerInputNodes(reference)
+                    + " entradas e " + reference.getOutputNodes() + " saídas.");
+        }
+
+        double[] parameters = new double[candidate.getParameterCount()];
+        candidate.exportParameters(parameters);
+        for (double value : parameters) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IOException("Erro: A nova versão contém pesos não finitos.");
+            }
+        }
+    }
+
+    // Número de entradas que quem faz as predições passa: as entradas completas, se a rede tiver um mapeamento de features
+    private static int callerInputNodes(NeuralNetwork nn) {
+        return nn.getFeatureIndices() != null ? nn.getRawInputNodes() : nn.getInputNodes();
+    }
+}
@@ -0,0 +1,357 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Classe HyperparameterSearch: Procura de hiperparâmetros (neurônios ocultos, taxa de aprendizagem, função de ativação
+ * e paciência) por grelha, por amostragem aleatória ou por successive halving (ao estilo do Hyperband).
+ * Os candidatos treinam em paralelo, até ao limite de `concurrency` redes de cada vez, sobre os mesmos conjuntos
+ * de dados, que apenas são lidos.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `concurrency` deve ser positivo.
+ * - Os conjuntos de treinamento e validação não são alterados durante a procura.
+ * - Os resultados são devolvidos ordenados pelo menor MSE de validação.
+ */
+public class HyperparameterSearch implements AutoCloseable {
+
+    /**
+     * Uma combinação de hiperparâmetros a avaliar.
+     */
+    public static class Configuration {
+        private final int hiddenNodes;
+        private final double learningRate;
+        private final String activationFunction;
+        private final int patience;
+
+        public Configuration(int hiddenNodes, double learningRate, String activationFunction, int patience) {
+            this.hiddenNodes = hiddenNodes;
+            this.learningRate = learningRate;
+            this.activationFunction = activationFunction;
+            this.patience = patience;
+        }
+
+        public int getHiddenNodes() {
+            return hiddenNodes;
+        }
+
+        public double getLearningRate() {
+            return learningRate;
+        }
+
+        public String getActivationFunction() {
+            return activationFunction;
+        }
+
+        public int getPatience() {
+            return patience;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hiddenNodes=%d, learningRate=%.5f, activation=%s, patience=%d",
+                    hiddenNodes, learningRate, activationFunction, patience);
+        }
+    }
+
+    /**
+     * O resultado do treinamento de uma configuração. Entre rondas do successive halving, a rede e o seu
+     * `TrainingState` são mantidos para que os candidatos sobreviventes continuem onde pararam.
+     */
+    public static class Trial {
+        private final Configuration configuration;
+        private final NeuralNetwork nn;
+        private final TrainingState state;
+        private double accuracy;
+        private boolean terminated;
+
+        private Trial(Configuration configuration, NeuralNetwork nn, long seed) {
+            this.configuration = configuration;
+            this.nn = nn;
+            this.state = new TrainingState(nn, seed);
+        }
+
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        public NeuralNetwork getNeuralNetwork() {
+            return nn;
+        }
+
+        public int getIterations() {
+            return state.getIteration();
+        }
+
+        public double getValidationMSE() {
+            return state.getBestValidationMSE();
+        }
+
+        /**
+         * @return A percentagem de exemplos de validação classificados corretamente no fim do treinamento.
+         */
+        public double getAccuracy() {
+            return accuracy;
+        }
+
+        /**
+         * @return true se o candidato foi eliminado por uma ronda do successive halving.
+         */
+        public boolean isTerminated() {
+            return terminated;
+        }
+    }
+
+    private final List<double[]> trainSet;
+    private final List<double[]> validationSet;
+    private final int concurrency;
+    private final ExecutorService executor;
+
+    private double mseThreshold = new TrainingOptions().getMseThreshold();
+    private long seed;
+
+    /**
+     * @param trainSet Conjunto de treinamento, partilhado por todos os candidatos.
+     * @param validationSet Conjunto de validação, usado para comparar os candidatos.
+     * @param concurrency Número máximo de redes a treinar ao mesmo tempo.
+     */
+    public HyperparameterSearch(List<double[]> trainSet, List<double[]> validationSet, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Erro: O número de treinamentos simultâneos deve ser positivo (" + concurrency + ").");
+        }
+        this.trainSet = Collections.unmodifiableList(trainSet);
+        this.validationSet = Collections.unmodifiableList(validationSet);
+        this.concurrency = concurrency;
+        this.seed = new SplittableRandom().nextLong();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "hyperparameter-search");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Procura por successive halving os hiperparâmetros da rede de `DigitTrainer` e escreve a tabela de resultados.
+     *
+     * @param args Argumentos da linha de comando (não utilizados).
+     * @throws IOException Em caso de erro ao carregar os arquivos do conjunto de dados.
+     */
+    public static void main(String[] args) throws IOException {
+        List<double[]> dataset = DataPreprocessor.loadDataset("dataset/dataset/dataset.csv", "dataset/dataset/labels.csv");
+        List<double[]> trainSet = new ArrayList<>();
+        List<double[]> validationSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(dataset, 0.6, trainSet, validationSet);
+
+        List<Configuration> configurations = grid(new int[]{5, 10, 20}, new double[]{0.003, 0.01, 0.03, 0.1},
+                new String[]{"SIGMOID", "TANH"}, new int[]{5, 10});
+
+        try (HyperparameterSearch search = new HyperparameterSearch(trainSet, validationSet, Runtime.getRuntime().availableProcessors())) {
+            printResults(search.successiveHalving(configurations, 10, 3, 270));
+        }
+    }
+
+    /**
+     * Todas as combinações dos valores indicados.
+     *
+     * @return Uma configuração por combinação.
+     */
+    public static List<Configuration> grid(int[] hiddenNodes, double[] learningRates, String[] activationFunctions, int[] patiences) {
+        List<Configuration> configurations = new ArrayList<>();
+        for (int nodes : hiddenNodes) {
+            for (double learningRate : learningRates) {
+                for (String activationFunction : activationFunctions) {
+                    for (int patience : patiences) {
+                        configurations.add(new Configuration(nodes, learningRate, activationFunction, patience));
+                    }
+                }
+            }
+        }
+        return configurations;
+    }
+
+    /**
+     * Configurações aleatórias. A taxa de aprendizagem é amostrada em escala logarítmica entre os limites indicados.
+     *
+     * @param count Número de configurações.
+     * @param seed Semente do gerador aleatório.
+     * @return As configurações amostradas.
+     */
+    public static List<Configuration> random(int count, int[] hiddenNodes, double minLearningRate, double maxLearningRate,
+                                             String[] activationFunctions, int[] patiences, long seed) {
+        if (minLearningRate <= 0 || maxLearningRate < minLearningRate) {
+            throw new IllegalArgumentException("Erro: Intervalo de taxas de aprendizagem inválido [" + minLearningRate + ", " + maxLearningRate + "].");
+        }
+
+        SplittableRandom random = new SplittableRandom(seed);
+        double logMin = Math.log(minLearningRate);
+        double logMax = Math.log(maxLearningRate);
+
+        List<Configuration> configurations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            configurations.add(new Configuration(
+                    hiddenNodes[random.nextInt(hiddenNodes.length)],
+                    Math.exp(logMin + random.nextDouble() * (logMax - logMin)),
+                    activationFunctions[random.nextInt(activationFunctions.length)],
+                    patiences[random.nextInt(patiences.length)]));
+        }
+        return configurations;
+    }
+
+    /**
+     * Treina todas as configurações até `maxIterations` (ou até ao Early Stopping de cada uma).
+     *
+     * @param configurations As configurações a avaliar (por exemplo, de `grid` ou `random`).
+     * @param maxIterations Número máximo de iterações de cada candidato.
+     * @return Os resultados, do melhor para o pior.
+     */
+    public List<Trial> run(List<Configuration> configurations, int maxIterations) {
+        List<Trial> trials = createTrials(configurations);
+        trainAll(trials, maxIterations);
+        sortByValidationMSE(trials);
+        return trials;
+    }
+
+    /**
+     * Successive halving: todos os candidatos treinam `minIterations` iterações; apenas o melhor `1 / eta` continua,
+     * com `eta` vezes mais iterações, até restar um candidato ou ser atingido `maxIterations`.
+     * Os candidatos eliminados param de treinar logo no fim da sua ronda.
+     *
+     * @param configurations As configurações a avaliar.
+     * @param minIterations Orçamento de iterações da primeira ronda.
+     * @param eta Fator de redução de candidatos (e de aumento do orçamento) entre rondas; deve ser pelo menos 2.
+     * @param maxIterations Orçamento máximo de iterações de um candidato.
+     * @return Todos os resultados, do melhor para o pior; os eliminados vêm depois dos sobreviventes da última ronda.
+     */
+    public List<Trial> successiveHalving(List<Configuration> configurations, int minIterations, int eta, int maxIterations) {
+        if (eta < 2) {
+            throw new IllegalArgumentException("Erro: O fator de redução deve ser pelo menos 2 (" + eta + ").");
+        }
+
+        List<Trial> all = createTrials(configurations);
+        List<Trial> survivors = new ArrayList<>(all);
+        List<Trial> eliminated = new ArrayList<>();
+        int budget = Math.min(minIterations, maxIterations);
+
+        while (true) {
+            trainAll(survivors, budget);
+            sortByValidationMSE(survivors);
+
+            if (survivors.size() <= 1 || budget >= maxIterations) {
+                break;
+            }
+
+            int keep = Math.max(1, survivors.size() / eta);
+            List<Trial> losers = survivors.subList(keep, survivors.size());
+            for (Trial trial : losers) {
+                trial.terminated = true;
+            }
+            eliminated.addAll(0, losers);
+            losers.clear();
+
+            budget = (int) Math.min((long) budget * eta, maxIterations);
+        }
+
+        List<Trial> results = new ArrayList<>(survivors);
+        results.addAll(eliminated);
+        return results;
+    }
+
+    /**
+     * Escreve no console a tabela de resultados.
+     *
+     * @param trials Os resultados de `run` ou `successiveHalving`.
+     */
+    public static void printResults(List<Trial> trials) {
+        System.out.println("\nResultados da procura de hiperparâmetros:");
+        System.out.printf("%-4s %-8s %-10s %-10s %-9s %-10s %-12s %-10s%n",
+                "#", "Ocultos", "Taxa", "Ativação", "Paciência", "Iterações", "MSE Valid.", "Acurácia");
+        for (int i = 0; i < trials.size(); i++) {
+            Trial trial = trials.get(i);
+            Configuration configuration = trial.getConfiguration();
+            System.out.printf("%-4d %-8d %-10.5f %-10s %-9d %-10d %-12.5f %7.2f%%%s%n",
+                    i + 1, configuration.getHiddenNodes(), configuration.getLearningRate(),
+                    configuration.getActivationFunction(), configuration.getPatience(), trial.getIterations(),
+                    trial.getValidationMSE(), trial.getAccuracy(), trial.isTerminated() ? "  (eliminado)" : "");
+        }
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setMseThreshold(double mseThreshold) {
+        this.mseThreshold = mseThreshold;
+    }
+
+    /**
+     * @param seed Semente base dos treinamentos; o candidato i usa `seed + i`.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private List<Trial> createTrials(List<Configuration> configurations) {
+        int inputNodes = trainSet.get(0).length - 1;
+        List<Trial> trials = new ArrayList<>(configurations.size());
+        for (int i = 0; i < configurations.size(); i++) {
+            Configuration configuration = configurations.get(i);
+            NeuralNetwork nn = new NeuralNetwork(inputNodes, configuration.getHiddenNodes(), 1);
+            nn.setActivationFunction(configuration.getActivationFunction());
+            nn.setLearningRate(configuration.getLearningRate());
+            trials.add(new Trial(configuration, nn, seed + i));
+        }
+        return trials;
+    }
+
+    // Treina (ou continua a treinar) cada candidato até `maxIterations` e espera por todos
+    private void trainAll(List<Trial> trials, int maxIterations) {
+        List<Future<?>> futures = new ArrayList<>(trials.size());
+        for (Trial trial : trials) {
+            futures.add(executor.submit(() -> train(trial, maxIterations)));
+        }
+
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Erro: Procura de hiperparâmetros interrompida.", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IllegalStateException("Erro no treinamento de um candidato: " + cause.getMessage(), cause);
+            }
+        }
+    }
+
+    private void train(Trial trial, int maxIterations) {
+        TrainingOptions options = new TrainingOptions(mseThreshold, maxIterations, trial.getConfiguration().getPatience());
+        options.setSeed(trial.state.getSeed());
+        options.setVerbose(false);
+        DigitTrainer.trainNeuralNetwork(trial.nn, trainSet, validationSet, options, trial.state);
+        trial.accuracy = DigitTrainer.calculateAccuracy(trial.nn, validationSet);
+    }
+
+    private static void sortByValidationMSE(List<Trial> trials) {
+        trials.sort(Comparator.comparingDouble(Trial::getValidationMSE));
+    }
+}
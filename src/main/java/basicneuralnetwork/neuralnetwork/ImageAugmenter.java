@@ -0,0 +1,275 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.utilities.MatrixUtilities;
+
+import java.util.SplittableRandom;
+
+/**
+ * Classe ImageAugmenter: Gera variações aleatórias de uma imagem em tons de cinzento (por exemplo, os dígitos 20x20),
+ * combinando um deslocamento, uma pequena rotação em torno do centro, uma deformação elástica suave e ruído nos pixels.
+ * A imagem transformada é amostrada com interpolação bilinear; fora da imagem original o valor é 0 (o fundo).
+ *
+ * Os pixels são lidos como `y * width + x`. Para imagens guardadas por colunas (como as do conjunto de dígitos),
+ * os eixos trocam de papel, o que é indiferente para transformações aleatórias simétricas.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Uma instância guarda buffers de trabalho e não pode ser usada por várias threads ao mesmo tempo;
+ *   cada thread usa a sua cópia (`copy`).
+ * - `augment` não aloca memória e, para a mesma configuração e o mesmo estado do gerador, produz sempre a mesma imagem.
+ */
+public class ImageAugmenter {
+
+    private final int width;
+    private final int height;
+
+    private double maxShift = 2.0;
+    private double maxRotation = 10.0;
+    private double elasticAlpha = 1.0;
+    private double elasticSigma = 3.0;
+    private double noiseStdDev = 0.0;
+
+    // Buffers de trabalho: os deslocamentos aleatórios nos pontos de controlo e o campo de deformação interpolado
+    private double[] gridX;
+    private double[] gridY;
+    // Célula da grelha e posição dentro dela de cada coluna e de cada linha de pixels, calculadas com a grelha
+    private int[] cellX;
+    private double[] fractionX;
+    private int[] cellY;
+    private double[] fractionY;
+    private final double[] dx;
+    private final double[] dy;
+
+    /**
+     * @param width Largura das imagens, em pixels.
+     * @param height Altura das imagens, em pixels.
+     */
+    public ImageAugmenter(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Erro: Dimensões de imagem inválidas: " + width + "x" + height + ".");
+        }
+        this.width = width;
+        this.height = height;
+        this.dx = new double[width * height];
+        this.dy = new double[width * height];
+        allocateGrid();
+    }
+
+    /**
+     * @return Um augmenter com a mesma configuração e buffers de trabalho próprios.
+     */
+    public ImageAugmenter copy() {
+        ImageAugmenter copy = new ImageAugmenter(width, height);
+        copy.maxShift = maxShift;
+        copy.maxRotation = maxRotation;
+        copy.elasticAlpha = elasticAlpha;
+        copy.elasticSigma = elasticSigma;
+        copy.noiseStdDev = noiseStdDev;
+        copy.allocateGrid();
+        return copy;
+    }
+
+    /**
+     * Escreve em `target` uma variação aleatória dos primeiros `width * height` valores de `source`.
+     *
+     * @param source A imagem original (pode ter mais valores no fim, como o rótulo de uma linha do conjunto de dados).
+     * @param target Array com pelo menos `width * height` elementos, onde é escrita a imagem transformada.
+     * @param random Gerador dos parâmetros aleatórios desta transformação.
+     */
+    public void augment(double[] source, double[] target, SplittableRandom random) {
+        double angle = Math.toRadians(uniform(random, maxRotation));
+        double shiftX = uniform(random, maxShift);
+        double shiftY = uniform(random, maxShift);
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double centerX = (width - 1) / 2.0;
+        double centerY = (height - 1) / 2.0;
+
+        boolean elastic = elasticAlpha > 0;
+        if (elastic) {
+            elasticField(random);
+        }
+
+        // Mapeamento inverso: para cada pixel de destino, a posição de origem que lhe corresponde
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int index = y * width + x;
+                double relativeX = x - centerX - shiftX;
+                double relativeY = y - centerY - shiftY;
+                double sourceX = cos * relativeX + sin * relativeY + centerX;
+                double sourceY = -sin * relativeX + cos * relativeY + centerY;
+                if (elastic) {
+                    sourceX += dx[index];
+                    sourceY += dy[index];
+                }
+
+                double value = sample(source, sourceX, sourceY);
+                if (noiseStdDev > 0) {
+                    value += MatrixUtilities.nextGaussian(random) * noiseStdDev;
+                }
+                target[index] = value;
+            }
+        }
+    }
+
+    // Deformação elástica: deslocamentos aleatórios em [-1, 1] numa grelha de pontos de controlo espaçados de
+    // `elasticSigma` pixels, interpolados bilinearmente em cada pixel e escalados para que o maior seja `elasticAlpha`.
+    // Dá um campo suave como o da convolução gaussiana de um ruído por pixel, com muito menos cálculos por imagem
+    private void elasticField(SplittableRandom random) {
+        for (int i = 0; i < gridX.length; i++) {
+            gridX[i] = random.nextDouble(-1, 1);
+            gridY[i] = random.nextDouble(-1, 1);
+        }
+
+        int gridWidth = gridWidth();
+        double max = 0;
+        for (int y = 0; y < height; y++) {
+            int rowCorner = cellY[y] * gridWidth;
+            double fy = fractionY[y];
+            for (int x = 0; x < width; x++) {
+                double fx = fractionX[x];
+                int corner = rowCorner + cellX[x];
+
+                double valueX = (1 - fy) * ((1 - fx) * gridX[corner] + fx * gridX[corner + 1])
+                        + fy * ((1 - fx) * gridX[corner + gridWidth] + fx * gridX[corner + gridWidth + 1]);
+                double valueY = (1 - fy) * ((1 - fx) * gridY[corner] + fx * gridY[corner + 1])
+                        + fy * ((1 - fx) * gridY[corner + gridWidth] + fx * gridY[corner + gridWidth + 1]);
+                dx[y * width + x] = valueX;
+                dy[y * width + x] = valueY;
+                max = Math.max(max, Math.max(Math.abs(valueX), Math.abs(valueY)));
+            }
+        }
+
+        if (max > 0) {
+            double scale = elasticAlpha / max;
+            for (int i = 0; i < dx.length; i++) {
+                dx[i] *= scale;
+                dy[i] *= scale;
+            }
+        }
+    }
+
+    private double gridSpacing() {
+        return Math.max(1.0, elasticSigma);
+    }
+
+    // Pontos de controlo por linha: cobrem a imagem inteira, com um ponto extra para a interpolação na última célula
+    private int gridWidth() {
+        return (int) ((width - 1) / gridSpacing()) + 2;
+    }
+
+    private void allocateGrid() {
+        double spacing = gridSpacing();
+        int cells = gridWidth() * ((int) ((height - 1) / spacing) + 2);
+        gridX = new double[cells];
+        gridY = new double[cells];
+
+        cellX = new int[width];
+        fractionX = new double[width];
+        for (int x = 0; x < width; x++) {
+            cellX[x] = (int) (x / spacing);
+            fractionX[x] = x / spacing - cellX[x];
+        }
+        cellY = new int[height];
+        fractionY = new double[height];
+        for (int y = 0; y < height; y++) {
+            cellY[y] = (int) (y / spacing);
+            fractionY[y] = y / spacing - cellY[y];
+        }
+    }
+
+    // Interpolação bilinear; os vizinhos fora da imagem contam como 0
+    private double sample(double[] source, double x, double y) {
+        int x0 = floor(x);
+        int y0 = floor(y);
+        double fx = x - x0;
+        double fy = y - y0;
+        if (x0 >= 0 && y0 >= 0 && x0 < width - 1 && y0 < height - 1) {
+            int index = y0 * width + x0;
+            return (1 - fy) * ((1 - fx) * source[index] + fx * source[index + 1])
+                    + fy * ((1 - fx) * source[index + width] + fx * source[index + width + 1]);
+        }
+        return (1 - fy) * ((1 - fx) * pixel(source, x0, y0) + fx * pixel(source, x0 + 1, y0))
+                + fy * ((1 - fx) * pixel(source, x0, y0 + 1) + fx * pixel(source, x0 + 1, y0 + 1));
+    }
+
+    // (int) arredonda para zero; só os valores negativos não inteiros precisam de correção
+    private static int floor(double value) {
+        int truncated = (int) value;
+        return value < truncated ? truncated - 1 : truncated;
+    }
+
+    private double pixel(double[] source, int x, int y) {
+        return x < 0 || y < 0 || x >= width || y >= height ? 0 : source[y * width + x];
+    }
+
+    private static double uniform(SplittableRandom random, double limit) {
+        return limit > 0 ? random.nextDouble(-limit, limit) : 0;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getMaxShift() {
+        return maxShift;
+    }
+
+    /**
+     * @param maxShift Deslocamento máximo em cada eixo, em pixels (0 desativa).
+     */
+    public void setMaxShift(double maxShift) {
+        this.maxShift = maxShift;
+    }
+
+    public double getMaxRotation() {
+        return maxRotation;
+    }
+
+    /**
+     * @param maxRotation Rotação máxima, em graus, para cada lado (0 desativa).
+     */
+    public void setMaxRotation(double maxRotation) {
+        this.maxRotation = maxRotation;
+    }
+
+    public double getElasticAlpha() {
+        return elasticAlpha;
+    }
+
+    /**
+     * @param elasticAlpha Maior deslocamento da deformação elástica, em pixels (0 desativa).
+     */
+    public void setElasticAlpha(double elasticAlpha) {
+        this.elasticAlpha = elasticAlpha;
+    }
+
+    public double getElasticSigma() {
+        return elasticSigma;
+    }
+
+    /**
+     * @param elasticSigma Escala, em pixels, das variações do campo de deformação (valores maiores dão deformações mais suaves).
+     */
+    public void setElasticSigma(double elasticSigma) {
+        this.elasticSigma = elasticSigma;
+        allocateGrid();
+    }
+
+    public double getNoiseStdDev() {
+        return noiseStdDev;
+    }
+
+    /**
+     * @param noiseStdDev Desvio padrão do ruído gaussiano somado a cada pixel (0 desativa).
+     */
+    public void setNoiseStdDev(double noiseStdDev) {
+        this.noiseStdDev = noiseStdDev;
+    }
+}
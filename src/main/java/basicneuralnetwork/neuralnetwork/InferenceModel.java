@@ -0,0 +1,38 @@
+package basicneuralnetwork.neuralnetwork;
+
+/**
+ * Interface InferenceModel: Modelo apenas de inferência (sem treinamento), como o modelo CSR de uma rede podada
+ * ou as classes geradas por `ModelCodeGenerator`.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - As implementações são imutáveis e `guess` pode ser chamado em simultâneo por várias threads.
+ */
+public interface InferenceModel {
+
+    /**
+     * Faz uma predição e escreve-a num array fornecido pelo chamador.
+     *
+     * @param input Valores de entrada.
+     * @param output Array com pelo menos `getOutputNodes()` elementos, onde é escrita a saída.
+     */
+    void guess(double[] input, double[] output);
+
+    /**
+     * Faz uma predição.
+     *
+     * @param input Valores de entrada.
+     * @return A saída do modelo.
+     */
+    default double[] guess(double[] input) {
+        double[] output = new double[getOutputNodes()];
+        guess(input, output);
+        return output;
+    }
+
+    int getInputNodes();
+
+    int getOutputNodes();
+}
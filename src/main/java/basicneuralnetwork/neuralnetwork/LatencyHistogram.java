@@ -0,0 +1,225 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Classe LatencyHistogram: Histograma de latências, em nanossegundos, com baixo custo de registo, para medir
+ * por exemplo o carregamento do modelo, a leitura da entrada e a predição de um serviço de inferência.
+ *
+ * Os intervalos são log-lineares, como no HdrHistogram: os valores abaixo de 2^precisionBits têm um intervalo cada;
+ * acima disso, cada potência de 2 é dividida em 2^(precisionBits - 1) intervalos iguais, pelo que o erro relativo de
+ * um percentil é no máximo 2^-(precisionBits - 1) (1,6% com a precisão por omissão). Os valores acima de
+ * `MAX_TRACKABLE_NANOS` contam no último intervalo, mas o máximo guarda o valor exato.
+ *
+ * Cada thread regista num contador próprio, criado na primeira chamada a `record`, sem locks nem operações atómicas
+ * de leitura-modificação-escrita: só essa thread escreve nele. `snapshot` soma os contadores de todas as threads.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `record` pode ser chamado em simultâneo por várias threads; os valores negativos contam como 0.
+ * - Um snapshot é imutável e inclui todos os registos terminados antes da sua criação.
+ */
+public class LatencyHistogram {
+
+    /**
+     * Bits de precisão por omissão: 64 intervalos por potência de 2.
+     */
+    public static final int DEFAULT_PRECISION_BITS = 7;
+
+    /**
+     * Maior latência distinguida pelos intervalos (cerca de 4,9 horas).
+     */
+    public static final long MAX_TRACKABLE_NANOS = 1L << 44;
+
+    /**
+     * Percentis mostrados por `Snapshot.format`.
+     */
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+    private final String name;
+    private final int precisionBits;
+    private final int subBuckets;
+    private final int halfSubBuckets;
+    private final int bucketCount;
+
+    // Contadores de cada thread: os intervalos, seguidos da soma e do máximo dos valores registados
+    private final ThreadLocal<AtomicLongArray> recorder = ThreadLocal.withInitial(this::newRecorder);
+    private final List<AtomicLongArray> recorders = new CopyOnWriteArrayList<>();
+
+    /**
+     * Uma cópia imutável das contagens de um histograma.
+     */
+    public static class Snapshot {
+        private final LatencyHistogram histogram;
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(LatencyHistogram histogram, long[] counts, long count, long total, long max) {
+            this.histogram = histogram;
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return A maior latência registada, em nanossegundos (0 sem registos).
+         */
+        public long getMax() {
+            return max;
+        }
+
+        /**
+         * @return A latência média, em nanossegundos (0 sem registos).
+         */
+        public double getMean() {
+            return count == 0 ? 0 : total / (double) count;
+        }
+
+        /**
+         * Devolve o limite superior do intervalo que contém o percentil (como o HdrHistogram), nunca acima do máximo.
+         *
+         * @param percentile Percentil entre 0 e 100.
+         * @return A latência do percentil, em nanossegundos (0 sem registos).
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count));
+            long cumulative = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulative += counts[i];
+                if (cumulative >= rank) {
+                    return Math.min(max, histogram.highestValue(i));
+                }
+            }
+            return max;
+        }
+
+        /**
+         * @return Uma linha com o número de registos, a média, os percentis 50, 90, 99 e 99.9 e o máximo, em microssegundos.
+         */
+        public String format() {
+            StringBuilder line = new StringBuilder(histogram.name);
+            line.append(String.format(Locale.ROOT, ": n=%d média=%.1f µs", count, getMean() / 1e3));
+            for (double percentile : REPORTED_PERCENTILES) {
+                line.append(String.format(Locale.ROOT, " p%s=%.1f µs",
+                        percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile),
+                        getPercentile(percentile) / 1e3));
+            }
+            return line.append(String.format(Locale.ROOT, " máx=%.1f µs", max / 1e3)).toString();
+        }
+    }
+
+    /**
+     * @param name Nome do histograma nos relatórios.
+     */
+    public LatencyHistogram(String name) {
+        this(name, DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param name Nome do histograma nos relatórios.
+     * @param precisionBits Bits de precisão dos intervalos (entre 2 e 16).
+     */
+    public LatencyHistogram(String name, int precisionBits) {
+        if (precisionBits < 2 || precisionBits > 16) {
+            throw new IllegalArgumentException("Erro: Precisão inválida (" + precisionBits + " bits; esperado: 2 a 16).");
+        }
+        this.name = name;
+        this.precisionBits = precisionBits;
+        this.subBuckets = 1 << precisionBits;
+        this.halfSubBuckets = subBuckets / 2;
+        this.bucketCount = bucketIndex(MAX_TRACKABLE_NANOS) + 1;
+    }
+
+    /**
+     * Regista uma latência.
+     *
+     * @param nanos A latência, em nanossegundos.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        AtomicLongArray counts = recorder.get();
+        int index = bucketIndex(Math.min(value, MAX_TRACKABLE_NANOS));
+
+        // Só esta thread escreve neste array: lazySet publica o valor sem o custo de uma escrita volátil completa
+        counts.lazySet(index, counts.get(index) + 1);
+        counts.lazySet(bucketCount, counts.get(bucketCount) + value);
+        if (value > counts.get(bucketCount + 1)) {
+            counts.lazySet(bucketCount + 1, value);
+        }
+    }
+
+    /**
+     * Regista o tempo decorrido desde `startNanos`.
+     *
+     * @param startNanos Valor de `System.nanoTime()` no início da operação.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return As contagens atuais de todas as threads.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[bucketCount];
+        long count = 0;
+        long total = 0;
+        long max = 0;
+        for (AtomicLongArray threadCounts : recorders) {
+            for (int i = 0; i < bucketCount; i++) {
+                long value = threadCounts.get(i);
+                counts[i] += value;
+                count += value;
+            }
+            total += threadCounts.get(bucketCount);
+            max = Math.max(max, threadCounts.get(bucketCount + 1));
+        }
+        return new Snapshot(this, counts, count, total, max);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    private AtomicLongArray newRecorder() {
+        AtomicLongArray counts = new AtomicLongArray(bucketCount + 2);
+        recorders.add(counts);
+        return counts;
+    }
+
+    // Abaixo de subBuckets, um intervalo por valor; acima, halfSubBuckets intervalos por potência de 2
+    private int bucketIndex(long value) {
+        if (value < subBuckets) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (precisionBits - 1);
+        int subBucket = (int) (value >>> shift);
+        return subBuckets + (shift - 1) * halfSubBuckets + (subBucket - halfSubBuckets);
+    }
+
+    // Maior valor que cai no intervalo `index`
+    private long highestValue(int index) {
+        if (index < subBuckets) {
+            return index;
+        }
+        int offset = index - subBuckets;
+        int shift = offset / halfSubBuckets + 1;
+        long subBucket = offset % halfSubBuckets + halfSubBuckets;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,342 @@
+package basicneuralnetwork.neuralnetwork;
+
+import org.ejml.simple.SimpleMatrix;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Classe ModelCodeGenerator: Gera, a partir de uma rede treinada, uma classe Java autónoma só para inferência.
+ * Os pesos ficam em arrays `static final`, os ciclos têm limites constantes e a função de ativação é escrita
+ * diretamente no código, sem chamadas por interface nem EJML. A classe pode ser escrita como arquivo fonte
+ * para entrar no build, ou compilada e carregada em memória com `javax.tools.JavaCompiler`.
+ *
+ * Os pesos são guardados no código fonte como texto hexadecimal dos bits de cada `double` (valores exatos),
+ * em blocos de tamanho limitado: como literais, cada valor ocuparia duas entradas do constant pool da classe
+ * e bytecode no inicializador estático, e uma rede de 400x100 já ultrapassaria os limites da JVM.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Só são suportadas as funções de ativação predefinidas (SIGMOID, TANH e RELU).
+ * - As predições da classe gerada são iguais às da rede de origem no momento da geração.
+ */
+public class ModelCodeGenerator {
+
+    // Valores por bloco de texto: 16 carateres cada, abaixo do limite de 65535 bytes de uma constante String
+    private static final int VALUES_PER_CHUNK = 2048;
+
+    private ModelCodeGenerator() {
+    }
+
+    /**
+     * Gera o código fonte da classe de inferência.
+     *
+     * @param nn A rede neural.
+     * @param packageName Pacote da classe gerada (vazio para o pacote por omissão).
+     * @param className Nome simples da classe gerada.
+     * @return O código fonte.
+     * @throws IllegalArgumentException Se a função de ativação não for uma das predefinidas.
+     */
+    public static String generateSource(NeuralNetwork nn, String packageName, String className) {
+        String activation = activationExpression(nn.getActivationFunctionName());
+        SimpleMatrix[] weights = nn.getWeights();
+        SimpleMatrix[] biases = nn.getBiases();
+        int layers = weights.length;
+        int[] features = nn.getFeatureIndices();
+        int inputNodes = nn.getInputNodes();
+        int outputNodes = nn.getOutputNodes();
+
+        int scratchLength = 0;
+        for (int layer = 0; layer < layers - 1; layer++) {
+            scratchLength = Math.max(scratchLength, weights[layer].numRows());
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (packageName != null && !packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * Gerado por ModelCodeGenerator a partir de uma rede ").append(Arrays.toString(nn.getDimensions()))
+                .append(" com ativação ").append(nn.getActivationFunctionName()).append(". Não editar.\n")
+                .append(" */\n");
+        source.append("public final class ").append(className).append(" implements basicneuralnetwork.neuralnetwork.InferenceModel {\n\n");
+        source.append("    public static final int INPUT_NODES = ").append(inputNodes).append(";\n");
+        source.append("    public static final int RAW_INPUT_NODES = ").append(features != null ? nn.getRawInputNodes() : inputNodes).append(";\n");
+        source.append("    public static final int OUTPUT_NODES = ").append(outputNodes).append(";\n");
+        source.append("    public static final int SCRATCH_LENGTH = ").append(2 * scratchLength).append(";\n\n");
+
+        if (features != null) {
+            source.append("    private static final int[] FEATURES = {");
+            for (int i = 0; i < features.length; i++) {
+                source.append(i % 20 == 0 ? "\n            " : " ").append(features[i]).append(',');
+            }
+            source.append("\n    };\n");
+        }
+        for (int layer = 0; layer < layers; layer++) {
+            appendArray(source, "W" + layer, weights[layer].getDDRM().getData());
+            appendArray(source, "B" + layer, biases[layer].getDDRM().getData());
+        }
+
+        source.append("\n    @Override\n");
+        source.append("    public void guess(double[] input, double[] output) {\n");
+        source.append("        guess(input, output, new double[SCRATCH_LENGTH]);\n");
+        source.append("    }\n\n");
+
+        source.append("    /**\n")
+                .append("     * Predição sem alocações: as ativações intermédias ficam em `scratch`, com pelo menos SCRATCH_LENGTH elementos.\n")
+                .append("     */\n");
+        source.append("    public void guess(double[] input, double[] output, double[] scratch) {\n");
+        if (features != null && nn.getRawInputNodes() != inputNodes) {
+            source.append("        final boolean raw = input.length == RAW_INPUT_NODES;\n");
+            source.append("        if (!raw && input.length != INPUT_NODES) {\n");
+        } else {
+            source.append("        if (input.length != INPUT_NODES) {\n");
+        }
+        source.append("            throw new IllegalArgumentException(\"Erro: Esperados \" + INPUT_NODES + \" valores de entrada.\");\n");
+        source.append("        }\n");
+
+        // As camadas escondidas alternam entre as duas metades de `scratch`; a última escreve em `output`
+        for (int layer = 0; layer < layers; layer++) {
+            int rows = weights[layer].numRows();
+            int cols = weights[layer].numCols();
+            String in = layer == 0 ? "input" : "scratch";
+            int inOffset = layer == 0 ? 0 : ((layer - 1) % 2) * scratchLength;
+            String out = layer == layers - 1 ? "output" : "scratch";
+            int outOffset = layer == layers - 1 ? 0 : (layer % 2) * scratchLength;
+
+            source.append("        for (int r = 0; r < ").append(rows).append("; r++) {\n");
+            source.append("            final int row = r * ").append(cols).append(";\n");
+            if (layer == 0 && features != null && nn.getRawInputNodes() != inputNodes) {
+                source.append("            final double sum;\n");
+                source.append("            if (raw) {\n");
+                appendDotProduct(source, "                ", "sum = ", "W0", cols, "input[FEATURES[c + %d]]");
+                source.append("            } else {\n");
+                appendDotProduct(source, "                ", "sum = ", "W0", cols, "input[c + %d]");
+                source.append("            }\n");
+            } else {
+                appendDotProduct(source, "            ", "final double sum = ", "W" + layer, cols,
+                        in + "[" + offset(inOffset, "c") + " + %d]");
+            }
+            source.append("            final double x = sum + B").append(layer).append("[r];\n");
+            source.append("            ").append(out).append('[').append(offset(outOffset, "r")).append("] = ").append(activation).append(";\n");
+            source.append("        }\n");
+        }
+        source.append("    }\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public int getInputNodes() {\n");
+        source.append("        return INPUT_NODES;\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    public int getOutputNodes() {\n");
+        source.append("        return OUTPUT_NODES;\n");
+        source.append("    }\n\n");
+
+        source.append("    private static double[] decode(int length, String... chunks) {\n");
+        source.append("        double[] values = new double[length];\n");
+        source.append("        int i = 0;\n");
+        source.append("        for (String chunk : chunks) {\n");
+        source.append("            for (int p = 0; p < chunk.length(); p += 16, i++) {\n");
+        source.append("                values[i] = Double.longBitsToDouble(Long.parseUnsignedLong(chunk.substring(p, p + 16), 16));\n");
+        source.append("            }\n");
+        source.append("        }\n");
+        source.append("        return values;\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        return source.toString();
+    }
+
+    /**
+     * Escreve o código fonte da classe num diretório de fontes, na subpasta do pacote.
+     *
+     * @param nn A rede neural.
+     * @param sourceRoot Raiz dos fontes (por exemplo, `src/main/java`).
+     * @param packageName Pacote da classe gerada.
+     * @param className Nome simples da classe gerada.
+     * @return O arquivo escrito.
+     * @throws IOException Em caso de erro ao escrever o arquivo.
+     */
+    public static File writeSource(NeuralNetwork nn, File sourceRoot, String packageName, String className) throws IOException {
+        File directory = packageName == null || packageName.isEmpty()
+                ? sourceRoot
+                : new File(sourceRoot, packageName.replace('.', File.separatorChar));
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Erro: Não foi possível criar o diretório " + directory);
+        }
+
+        File file = new File(directory, className + ".java");
+        Files.write(file.toPath(), generateSource(nn, packageName, className).getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * Gera, compila em memória e instancia a classe de inferência.
+     *
+     * @param nn A rede neural.
+     * @param className Nome simples da classe gerada (fica no pacote por omissão do class loader criado).
+     * @return Uma instância da classe gerada.
+     * @throws IOException Se não houver compilador disponível (por exemplo, num JRE) ou a compilação falhar.
+     */
+    public static InferenceModel compile(NeuralNetwork nn, String className) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IOException("Erro: Compilador Java não disponível; é necessário um JDK.");
+        }
+
+        String source = generateSource(nn, "", className);
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        MemoryFileManager fileManager = new MemoryFileManager(standardManager);
+        JavaFileObject sourceFile = new SimpleJavaFileObject(URI.create("string:///" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+
+        StringWriter diagnostics = new StringWriter();
+        try {
+            boolean compiled = compiler.getTask(diagnostics, fileManager, null,
+                    Arrays.asList("-classpath", classPathOf(InferenceModel.class)), null,
+                    Arrays.asList(sourceFile)).call();
+            if (!compiled) {
+                throw new IOException("Erro: Falha ao compilar o modelo gerado:\n" + diagnostics);
+            }
+        } finally {
+            fileManager.close();
+        }
+
+        try {
+            ClassLoader loader = new MemoryClassLoader(fileManager.classes, InferenceModel.class.getClassLoader());
+            return (InferenceModel) loader.loadClass(className).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Erro: Falha ao carregar o modelo gerado: " + e.getMessage(), e);
+        }
+    }
+
+    // Expressão Java de cada função de ativação predefinida, aplicada à variável `x`
+    private static String activationExpression(String name) {
+        switch (name) {
+            case "SIGMOID":
+                return "1 / (1 + Math.exp(-x))";
+            case "TANH":
+                return "Math.tanh(x)";
+            case "RELU":
+                return "x > 0 ? x : 0";
+            default:
+                throw new IllegalArgumentException("Erro: Função de ativação não suportada pelo gerador de código: " + name);
+        }
+    }
+
+    private static void appendArray(StringBuilder source, String name, double[] values) {
+        source.append("    private static final double[] ").append(name).append(" = decode(").append(values.length);
+        for (int start = 0; start < values.length; start += VALUES_PER_CHUNK) {
+            source.append(",\n            \"");
+            int end = Math.min(values.length, start + VALUES_PER_CHUNK);
+            for (int i = start; i < end; i++) {
+                String hex = Long.toHexString(Double.doubleToRawLongBits(values[i]));
+                for (int pad = hex.length(); pad < 16; pad++) {
+                    source.append('0');
+                }
+                source.append(hex);
+            }
+            source.append('"');
+        }
+        source.append(");\n");
+    }
+
+    // Produto interno de uma linha de pesos com a entrada, com quatro somas parciais independentes:
+    // uma só soma forma uma cadeia de dependências de uma adição por ciclo, enquanto quatro deixam o processador
+    // sobrepor as multiplicações. `input` é um formato com `%d` no lugar do deslocamento dentro do bloco.
+    private static void appendDotProduct(StringBuilder source, String indent, String assignment, String weights, int cols, String input) {
+        int unrolled = cols - cols % 4;
+        source.append(indent).append("double s0 = 0, s1 = 0, s2 = 0, s3 = 0;\n");
+        if (unrolled > 0) {
+            source.append(indent).append("for (int c = 0; c < ").append(unrolled).append("; c += 4) {\n");
+            for (int k = 0; k < 4; k++) {
+                source.append(indent).append("    s").append(k).append(" += ").append(weights).append("[row + c + ").append(k).append("] * ")
+                        .append(String.format(input, k)).append(";\n");
+            }
+            source.append(indent).append("}\n");
+        }
+        for (int c = unrolled; c < cols; c++) {
+            source.append(indent).append("s").append(c - unrolled).append(" += ").append(weights).append("[row + ").append(c).append("] * ")
+                    .append(String.format(input, c).replace("c + " + c, String.valueOf(c))).append(";\n");
+        }
+        source.append(indent).append(assignment).append("(s0 + s1) + (s2 + s3);\n");
+    }
+
+    private static String offset(int offset, String index) {
+        return offset == 0 ? index : offset + " + " + index;
+    }
+
+    // O classpath atual, acrescentado da origem das classes desta biblioteca (para a interface InferenceModel)
+    private static String classPathOf(Class<?> type) {
+        String classPath = System.getProperty("java.class.path");
+        try {
+            String location = new File(type.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+            return classPath == null || classPath.isEmpty() ? location : location + File.pathSeparator + classPath;
+        } catch (Exception e) {
+            return classPath;
+        }
+    }
+
+    // Guarda em memória o bytecode produzido pelo compilador, em vez de escrever arquivos .class
+    private static class MemoryFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+        private final Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+
+        MemoryFileManager(JavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+                @Override
+                public OutputStream openOutputStream() {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    classes.put(className, bytes);
+                    return bytes;
+                }
+            };
+        }
+    }
+
+    private static class MemoryClassLoader extends ClassLoader {
+        private final Map<String, ByteArrayOutputStream> classes;
+
+        MemoryClassLoader(Map<String, ByteArrayOutputStream> classes, ClassLoader parent) {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            ByteArrayOutputStream bytes = classes.get(name);
+            if (bytes == null) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] code = bytes.toByteArray();
+            return defineClass(name, code, 0, code.length);
+        }
+    }
+}
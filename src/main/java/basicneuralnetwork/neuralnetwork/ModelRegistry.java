@@ -0,0 +1,288 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.utilities.NeuralNetworkJsonCodec;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Classe ModelRegistry: Registo de vários modelos identificados por id, carregados a pedido e mantidos numa cache
+ * LRU limitada por um orçamento de memória.
+ * Pedidos simultâneos para um modelo ainda não carregado esperam todos pelo mesmo carregamento.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - A memória estimada dos modelos em cache nunca excede `memoryBudgetBytes`.
+ * - Cada modelo é carregado no máximo uma vez enquanto estiver em cache.
+ * - As redes devolvidas são partilhadas entre pedidos e não devem ser treinadas nem alteradas.
+ */
+public class ModelRegistry {
+
+    /**
+     * Carrega um modelo a partir da sua origem (arquivo, rede, etc.).
+     */
+    public interface ModelLoader {
+        NeuralNetwork load() throws IOException;
+    }
+
+    // Custo fixo estimado de uma rede (objetos, cabeçalhos de arrays, mapa de funções de ativação)
+    private static final long NETWORK_OVERHEAD_BYTES = 1024;
+    private static final long MATRIX_OVERHEAD_BYTES = 64;
+
+    private final long memoryBudgetBytes;
+
+    private final Map<String, ModelLoader> loaders = new ConcurrentHashMap<>();
+    private final Map<String, FutureTask<NeuralNetwork>> inFlight = new ConcurrentHashMap<>();
+
+    // Ordem de acesso: o primeiro elemento é o modelo usado há mais tempo
+    private final LinkedHashMap<String, CachedModel> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static class CachedModel {
+        private final NeuralNetwork nn;
+        private final long bytes;
+
+        private CachedModel(NeuralNetwork nn, long bytes) {
+            this.nn = nn;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * @param memoryBudgetBytes Memória máxima estimada, em bytes, ocupada pelos modelos em cache.
+     */
+    public ModelRegistry(long memoryBudgetBytes) {
+        if (memoryBudgetBytes <= 0) {
+            throw new IllegalArgumentException("Erro: O orçamento de memória deve ser positivo (" + memoryBudgetBytes + ").");
+        }
+        this.memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Regista (ou substitui) um modelo. Uma versão anterior em cache é descartada.
+     *
+     * @param id Identificador do modelo.
+     * @param loader Forma de carregar o modelo.
+     */
+    public void register(String id, ModelLoader loader) {
+        loaders.put(id, loader);
+        invalidate(id);
+    }
+
+    /**
+     * Regista um modelo gravado em JSON por `NeuralNetwork.writeToFile`.
+     *
+     * @param id Identificador do modelo.
+     * @param jsonPath Caminho do arquivo JSON.
+     */
+    public void registerJson(String id, String jsonPath) {
+        register(id, () -> {
+            try (BufferedReader reader = new BufferedReader(new FileReader(jsonPath))) {
+                return NeuralNetworkJsonCodec.read(reader);
+            }
+        });
+    }
+
+    /**
+     * Regista um modelo gravado por `NeuralNetwork.saveWeights`, que não guarda as dimensões da rede.
+     *
+     * @param id Identificador do modelo.
+     * @param weightsPath Caminho do arquivo de pesos.
+     * @param inputNodes Número de entradas.
+     * @param hiddenLayers Número de camadas ocultas.
+     * @param hiddenNodes Número de neurônios por camada oculta.
+     * @param outputNodes Número de saídas.
+     * @param activationFunction Chave da função de ativação.
+     */
+    public void registerWeights(String id, String weightsPath, int inputNodes, int hiddenLayers, int hiddenNodes, int outputNodes, String activationFunction) {
+        register(id, () -> {
+            NeuralNetwork nn = new NeuralNetwork(inputNodes, hiddenLayers, hiddenNodes, outputNodes);
+            nn.setActivationFunction(activationFunction);
+            nn.loadWeights(weightsPath);
+            return nn;
+        });
+    }
+
+    /**
+     * Devolve o modelo, carregando-o se não estiver em cache.
+     *
+     * @param id Identificador do modelo.
+     * @return A rede neural (partilhada; não deve ser alterada).
+     * @throws IOException Se o modelo não estiver registado ou não puder ser carregado.
+     */
+    public NeuralNetwork get(String id) throws IOException {
+        NeuralNetwork cached = getCached(id);
+        if (cached != null) {
+            return cached;
+        }
+
+        ModelLoader loader = loaders.get(id);
+        if (loader == null) {
+            misses.incrementAndGet();
+            throw new IOException("Erro: Modelo não registado: " + id);
+        }
+
+        FutureTask<NeuralNetwork> task = new FutureTask<>(loader::load);
+        FutureTask<NeuralNetwork> existing = inFlight.putIfAbsent(id, task);
+        if (existing != null) {
+            misses.incrementAndGet();
+            return await(existing, id);
+        }
+
+        try {
+            // Outro pedido pode ter carregado o modelo, posto em cache e saído de `inFlight` entre a primeira
+            // consulta e `putIfAbsent`; só quem ganha `putIfAbsent` com o modelo ainda ausente o carrega
+            cached = getCached(id);
+            if (cached != null) {
+                return cached;
+            }
+            misses.incrementAndGet();
+            task.run();
+            NeuralNetwork nn = await(task, id);
+            loads.incrementAndGet();
+            // Entra na cache antes de sair de `inFlight`, para que nenhum pedido veja o modelo ausente de ambos
+            if (loaders.get(id) == loader) {
+                put(id, nn);
+            }
+            return nn;
+        } finally {
+            inFlight.remove(id, task);
+        }
+    }
+
+    /**
+     * Remove um modelo da cache; o próximo `get` volta a carregá-lo.
+     *
+     * @param id Identificador do modelo.
+     */
+    public void invalidate(String id) {
+        synchronized (cache) {
+            CachedModel removed = cache.remove(id);
+            if (removed != null) {
+                usedBytes -= removed.bytes;
+            }
+        }
+    }
+
+    /**
+     * Estimativa da memória ocupada por uma rede: os seus parâmetros mais um custo fixo por matriz e por rede.
+     *
+     * @param nn A rede neural.
+     * @return O número estimado de bytes.
+     */
+    public static long estimateBytes(NeuralNetwork nn) {
+        int matrices = nn.getWeights().length + nn.getBiases().length;
+        return (long) nn.getParameterCount() * Double.BYTES + matrices * MATRIX_OVERHEAD_BYTES + NETWORK_OVERHEAD_BYTES;
+    }
+
+    public long getMemoryBudgetBytes() {
+        return memoryBudgetBytes;
+    }
+
+    public long getUsedBytes() {
+        synchronized (cache) {
+            return usedBytes;
+        }
+    }
+
+    /**
+     * @return O número de modelos em cache.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public boolean isCached(String id) {
+        synchronized (cache) {
+            return cache.containsKey(id);
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    // O modelo em cache (contado como acerto), ou null
+    private NeuralNetwork getCached(String id) {
+        synchronized (cache) {
+            CachedModel cached = cache.get(id);
+            if (cached == null) {
+                return null;
+            }
+            hits.incrementAndGet();
+            return cached.nn;
+        }
+    }
+
+    // Insere o modelo e descarta os usados há mais tempo até caber no orçamento
+    // Um modelo maior do que o orçamento inteiro é devolvido mas não fica em cache
+    private void put(String id, NeuralNetwork nn) {
+        long bytes = estimateBytes(nn);
+        if (bytes > memoryBudgetBytes) {
+            return;
+        }
+
+        synchronized (cache) {
+            CachedModel previous = cache.put(id, new CachedModel(nn, bytes));
+            if (previous != null) {
+                usedBytes -= previous.bytes;
+            }
+            usedBytes += bytes;
+
+            Iterator<Map.Entry<String, CachedModel>> eldest = cache.entrySet().iterator();
+            while (usedBytes > memoryBudgetBytes && eldest.hasNext()) {
+                Map.Entry<String, CachedModel> entry = eldest.next();
+                if (entry.getKey().equals(id)) {
+                    continue;
+                }
+                usedBytes -= entry.getValue().bytes;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static NeuralNetwork await(FutureTask<NeuralNetwork> task, String id) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Erro: Interrompido enquanto aguardava o carregamento do modelo " + id + ".", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            throw new IOException("Erro ao carregar o modelo " + id + ": " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -2,8 +2,11 @@ package basicneuralnetwork.neuralnetwork;
 
 import basicneuralnetwork.Exceptions.WrongDimensionException;
 import basicneuralnetwork.activationfunctions.*;
+import basicneuralnetwork.computebackends.ComputeBackendFactory;
 import basicneuralnetwork.utilities.FileReaderAndWriter;
 import basicneuralnetwork.utilities.MatrixUtilities;
+import basicneuralnetwork.weightinitializers.WeightInitializer;
+import basicneuralnetwork.weightinitializers.WeightInitializerFactory;
 import org.ejml.simple.SimpleMatrix;
 
 import java.io.*;
@@ -11,12 +14,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * Created by KimFeichtinger on 04.03.18.
  */
 public class NeuralNetwork {
 
+    static final String FEATURE_HEADER = "# features ";
+    static final String PRUNED_HEADER = "# pruned";
+
     private ActivationFunctionFactory activationFunctionFactory = new ActivationFunctionFactory();
 
     private Random random = new Random();
@@ -34,6 +41,15 @@ public class NeuralNetwork {
 
     private String activationFunctionKey;
 
+    // Optional mapping from the raw input (e.g. all 400 pixels) to the inputs the network actually uses
+    // featureIndices[i] is the raw index of input i; null means the network uses the raw input as it is
+    private int[] featureIndices;
+    private int rawInputNodes;
+
+    // Connections removed by prune: pruneMasks[layer][i] is true if weights[layer] element i has to stay 0
+    // null if the network has never been pruned
+    private boolean[][] pruneMasks;
+
     // Constructor
     // Generate a new neural network with 1 hidden layer with the given amount of nodes in the individual layers
     public NeuralNetwork(int inputNodes, int hiddenNodes, int outputNodes) {
@@ -45,6 +61,7 @@ public class NeuralNetwork {
     // Every hidden layer will have the same amount of nodes
     public NeuralNetwork(int inputNodes, int hiddenLayers, int hiddenNodes, int outputNodes) {
         this.inputNodes = inputNodes;
+        this.rawInputNodes = inputNodes;
         this.hiddenLayers = hiddenLayers;
         this.hiddenNodes = hiddenNodes;
         this.outputNodes = outputNodes;
@@ -75,6 +92,10 @@ public class NeuralNetwork {
         this.learningRate = nn.learningRate;
 
         this.activationFunctionKey = nn.activationFunctionKey;
+
+        this.featureIndices = nn.featureIndices;
+        this.rawInputNodes = nn.rawInputNodes;
+        this.pruneMasks = nn.pruneMasks;
     }
 
     private void initializeDefaultValues() {
@@ -112,26 +133,53 @@ public class NeuralNetwork {
         }
     }
 
+    // Draws new weights and biases with the given WeightInitializer (UNIFORM, XAVIER, HE, ...)
+    // The same key and seed always give the same parameters; pruned connections stay 0
+    public void initializeParameters(String weightInitializerKey, long seed) {
+        initializeParameters(WeightInitializerFactory.getWeightInitializerByKey(weightInitializerKey), seed);
+    }
+
+    public void initializeParameters(WeightInitializer weightInitializer, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int layer = 0; layer < weights.length; layer++) {
+            int fanIn = weights[layer].numCols();
+            int fanOut = weights[layer].numRows();
+            weightInitializer.initializeWeights(weights[layer].getDDRM().getData(), fanIn, fanOut, random);
+            weightInitializer.initializeBiases(biases[layer].getDDRM().getData(), fanIn, random);
+            applyPruneMask(layer);
+        }
+    }
+
     // Guess method, input is a one column matrix with the input values
     public double[] guess(double[] input) {
+        input = selectFeatures(input);
         if (input.length != inputNodes){
             throw new WrongDimensionException(input.length, inputNodes, "Input");
         } else {
             // Get ActivationFunction-object from the map by key
             ActivationFunction activationFunction = activationFunctionFactory.getActivationFunctionByKey(activationFunctionKey);
 
-            // Transform array to matrix
-            SimpleMatrix output = MatrixUtilities.arrayToMatrix(input);
-
+            double[] output = input;
             for (int i = 0; i < hiddenLayers + 1; i++) {
-                output = calculateLayer(weights[i], biases[i], output, activationFunction);
+                output = calculateLayer(i, output, activationFunction);
             }
 
-            return MatrixUtilities.getColumnFromMatrixAsArray(output, 0);
+            return output;
         }
     }
 
     public void train(double[] inputArray, double[] targetArray) {
+        train(inputArray, targetArray, false);
+    }
+
+    // Same as train, but also returns the errors of the input layer (transpose(weights[0]) * errors of the first layer)
+    // A layer in front of the network (e.g. a ConvolutionalLayer) uses them to train its own weights
+    public double[] trainAndPropagateErrors(double[] inputArray, double[] targetArray) {
+        return train(inputArray, targetArray, true);
+    }
+
+    private double[] train(double[] inputArray, double[] targetArray, boolean propagateToInput) {
+        inputArray = selectFeatures(inputArray);
         if (inputArray.length != inputNodes) {
             throw new WrongDimensionException(inputArray.length, inputNodes, "Input");
         } else if (targetArray.length != outputNodes) {
@@ -140,37 +188,205 @@ public class NeuralNetwork {
             // Get ActivationFunction-object from the map by key
             ActivationFunction activationFunction = activationFunctionFactory.getActivationFunctionByKey(activationFunctionKey);
 
-            // Transform 2D array to matrix
-            SimpleMatrix input = MatrixUtilities.arrayToMatrix(inputArray);
-            SimpleMatrix target = MatrixUtilities.arrayToMatrix(targetArray);
-
             // Calculate the values of every single layer
-            SimpleMatrix layers[] = new SimpleMatrix[hiddenLayers + 2];
-            layers[0] = input;
+            double[][] layers = new double[hiddenLayers + 2][];
+            layers[0] = inputArray;
             for (int j = 1; j < hiddenLayers + 2; j++) {
-                layers[j] = calculateLayer(weights[j - 1], biases[j - 1], input, activationFunction);
-                input = layers[j];
+                layers[j] = calculateLayer(j - 1, layers[j - 1], activationFunction);
             }
 
+            double[] target = targetArray;
+            double[] inputErrors = null;
             for (int n = hiddenLayers + 1; n > 0; n--) {
                 // Calculate error
-                SimpleMatrix errors = target.minus(layers[n]);
+                double[] errors = calculateErrors(target, layers[n]);
 
                 // Calculate gradient
-                SimpleMatrix gradients = calculateGradient(layers[n], errors, activationFunction);
+                double[] gradients = calculateGradient(layers[n], errors, activationFunction);
 
-                // Calculate delta
-                SimpleMatrix deltas = calculateDeltas(gradients, layers[n - 1]);
+                // Apply gradient to bias and delta (gradients * transposed input of the layer) to weights
+                updateLayer(n - 1, gradients, layers[n - 1]);
 
-                // Apply gradient to bias
-                biases[n - 1] = biases[n - 1].plus(gradients);
+                // Calculate and set target for previous (next) layer
+                // The input layer has no weights to update, so its errors are only needed by a layer in front of it
+                if (n > 1) {
+                    target = calculatePreviousTarget(n - 1, errors, layers[n - 1]);
+                } else if (propagateToInput) {
+                    inputErrors = calculatePreviousErrors(0, errors);
+                }
+            }
+            return inputErrors;
+        }
+    }
 
-                // Apply delta to weights
-                weights[n - 1] = weights[n - 1].plus(deltas);
+    // Guess method for a sparse input: the first layer only touches the columns of the non-zero inputs
+    public double[] guess(SparseInput input) {
+        input = selectFeatures(input);
+        if (input.getLength() != inputNodes) {
+            throw new WrongDimensionException(input.getLength(), inputNodes, "Input");
+        } else {
+            ActivationFunction activationFunction = activationFunctionFactory.getActivationFunctionByKey(activationFunctionKey);
 
-                // Calculate and set target for previous (next) layer
-                SimpleMatrix previousError = weights[n - 1].transpose().mult(errors);
-                target = previousError.plus(layers[n - 1]);
+            double[] output = calculateSparseLayer(input, activationFunction);
+
+            for (int i = 1; i < hiddenLayers + 1; i++) {
+                output = calculateLayer(i, output, activationFunction);
+            }
+
+            return output;
+        }
+    }
+
+    // Same as train(double[], double[]), but the first layer is calculated and updated only for the non-zero inputs
+    // Gives the same result as the dense version, since zero inputs contribute nothing to the sums and deltas
+    public void train(SparseInput inputArray, double[] targetArray) {
+        inputArray = selectFeatures(inputArray);
+        if (inputArray.getLength() != inputNodes) {
+            throw new WrongDimensionException(inputArray.getLength(), inputNodes, "Input");
+        } else if (targetArray.length != outputNodes) {
+            throw new WrongDimensionException(targetArray.length, outputNodes, "Output");
+        } else {
+            ActivationFunction activationFunction = activationFunctionFactory.getActivationFunctionByKey(activationFunctionKey);
+
+            // layers[0] (the input) is never needed as a dense array
+            double[][] layers = new double[hiddenLayers + 2][];
+            layers[1] = calculateSparseLayer(inputArray, activationFunction);
+            for (int j = 2; j < hiddenLayers + 2; j++) {
+                layers[j] = calculateLayer(j - 1, layers[j - 1], activationFunction);
+            }
+
+            double[] target = targetArray;
+            for (int n = hiddenLayers + 1; n > 1; n--) {
+                double[] errors = calculateErrors(target, layers[n]);
+                double[] gradients = calculateGradient(layers[n], errors, activationFunction);
+                updateLayer(n - 1, gradients, layers[n - 1]);
+                target = calculatePreviousTarget(n - 1, errors, layers[n - 1]);
+            }
+
+            // First layer: apply the gradient to the bias and the delta only to the columns of the non-zero inputs
+            double[] errors = calculateErrors(target, layers[1]);
+            double[] gradient = calculateGradient(layers[1], errors, activationFunction);
+            double[] bias = biases[0].getDDRM().getData();
+            for (int r = 0; r < hiddenNodes; r++) {
+                bias[r] += gradient[r];
+            }
+
+            double[] w = weights[0].getDDRM().getData();
+            int[] indices = inputArray.indices();
+            double[] values = inputArray.values();
+            for (int r = 0; r < hiddenNodes; r++) {
+                int row = r * inputNodes;
+                double g = gradient[r];
+                for (int k = 0; k < indices.length; k++) {
+                    w[row + indices[k]] += g * values[k];
+                }
+            }
+            applyPruneMask(0);
+        }
+    }
+
+    // Magnitude pruning: sets the given fraction of the weights of every layer with the smallest absolute values to 0
+    // The removed connections stay 0 during further training (fine-tuning), biases are not pruned
+    // Pruning again with a higher target removes further connections
+    public void prune(double sparsityTarget) {
+        if (sparsityTarget < 0 || sparsityTarget >= 1) {
+            throw new IllegalArgumentException("Sparsity target has to be in [0, 1): " + sparsityTarget);
+        }
+
+        boolean[][] masks = new boolean[weights.length][];
+        for (int layer = 0; layer < weights.length; layer++) {
+            double[] data = weights[layer].getDDRM().getData();
+            int length = weights[layer].getNumElements();
+            int toPrune = (int) (sparsityTarget * length);
+
+            double[] magnitudes = new double[length];
+            for (int i = 0; i < length; i++) {
+                magnitudes[i] = Math.abs(data[i]);
+            }
+            Arrays.sort(magnitudes);
+            double threshold = toPrune > 0 ? magnitudes[toPrune - 1] : -1;
+
+            // Everything below the threshold, then values equal to it until exactly toPrune connections are removed
+            masks[layer] = new boolean[length];
+            int pruned = 0;
+            for (int i = 0; i < length; i++) {
+                if (Math.abs(data[i]) < threshold) {
+                    masks[layer][i] = true;
+                    pruned++;
+                }
+            }
+            for (int i = 0; i < length && pruned < toPrune; i++) {
+                if (!masks[layer][i] && Math.abs(data[i]) == threshold) {
+                    masks[layer][i] = true;
+                    pruned++;
+                }
+            }
+
+            if (pruneMasks != null) {
+                for (int i = 0; i < length; i++) {
+                    masks[layer][i] |= pruneMasks[layer][i];
+                }
+            }
+        }
+
+        pruneMasks = masks;
+        for (int layer = 0; layer < weights.length; layer++) {
+            applyPruneMask(layer);
+        }
+    }
+
+    // Fraction of the weights (not biases) that are 0
+    public double getSparsity() {
+        int zeros = 0;
+        int total = 0;
+        for (SimpleMatrix matrix : weights) {
+            double[] data = matrix.getDDRM().getData();
+            for (int i = 0; i < matrix.getNumElements(); i++) {
+                if (data[i] == 0) {
+                    zeros++;
+                }
+            }
+            total += matrix.getNumElements();
+        }
+        return zeros / (double) total;
+    }
+
+    public boolean isPruned() {
+        return pruneMasks != null;
+    }
+
+    // Marks every weight that is exactly 0 as pruned, so it stays 0 during further training
+    // Used to restore the masks of a pruned network that was saved and loaded again: the files only keep the
+    // pruned connections as zeros, so a weight that happened to be exactly 0 is frozen as well
+    public void pruneZeroWeights() {
+        boolean[][] masks = new boolean[weights.length][];
+        for (int layer = 0; layer < weights.length; layer++) {
+            double[] data = weights[layer].getDDRM().getData();
+            masks[layer] = new boolean[weights[layer].getNumElements()];
+            for (int i = 0; i < masks[layer].length; i++) {
+                masks[layer][i] = data[i] == 0 || (pruneMasks != null && pruneMasks[layer][i]);
+            }
+        }
+        pruneMasks = masks;
+        for (int layer = 0; layer < weights.length; layer++) {
+            applyPruneMask(layer);
+        }
+    }
+
+    // Compressed (CSR) copy of this network for inference, which skips the pruned connections
+    public SparseNeuralNetwork toSparseModel() {
+        return new SparseNeuralNetwork(this);
+    }
+
+    private void applyPruneMask(int layer) {
+        if (pruneMasks == null) {
+            return;
+        }
+        double[] data = weights[layer].getDDRM().getData();
+        boolean[] mask = pruneMasks[layer];
+        for (int i = 0; i < mask.length; i++) {
+            if (mask[i]) {
+                data[i] = 0;
             }
         }
     }
@@ -215,61 +431,350 @@ public class NeuralNetwork {
         applyMutation(weights, probability);
         applyMutation(biases, probability);
     }
+
+    // Same as mutate(probability), but draws from the given random generator so that several threads
+    // can mutate different networks without sharing one Random
+    public void mutate(double probability, SplittableRandom random) {
+        applyMutation(weights, probability, random);
+        applyMutation(biases, probability, random);
+    }
+
+    // Merges the weights and biases of this and another NeuralNetwork into an existing result NeuralNetwork
+    // without allocating new matrices (the result may also be this or nn)
+    // Merge-ratio: defined by probability
+    public void mergeInto(NeuralNetwork nn, double probability, NeuralNetwork result, SplittableRandom random) {
+        if (!Arrays.equals(this.getDimensions(), nn.getDimensions())) {
+            throw new WrongDimensionException(this.getDimensions(), nn.getDimensions());
+        } else if (!Arrays.equals(this.getDimensions(), result.getDimensions())) {
+            throw new WrongDimensionException(this.getDimensions(), result.getDimensions());
+        } else {
+            for (int i = 0; i < weights.length; i++) {
+                MatrixUtilities.mergeMatricesInto(this.weights[i], nn.weights[i], probability, result.weights[i], random);
+            }
+
+            for (int i = 0; i < biases.length; i++) {
+                MatrixUtilities.mergeMatricesInto(this.biases[i], nn.biases[i], probability, result.biases[i], random);
+            }
+
+            result.learningRate = this.learningRate;
+            result.activationFunctionKey = this.activationFunctionKey;
+        }
+    }
+
+    // Overwrites this NeuralNetwork with the weights, biases, learning rate and activation function of another one
+    // of the same dimensions, reusing the existing matrices
+    public void copyFrom(NeuralNetwork nn) {
+        if (!Arrays.equals(this.getDimensions(), nn.getDimensions())) {
+            throw new WrongDimensionException(this.getDimensions(), nn.getDimensions());
+        } else {
+            for (int i = 0; i < weights.length; i++) {
+                this.weights[i].getDDRM().set(nn.weights[i].getDDRM());
+            }
+
+            for (int i = 0; i < biases.length; i++) {
+                this.biases[i].getDDRM().set(nn.biases[i].getDDRM());
+            }
+
+            this.learningRate = nn.learningRate;
+            this.activationFunctionKey = nn.activationFunctionKey;
+            this.featureIndices = nn.featureIndices;
+            this.rawInputNodes = nn.rawInputNodes;
+            this.pruneMasks = nn.pruneMasks;
+        }
+    }
+
+    // Sets the mapping from the raw input to the inputs of the network (see DataPreprocessor.selectFeatures)
+    // Afterwards guess and train accept both raw inputs (rawInputNodes values) and already reduced inputs (inputNodes values)
+    public void setFeatureIndices(int rawInputNodes, int[] featureIndices) {
+        if (featureIndices == null) {
+            this.featureIndices = null;
+            this.rawInputNodes = inputNodes;
+            return;
+        }
+        if (featureIndices.length != inputNodes) {
+            throw new WrongDimensionException(featureIndices.length, inputNodes, "Feature");
+        }
+        checkFeatureIndices(rawInputNodes, featureIndices);
+        this.featureIndices = featureIndices.clone();
+        this.rawInputNodes = rawInputNodes;
+    }
+
+    private static void checkFeatureIndices(int rawInputNodes, int[] featureIndices) {
+        for (int i = 0; i < featureIndices.length; i++) {
+            if (featureIndices[i] < 0 || featureIndices[i] >= rawInputNodes || (i > 0 && featureIndices[i] <= featureIndices[i - 1])) {
+                throw new IllegalArgumentException("Feature indices have to be ascending and smaller than " + rawInputNodes);
+            }
+        }
+    }
+
+    // Returns the raw index of every input, or null if the network uses the raw input as it is
+    public int[] getFeatureIndices() {
+        return featureIndices == null ? null : featureIndices.clone();
+    }
+
+    public int getRawInputNodes() {
+        return rawInputNodes;
+    }
+
+    // Reduces a raw input to the inputs of the network; other inputs are returned unchanged
+    public double[] selectFeatures(double[] input) {
+        if (featureIndices == null || input.length != rawInputNodes || rawInputNodes == inputNodes) {
+            return input;
+        }
+        double[] selected = new double[featureIndices.length];
+        for (int i = 0; i < featureIndices.length; i++) {
+            selected[i] = input[featureIndices[i]];
+        }
+        return selected;
+    }
+
+    private SparseInput selectFeatures(SparseInput input) {
+        if (featureIndices == null || input.getLength() != rawInputNodes || rawInputNodes == inputNodes) {
+            return input;
+        }
+        return input.select(featureIndices);
+    }
+
+    // Total amount of weights and biases, i.e. the length of the buffer used by exportParameters/ importParameters
+    public int getParameterCount() {
+        int count = 0;
+        for (int size : getParameterLayout()) {
+            count += size;
+        }
+        return count;
+    }
+
+    // Total amount of weights and biases of a neural network with the given dimensions
+    public static int getParameterCount(int inputNodes, int hiddenLayers, int hiddenNodes, int outputNodes) {
+        int weights = hiddenNodes * inputNodes + (hiddenLayers - 1) * hiddenNodes * hiddenNodes + outputNodes * hiddenNodes;
+        int biases = hiddenLayers * hiddenNodes + outputNodes;
+        return weights + biases;
+    }
+
+    // Number of elements of every weight matrix followed by every bias matrix,
+    // in the same order in which they are stored by exportParameters
+    public int[] getParameterLayout() {
+        int[] layout = new int[weights.length + biases.length];
+        for (int i = 0; i < weights.length; i++) {
+            layout[i] = weights[i].getNumElements();
+        }
+        for (int i = 0; i < biases.length; i++) {
+            layout[weights.length + i] = biases[i].getNumElements();
+        }
+        return layout;
+    }
+
+    // Copies all weights and then all biases into a preallocated buffer without allocating new matrices
+    public void exportParameters(double[] buffer) {
+        if (buffer.length != getParameterCount()) {
+            throw new WrongDimensionException(buffer.length, getParameterCount(), "Parameter");
+        }
+        int offset = 0;
+        for (SimpleMatrix matrix : weights) {
+            offset = copyOut(matrix, buffer, offset);
+        }
+        for (SimpleMatrix matrix : biases) {
+            offset = copyOut(matrix, buffer, offset);
+        }
+    }
+
+    // Overwrites all weights and biases in place with the values of a buffer filled by exportParameters
+    public void importParameters(double[] buffer) {
+        if (buffer.length != getParameterCount()) {
+            throw new WrongDimensionException(buffer.length, getParameterCount(), "Parameter");
+        }
+        int offset = 0;
+        for (SimpleMatrix matrix : weights) {
+            offset = copyIn(buffer, offset, matrix);
+        }
+        for (SimpleMatrix matrix : biases) {
+            offset = copyIn(buffer, offset, matrix);
+        }
+    }
+
+    private static int copyOut(SimpleMatrix matrix, double[] buffer, int offset) {
+        int length = matrix.getNumElements();
+        System.arraycopy(matrix.getDDRM().getData(), 0, buffer, offset, length);
+        return offset + length;
+    }
+
+    private static int copyIn(double[] buffer, int offset, SimpleMatrix matrix) {
+        int length = matrix.getNumElements();
+        System.arraycopy(buffer, offset, matrix.getDDRM().getData(), 0, length);
+        return offset + length;
+    }
+
     public void saveWeights(String filename) throws IOException {
         try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            // Salvar pesos
-            for (SimpleMatrix weightMatrix : this.weights) {
-                double[] data = weightMatrix.getDDRM().getData();
-                writer.println(Arrays.toString(data));
+            saveWeights(writer);
+        }
+    }
+
+    // Writes the weights file to an open writer, e.g. after the lines of a layer in front of the network
+    void saveWeights(PrintWriter writer) {
+        double[] parameters = new double[getParameterCount()];
+        exportParameters(parameters);
+        if (featureIndices != null) {
+            writeFeatureHeader(writer, rawInputNodes, featureIndices);
+        }
+        if (pruneMasks != null) {
+            writer.println(PRUNED_HEADER);
+        }
+        writeParameters(writer, parameters, getParameterLayout());
+    }
+
+    // Optional first line of a weights file: "# features <rawInputNodes> <index>,<index>,..."
+    static void writeFeatureHeader(PrintWriter writer, int rawInputNodes, int[] featureIndices) {
+        writer.print(FEATURE_HEADER);
+        writer.print(rawInputNodes);
+        writer.print(' ');
+        for (int i = 0; i < featureIndices.length; i++) {
+            if (i > 0) {
+                writer.print(',');
             }
-            // Salvar biases
-            for (SimpleMatrix biasMatrix : this.biases) {
-                double[] data = biasMatrix.getDDRM().getData();
-                writer.println(Arrays.toString(data));
+            writer.print(featureIndices[i]);
+        }
+        writer.println();
+    }
+
+    // Writes a parameter buffer in the format read by loadWeights: one line per matrix (weights first, then biases)
+    // formatted like Arrays.toString
+    static void writeParameters(PrintWriter writer, double[] parameters, int[] layout) {
+        int offset = 0;
+        for (int size : layout) {
+            writer.print('[');
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    writer.print(", ");
+                }
+                writer.print(parameters[offset + i]);
             }
+            writer.println(']');
+            offset += size;
         }
     }
 
+    // Loads a file written by saveWeights
+    // If the file starts with a feature header, the first layer is reshaped to the reduced input width, so a network
+    // created with the raw width (e.g. 400 inputs) can load a model trained on fewer features
+    // A "# pruned" line (after the feature header) marks a pruned network: its zero weights stay 0 when training further
     public void loadWeights(String filename) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            loadWeights(reader, filename);
+        }
+    }
+
+    // Reads the weights from the current position of an open reader; filename is only used in the error messages
+    void loadWeights(BufferedReader reader, String filename) throws IOException {
         List<double[]> weightData = new ArrayList<>();
         List<double[]> biasData = new ArrayList<>();
+        int[] features = null;
+        int rawWidth = inputNodes;
+        boolean pruned = false;
+
+        String line;
+        int totalMatrices = this.weights.length + this.biases.length;
+        int count = 0;
+        while (count < totalMatrices && (line = reader.readLine()) != null) {
+            if (count == 0 && features == null && line.startsWith(FEATURE_HEADER)) {
+                String[] header = line.substring(FEATURE_HEADER.length()).trim().split(" ");
+                try {
+                    rawWidth = Integer.parseInt(header[0]);
+                } catch (NumberFormatException e) {
+                    throw new IOException("Erro: Cabeçalho de features inválido em `" + filename + "`.", e);
+                }
+                features = parseIndices(header.length > 1 ? header[1] : "");
+                continue;
+            }
+            if (count == 0 && !pruned && line.trim().equals(PRUNED_HEADER)) {
+                pruned = true;
+                continue;
+            }
 
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            int totalMatrices = this.weights.length + this.biases.length;
-            int count = 0;
-            while ((line = reader.readLine()) != null && count < totalMatrices) {
-                // Remover colchetes e espaços
-                line = line.replace("[", "").replace("]", "").trim();
-                String[] tokens = line.split(",");
-                double[] data = new double[tokens.length];
-                for (int i = 0; i < tokens.length; i++) {
+            // Remover colchetes e espaços
+            line = line.replace("[", "").replace("]", "").trim();
+            String[] tokens = line.split(",");
+            double[] data = new double[tokens.length];
+            for (int i = 0; i < tokens.length; i++) {
+                try {
                     data[i] = Double.parseDouble(tokens[i].trim());
+                } catch (NumberFormatException e) {
+                    throw new IOException("Erro: Valor inválido em `" + filename + "`: " + tokens[i].trim(), e);
                 }
-                if (count < this.weights.length) {
-                    weightData.add(data);
-                } else {
-                    biasData.add(data);
-                }
-                count++;
             }
+            if (count < this.weights.length) {
+                weightData.add(data);
+            } else {
+                biasData.add(data);
+            }
+            count++;
         }
 
-        // Reconstruir as matrizes de pesos
-        for (int i = 0; i < this.weights.length; i++) {
-            double[] data = weightData.get(i);
-            int numRows = this.weights[i].numRows();
-            int numCols = this.weights[i].numCols();
-            this.weights[i] = new SimpleMatrix(numRows, numCols, true, data);
+        if (weightData.size() != this.weights.length || biasData.size() != this.biases.length) {
+            throw new IOException("Erro: `" + filename + "` tem " + (weightData.size() + biasData.size())
+                    + " matrizes (esperado: " + (this.weights.length + this.biases.length) + ").");
         }
 
-        // Reconstruir as matrizes de biases
-        for (int i = 0; i < this.biases.length; i++) {
-            double[] data = biasData.get(i);
-            int numRows = this.biases[i].numRows();
-            int numCols = this.biases[i].numCols();
-            this.biases[i] = new SimpleMatrix(numRows, numCols, true, data);
+        SimpleMatrix[] weightShapes = this.weights;
+        if (features != null) {
+            if (rawWidth != this.rawInputNodes && rawWidth != this.inputNodes) {
+                throw new IOException("Erro: `" + filename + "` foi treinado com " + rawWidth
+                        + " entradas (esperado: " + this.rawInputNodes + ").");
+            }
+            try {
+                checkFeatureIndices(rawWidth, features);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Erro: Cabeçalho de features inválido em `" + filename + "`.", e);
+            }
+            weightShapes = this.weights.clone();
+            weightShapes[0] = new SimpleMatrix(this.weights[0].numRows(), features.length);
+        }
+
+        // Reconstruir todas as matrizes antes de substituir alguma, para que um arquivo inválido não deixe a rede meio carregada
+        SimpleMatrix[] newWeights = rebuildMatrices(weightShapes, weightData, filename);
+        SimpleMatrix[] newBiases = rebuildMatrices(this.biases, biasData, filename);
+
+        this.weights = newWeights;
+        this.biases = newBiases;
+        this.pruneMasks = null;
+        if (features != null) {
+            this.inputNodes = features.length;
+            this.featureIndices = features;
+            this.rawInputNodes = rawWidth;
+        }
+        if (pruned) {
+            pruneZeroWeights();
+        }
+    }
+
+    private static int[] parseIndices(String text) throws IOException {
+        if (text.isEmpty()) {
+            return new int[0];
+        }
+        String[] tokens = text.split(",");
+        int[] indices = new int[tokens.length];
+        try {
+            for (int i = 0; i < tokens.length; i++) {
+                indices[i] = Integer.parseInt(tokens[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Erro: Cabeçalho de features inválido: " + text, e);
+        }
+        return indices;
+    }
+
+    private static SimpleMatrix[] rebuildMatrices(SimpleMatrix[] shapes, List<double[]> data, String filename) throws IOException {
+        SimpleMatrix[] result = new SimpleMatrix[shapes.length];
+        for (int i = 0; i < shapes.length; i++) {
+            int numRows = shapes[i].numRows();
+            int numCols = shapes[i].numCols();
+            if (data.get(i).length != numRows * numCols) {
+                throw new IOException("Erro: `" + filename + "` tem " + data.get(i).length
+                        + " valores numa matriz " + numRows + "x" + numCols + ".");
+            }
+            result[i] = new SimpleMatrix(numRows, numCols, true, data.get(i));
         }
+        return result;
     }
 
 
@@ -286,24 +791,109 @@ public class NeuralNetwork {
         }
     }
 
-    // Generic function to calculate one layer
-    private SimpleMatrix calculateLayer(SimpleMatrix weights, SimpleMatrix bias, SimpleMatrix input, ActivationFunction activationFunction) {
-        // Calculate outputs of layer
-        SimpleMatrix result = weights.mult(input);
-        // Add bias to outputs
-        result = result.plus(bias);
-        // Apply activation function and return result
-        return applyActivationFunction(result, false, activationFunction);
+    private void applyMutation(SimpleMatrix[] matrices, double probability, SplittableRandom random) {
+        for (SimpleMatrix matrix : matrices) {
+            double[] data = matrix.getDDRM().getData();
+            for (int j = 0; j < data.length; j++) {
+                if (random.nextDouble() < probability) {
+                    data[j] += MatrixUtilities.nextGaussian(random) / 2;
+                }
+            }
+        }
     }
 
-    private SimpleMatrix calculateGradient(SimpleMatrix layer, SimpleMatrix error, ActivationFunction activationFunction) {
-        SimpleMatrix gradient = applyActivationFunction(layer, true, activationFunction);
-        gradient = gradient.elementMult(error);
-        return gradient.scale(learningRate);
+    // Generic function to calculate one layer: activation(weights * input + bias)
+    // The linear algebra goes through the compute backend chosen for the shape of the layer
+    private double[] calculateLayer(int layer, double[] input, ActivationFunction activationFunction) {
+        int rows = weights[layer].numRows();
+        int cols = weights[layer].numCols();
+        double[] output = new double[rows];
+        ComputeBackendFactory.getBackend(rows, cols).multiplyAdd(weights[layer].getDDRM().getData(), rows, cols,
+                input, biases[layer].getDDRM().getData(), output);
+        applyActivationFunction(output, false, activationFunction);
+        return output;
     }
 
-    private SimpleMatrix calculateDeltas(SimpleMatrix gradient, SimpleMatrix layer) {
-        return gradient.mult(layer.transpose());
+    private static double[] calculateErrors(double[] target, double[] output) {
+        double[] errors = new double[output.length];
+        for (int i = 0; i < errors.length; i++) {
+            errors[i] = target[i] - output[i];
+        }
+        return errors;
+    }
+
+    // Applies the gradient to the bias and gradients * transpose(input) to the weights of a layer, in place
+    private void updateLayer(int layer, double[] gradients, double[] input) {
+        int rows = weights[layer].numRows();
+        int cols = weights[layer].numCols();
+        double[] bias = biases[layer].getDDRM().getData();
+        for (int r = 0; r < rows; r++) {
+            bias[r] += gradients[r];
+        }
+        ComputeBackendFactory.getBackend(rows, cols).addOuterProduct(weights[layer].getDDRM().getData(), rows, cols, gradients, input);
+        applyPruneMask(layer);
+    }
+
+    // Target of the previous layer: transpose(weights) * errors + output of the previous layer
+    private double[] calculatePreviousTarget(int layer, double[] errors, double[] previousLayer) {
+        double[] target = calculatePreviousErrors(layer, errors);
+        for (int i = 0; i < target.length; i++) {
+            target[i] += previousLayer[i];
+        }
+        return target;
+    }
+
+    // Errors of the previous layer: transpose(weights) * errors
+    private double[] calculatePreviousErrors(int layer, double[] errors) {
+        int rows = weights[layer].numRows();
+        int cols = weights[layer].numCols();
+        double[] previousErrors = new double[cols];
+        ComputeBackendFactory.getBackend(rows, cols).multiplyTransposed(weights[layer].getDDRM().getData(), rows, cols, errors, previousErrors);
+        return previousErrors;
+    }
+
+    // First layer for a sparse input: weighted sum over the non-zero inputs only, plus bias and activation
+    private double[] calculateSparseLayer(SparseInput input, ActivationFunction activationFunction) {
+        double[] w = weights[0].getDDRM().getData();
+        double[] b = biases[0].getDDRM().getData();
+        int[] indices = input.indices();
+        double[] values = input.values();
+
+        double[] sums = new double[hiddenNodes];
+        for (int r = 0; r < hiddenNodes; r++) {
+            int row = r * inputNodes;
+            double sum = 0;
+            for (int k = 0; k < indices.length; k++) {
+                sum += w[row + indices[k]] * values[k];
+            }
+            sums[r] = sum + b[r];
+        }
+
+        applyActivationFunction(sums, false, activationFunction);
+        return sums;
+    }
+
+    private double[] calculateGradient(double[] layer, double[] errors, ActivationFunction activationFunction) {
+        double[] gradient = layer.clone();
+        applyActivationFunction(gradient, true, activationFunction);
+        for (int i = 0; i < gradient.length; i++) {
+            gradient[i] = gradient[i] * errors[i] * learningRate;
+        }
+        return gradient;
+    }
+
+    // Applies an activation function (or its derivative) to an array in place
+    // The built-in functions are applied value by value, custom ones still get the whole column as a matrix
+    private void applyActivationFunction(double[] values, boolean derivative, ActivationFunction activationFunction) {
+        if (activationFunction instanceof SigmoidActivationFunction || activationFunction instanceof TanhActivationFunction
+                || activationFunction instanceof ReLuActivationFunction) {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = derivative ? activationFunction.applyDerivative(values[i]) : activationFunction.apply(values[i]);
+            }
+        } else {
+            SimpleMatrix result = applyActivationFunction(new SimpleMatrix(values.length, 1, true, values), derivative, activationFunction);
+            System.arraycopy(result.getDDRM().getData(), 0, values, 0, values.length);
+        }
     }
 
     // Applies an activation function to a matrix
@@ -331,6 +921,11 @@ public class NeuralNetwork {
         return FileReaderAndWriter.readFromFile(fileName);
     }
 
+    // The ActivationFunction-object of this network (including functions added with addActivationFunction)
+    ActivationFunction getActivationFunction() {
+        return activationFunctionFactory.getActivationFunctionByKey(activationFunctionKey);
+    }
+
     public String getActivationFunctionName() {
         return activationFunctionKey;
     }
@@ -0,0 +1,296 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Classe NeuroEvolution: Algoritmo genético sobre uma população de redes neurais, construído sobre
+ * `copyFrom`, `mergeInto` e `mutate`.
+ * A aptidão é avaliada em paralelo e a nova geração é criada, também em paralelo, dentro de um segundo
+ * conjunto de redes que é reciclado de geração em geração, sem alocar matrizes novas.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Todas as redes da população têm as dimensões do protótipo.
+ * - Cada bloco de trabalho usa sempre o mesmo `SplittableRandom`, pelo que, para uma dada semente e número de threads,
+ *   a evolução é reprodutível se a função de aptidão for determinista.
+ * - As `eliteCount` melhores redes passam inalteradas para a geração seguinte, pelo que a melhor aptidão nunca diminui
+ *   (para uma função de aptidão determinista).
+ */
+public class NeuroEvolution implements AutoCloseable {
+
+    /**
+     * Função de aptidão: quanto maior o valor, melhor a rede.
+     * É chamada em paralelo por várias threads, cada uma com uma rede diferente.
+     */
+    public interface FitnessFunction {
+        double evaluate(NeuralNetwork nn);
+    }
+
+    private final FitnessFunction fitnessFunction;
+
+    private NeuralNetwork[] population;
+    private NeuralNetwork[] offspring;
+    private final double[] fitness;
+    private final int[] ranking;
+
+    private int eliteCount = 1;
+    private int tournamentSize = 3;
+    private double crossoverProbability = 0.5;
+    private double mutationProbability = 0.05;
+
+    private final ExecutorService executor;
+    private final SplittableRandom[] randoms;
+    private final List<Callable<Void>> evaluationTasks = new ArrayList<>();
+    private final List<Callable<Void>> breedingTasks = new ArrayList<>();
+
+    private int generation;
+    private boolean evaluated;
+
+    /**
+     * Cria uma população de cópias mutadas do protótipo.
+     *
+     * @param prototype Rede que define as dimensões, a função de ativação e o ponto de partida da população.
+     * @param populationSize Número de redes da população.
+     * @param fitnessFunction Função de aptidão, que tem de poder ser chamada em paralelo.
+     * @param threads Número de threads de trabalho.
+     * @param seed Semente dos geradores aleatórios.
+     */
+    public NeuroEvolution(NeuralNetwork prototype, int populationSize, FitnessFunction fitnessFunction, int threads, long seed) {
+        if (populationSize < 2) {
+            throw new IllegalArgumentException("Erro: A população deve ter pelo menos 2 redes (" + populationSize + ").");
+        }
+        if (threads < 1) {
+            throw new IllegalArgumentException("Erro: O número de threads deve ser positivo (" + threads + ").");
+        }
+        this.fitnessFunction = fitnessFunction;
+        this.fitness = new double[populationSize];
+        this.ranking = new int[populationSize];
+
+        int chunks = Math.min(threads, populationSize);
+        SplittableRandom root = new SplittableRandom(seed);
+        this.randoms = new SplittableRandom[chunks];
+        for (int c = 0; c < chunks; c++) {
+            randoms[c] = root.split();
+        }
+
+        this.population = new NeuralNetwork[populationSize];
+        this.offspring = new NeuralNetwork[populationSize];
+        for (int i = 0; i < populationSize; i++) {
+            population[i] = prototype.copy();
+            offspring[i] = prototype.copy();
+            if (i > 0) {
+                population[i].mutate(1.0, root);
+            }
+        }
+
+        for (int c = 0; c < chunks; c++) {
+            final int chunk = c;
+            final int from = c * populationSize / chunks;
+            final int to = (c + 1) * populationSize / chunks;
+            evaluationTasks.add(() -> {
+                evaluateRange(from, to);
+                return null;
+            });
+            breedingTasks.add(() -> {
+                breedRange(from, to, randoms[chunk]);
+                return null;
+            });
+        }
+
+        this.executor = Executors.newFixedThreadPool(chunks, runnable -> {
+            Thread thread = new Thread(runnable, "neuroevolution-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Avança uma geração: avalia a população (se necessário), cria a geração seguinte e avalia-a.
+     *
+     * @return A melhor aptidão da nova geração.
+     */
+    public double evolve() {
+        if (!evaluated) {
+            evaluate();
+        }
+
+        runAll(breedingTasks);
+
+        NeuralNetwork[] swap = population;
+        population = offspring;
+        offspring = swap;
+        generation++;
+
+        evaluate();
+        return fitness[ranking[0]];
+    }
+
+    /**
+     * Avança várias gerações.
+     *
+     * @param generations Número de gerações.
+     * @return A melhor aptidão da última geração.
+     */
+    public double evolve(int generations) {
+        double best = getBestFitness();
+        for (int i = 0; i < generations; i++) {
+            best = evolve();
+        }
+        return best;
+    }
+
+    /**
+     * @return A rede com maior aptidão da geração atual (partilhada com a população, não uma cópia).
+     */
+    public NeuralNetwork getBest() {
+        if (!evaluated) {
+            evaluate();
+        }
+        return population[ranking[0]];
+    }
+
+    public double getBestFitness() {
+        if (!evaluated) {
+            evaluate();
+        }
+        return fitness[ranking[0]];
+    }
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    public int getPopulationSize() {
+        return population.length;
+    }
+
+    public int getEliteCount() {
+        return eliteCount;
+    }
+
+    public void setEliteCount(int eliteCount) {
+        if (eliteCount < 0 || eliteCount > population.length) {
+            throw new IllegalArgumentException("Erro: Número de elites inválido (" + eliteCount + ").");
+        }
+        this.eliteCount = eliteCount;
+    }
+
+    public int getTournamentSize() {
+        return tournamentSize;
+    }
+
+    public void setTournamentSize(int tournamentSize) {
+        if (tournamentSize < 1) {
+            throw new IllegalArgumentException("Erro: O tamanho do torneio deve ser positivo (" + tournamentSize + ").");
+        }
+        this.tournamentSize = tournamentSize;
+    }
+
+    public double getCrossoverProbability() {
+        return crossoverProbability;
+    }
+
+    /**
+     * @param crossoverProbability Probabilidade de cada peso do filho vir do segundo progenitor.
+     */
+    public void setCrossoverProbability(double crossoverProbability) {
+        this.crossoverProbability = crossoverProbability;
+    }
+
+    public double getMutationProbability() {
+        return mutationProbability;
+    }
+
+    /**
+     * @param mutationProbability Probabilidade de cada peso do filho sofrer uma mutação gaussiana.
+     */
+    public void setMutationProbability(double mutationProbability) {
+        this.mutationProbability = mutationProbability;
+    }
+
+    /**
+     * Termina as threads de trabalho.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void evaluate() {
+        runAll(evaluationTasks);
+
+        for (int i = 0; i < ranking.length; i++) {
+            ranking[i] = i;
+        }
+        sortByFitnessDescending();
+        evaluated = true;
+    }
+
+    private void evaluateRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            fitness[i] = fitnessFunction.evaluate(population[i]);
+        }
+    }
+
+    // Cria os filhos [from, to): os primeiros `eliteCount` são cópias das melhores redes, os restantes
+    // resultam do cruzamento de dois progenitores escolhidos por torneio, seguido de mutação
+    private void breedRange(int from, int to, SplittableRandom random) {
+        for (int i = from; i < to; i++) {
+            NeuralNetwork child = offspring[i];
+            if (i < eliteCount) {
+                child.copyFrom(population[ranking[i]]);
+            } else {
+                NeuralNetwork first = population[selectByTournament(random)];
+                NeuralNetwork second = population[selectByTournament(random)];
+                first.mergeInto(second, crossoverProbability, child, random);
+                child.mutate(mutationProbability, random);
+            }
+        }
+    }
+
+    private int selectByTournament(SplittableRandom random) {
+        int winner = random.nextInt(population.length);
+        for (int i = 1; i < tournamentSize; i++) {
+            int candidate = random.nextInt(population.length);
+            if (fitness[candidate] > fitness[winner]) {
+                winner = candidate;
+            }
+        }
+        return winner;
+    }
+
+    // Ordenação por inserção dos índices por aptidão decrescente (sem boxing; a população tem algumas centenas de redes)
+    private void sortByFitnessDescending() {
+        for (int i = 1; i < ranking.length; i++) {
+            int index = ranking[i];
+            int j = i - 1;
+            while (j >= 0 && fitness[ranking[j]] < fitness[index]) {
+                ranking[j + 1] = ranking[j];
+                j--;
+            }
+            ranking[j + 1] = index;
+        }
+    }
+
+    private void runAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro: Evolução interrompida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Erro durante a evolução: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
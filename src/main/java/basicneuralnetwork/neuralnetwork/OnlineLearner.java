@@ -0,0 +1,415 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Classe OnlineLearner: Treina continuamente uma rede neural com um fluxo de exemplos rotulados e publica,
+ * com uma cadência configurável, cópias imutáveis da rede para predições concorrentes.
+ *
+ * Os exemplos entram numa fila limitada e são aplicados, um a um, por uma única thread de treinamento.
+ * Quando a fila está cheia, `submit` bloqueia o produtor (e `offer` desiste ao fim do tempo indicado),
+ * pelo que a origem dos exemplos nunca fica mais do que `queueCapacity` exemplos à frente do treinamento.
+ * Um novo snapshot é publicado com uma troca atómica de referência depois de `publishEveryUpdates` atualizações
+ * ou `publishIntervalMillis` milissegundos desde o anterior, o que acontecer primeiro.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - A rede em treinamento só é usada pela thread de treinamento; um snapshot publicado nunca é alterado.
+ * - Os exemplos são aplicados pela ordem em que foram aceites.
+ * - Cada exemplo tem os valores de entrada seguidos de um alvo por saída da rede.
+ */
+public class OnlineLearner implements AutoCloseable {
+
+    /**
+     * Uma versão publicada do modelo.
+     */
+    public static class Snapshot {
+        private final NeuralNetwork model;
+        private final long version;
+        private final long updateCount;
+        private final long publishedNanos;
+
+        private Snapshot(NeuralNetwork model, long version, long updateCount) {
+            this.model = model;
+            this.version = version;
+            this.updateCount = updateCount;
+            this.publishedNanos = System.nanoTime();
+        }
+
+        /**
+         * @return A rede desta versão (não deve ser alterada).
+         */
+        public NeuralNetwork getModel() {
+            return model;
+        }
+
+        /**
+         * @return O número da versão (0 para a rede inicial).
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return O número de exemplos aplicados antes desta versão ser publicada.
+         */
+        public long getUpdateCount() {
+            return updateCount;
+        }
+
+        /**
+         * @return O `System.nanoTime()` do momento da publicação.
+         */
+        public long getPublishedNanos() {
+            return publishedNanos;
+        }
+    }
+
+    // Um exemplo na fila, com o instante em que foi aceite para medir o atraso até ser aplicado
+    private static class Update {
+        private final double[] row;
+        private final long acceptedNanos;
+
+        private Update(double[] row, long acceptedNanos) {
+            this.row = row;
+            this.acceptedNanos = acceptedNanos;
+        }
+    }
+
+    private static final long MAX_POLL_MILLIS = 100;
+
+    private final NeuralNetwork nn;
+    private final int inputLength;
+    private final int rowLength;
+    private final int publishEveryUpdates;
+    private final long publishIntervalNanos;
+    private final BlockingQueue<Update> queue;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+    private final Thread trainerThread;
+
+    private final AtomicLong acceptedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong invalidRowCount = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+
+    // Escritos apenas pela thread de treinamento
+    private volatile long updateCount;
+    private volatile long lastLagNanos;
+    private volatile long maxLagNanos;
+    private volatile long totalLagNanos;
+
+    // `flush` espera em `lock` até que o snapshot inclua `flushTarget` exemplos
+    private final Object lock = new Object();
+    private long flushTarget;
+
+    private volatile boolean closed;
+    private volatile Throwable failure;
+
+    /**
+     * @param initial Rede inicial; é copiada, e a cópia é a versão 0 publicada.
+     * @param queueCapacity Número máximo de exemplos à espera de serem aplicados.
+     * @param publishEveryUpdates Número de exemplos aplicados entre publicações.
+     * @param publishIntervalMillis Tempo máximo, em milissegundos, entre um exemplo aplicado e a sua publicação.
+     */
+    public OnlineLearner(NeuralNetwork initial, int queueCapacity, int publishEveryUpdates, long publishIntervalMillis) {
+        if (queueCapacity <= 0 || publishEveryUpdates <= 0 || publishIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Erro: A capacidade da fila e a cadência de publicação devem ser positivas.");
+        }
+        this.nn = initial.copy();
+        this.inputLength = initial.getFeatureIndices() != null ? initial.getRawInputNodes() : initial.getInputNodes();
+        this.rowLength = inputLength + initial.getOutputNodes();
+        this.publishEveryUpdates = publishEveryUpdates;
+        this.publishIntervalNanos = TimeUnit.MILLISECONDS.toNanos(publishIntervalMillis);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.snapshot.set(new Snapshot(nn.copy(), 0, 0));
+
+        this.trainerThread = new Thread(this::trainLoop, "online-learner");
+        this.trainerThread.setDaemon(true);
+        this.trainerThread.start();
+    }
+
+    /**
+     * Aceita um exemplo, esperando enquanto a fila estiver cheia. Se a thread de treinamento falhar durante a espera,
+     * a falha é lançada em vez de esperar por um lugar que nunca vai aparecer.
+     *
+     * @param row Valores de entrada seguidos dos alvos (o array não deve ser alterado depois).
+     * @throws InterruptedException Se a thread for interrompida durante a espera.
+     */
+    public void submit(double[] row) throws InterruptedException {
+        checkRow(row);
+        Update update = new Update(row, System.nanoTime());
+        if (!queue.offer(update)) {
+            long start = System.nanoTime();
+            while (!queue.offer(update, MAX_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                checkTrainerAlive();
+            }
+            blockedNanos.addAndGet(System.nanoTime() - start);
+        }
+        acceptedCount.incrementAndGet();
+    }
+
+    /**
+     * Aceita um exemplo se houver lugar na fila dentro do tempo indicado.
+     *
+     * @param row Valores de entrada seguidos dos alvos (o array não deve ser alterado depois).
+     * @param timeout Tempo máximo de espera.
+     * @param unit Unidade de `timeout`.
+     * @return true se o exemplo foi aceite, false se a fila continuou cheia.
+     * @throws InterruptedException Se a thread for interrompida durante a espera.
+     */
+    public boolean offer(double[] row, long timeout, TimeUnit unit) throws InterruptedException {
+        checkRow(row);
+        long start = System.nanoTime();
+        boolean accepted = queue.offer(new Update(row, start), timeout, unit);
+        blockedNanos.addAndGet(System.nanoTime() - start);
+        if (accepted) {
+            acceptedCount.incrementAndGet();
+        } else {
+            rejectedCount.incrementAndGet();
+        }
+        return accepted;
+    }
+
+    /**
+     * Lê exemplos no formato de `DataPreprocessor.parseLabeledRow` até ao fim do fluxo e aceita-os com `submit`,
+     * pelo que a leitura abranda quando o treinamento não acompanha. As linhas inválidas são ignoradas,
+     * contadas e reportadas no stderr.
+     *
+     * @param reader Origem dos exemplos (entrada padrão, socket, arquivo).
+     * @return O número de exemplos aceites.
+     * @throws IOException Em caso de erro de leitura.
+     * @throws InterruptedException Se a thread for interrompida durante a espera por lugar na fila.
+     */
+    public long consume(BufferedReader reader) throws IOException, InterruptedException {
+        long accepted = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            double[] row;
+            try {
+                row = DataPreprocessor.parseLabeledRow(line);
+            } catch (IOException e) {
+                invalidRowCount.incrementAndGet();
+                System.err.println("Linha ignorada: " + e.getMessage());
+                continue;
+            }
+            submit(row);
+            accepted++;
+        }
+        return accepted;
+    }
+
+    /**
+     * Espera até que todos os exemplos aceites até agora estejam aplicados e incluídos num snapshot publicado.
+     *
+     * @throws InterruptedException Se a thread for interrompida durante a espera.
+     */
+    public void flush() throws InterruptedException {
+        long target = acceptedCount.get();
+        synchronized (lock) {
+            flushTarget = Math.max(flushTarget, target);
+            while (snapshot.get().getUpdateCount() < target) {
+                checkTrainerAlive();
+                lock.wait(MAX_POLL_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * @return A versão publicada mais recente.
+     */
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Faz uma predição com a versão publicada no momento da chamada. Pode ser chamado por várias threads.
+     *
+     * @param input Valores de entrada.
+     * @return A saída da rede.
+     */
+    public double[] guess(double[] input) {
+        return snapshot.get().getModel().guess(input);
+    }
+
+    /**
+     * Aplica os exemplos que ainda estão na fila, publica a versão final e termina a thread de treinamento.
+     * Se a thread que chama for interrompida durante a espera, deixa de esperar (a thread de treinamento termina
+     * sozinha) e mantém o estado de interrupção.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            trainerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        checkFailure();
+    }
+
+    /**
+     * @return O número de exemplos aceites na fila.
+     */
+    public long getAcceptedCount() {
+        return acceptedCount.get();
+    }
+
+    /**
+     * @return O número de exemplos recusados por `offer` com a fila cheia.
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * @return O número de linhas ignoradas por `consume` por não estarem no formato esperado.
+     */
+    public long getInvalidRowCount() {
+        return invalidRowCount.get();
+    }
+
+    /**
+     * @return O número de exemplos já aplicados à rede em treinamento.
+     */
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    /**
+     * @return O número de exemplos à espera na fila.
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * @return O número de exemplos aplicados que ainda não estão no snapshot publicado.
+     */
+    public long getUnpublishedCount() {
+        return updateCount - snapshot.get().getUpdateCount();
+    }
+
+    /**
+     * @return O tempo total, em nanossegundos, que os produtores esperaram por lugar na fila (backpressure).
+     */
+    public long getBlockedNanos() {
+        return blockedNanos.get();
+    }
+
+    /**
+     * @return O atraso, em nanossegundos, entre a aceitação e a aplicação do último exemplo.
+     */
+    public long getLastLagNanos() {
+        return lastLagNanos;
+    }
+
+    /**
+     * @return O maior atraso, em nanossegundos, entre a aceitação e a aplicação de um exemplo.
+     */
+    public long getMaxLagNanos() {
+        return maxLagNanos;
+    }
+
+    /**
+     * @return O atraso médio, em nanossegundos, entre a aceitação e a aplicação dos exemplos.
+     */
+    public double getMeanLagNanos() {
+        long count = updateCount;
+        return count == 0 ? 0 : totalLagNanos / (double) count;
+    }
+
+    private void checkRow(double[] row) {
+        if (closed) {
+            throw new IllegalStateException("Erro: O treinamento online já foi terminado.");
+        }
+        checkFailure();
+        if (row.length != rowLength) {
+            throw new IllegalArgumentException("Erro: O exemplo tem " + row.length + " valores (esperado: " + rowLength + ").");
+        }
+    }
+
+    private void trainLoop() {
+        double[] input = new double[inputLength];
+        double[] target = new double[rowLength - inputLength];
+        long lastPublish = System.nanoTime();
+        long pollMillis = Math.max(1, Math.min(MAX_POLL_MILLIS, TimeUnit.NANOSECONDS.toMillis(publishIntervalNanos)));
+
+        try {
+            while (!closed || !queue.isEmpty()) {
+                Update update = queue.poll(pollMillis, TimeUnit.MILLISECONDS);
+                if (update != null) {
+                    System.arraycopy(update.row, 0, input, 0, inputLength);
+                    System.arraycopy(update.row, inputLength, target, 0, target.length);
+                    nn.train(input, target);
+
+                    long lag = System.nanoTime() - update.acceptedNanos;
+                    lastLagNanos = lag;
+                    maxLagNanos = Math.max(maxLagNanos, lag);
+                    totalLagNanos += lag;
+                    updateCount++;
+                }
+
+                long unpublished = updateCount - snapshot.get().getUpdateCount();
+                long now = System.nanoTime();
+                if (unpublished > 0 && (unpublished >= publishEveryUpdates || now - lastPublish >= publishIntervalNanos
+                        || flushRequested())) {
+                    publish();
+                    lastPublish = now;
+                }
+            }
+            if (updateCount > snapshot.get().getUpdateCount()) {
+                publish();
+            }
+        } catch (InterruptedException e) {
+            // A thread é um daemon; uma interrupção só acontece ao terminar o processo
+        } catch (RuntimeException | Error e) {
+            failure = e;
+        } finally {
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private boolean flushRequested() {
+        synchronized (lock) {
+            return flushTarget > snapshot.get().getUpdateCount() && updateCount >= flushTarget;
+        }
+    }
+
+    private void publish() {
+        Snapshot previous = snapshot.get();
+        snapshot.set(new Snapshot(nn.copy(), previous.getVersion() + 1, updateCount));
+        synchronized (lock) {
+            lock.notifyAll();
+        }
+    }
+
+    private void checkTrainerAlive() {
+        checkFailure();
+        if (!trainerThread.isAlive()) {
+            throw new IllegalStateException("Erro: A thread de treinamento terminou antes de aplicar todos os exemplos.");
+        }
+    }
+
+    private void checkFailure() {
+        Throwable cause = failure;
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause != null) {
+            throw new IllegalStateException("Erro na thread de treinamento online: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.Exceptions.WrongDimensionException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Classe ParameterServer: Guarda os parâmetros de uma rede treinada por vários `ParameterServerWorker`,
+ * noutros processos ou máquinas, que a ele se ligam por TCP.
+ *
+ * Cada worker repete: pede os parâmetros (PULL), treina um mini-batch do seu shard e envia a diferença
+ * entre os parâmetros que obteve e os treinados (PUSH), codificada por `GradientCompression`.
+ * O relógio de um worker é o número de atualizações que já enviou.
+ *
+ * - Modo síncrono (`maxStaleness` 0): as atualizações de cada ronda só são aplicadas quando todos os workers ativos
+ *   enviaram a sua, pela média; um PULL espera que as rondas em que o worker participou estejam aplicadas.
+ *   O resultado não depende da ordem de chegada das atualizações.
+ * - Modo assíncrono com atraso limitado (`maxStaleness` > 0): cada atualização é aplicada logo que chega, mas um PULL
+ *   espera enquanto o relógio do worker estiver mais de `maxStaleness` à frente do worker ativo mais atrasado.
+ *
+ * Protocolo (DataOutputStream, big-endian): o worker envia MAGIC e o número de parâmetros e recebe o seu índice
+ * e o número de workers (ou -1 e uma mensagem, se for recusado). Depois envia comandos: PULL, a que o servidor
+ * responde com a versão e os parâmetros; PUSH, seguido da atualização; DONE, no fim do treinamento.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Os parâmetros só são alterados com o monitor do servidor; os PULL recebem sempre uma versão completa.
+ * - A versão conta as rondas aplicadas (modo síncrono) ou as atualizações aplicadas (modo assíncrono).
+ * - Um worker que termina ou cuja ligação falha deixa de contar para as rondas e para o limite de atraso.
+ */
+public class ParameterServer implements AutoCloseable {
+
+    static final int MAGIC = 0x424E5053; // "BNPS"
+    static final byte PULL = 1;
+    static final byte PUSH = 2;
+    static final byte DONE = 3;
+
+    private final double[] parameters;
+    private final int workerCount;
+    private final int maxStaleness;
+
+    // Estado dos workers, por índice de ligação
+    private final long[] clocks;
+    private final long[] pulledVersions;
+    private final boolean[] finished;
+    private int connectedCount;
+    private int finishedCount;
+
+    // Modo síncrono: soma das atualizações da ronda em curso
+    private final double[] roundSum;
+    private int roundContributors;
+
+    private long version;
+    private long updateCount;
+    private long bytesReceived;
+    private long waitNanos;
+    private long maxObservedStaleness;
+    private long totalObservedStaleness;
+
+    private ServerSocket serverSocket;
+    private final List<Socket> sockets = new ArrayList<>();
+    private boolean closed;
+    private Throwable failure;
+
+    /**
+     * @param initial Rede com os parâmetros iniciais (são copiados; a rede não é alterada).
+     * @param workerCount Número de workers que se vão ligar.
+     * @param maxStaleness 0 para o modo síncrono, ou o avanço máximo de um worker sobre o mais atrasado.
+     */
+    public ParameterServer(NeuralNetwork initial, int workerCount, int maxStaleness) {
+        if (workerCount <= 0 || maxStaleness < 0) {
+            throw new IllegalArgumentException("Erro: O número de workers deve ser positivo e o atraso máximo não pode ser negativo.");
+        }
+        this.parameters = new double[initial.getParameterCount()];
+        initial.exportParameters(parameters);
+        this.workerCount = workerCount;
+        this.maxStaleness = maxStaleness;
+        this.clocks = new long[workerCount];
+        this.pulledVersions = new long[workerCount];
+        this.finished = new boolean[workerCount];
+        this.roundSum = new double[parameters.length];
+    }
+
+    /**
+     * Começa a aceitar os workers numa thread própria; cada ligação é servida pela sua thread.
+     *
+     * @param port Porta TCP, ou 0 para uma porta livre.
+     * @return A porta onde o servidor está à escuta.
+     * @throws IOException Se a porta não puder ser aberta.
+     */
+    public synchronized int start(int port) throws IOException {
+        if (serverSocket != null || closed) {
+            throw new IllegalStateException("Erro: O servidor já foi iniciado.");
+        }
+        serverSocket = new ServerSocket(port);
+        ServerSocket listening = serverSocket;
+
+        Thread acceptor = new Thread(() -> acceptLoop(listening), "parameter-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Espera que todos os workers terminem.
+     *
+     * @throws IOException Se a ligação de um worker falhar ou o servidor for fechado antes disso.
+     * @throws InterruptedException Se a thread for interrompida durante a espera.
+     */
+    public synchronized void awaitCompletion() throws IOException, InterruptedException {
+        while (finishedCount < workerCount && failure == null && !closed) {
+            wait();
+        }
+        if (failure != null) {
+            throw new IOException("Erro: Falha na ligação de um worker: " + failure.getMessage(), failure);
+        }
+        if (finishedCount < workerCount) {
+            throw new IOException("Erro: O servidor foi fechado antes de os workers terminarem.");
+        }
+    }
+
+    /**
+     * Copia os parâmetros atuais para um buffer com `NeuralNetwork.getParameterCount()` valores.
+     */
+    public synchronized void exportParameters(double[] buffer) {
+        if (buffer.length != parameters.length) {
+            throw new WrongDimensionException(buffer.length, parameters.length, "Parameter");
+        }
+        System.arraycopy(parameters, 0, buffer, 0, parameters.length);
+    }
+
+    /**
+     * Fecha o servidor e todas as ligações; os workers ainda ligados recebem um erro.
+     */
+    @Override
+    public void close() throws IOException {
+        List<Socket> open;
+        ServerSocket listening;
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+            open = new ArrayList<>(sockets);
+            listening = serverSocket;
+        }
+        if (listening != null) {
+            listening.close();
+        }
+        for (Socket socket : open) {
+            socket.close();
+        }
+    }
+
+    private void acceptLoop(ServerSocket listening) {
+        try {
+            for (int index = 0; index < workerCount; index++) {
+                Socket socket = listening.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (this) {
+                    if (closed) {
+                        socket.close();
+                        return;
+                    }
+                    sockets.add(socket);
+                }
+                Thread handler = new Thread(() -> serve(socket), "parameter-server-" + index);
+                handler.setDaemon(true);
+                handler.start();
+            }
+        } catch (IOException e) {
+            synchronized (this) {
+                if (!closed) {
+                    failure = e;
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    // Serve uma ligação até ao DONE; uma ligação que falha é tratada como um worker que terminou
+    private void serve(Socket socket) {
+        int index = -1;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Erro: A ligação não é de um ParameterServerWorker.");
+            }
+            int parameterCount = in.readInt();
+            if (parameterCount != parameters.length) {
+                out.writeInt(-1);
+                out.writeUTF("Erro: A rede do worker tem " + parameterCount + " parâmetros (esperado: " + parameters.length + ").");
+                out.flush();
+                throw new IOException("Erro: Worker recusado (" + parameterCount + " parâmetros).");
+            }
+            index = register();
+            out.writeInt(index);
+            out.writeInt(workerCount);
+            out.flush();
+
+            double[] buffer = new double[parameters.length];
+            CountingInput counter = new CountingInput(in);
+            while (true) {
+                byte command = in.readByte();
+                if (command == PULL) {
+                    long pulled = awaitPull(index, buffer);
+                    out.writeLong(pulled);
+                    for (double value : buffer) {
+                        out.writeDouble(value);
+                    }
+                    out.flush();
+                } else if (command == PUSH) {
+                    Arrays.fill(buffer, 0);
+                    counter.count = 0;
+                    GradientCompression.decodeAdd(counter.data, buffer);
+                    applyPush(index, buffer, counter.count + 1);
+                } else if (command == DONE) {
+                    finish(index, null);
+                    return;
+                } else {
+                    throw new IOException("Erro: Comando desconhecido: " + command + ".");
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            finish(index, e instanceof EOFException ? new IOException("Erro: O worker desligou-se antes do DONE.", e) : e);
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // A ligação já está fechada
+            }
+        }
+    }
+
+    private synchronized int register() throws IOException {
+        if (connectedCount >= workerCount) {
+            throw new IOException("Erro: Todos os workers já estão ligados.");
+        }
+        return connectedCount++;
+    }
+
+    // Espera até que o worker possa receber os parâmetros e copia-os para `buffer`; devolve a versão copiada
+    private synchronized long awaitPull(int index, double[] buffer) throws IOException {
+        long start = System.nanoTime();
+        try {
+            while (!closed && !canPull(index)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Erro: Servidor interrompido.", e);
+        }
+        waitNanos += System.nanoTime() - start;
+        if (closed) {
+            throw new IOException("Erro: O servidor foi fechado.");
+        }
+
+        System.arraycopy(parameters, 0, buffer, 0, parameters.length);
+        pulledVersions[index] = version;
+        return version;
+    }
+
+    private boolean canPull(int index) {
+        if (maxStaleness == 0) {
+            return version >= clocks[index];
+        }
+        return clocks[index] - minActiveClock() <= maxStaleness;
+    }
+
+    // Relógio do worker mais atrasado que ainda não terminou (os que ainda não se ligaram estão no relógio 0)
+    private long minActiveClock() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < workerCount; i++) {
+            if (!finished[i]) {
+                min = Math.min(min, clocks[i]);
+            }
+        }
+        return min;
+    }
+
+    private synchronized void applyPush(int index, double[] update, int bytes) {
+        bytesReceived += bytes;
+        updateCount++;
+        clocks[index]++;
+
+        long staleness = version - pulledVersions[index];
+        maxObservedStaleness = Math.max(maxObservedStaleness, staleness);
+        totalObservedStaleness += staleness;
+
+        if (maxStaleness == 0) {
+            for (int i = 0; i < update.length; i++) {
+                roundSum[i] += update[i];
+            }
+            roundContributors++;
+            completeRound();
+        } else {
+            for (int i = 0; i < update.length; i++) {
+                parameters[i] += update[i];
+            }
+            version++;
+        }
+        notifyAll();
+    }
+
+    // Aplica a média da ronda quando nenhum worker ativo está ainda nessa ronda
+    private void completeRound() {
+        if (roundContributors == 0 || minActiveClock() <= version) {
+            return;
+        }
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] += roundSum[i] / roundContributors;
+        }
+        Arrays.fill(roundSum, 0);
+        roundContributors = 0;
+        version++;
+    }
+
+    private synchronized void finish(int index, Throwable error) {
+        if (error != null && failure == null && !closed) {
+            failure = error;
+        }
+        if (index >= 0 && !finished[index]) {
+            finished[index] = true;
+            finishedCount++;
+            if (maxStaleness == 0) {
+                completeRound();
+            }
+        }
+        notifyAll();
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    public int getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return O número de atualizações recebidas de todos os workers.
+     */
+    public synchronized long getUpdateCount() {
+        return updateCount;
+    }
+
+    /**
+     * @return Os bytes recebidos nos PUSH, incluindo o byte do comando.
+     */
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * @return O tempo total que os PULL passaram à espera de outros workers.
+     */
+    public synchronized long getWaitNanos() {
+        return waitNanos;
+    }
+
+    /**
+     * @return O maior número de versões aplicadas entre o PULL de um worker e a sua atualização seguinte.
+     */
+    public synchronized long getMaxObservedStaleness() {
+        return maxObservedStaleness;
+    }
+
+    /**
+     * @return O número médio de versões aplicadas entre o PULL de um worker e a sua atualização seguinte.
+     */
+    public synchronized double getMeanObservedStaleness() {
+        return updateCount == 0 ? 0 : totalObservedStaleness / (double) updateCount;
+    }
+
+    // Conta os bytes lidos de uma atualização
+    private static class CountingInput extends FilterInputStream {
+        private final DataInputStream data;
+        private int count;
+
+        private CountingInput(DataInputStream in) {
+            super(in);
+            this.data = new DataInputStream(this);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
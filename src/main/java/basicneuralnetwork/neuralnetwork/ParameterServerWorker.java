@@ -0,0 +1,169 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Classe ParameterServerWorker: Treina um shard do conjunto de dados para um `ParameterServer`.
+ *
+ * Para cada mini-batch, o worker obtém os parâmetros do servidor, aplica-lhes `NeuralNetwork.train` exemplo a exemplo
+ * e envia a diferença entre os parâmetros treinados e os obtidos. Essa diferença é a soma dos passos de SGD do
+ * mini-batch (no primeiro exemplo, exatamente o gradiente vezes a taxa de aprendizagem), pelo que o servidor
+ * só precisa de a somar aos seus parâmetros. A atualização é comprimida com a `GradientCompression` indicada,
+ * e o que a compressão não envia fica num resíduo somado à atualização seguinte.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - A rede tem as mesmas dimensões (e o mesmo mapeamento de features) que a do servidor.
+ * - Os exemplos do shard têm todos o mesmo tamanho: os valores de entrada seguidos de um alvo por saída da rede.
+ */
+public class ParameterServerWorker {
+
+    private final NeuralNetwork nn;
+    private final List<double[]> shard;
+    private final int batchSize;
+    private final int epochs;
+    private final GradientCompression compression;
+    private final long seed;
+
+    private long batchCount;
+    private long bytesSent;
+    private long uncompressedBytes;
+
+    /**
+     * @param nn Rede usada para treinar os mini-batches (os seus parâmetros são substituídos pelos do servidor).
+     * @param shard Exemplos deste worker.
+     * @param batchSize Número de exemplos por atualização enviada.
+     * @param epochs Número de passagens pelo shard.
+     * @param compression Compressão das atualizações.
+     * @param seed Semente da ordem dos exemplos em cada época.
+     */
+    public ParameterServerWorker(NeuralNetwork nn, List<double[]> shard, int batchSize, int epochs,
+                                 GradientCompression compression, long seed) {
+        if (shard.isEmpty() || batchSize <= 0 || epochs <= 0) {
+            throw new IllegalArgumentException("Erro: O shard não pode estar vazio e o tamanho do batch e as épocas devem ser positivos.");
+        }
+        this.nn = nn;
+        this.shard = shard;
+        this.batchSize = batchSize;
+        this.epochs = epochs;
+        this.compression = compression;
+        this.seed = seed;
+    }
+
+    /**
+     * Liga-se ao servidor e treina todas as épocas do shard.
+     *
+     * @param host Endereço do servidor.
+     * @param port Porta do servidor.
+     * @throws IOException Se a ligação falhar ou o servidor recusar o worker.
+     */
+    public void run(String host, int port) throws IOException {
+        int parameterCount = nn.getParameterCount();
+        int outputNodes = nn.getOutputNodes();
+        // Os exemplos podem ter as features da rede ou as imagens completas (a rede seleciona as features)
+        int inputNodes = shard.get(0).length - outputNodes;
+        if (inputNodes != nn.getInputNodes() && (nn.getFeatureIndices() == null || inputNodes != nn.getRawInputNodes())) {
+            throw new IllegalArgumentException("Erro: Os exemplos do shard têm " + inputNodes + " entradas (esperado: "
+                    + nn.getInputNodes() + ").");
+        }
+        int uncompressedUpdateBytes = 1 + 1 + 4 + 8 * parameterCount;
+
+        double[] pulled = new double[parameterCount];
+        double[] trained = new double[parameterCount];
+        double[] update = new double[parameterCount];
+        double[] residual = new double[parameterCount];
+        double[] input = new double[inputNodes];
+        double[] target = new double[outputNodes];
+        int[] order = new int[shard.size()];
+
+        try (Socket socket = new Socket(host, port);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            // Cada PULL é uma mensagem pequena logo a seguir a um PUSH; sem isto, o algoritmo de Nagle atrasa-a
+            socket.setTcpNoDelay(true);
+            out.writeInt(ParameterServer.MAGIC);
+            out.writeInt(parameterCount);
+            out.flush();
+            if (in.readInt() < 0) {
+                throw new IOException(in.readUTF());
+            }
+            in.readInt();
+
+            for (int epoch = 1; epoch <= epochs; epoch++) {
+                shuffle(order, new SplittableRandom(seed + epoch));
+
+                for (int start = 0; start < order.length; start += batchSize) {
+                    out.writeByte(ParameterServer.PULL);
+                    out.flush();
+                    in.readLong();
+                    for (int i = 0; i < parameterCount; i++) {
+                        pulled[i] = in.readDouble();
+                    }
+                    nn.importParameters(pulled);
+
+                    for (int i = start; i < Math.min(start + batchSize, order.length); i++) {
+                        double[] row = shard.get(order[i]);
+                        System.arraycopy(row, 0, input, 0, inputNodes);
+                        System.arraycopy(row, inputNodes, target, 0, outputNodes);
+                        nn.train(input, target);
+                    }
+
+                    nn.exportParameters(trained);
+                    for (int i = 0; i < parameterCount; i++) {
+                        update[i] = trained[i] - pulled[i];
+                    }
+                    out.writeByte(ParameterServer.PUSH);
+                    bytesSent += 1 + compression.encode(update, residual, out);
+                    uncompressedBytes += uncompressedUpdateBytes;
+                    out.flush();
+                    batchCount++;
+                }
+            }
+
+            out.writeByte(ParameterServer.DONE);
+            out.flush();
+        }
+    }
+
+    private static void shuffle(int[] order, SplittableRandom random) {
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+    }
+
+    /**
+     * @return O número de atualizações enviadas.
+     */
+    public long getBatchCount() {
+        return batchCount;
+    }
+
+    /**
+     * @return Os bytes enviados nas atualizações, incluindo o byte do comando.
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * @return Os bytes que as mesmas atualizações ocupariam sem compressão.
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+}
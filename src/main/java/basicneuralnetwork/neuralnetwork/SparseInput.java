@@ -0,0 +1,133 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.util.Arrays;
+
+/**
+ * Classe SparseInput: Vetor de entrada esparso, guardado como pares índice/valor dos elementos diferentes de zero.
+ * Construído uma vez ao carregar os dados, permite que a primeira camada da rede neural só percorra
+ * as colunas dos pixels não nulos, tanto na predição como na atualização dos pesos.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Os índices estão por ordem crescente, sem repetições, e são inferiores a `length`.
+ * - Nenhum dos valores guardados é zero.
+ */
+public class SparseInput {
+
+    /**
+     * Densidade abaixo da qual o caminho esparso é mais rápido do que a multiplicação densa da primeira camada.
+     */
+    public static final double DEFAULT_DENSITY_THRESHOLD = 0.5;
+
+    private final int length;
+    private final int[] indices;
+    private final double[] values;
+
+    private SparseInput(int length, int[] indices, double[] values) {
+        this.length = length;
+        this.indices = indices;
+        this.values = values;
+    }
+
+    /**
+     * Cria a representação esparsa dos primeiros `length` valores de um array (por exemplo, os pixels de uma
+     * linha do conjunto de dados, sem o rótulo).
+     *
+     * @param dense Os valores densos.
+     * @param length Número de valores a considerar.
+     * @return O vetor esparso.
+     */
+    public static SparseInput fromDense(double[] dense, int length) {
+        int nonZero = 0;
+        for (int i = 0; i < length; i++) {
+            if (dense[i] != 0) {
+                nonZero++;
+            }
+        }
+
+        int[] indices = new int[nonZero];
+        double[] values = new double[nonZero];
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            if (dense[i] != 0) {
+                indices[position] = i;
+                values[position] = dense[i];
+                position++;
+            }
+        }
+        return new SparseInput(length, indices, values);
+    }
+
+    public static SparseInput fromDense(double[] dense) {
+        return fromDense(dense, dense.length);
+    }
+
+    /**
+     * @return O número de elementos do vetor denso equivalente.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    public int getNonZeroCount() {
+        return indices.length;
+    }
+
+    /**
+     * @return A fração de elementos diferentes de zero.
+     */
+    public double getDensity() {
+        return length == 0 ? 0 : indices.length / (double) length;
+    }
+
+    // Acesso direto para os kernels de NeuralNetwork, sem cópias
+    int[] indices() {
+        return indices;
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * Reduz o vetor às posições indicadas (ver `NeuralNetwork.setFeatureIndices`).
+     *
+     * @param featureIndices Índices, por ordem crescente, das posições a manter.
+     * @return Um vetor de comprimento `featureIndices.length` com os valores dessas posições.
+     */
+    SparseInput select(int[] featureIndices) {
+        int[] selectedIndices = new int[indices.length];
+        double[] selectedValues = new double[indices.length];
+        int count = 0;
+
+        // Os dois arrays estão ordenados, por isso basta percorrê-los em paralelo
+        int f = 0;
+        for (int k = 0; k < indices.length && f < featureIndices.length; k++) {
+            while (f < featureIndices.length && featureIndices[f] < indices[k]) {
+                f++;
+            }
+            if (f < featureIndices.length && featureIndices[f] == indices[k]) {
+                selectedIndices[count] = f;
+                selectedValues[count] = values[k];
+                count++;
+            }
+        }
+
+        return new SparseInput(featureIndices.length, Arrays.copyOf(selectedIndices, count), Arrays.copyOf(selectedValues, count));
+    }
+
+    public double[] toDense() {
+        double[] dense = new double[length];
+        for (int i = 0; i < indices.length; i++) {
+            dense[indices[i]] = values[i];
+        }
+        return dense;
+    }
+
+    @Override
+    public String toString() {
+        return "SparseInput{length=" + length + ", indices=" + Arrays.toString(indices) + ", values=" + Arrays.toString(values) + "}";
+    }
+}
@@ -0,0 +1,168 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.Exceptions.WrongDimensionException;
+import basicneuralnetwork.activationfunctions.ActivationFunction;
+import org.ejml.simple.SimpleMatrix;
+
+/**
+ * Classe SparseNeuralNetwork: Modelo de inferência com os pesos de cada camada guardados em formato CSR
+ * (Compressed Sparse Row), criado a partir de uma `NeuralNetwork` podada com `prune`.
+ * A predição só percorre as ligações que restam, pelo que o tempo e a memória diminuem com a esparsidade.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - O modelo é imutável; `guess` pode ser chamado em simultâneo por várias threads.
+ * - Para cada camada, `rowPointers[l]` tem `linhas + 1` elementos e `columns[l]`/`values[l]` só contêm pesos diferentes de zero.
+ * - As predições são iguais às da `NeuralNetwork` de origem.
+ */
+public class SparseNeuralNetwork implements InferenceModel {
+
+    private final int inputNodes;
+    private final int rawInputNodes;
+    private final int[] featureIndices;
+
+    private final int[] layerSizes;
+    private final int[][] rowPointers;
+    private final int[][] columns;
+    private final double[][] values;
+    private final double[][] biases;
+
+    private final ActivationFunction activationFunction;
+
+    /**
+     * Converte os pesos da rede para CSR, descartando os que são zero.
+     *
+     * @param nn A rede neural (normalmente depois de `prune`).
+     */
+    public SparseNeuralNetwork(NeuralNetwork nn) {
+        SimpleMatrix[] weights = nn.getWeights();
+        SimpleMatrix[] nnBiases = nn.getBiases();
+
+        this.inputNodes = nn.getInputNodes();
+        this.rawInputNodes = nn.getRawInputNodes();
+        this.featureIndices = nn.getFeatureIndices();
+        this.activationFunction = nn.getActivationFunction();
+
+        this.layerSizes = new int[weights.length];
+        this.rowPointers = new int[weights.length][];
+        this.columns = new int[weights.length][];
+        this.values = new double[weights.length][];
+        this.biases = new double[weights.length][];
+
+        for (int layer = 0; layer < weights.length; layer++) {
+            int rows = weights[layer].numRows();
+            int cols = weights[layer].numCols();
+            double[] data = weights[layer].getDDRM().getData();
+
+            int nonZero = 0;
+            for (int i = 0; i < rows * cols; i++) {
+                if (data[i] != 0) {
+                    nonZero++;
+                }
+            }
+
+            int[] pointers = new int[rows + 1];
+            int[] nonZeroColumns = new int[nonZero];
+            double[] nonZeroValues = new double[nonZero];
+            int position = 0;
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    double value = data[r * cols + c];
+                    if (value != 0) {
+                        nonZeroColumns[position] = c;
+                        nonZeroValues[position] = value;
+                        position++;
+                    }
+                }
+                pointers[r + 1] = position;
+            }
+
+            layerSizes[layer] = rows;
+            rowPointers[layer] = pointers;
+            columns[layer] = nonZeroColumns;
+            values[layer] = nonZeroValues;
+            biases[layer] = nnBiases[layer].getDDRM().getData().clone();
+        }
+    }
+
+    /**
+     * Faz uma predição. Aceita a entrada completa ou, se a rede tiver mapeamento de features, a entrada reduzida.
+     *
+     * @param input Valores de entrada.
+     * @return A saída da rede.
+     */
+    @Override
+    public double[] guess(double[] input) {
+        double[] activations = input;
+        if (featureIndices != null && input.length == rawInputNodes && rawInputNodes != inputNodes) {
+            activations = new double[inputNodes];
+            for (int i = 0; i < inputNodes; i++) {
+                activations[i] = input[featureIndices[i]];
+            }
+        }
+        if (activations.length != inputNodes) {
+            throw new WrongDimensionException(activations.length, inputNodes, "Input");
+        }
+
+        for (int layer = 0; layer < layerSizes.length; layer++) {
+            int[] pointers = rowPointers[layer];
+            int[] layerColumns = columns[layer];
+            double[] layerValues = values[layer];
+            double[] bias = biases[layer];
+
+            double[] output = new double[layerSizes[layer]];
+            for (int r = 0; r < output.length; r++) {
+                double sum = 0;
+                for (int k = pointers[r]; k < pointers[r + 1]; k++) {
+                    sum += layerValues[k] * activations[layerColumns[k]];
+                }
+                output[r] = activationFunction.apply(sum + bias[r]);
+            }
+            activations = output;
+        }
+
+        return activations;
+    }
+
+    /**
+     * @return O número de ligações (pesos diferentes de zero) guardadas.
+     */
+    public int getNonZeroCount() {
+        int count = 0;
+        for (double[] layer : values) {
+            count += layer.length;
+        }
+        return count;
+    }
+
+    /**
+     * @return A memória aproximada ocupada pelos pesos e biases, em bytes.
+     */
+    public long estimateBytes() {
+        long bytes = 0;
+        for (int layer = 0; layer < values.length; layer++) {
+            bytes += (long) values[layer].length * (Double.BYTES + Integer.BYTES);
+            bytes += (long) rowPointers[layer].length * Integer.BYTES;
+            bytes += (long) biases[layer].length * Double.BYTES;
+        }
+        return bytes;
+    }
+
+    @Override
+    public void guess(double[] input, double[] output) {
+        double[] result = guess(input);
+        System.arraycopy(result, 0, output, 0, result.length);
+    }
+
+    @Override
+    public int getInputNodes() {
+        return inputNodes;
+    }
+
+    @Override
+    public int getOutputNodes() {
+        return layerSizes[layerSizes.length - 1];
+    }
+}
@@ -0,0 +1,348 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.weightinitializers.WeightInitializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Classe TimeToAccuracyBenchmark: Mede, para várias configurações do treinamento de `DigitTrainer`, o tempo
+ * necessário para atingir uma acurácia de validação alvo, isto é, o tempo até um modelo utilizável.
+ * Cada configuração é treinada com várias sementes (da inicialização dos pesos e do treinamento), uma de cada vez,
+ * para que os tempos não sejam afetados por outros treinamentos.
+ *
+ * O tempo medido inclui o treinamento e a validação do próprio `trainNeuralNetwork`, mas não a medição da acurácia
+ * feita pelo benchmark após cada bloco de `evaluationInterval` épocas.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `targetAccuracy` está entre 0 e 100; `maxEpochs` e `evaluationInterval` devem ser positivos.
+ * - Os conjuntos de treinamento e validação não são alterados pelo benchmark.
+ * - Para uma dada configuração e semente, as épocas até ao alvo são sempre as mesmas.
+ */
+public class TimeToAccuracyBenchmark {
+
+    /**
+     * Uma configuração de treinamento a medir.
+     */
+    public static class Configuration {
+        private final int hiddenNodes;
+        private final double learningRate;
+        private final String activationFunction;
+        private final String weightInitializer;
+
+        public Configuration(int hiddenNodes, double learningRate, String activationFunction, String weightInitializer) {
+            this.hiddenNodes = hiddenNodes;
+            this.learningRate = learningRate;
+            this.activationFunction = activationFunction;
+            this.weightInitializer = weightInitializer;
+        }
+
+        public int getHiddenNodes() {
+            return hiddenNodes;
+        }
+
+        public double getLearningRate() {
+            return learningRate;
+        }
+
+        public String getActivationFunction() {
+            return activationFunction;
+        }
+
+        public String getWeightInitializer() {
+            return weightInitializer;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hiddenNodes=%d, learningRate=%.5f, activation=%s, init=%s",
+                    hiddenNodes, learningRate, activationFunction, weightInitializer);
+        }
+    }
+
+    /**
+     * O resultado de um treinamento de uma configuração com uma semente.
+     */
+    public static class Run {
+        private final long seed;
+        private final int epochs;
+        private final long trainingNanos;
+        private final double accuracy;
+        private final boolean reached;
+        private final double samplesPerSecond;
+
+        private Run(long seed, int epochs, long trainingNanos, double accuracy, boolean reached, int trainSize) {
+            this.seed = seed;
+            this.epochs = epochs;
+            this.trainingNanos = trainingNanos;
+            this.accuracy = accuracy;
+            this.reached = reached;
+            this.samplesPerSecond = trainingNanos == 0 ? 0 : (double) epochs * trainSize * 1e9 / trainingNanos;
+        }
+
+        public long getSeed() {
+            return seed;
+        }
+
+        /**
+         * @return O número de épocas até ao alvo, ou até `maxEpochs` se o alvo não foi atingido.
+         */
+        public int getEpochs() {
+            return epochs;
+        }
+
+        public long getTrainingNanos() {
+            return trainingNanos;
+        }
+
+        /**
+         * @return A acurácia de validação no fim do treinamento, em percentagem.
+         */
+        public double getAccuracy() {
+            return accuracy;
+        }
+
+        public boolean isReached() {
+            return reached;
+        }
+
+        public double getSamplesPerSecond() {
+            return samplesPerSecond;
+        }
+    }
+
+    /**
+     * Os treinamentos de uma configuração com todas as sementes.
+     */
+    public static class Result {
+        private final Configuration configuration;
+        private final List<Run> runs;
+
+        private Result(Configuration configuration, List<Run> runs) {
+            this.configuration = configuration;
+            this.runs = Collections.unmodifiableList(runs);
+        }
+
+        public Configuration getConfiguration() {
+            return configuration;
+        }
+
+        public List<Run> getRuns() {
+            return runs;
+        }
+
+        /**
+         * @return O número de sementes com que o alvo foi atingido.
+         */
+        public int getReachedCount() {
+            int reached = 0;
+            for (Run run : runs) {
+                if (run.isReached()) {
+                    reached++;
+                }
+            }
+            return reached;
+        }
+
+        /**
+         * @return A mediana do tempo até ao alvo, em segundos, contando as sementes que não o atingiram como infinitas.
+         */
+        public double getMedianSeconds() {
+            double[] seconds = new double[runs.size()];
+            for (int i = 0; i < seconds.length; i++) {
+                Run run = runs.get(i);
+                seconds[i] = run.isReached() ? run.getTrainingNanos() / 1e9 : Double.POSITIVE_INFINITY;
+            }
+            Arrays.sort(seconds);
+            int middle = seconds.length / 2;
+            return seconds.length % 2 == 1 ? seconds[middle] : (seconds[middle - 1] + seconds[middle]) / 2;
+        }
+
+        public double getMeanEpochs() {
+            double total = 0;
+            for (Run run : runs) {
+                total += run.getEpochs();
+            }
+            return total / runs.size();
+        }
+
+        /**
+         * @return A média da acurácia de validação no fim dos treinamentos, em percentagem.
+         */
+        public double getMeanAccuracy() {
+            double total = 0;
+            for (Run run : runs) {
+                total += run.getAccuracy();
+            }
+            return total / runs.size();
+        }
+
+        public double getMeanSamplesPerSecond() {
+            double total = 0;
+            for (Run run : runs) {
+                total += run.getSamplesPerSecond();
+            }
+            return total / runs.size();
+        }
+    }
+
+    private final List<double[]> trainSet;
+    private final List<double[]> validationSet;
+    private final double targetAccuracy;
+    private final int maxEpochs;
+
+    private int evaluationInterval = 1;
+
+    /**
+     * @param trainSet Conjunto de treinamento.
+     * @param validationSet Conjunto de validação, onde é medida a acurácia.
+     * @param targetAccuracy Acurácia de validação alvo, em percentagem.
+     * @param maxEpochs Número máximo de épocas de cada treinamento.
+     */
+    public TimeToAccuracyBenchmark(List<double[]> trainSet, List<double[]> validationSet, double targetAccuracy, int maxEpochs) {
+        if (targetAccuracy < 0 || targetAccuracy > 100) {
+            throw new IllegalArgumentException("Erro: Acurácia alvo inválida (" + targetAccuracy + "%).");
+        }
+        if (maxEpochs <= 0) {
+            throw new IllegalArgumentException("Erro: O número máximo de épocas deve ser positivo (" + maxEpochs + ").");
+        }
+        this.trainSet = Collections.unmodifiableList(trainSet);
+        this.validationSet = Collections.unmodifiableList(validationSet);
+        this.targetAccuracy = targetAccuracy;
+        this.maxEpochs = maxEpochs;
+    }
+
+    /**
+     * Mede as inicializações de pesos com a rede de `DigitTrainer` e escreve a tabela de resultados.
+     *
+     * @param args Argumentos da linha de comando: `--target <acurácia>`, `--seeds <n>` e `--max-epochs <n>`, opcionais.
+     * @throws IOException Em caso de erro ao carregar os arquivos do conjunto de dados.
+     */
+    public static void main(String[] args) throws IOException {
+        List<String> arguments = Arrays.asList(args);
+        double target = Double.parseDouble(option(arguments, "--target", "95"));
+        int seeds = Integer.parseInt(option(arguments, "--seeds", "5"));
+        int maxEpochs = Integer.parseInt(option(arguments, "--max-epochs", "1000"));
+
+        // Os mesmos dados de `DigitTrainer`: divisão 60/40 e apenas os pixels não constantes no treinamento
+        List<double[]> dataset = DataPreprocessor.loadDataset("dataset/dataset/dataset.csv", "dataset/dataset/labels.csv");
+        List<double[]> trainSet = new ArrayList<>();
+        List<double[]> validationSet = new ArrayList<>();
+        DataPreprocessor.splitDataset(dataset, 0.6, trainSet, validationSet);
+        int[] features = DataPreprocessor.selectFeatures(trainSet, 400, DataPreprocessor.DEFAULT_VARIANCE_THRESHOLD);
+        trainSet = DataPreprocessor.compactDataset(trainSet, features);
+        validationSet = DataPreprocessor.compactDataset(validationSet, features);
+
+        List<Configuration> configurations = new ArrayList<>();
+        for (double learningRate : new double[]{0.01, 0.1}) {
+            for (String initializer : new String[]{WeightInitializer.UNIFORM, WeightInitializer.XAVIER, WeightInitializer.HE}) {
+                configurations.add(new Configuration(10, learningRate, "SIGMOID", initializer));
+            }
+        }
+
+        TimeToAccuracyBenchmark benchmark = new TimeToAccuracyBenchmark(trainSet, validationSet, target, maxEpochs);
+        System.out.printf("Tempo até %.1f%% de acurácia de validação (%d sementes, máximo de %d épocas):%n", target, seeds, maxEpochs);
+        List<Result> results = new ArrayList<>();
+        for (Configuration configuration : configurations) {
+            results.add(benchmark.run(configuration, 1, seeds));
+        }
+        printResults(results);
+    }
+
+    /**
+     * Treina a configuração com as sementes `firstSeed` a `firstSeed + seeds - 1`.
+     *
+     * @return Os treinamentos, pela ordem das sementes.
+     */
+    public Result run(Configuration configuration, long firstSeed, int seeds) {
+        List<Run> runs = new ArrayList<>(seeds);
+        for (int i = 0; i < seeds; i++) {
+            runs.add(run(configuration, firstSeed + i));
+        }
+        return new Result(configuration, runs);
+    }
+
+    /**
+     * Treina a configuração com uma semente até atingir a acurácia alvo ou `maxEpochs` épocas.
+     * O Early Stopping fica desativado, para que o treinamento pare apenas pelo alvo.
+     *
+     * @param configuration A configuração a treinar.
+     * @param seed Semente da inicialização dos pesos e do treinamento.
+     * @return O número de épocas, o tempo e a acurácia final.
+     */
+    public Run run(Configuration configuration, long seed) {
+        NeuralNetwork nn = new NeuralNetwork(trainSet.get(0).length - 1, configuration.getHiddenNodes(), 1);
+        nn.setActivationFunction(configuration.getActivationFunction());
+        nn.setLearningRate(configuration.getLearningRate());
+        nn.initializeParameters(configuration.getWeightInitializer(), seed);
+
+        TrainingOptions options = new TrainingOptions(0, maxEpochs, Integer.MAX_VALUE);
+        options.setSeed(seed);
+        options.setVerbose(false);
+        TrainingState state = new TrainingState(nn, seed);
+
+        long trainingNanos = 0;
+        double accuracy = DigitTrainer.calculateAccuracy(nn, validationSet);
+        while (accuracy < targetAccuracy && state.getIteration() < maxEpochs) {
+            options.setMaxIterations(Math.min(maxEpochs, state.getIteration() + evaluationInterval));
+            long start = System.nanoTime();
+            DigitTrainer.trainNeuralNetwork(nn, trainSet, validationSet, options, state);
+            trainingNanos += System.nanoTime() - start;
+            accuracy = DigitTrainer.calculateAccuracy(nn, validationSet);
+        }
+        return new Run(seed, state.getIteration(), trainingNanos, accuracy, accuracy >= targetAccuracy, trainSet.size());
+    }
+
+    /**
+     * Escreve no console a tabela de resultados, uma linha por configuração.
+     *
+     * @param results Os resultados de `run`.
+     */
+    public static void printResults(List<Result> results) {
+        System.out.printf("%-4s %-8s %-10s %-10s %-9s %-8s %-12s %-9s %-10s %-12s%n",
+                "#", "Ocultos", "Taxa", "Ativação", "Inic.", "Alvo", "Mediana (s)", "Épocas", "Acurácia", "Exemplos/s");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            Configuration configuration = result.getConfiguration();
+            System.out.printf("%-4d %-8d %-10.5f %-10s %-9s %3d/%-4d %-12s %-9.1f %7.2f%%   %-12.0f%n",
+                    i + 1, configuration.getHiddenNodes(), configuration.getLearningRate(),
+                    configuration.getActivationFunction(), configuration.getWeightInitializer(),
+                    result.getReachedCount(), result.getRuns().size(),
+                    Double.isInfinite(result.getMedianSeconds()) ? "-" : String.format("%.3f", result.getMedianSeconds()),
+                    result.getMeanEpochs(), result.getMeanAccuracy(), result.getMeanSamplesPerSecond());
+        }
+    }
+
+    public double getTargetAccuracy() {
+        return targetAccuracy;
+    }
+
+    public int getMaxEpochs() {
+        return maxEpochs;
+    }
+
+    public int getEvaluationInterval() {
+        return evaluationInterval;
+    }
+
+    /**
+     * @param evaluationInterval Número de épocas entre duas medições da acurácia de validação.
+     */
+    public void setEvaluationInterval(int evaluationInterval) {
+        if (evaluationInterval <= 0) {
+            throw new IllegalArgumentException("Erro: O intervalo de avaliação deve ser positivo (" + evaluationInterval + ").");
+        }
+        this.evaluationInterval = evaluationInterval;
+    }
+
+    private static String option(List<String> arguments, String name, String defaultValue) {
+        int index = arguments.indexOf(name);
+        return index >= 0 && index + 1 < arguments.size() ? arguments.get(index + 1) : defaultValue;
+    }
+}
@@ -0,0 +1,238 @@
+package basicneuralnetwork.neuralnetwork;
+
+import basicneuralnetwork.Exceptions.WrongDimensionException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Classe TrainingCheckpoint: Fotografia completa de um treinamento (pesos, hiperparâmetros e `TrainingState`)
+ * e o seu formato binário em arquivo, usado para retomar um treinamento interrompido.
+ *
+ * Formato (DataOutputStream, big-endian):
+ * MAGIC, VERSION, inputNodes, hiddenLayers, hiddenNodes, outputNodes, activationFunction (UTF), learningRate,
+ * iteration, bestIteration, bestValidationMSE, patienceCounter, seed, parameterCount,
+ * parameters[parameterCount], bestParameters[parameterCount], rawInputNodes, featureCount, features[featureCount], pruned.
+ * `featureCount` é 0 para redes sem mapeamento de features; a versão 1 não tinha os três campos de features
+ * e as versões 1 e 2 não tinham `pruned`.
+ * As máscaras de poda não são gravadas: numa rede podada (`pruned`), os pesos a 0 voltam a ficar fixos em 0 ao restaurar.
+ * O otimizador é SGD sem estado, por isso não há momentos a guardar.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `parameters` e `bestParameters` têm o tamanho de `NeuralNetwork.getParameterCount()` para as dimensões guardadas.
+ * - Um arquivo com MAGIC diferente ou com uma versão não suportada é rejeitado com IOException.
+ */
+public class TrainingCheckpoint {
+
+    private static final int MAGIC = 0x424E4E43; // "BNNC"
+    private static final int VERSION = 3;
+
+    private final int[] dimensions;
+    private String activationFunctionKey;
+    private double learningRate;
+
+    private int iteration;
+    private int bestIteration;
+    private double bestValidationMSE;
+    private int patienceCounter;
+    private long seed;
+    private int rawInputNodes;
+    private int[] featureIndices;
+    private boolean pruned;
+
+    private final double[] parameters;
+    private final double[] bestParameters;
+
+    /**
+     * Cria uma fotografia vazia, com buffers pré-alocados para redes com as dimensões de `nn`.
+     *
+     * @param nn Rede neural usada para dimensionar os buffers.
+     */
+    public TrainingCheckpoint(NeuralNetwork nn) {
+        this(nn.getDimensions(), nn.getParameterCount());
+    }
+
+    private TrainingCheckpoint(int[] dimensions, int parameterCount) {
+        this.dimensions = dimensions;
+        this.parameters = new double[parameterCount];
+        this.bestParameters = new double[parameterCount];
+    }
+
+    /**
+     * Copia os pesos da rede e o estado do treinamento para os buffers desta fotografia, sem alocar memória.
+     *
+     * @param nn A rede neural em treinamento.
+     * @param state O estado do treinamento.
+     */
+    public void capture(NeuralNetwork nn, TrainingState state) {
+        if (!Arrays.equals(dimensions, nn.getDimensions())) {
+            throw new WrongDimensionException(nn.getDimensions(), dimensions);
+        }
+        nn.exportParameters(parameters);
+        System.arraycopy(state.getBestParameters(), 0, bestParameters, 0, bestParameters.length);
+
+        activationFunctionKey = nn.getActivationFunctionName();
+        learningRate = nn.getLearningRate();
+        iteration = state.getIteration();
+        bestIteration = state.getBestIteration();
+        bestValidationMSE = state.getBestValidationMSE();
+        patienceCounter = state.getPatienceCounter();
+        seed = state.getSeed();
+        rawInputNodes = nn.getRawInputNodes();
+        featureIndices = nn.getFeatureIndices();
+        pruned = nn.isPruned();
+    }
+
+    /**
+     * @return Uma nova rede neural com as dimensões, hiperparâmetros e pesos guardados (e podada, se o era).
+     */
+    public NeuralNetwork restoreNeuralNetwork() {
+        NeuralNetwork nn = new NeuralNetwork(dimensions[0], dimensions[1], dimensions[2], dimensions[3]);
+        nn.setActivationFunction(activationFunctionKey);
+        nn.setLearningRate(learningRate);
+        nn.importParameters(parameters);
+        if (featureIndices != null) {
+            nn.setFeatureIndices(rawInputNodes, featureIndices);
+        }
+        if (pruned) {
+            nn.pruneZeroWeights();
+        }
+        return nn;
+    }
+
+    /**
+     * @return Um novo `TrainingState` igual ao que foi guardado.
+     */
+    public TrainingState restoreTrainingState() {
+        TrainingState state = new TrainingState(seed, bestParameters.clone());
+        state.setIteration(iteration);
+        state.setBestIteration(bestIteration);
+        state.setBestValidationMSE(bestValidationMSE);
+        state.setPatienceCounter(patienceCounter);
+        return state;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * Grava a fotografia num arquivo.
+     *
+     * @param filePath Caminho do arquivo.
+     * @throws IOException Em caso de erro de escrita.
+     */
+    public void write(String filePath) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (int dimension : dimensions) {
+                out.writeInt(dimension);
+            }
+            out.writeUTF(activationFunctionKey);
+            out.writeDouble(learningRate);
+
+            out.writeInt(iteration);
+            out.writeInt(bestIteration);
+            out.writeDouble(bestValidationMSE);
+            out.writeInt(patienceCounter);
+            out.writeLong(seed);
+
+            out.writeInt(parameters.length);
+            for (double value : parameters) {
+                out.writeDouble(value);
+            }
+            for (double value : bestParameters) {
+                out.writeDouble(value);
+            }
+
+            out.writeInt(rawInputNodes);
+            out.writeInt(featureIndices == null ? 0 : featureIndices.length);
+            if (featureIndices != null) {
+                for (int feature : featureIndices) {
+                    out.writeInt(feature);
+                }
+            }
+            out.writeBoolean(pruned);
+        }
+    }
+
+    /**
+     * Lê uma fotografia gravada por `write`.
+     *
+     * @param filePath Caminho do arquivo.
+     * @return A fotografia lida.
+     * @throws IOException Se o arquivo não existir, não for um checkpoint ou estiver incompleto.
+     */
+    public static TrainingCheckpoint read(String filePath) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Erro: `" + filePath + "` não é um checkpoint de treinamento.");
+            }
+            int version = in.readInt();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Erro: Versão de checkpoint não suportada (" + version + ").");
+            }
+
+            int[] dimensions = new int[4];
+            for (int i = 0; i < dimensions.length; i++) {
+                dimensions[i] = in.readInt();
+            }
+            String activationFunctionKey = in.readUTF();
+            double learningRate = in.readDouble();
+
+            int iteration = in.readInt();
+            int bestIteration = in.readInt();
+            double bestValidationMSE = in.readDouble();
+            int patienceCounter = in.readInt();
+            long seed = in.readLong();
+
+            int parameterCount = in.readInt();
+            if (parameterCount != NeuralNetwork.getParameterCount(dimensions[0], dimensions[1], dimensions[2], dimensions[3])) {
+                throw new IOException("Erro: O número de parâmetros do checkpoint (" + parameterCount + ") não corresponde às dimensões " + Arrays.toString(dimensions) + ".");
+            }
+            TrainingCheckpoint checkpoint = new TrainingCheckpoint(dimensions, parameterCount);
+            for (int i = 0; i < parameterCount; i++) {
+                checkpoint.parameters[i] = in.readDouble();
+            }
+            for (int i = 0; i < parameterCount; i++) {
+                checkpoint.bestParameters[i] = in.readDouble();
+            }
+
+            if (version >= 2) {
+                checkpoint.rawInputNodes = in.readInt();
+                int featureCount = in.readInt();
+                if (featureCount != 0 && featureCount != dimensions[0]) {
+                    throw new IOException("Erro: O checkpoint tem " + featureCount + " features para " + dimensions[0] + " entradas.");
+                }
+                if (featureCount > 0) {
+                    checkpoint.featureIndices = new int[featureCount];
+                    for (int i = 0; i < featureCount; i++) {
+                        checkpoint.featureIndices[i] = in.readInt();
+                    }
+                }
+            }
+            if (version >= 3) {
+                checkpoint.pruned = in.readBoolean();
+            }
+
+            checkpoint.activationFunctionKey = activationFunctionKey;
+            checkpoint.learningRate = learningRate;
+            checkpoint.iteration = iteration;
+            checkpoint.bestIteration = bestIteration;
+            checkpoint.bestValidationMSE = bestValidationMSE;
+            checkpoint.patienceCounter = patienceCounter;
+            checkpoint.seed = seed;
+            return checkpoint;
+        }
+    }
+}
@@ -0,0 +1,375 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Classe TrainingMetricsSink: Recebe as métricas de cada iteração de um treinamento e as mantém
+ * num buffer circular de tamanho fixo, gravando-as de forma assíncrona num arquivo CSV.
+ * Cada execução de treinamento deve usar a sua própria instância.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - Apenas as últimas `capacity` iterações ficam em memória; as mais antigas estão apenas no arquivo.
+ * - O número de iterações registadas e ainda não gravadas nunca excede `capacity`.
+ * - As linhas do CSV são gravadas pela ordem em que foram registadas.
+ */
+public class TrainingMetricsSink implements Closeable {
+
+    /**
+     * Cabeçalho do CSV, compatível com o script `plot_mse.py`.
+     */
+    public static final String CSV_HEADER = "Iteração,MSE_Treino,MSE_Validação\n";
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+    private final int[] iterations;
+    private final double[] trainMse;
+    private final double[] validationMse;
+
+    private final Object lock = new Object();
+    private long recorded;
+    private long written;
+    private boolean closed;
+    private IOException failure;
+
+    private final Writer writer;
+    private final Thread writerThread;
+
+    /**
+     * Cria um sink apenas em memória com a capacidade por omissão.
+     */
+    public TrainingMetricsSink() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Cria um sink apenas em memória.
+     *
+     * @param capacity Número máximo de iterações mantidas em memória.
+     */
+    public TrainingMetricsSink(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Cria um sink que grava as métricas no arquivo CSV indicado, substituindo o conteúdo anterior.
+     *
+     * @param csvPath Caminho do arquivo CSV.
+     * @param capacity Número máximo de iterações mantidas em memória.
+     * @throws IOException Em caso de erro ao abrir o arquivo.
+     */
+    public TrainingMetricsSink(String csvPath, int capacity) throws IOException {
+        this(csvPath, capacity, false);
+    }
+
+    /**
+     * Cria um sink que grava as métricas no arquivo CSV indicado.
+     *
+     * @param csvPath Caminho do arquivo CSV.
+     * @param capacity Número máximo de iterações mantidas em memória.
+     * @param append Se verdadeiro, acrescenta ao arquivo existente em vez de o substituir.
+     * @throws IOException Em caso de erro ao abrir o arquivo.
+     */
+    public TrainingMetricsSink(String csvPath, int capacity, boolean append) throws IOException {
+        this(capacity, openCsv(csvPath, append));
+    }
+
+    private TrainingMetricsSink(int capacity, Writer writer) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Erro: A capacidade deve ser positiva (" + capacity + ").");
+        }
+        this.capacity = capacity;
+        this.iterations = new int[capacity];
+        this.trainMse = new double[capacity];
+        this.validationMse = new double[capacity];
+        this.writer = writer;
+
+        if (writer == null) {
+            this.writerThread = null;
+        } else {
+            this.writerThread = new Thread(this::drainLoop, "training-metrics-writer");
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
+        }
+    }
+
+    /**
+     * Retoma um sink a partir do CSV de um treinamento interrompido.
+     * As linhas de iterações posteriores a `lastIteration` (gravadas depois do último checkpoint) são descartadas
+     * e as últimas `capacity` iterações restantes são carregadas para memória.
+     *
+     * @param csvPath Caminho do arquivo CSV.
+     * @param capacity Número máximo de iterações mantidas em memória.
+     * @param lastIteration Última iteração incluída no checkpoint a partir do qual se retoma.
+     * @return Um sink que acrescenta as novas iterações ao mesmo arquivo.
+     * @throws IOException Em caso de erro de leitura ou escrita.
+     */
+    public static TrainingMetricsSink resume(String csvPath, int capacity, int lastIteration) throws IOException {
+        Path path = Paths.get(csvPath);
+        if (!Files.exists(path)) {
+            return new TrainingMetricsSink(csvPath, capacity);
+        }
+
+        TrainingMetricsSink memory = new TrainingMetricsSink(capacity);
+        Path temporaryPath = Paths.get(csvPath + ".tmp");
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+             Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            reader.readLine(); // cabeçalho
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] values = line.split(",");
+                if (values.length != 3) {
+                    continue;
+                }
+                int iteration = Integer.parseInt(values[0].trim());
+                if (iteration > lastIteration) {
+                    continue;
+                }
+                memory.record(iteration, Double.parseDouble(values[1]), Double.parseDouble(values[2]));
+                writer.write(line);
+                writer.write('\n');
+            }
+        } catch (NumberFormatException e) {
+            throw new IOException("Erro: Linha inválida em `" + csvPath + "`: " + e.getMessage(), e);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+
+        // As iterações carregadas já estão no arquivo, por isso entram em memória como já gravadas
+        TrainingMetricsSink sink = new TrainingMetricsSink(csvPath, capacity, true);
+        synchronized (sink.lock) {
+            for (int i = 0; i < memory.size(); i++) {
+                int slot = (int) (sink.recorded % capacity);
+                sink.iterations[slot] = memory.getIteration(i);
+                sink.trainMse[slot] = memory.getTrainMse(i);
+                sink.validationMse[slot] = memory.getValidationMse(i);
+                sink.recorded++;
+            }
+            sink.written = sink.recorded;
+        }
+        return sink;
+    }
+
+    // Abre o CSV em UTF-8 e escreve o cabeçalho, exceto quando se acrescenta a um arquivo já existente
+    private static Writer openCsv(String csvPath, boolean append) throws IOException {
+        Path path = Paths.get(csvPath);
+        boolean writeHeader = !append || !Files.exists(path);
+        Writer writer = append
+                ? Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)
+                : Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+        if (writeHeader) {
+            writer.write(CSV_HEADER);
+            writer.flush();
+        }
+        return writer;
+    }
+
+    /**
+     * Regista as métricas de uma iteração.
+     * Só bloqueia se o escritor estiver `capacity` iterações atrasado.
+     *
+     * @param iteration Número da iteração.
+     * @param trainMSE MSE do conjunto de treinamento.
+     * @param validationMSE MSE do conjunto de validação.
+     * @throws IllegalStateException Se o sink já estiver fechado.
+     */
+    public void record(int iteration, double trainMSE, double validationMSE) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Erro: O sink de métricas já foi fechado.");
+            }
+            while (writer != null && recorded - written >= capacity && failure == null) {
+                awaitQuietly();
+            }
+
+            int slot = (int) (recorded % capacity);
+            iterations[slot] = iteration;
+            trainMse[slot] = trainMSE;
+            validationMse[slot] = validationMSE;
+            recorded++;
+
+            if (writer == null) {
+                written = recorded;
+            }
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Bloqueia até que todas as iterações registadas tenham sido gravadas no arquivo.
+     *
+     * @throws IOException Se a gravação assíncrona tiver falhado.
+     */
+    public void flush() throws IOException {
+        synchronized (lock) {
+            while (written < recorded && failure == null) {
+                awaitQuietly();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Grava as iterações pendentes, termina a thread de escrita e fecha o arquivo.
+     *
+     * @throws IOException Se a gravação assíncrona tiver falhado.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+
+        if (writerThread != null) {
+            boolean interrupted = false;
+            while (writerThread.isAlive()) {
+                try {
+                    writerThread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            writer.close();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (lock) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * @return O número de iterações mantidas em memória (no máximo `capacity`).
+     */
+    public int size() {
+        synchronized (lock) {
+            return (int) Math.min(recorded, capacity);
+        }
+    }
+
+    /**
+     * @return O número total de iterações registadas desde a criação do sink.
+     */
+    public long getRecordedCount() {
+        synchronized (lock) {
+            return recorded;
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param index Índice entre 0 (iteração mais antiga em memória) e `size() - 1` (mais recente).
+     * @return O número da iteração nessa posição.
+     */
+    public int getIteration(int index) {
+        synchronized (lock) {
+            return iterations[slotOf(index)];
+        }
+    }
+
+    /**
+     * @param index Índice entre 0 (iteração mais antiga em memória) e `size() - 1` (mais recente).
+     * @return O MSE de treinamento nessa posição.
+     */
+    public double getTrainMse(int index) {
+        synchronized (lock) {
+            return trainMse[slotOf(index)];
+        }
+    }
+
+    /**
+     * @param index Índice entre 0 (iteração mais antiga em memória) e `size() - 1` (mais recente).
+     * @return O MSE de validação nessa posição.
+     */
+    public double getValidationMse(int index) {
+        synchronized (lock) {
+            return validationMse[slotOf(index)];
+        }
+    }
+
+    private int slotOf(int index) {
+        int size = (int) Math.min(recorded, capacity);
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Índice " + index + " fora do intervalo [0, " + size + ").");
+        }
+        return (int) ((recorded - size + index) % capacity);
+    }
+
+    // Corpo da thread de escrita: grava em lote as iterações pendentes e faz flush após cada lote
+    private void drainLoop() {
+        StringBuilder line = new StringBuilder(64);
+        while (true) {
+            long from;
+            long to;
+            synchronized (lock) {
+                while (written == recorded && !closed) {
+                    awaitQuietly();
+                }
+                if (written == recorded) {
+                    return;
+                }
+                from = written;
+                to = recorded;
+            }
+
+            // As posições em [from, to) não podem ser reescritas enquanto `written` não avançar
+            try {
+                for (long i = from; i < to; i++) {
+                    int slot = (int) (i % capacity);
+                    line.setLength(0);
+                    line.append(iterations[slot]).append(',')
+                            .append(trainMse[slot]).append(',')
+                            .append(validationMse[slot]).append('\n');
+                    writer.append(line);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                synchronized (lock) {
+                    failure = e;
+                    written = recorded;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (lock) {
+                written = to;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void awaitQuietly() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Erro: Interrompido enquanto aguardava a gravação das métricas.", e);
+        }
+    }
+}
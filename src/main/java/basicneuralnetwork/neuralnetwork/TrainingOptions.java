@@ -0,0 +1,233 @@
+package basicneuralnetwork.neuralnetwork;
+
+import java.util.Random;
+
+/**
+ * Classe TrainingOptions: Agrupa os parâmetros de uma execução de `DigitTrainer.trainNeuralNetwork`.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `maxIterations` e `patience` devem ser positivos.
+ * - O `metricsSink`, quando definido, pertence a uma única execução de treinamento.
+ * - `checkpointInterval` deve ser positivo quando um `checkpointer` estiver definido.
+ * - `validationInterval` deve ser positivo; `validationSampleSize` igual ou inferior a zero usa o conjunto de validação inteiro.
+ * - Com `augmenter` definido, as linhas de treinamento têm as imagens completas (sem redução de features).
+ */
+public class TrainingOptions {
+
+    private double mseThreshold = 0.001;
+    private int maxIterations = 2000;
+    private int patience = 10;
+
+    private TrainingMetricsSink metricsSink;
+
+    private AsyncCheckpointer checkpointer;
+    private int checkpointInterval = 10;
+
+    private long seed = new Random().nextLong();
+    private boolean shuffle;
+
+    private boolean pipelinedValidation;
+    private int validationInterval = 1;
+    private int validationSampleSize;
+
+    private boolean verbose = true;
+
+    private double sparseDensityThreshold = SparseInput.DEFAULT_DENSITY_THRESHOLD;
+
+    private ImageAugmenter augmenter;
+    private int augmentationWorkers = 1;
+
+    public TrainingOptions() {
+    }
+
+    /**
+     * @param mseThreshold Limiar para o MSE.
+     * @param maxIterations Número máximo de iterações.
+     * @param patience Número de iterações sem melhora antes de parar.
+     */
+    public TrainingOptions(double mseThreshold, int maxIterations, int patience) {
+        this.mseThreshold = mseThreshold;
+        this.maxIterations = maxIterations;
+        this.patience = patience;
+    }
+
+    /**
+     * Copia os parâmetros de outras opções, exceto o `metricsSink` e o `checkpointer`, que pertencem a uma única execução.
+     *
+     * @param other As opções a copiar.
+     */
+    public TrainingOptions(TrainingOptions other) {
+        this.mseThreshold = other.mseThreshold;
+        this.maxIterations = other.maxIterations;
+        this.patience = other.patience;
+        this.checkpointInterval = other.checkpointInterval;
+        this.seed = other.seed;
+        this.shuffle = other.shuffle;
+        this.pipelinedValidation = other.pipelinedValidation;
+        this.validationInterval = other.validationInterval;
+        this.validationSampleSize = other.validationSampleSize;
+        this.verbose = other.verbose;
+        this.sparseDensityThreshold = other.sparseDensityThreshold;
+        this.augmenter = other.augmenter;
+        this.augmentationWorkers = other.augmentationWorkers;
+    }
+
+    public double getMseThreshold() {
+        return mseThreshold;
+    }
+
+    public void setMseThreshold(double mseThreshold) {
+        this.mseThreshold = mseThreshold;
+    }
+
+    public int getMaxIterations() {
+        return maxIterations;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    public int getPatience() {
+        return patience;
+    }
+
+    public void setPatience(int patience) {
+        this.patience = patience;
+    }
+
+    public TrainingMetricsSink getMetricsSink() {
+        return metricsSink;
+    }
+
+    /**
+     * @param metricsSink Destino das métricas de cada iteração, ou null para não as registar.
+     */
+    public void setMetricsSink(TrainingMetricsSink metricsSink) {
+        this.metricsSink = metricsSink;
+    }
+
+    public AsyncCheckpointer getCheckpointer() {
+        return checkpointer;
+    }
+
+    /**
+     * @param checkpointer Destino dos checkpoints periódicos, ou null para não gravar checkpoints.
+     */
+    public void setCheckpointer(AsyncCheckpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    public int getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    /**
+     * @param checkpointInterval Número de iterações entre dois checkpoints consecutivos.
+     */
+    public void setCheckpointInterval(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param seed Semente dos geradores aleatórios do treinamento (por exemplo, da ordem dos exemplos).
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isShuffle() {
+        return shuffle;
+    }
+
+    /**
+     * @param shuffle Se verdadeiro, a ordem dos exemplos de treinamento é baralhada em cada iteração.
+     */
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    public boolean isPipelinedValidation() {
+        return pipelinedValidation;
+    }
+
+    /**
+     * @param pipelinedValidation Se verdadeiro, a validação de cada iteração corre numa cópia dos pesos em segundo plano
+     *                            enquanto a iteração seguinte treina, e o Early Stopping é aplicado com uma iteração de atraso.
+     */
+    public void setPipelinedValidation(boolean pipelinedValidation) {
+        this.pipelinedValidation = pipelinedValidation;
+    }
+
+    public int getValidationInterval() {
+        return validationInterval;
+    }
+
+    /**
+     * @param validationInterval Número de iterações entre duas validações (a última iteração é sempre validada).
+     *                           A paciência passa a contar validações, e não iterações.
+     */
+    public void setValidationInterval(int validationInterval) {
+        this.validationInterval = validationInterval;
+    }
+
+    public int getValidationSampleSize() {
+        return validationSampleSize;
+    }
+
+    /**
+     * @param validationSampleSize Número de exemplos de uma subamostra fixa do conjunto de validação, escolhida
+     *                             uma vez com a semente do treinamento, ou 0 para validar com o conjunto inteiro.
+     */
+    public void setValidationSampleSize(int validationSampleSize) {
+        this.validationSampleSize = validationSampleSize;
+    }
+
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * @param verbose Se falso, o treinamento não escreve o progresso no console (por exemplo, quando várias redes treinam em paralelo).
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public double getSparseDensityThreshold() {
+        return sparseDensityThreshold;
+    }
+
+    /**
+     * @param sparseDensityThreshold Fração de entradas diferentes de zero abaixo da qual o treinamento usa
+     *                               `SparseInput` na primeira camada; 0 desativa o caminho esparso.
+     */
+    public void setSparseDensityThreshold(double sparseDensityThreshold) {
+        this.sparseDensityThreshold = sparseDensityThreshold;
+    }
+
+    public ImageAugmenter getAugmenter() {
+        return augmenter;
+    }
+
+    public int getAugmentationWorkers() {
+        return augmentationWorkers;
+    }
+
+    /**
+     * @param augmenter Transformações aplicadas a cada exemplo de treinamento em cada iteração, ou null para treinar
+     *                  com os exemplos originais. O caminho esparso não é usado com augmentation.
+     * @param workers Número de threads que preparam os exemplos aumentados enquanto a rede treina.
+     */
+    public void setAugmentation(ImageAugmenter augmenter, int workers) {
+        this.augmenter = augmenter;
+        this.augmentationWorkers = workers;
+    }
+}
@@ -0,0 +1,81 @@
+package basicneuralnetwork.neuralnetwork;
+
+/**
+ * Classe TrainingState: Estado de uma execução de treinamento que tem de sobreviver a uma interrupção,
+ * isto é, tudo o que além dos pesos é necessário para continuar o treinamento exatamente onde parou.
+ *
+ * @author Márcio Felício, Maria Anjos, Miguel Rosa
+ * @version 1.1 19/10/2026
+ *
+ * @inv
+ * - `iteration` é o número da última iteração concluída (0 antes da primeira).
+ * - `bestParameters` tem o tamanho de `NeuralNetwork.getParameterCount()` e só é válido se `bestIteration` > 0.
+ * - A ordem dos exemplos de cada iteração depende apenas de `seed` e do número da iteração.
+ */
+public class TrainingState {
+
+    private int iteration;
+    private int bestIteration;
+    private double bestValidationMSE = Double.MAX_VALUE;
+    private int patienceCounter;
+    private final long seed;
+    private final double[] bestParameters;
+
+    /**
+     * Cria o estado inicial de um treinamento.
+     *
+     * @param nn A rede neural a treinar, usada para dimensionar o buffer dos melhores pesos.
+     * @param seed Semente dos geradores aleatórios do treinamento.
+     */
+    public TrainingState(NeuralNetwork nn, long seed) {
+        this(seed, new double[nn.getParameterCount()]);
+    }
+
+    TrainingState(long seed, double[] bestParameters) {
+        this.seed = seed;
+        this.bestParameters = bestParameters;
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public void setIteration(int iteration) {
+        this.iteration = iteration;
+    }
+
+    public int getBestIteration() {
+        return bestIteration;
+    }
+
+    public void setBestIteration(int bestIteration) {
+        this.bestIteration = bestIteration;
+    }
+
+    public double getBestValidationMSE() {
+        return bestValidationMSE;
+    }
+
+    public void setBestValidationMSE(double bestValidationMSE) {
+        this.bestValidationMSE = bestValidationMSE;
+    }
+
+    public int getPatienceCounter() {
+        return patienceCounter;
+    }
+
+    public void setPatienceCounter(int patienceCounter) {
+        this.patienceCounter = patienceCounter;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return O buffer (partilhado, não uma cópia) com os pesos da melhor iteração de validação.
+     */
+    public double[] getBestParameters() {
+        return bestParameters;
+    }
+}
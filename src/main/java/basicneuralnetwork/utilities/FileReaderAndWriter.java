@@ -1,16 +1,13 @@
 package basicneuralnetwork.utilities;
 
 import basicneuralnetwork.neuralnetwork.NeuralNetwork;
-import basicneuralnetwork.activationfunctions.ActivationFunction;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.stream.JsonReader;
-import org.ejml.data.Matrix;
-import org.ejml.simple.SimpleOperations;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
 
 /**
  * Created by KimFeichtinger on 26.04.18.
@@ -24,13 +21,8 @@ public class FileReaderAndWriter {
             name = "nn_data";
         }
 
-        try {
-            FileWriter file = new FileWriter(name + ".json");
-            Gson gson = getGsonBuilder().create();
-            String nnData = gson.toJson(nn);
-
-            file.write(nnData);
-            file.flush();
+        try (Writer file = new BufferedWriter(new FileWriter(name + ".json"))) {
+            NeuralNetworkJsonCodec.write(nn, file);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -44,10 +36,8 @@ public class FileReaderAndWriter {
             name = "nn_data.json";
         }
 
-        try {
-            Gson gson = getGsonBuilder().create();
-            JsonReader jsonReader = new JsonReader(new FileReader(name));
-            nn = gson.fromJson(jsonReader, NeuralNetwork.class);
+        try (BufferedReader reader = new BufferedReader(new FileReader(name))) {
+            nn = NeuralNetworkJsonCodec.read(reader);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -55,16 +45,4 @@ public class FileReaderAndWriter {
         return nn;
     }
 
-    // Get a GsonBuilder-object with all the needed TypeAdapters added
-    private static GsonBuilder getGsonBuilder(){
-        GsonBuilder gsonBuilder = new GsonBuilder();
-
-        gsonBuilder.registerTypeAdapter(ActivationFunction.class, new InterfaceAdapter<ActivationFunction>());
-        gsonBuilder.registerTypeAdapter(Matrix.class, new InterfaceAdapter<Matrix>());
-        gsonBuilder.registerTypeAdapter(SimpleOperations.class, new InterfaceAdapter<SimpleOperations>());
-        gsonBuilder.setPrettyPrinting();
-
-        return gsonBuilder;
-    }
-
 }
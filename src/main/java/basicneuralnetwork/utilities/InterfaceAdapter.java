@@ -1,59 +0,0 @@
-package basicneuralnetwork.utilities;
-
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParseException;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
-
-import java.lang.reflect.Type;
-
-// This class is needed to make the interfaces/ abstract classes used in this project serializable/ deserializable
-// so that they can be converted to JSON or from JSON by Google Gson-library
-// The solution was found here:
-// https://stackoverflow.com/questions/4795349/how-to-serialize-a-class-with-an-interface/9550086#9550086
-public class InterfaceAdapter<T> implements JsonSerializer<T>, JsonDeserializer<T> {
-
-    @Override
-    public final JsonElement serialize(final T object, final Type interfaceType, final JsonSerializationContext context) {
-        final JsonObject member = new JsonObject();
-
-        member.addProperty("type", object.getClass().getName());
-
-        member.add("data", context.serialize(object));
-
-        return member;
-    }
-
-    @Override
-    public final T deserialize(final JsonElement elem, final Type interfaceType, final JsonDeserializationContext context)
-            throws JsonParseException {
-        final JsonObject member = (JsonObject) elem;
-        final JsonElement typeString = get(member, "type");
-        final JsonElement data = get(member, "data");
-        final Type actualType = typeForName(typeString);
-
-        return context.deserialize(data, actualType);
-    }
-
-    private Type typeForName(final JsonElement typeElem) {
-        try {
-            return Class.forName(typeElem.getAsString());
-        } catch (ClassNotFoundException e) {
-            throw new JsonParseException(e);
-        }
-    }
-
-    private JsonElement get(final JsonObject wrapper, final String memberName) {
-        final JsonElement elem = wrapper.get(memberName);
-
-        if (elem == null) {
-            throw new JsonParseException(
-                    "no '" + memberName + "' member found in json file.");
-        }
-        return elem;
-    }
-
-}
@@ -4,6 +4,8 @@ import basicneuralnetwork.Exceptions.WrongDimensionException;
 import org.ejml.simple.SimpleMatrix;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Created by KimFeichtinger on 07.03.18.
@@ -44,7 +46,7 @@ public class MatrixUtilities {
         if (matrixA.numCols() != matrixB.numCols() || matrixA.numRows() != matrixB.numRows()) {
             throw new WrongDimensionException();
         } else {
-            Random random = new Random();
+            Random random = ThreadLocalRandom.current();
             SimpleMatrix result = new SimpleMatrix(matrixA.numRows(), matrixA.numCols());
 
             for (int i = 0; i < matrixA.getNumElements(); i++) {
@@ -60,4 +62,34 @@ public class MatrixUtilities {
         }
     }
 
+    // Merge two matrices into an existing result matrix (which may be one of the inputs) without allocating
+    public static void mergeMatricesInto(SimpleMatrix matrixA, SimpleMatrix matrixB, double probability, SimpleMatrix result, SplittableRandom random) {
+        if (matrixA.numCols() != matrixB.numCols() || matrixA.numRows() != matrixB.numRows()
+                || matrixA.numCols() != result.numCols() || matrixA.numRows() != result.numRows()) {
+            throw new WrongDimensionException();
+        } else {
+            double[] a = matrixA.getDDRM().getData();
+            double[] b = matrixB.getDDRM().getData();
+            double[] r = result.getDDRM().getData();
+
+            for (int i = 0; i < r.length; i++) {
+                // %-chance of replacing this value with the one from the input nn
+                r[i] = random.nextDouble() > probability ? a[i] : b[i];
+            }
+        }
+    }
+
+    // Standard normal distributed random number (polar method), SplittableRandom has no nextGaussian
+    public static double nextGaussian(SplittableRandom random) {
+        double u;
+        double v;
+        double s;
+        do {
+            u = 2 * random.nextDouble() - 1;
+            v = 2 * random.nextDouble() - 1;
+            s = u * u + v * v;
+        } while (s >= 1 || s == 0);
+        return u * Math.sqrt(-2 * Math.log(s) / s);
+    }
+
 }
@@ -0,0 +1,364 @@
+package basicneuralnetwork.utilities;
+
+import basicneuralnetwork.neuralnetwork.NeuralNetwork;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.ejml.simple.SimpleMatrix;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+
+// Hand-written streaming JSON (de)serialization of a NeuralNetwork
+// The values are written/ read token by token directly from/ into the weight and bias matrices,
+// so no intermediate String or object tree is built and no reflection is used.
+//
+// Schema (keys are written in this order, the dimensions have to come before the matrices when reading):
+// {
+//   "format": 1,
+//   "inputNodes": 400, "hiddenLayers": 1, "hiddenNodes": 10, "outputNodes": 1,
+//   "activationFunction": "SIGMOID",
+//   "learningRate": 0.01,
+//   "rawInputNodes": 400, "features": [raw index of every input],   (only for networks with a feature mapping)
+//   "pruned": true,   (only for pruned networks: their zero weights stay 0 when the loaded network is trained further)
+//   "weights": [[row-major values of weights[0]], ...],
+//   "biases": [[values of biases[0]], ...]
+// }
+//
+// Format 2 stores the weight matrices of pruned networks in CSR form, skipping the zeros:
+//   "weights": [{"rows": 10, "cols": 400, "rowPointers": [...], "columns": [...], "values": [...]}, ...]
+// The reader accepts both forms for every matrix.
+public class NeuralNetworkJsonCodec {
+
+    public static final int FORMAT_VERSION = 1;
+    public static final int SPARSE_FORMAT_VERSION = 2;
+
+    private NeuralNetworkJsonCodec() {
+    }
+
+    public static void write(NeuralNetwork nn, Writer out) throws IOException {
+        write(nn, out, false);
+    }
+
+    // sparseWeights: writes the weight matrices in CSR form (format 2), which is smaller for pruned networks
+    public static void write(NeuralNetwork nn, Writer out, boolean sparseWeights) throws IOException {
+        JsonWriter writer = new JsonWriter(out);
+
+        writer.beginObject();
+        writer.name("format").value(sparseWeights ? SPARSE_FORMAT_VERSION : FORMAT_VERSION);
+        writer.name("inputNodes").value(nn.getInputNodes());
+        writer.name("hiddenLayers").value(nn.getHiddenLayers());
+        writer.name("hiddenNodes").value(nn.getHiddenNodes());
+        writer.name("outputNodes").value(nn.getOutputNodes());
+        writer.name("activationFunction").value(nn.getActivationFunctionName());
+        writer.name("learningRate").value(nn.getLearningRate());
+        int[] features = nn.getFeatureIndices();
+        if (features != null) {
+            writer.name("rawInputNodes").value(nn.getRawInputNodes());
+            writer.name("features");
+            writer.beginArray();
+            for (int feature : features) {
+                writer.value(feature);
+            }
+            writer.endArray();
+        }
+        if (nn.isPruned()) {
+            writer.name("pruned").value(true);
+        }
+        writer.name("weights");
+        if (sparseWeights) {
+            writeSparseMatrices(writer, nn.getWeights());
+        } else {
+            writeMatrices(writer, nn.getWeights());
+        }
+        writer.name("biases");
+        writeMatrices(writer, nn.getBiases());
+        writer.endObject();
+
+        writer.flush();
+    }
+
+    public static NeuralNetwork read(Reader in) throws IOException {
+        JsonReader reader = new JsonReader(in);
+
+        int format = -1;
+        int inputNodes = -1;
+        int hiddenLayers = -1;
+        int hiddenNodes = -1;
+        int outputNodes = -1;
+        String activationFunction = null;
+        Double learningRate = null;
+        int rawInputNodes = -1;
+        int[] features = null;
+        boolean pruned = false;
+        NeuralNetwork nn = null;
+        boolean weightsRead = false;
+        boolean biasesRead = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "format":
+                    format = reader.nextInt();
+                    if (format != FORMAT_VERSION && format != SPARSE_FORMAT_VERSION) {
+                        throw new IOException("Unsupported neural network format: " + format);
+                    }
+                    break;
+                case "inputNodes":
+                    inputNodes = reader.nextInt();
+                    break;
+                case "hiddenLayers":
+                    hiddenLayers = reader.nextInt();
+                    break;
+                case "hiddenNodes":
+                    hiddenNodes = reader.nextInt();
+                    break;
+                case "outputNodes":
+                    outputNodes = reader.nextInt();
+                    break;
+                case "activationFunction":
+                    activationFunction = reader.nextString();
+                    break;
+                case "learningRate":
+                    learningRate = reader.nextDouble();
+                    break;
+                case "rawInputNodes":
+                    rawInputNodes = reader.nextInt();
+                    break;
+                case "features":
+                    features = readIndices(reader);
+                    break;
+                case "pruned":
+                    pruned = reader.nextBoolean();
+                    break;
+                case "weights":
+                    nn = createIfNeeded(nn, inputNodes, hiddenLayers, hiddenNodes, outputNodes);
+                    readMatrices(reader, nn.getWeights(), "weights");
+                    weightsRead = true;
+                    break;
+                case "biases":
+                    nn = createIfNeeded(nn, inputNodes, hiddenLayers, hiddenNodes, outputNodes);
+                    readMatrices(reader, nn.getBiases(), "biases");
+                    biasesRead = true;
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (format == -1 || nn == null || !weightsRead || !biasesRead) {
+            throw new IOException("Incomplete neural network JSON: format, dimensions, weights and biases are required");
+        }
+        if (activationFunction != null) {
+            nn.setActivationFunction(activationFunction);
+        }
+        if (learningRate != null) {
+            nn.setLearningRate(learningRate);
+        }
+        if (features != null) {
+            try {
+                nn.setFeatureIndices(rawInputNodes, features);
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid feature mapping: " + e.getMessage(), e);
+            }
+        }
+        if (pruned) {
+            nn.pruneZeroWeights();
+        }
+        return nn;
+    }
+
+    private static NeuralNetwork createIfNeeded(NeuralNetwork nn, int inputNodes, int hiddenLayers, int hiddenNodes, int outputNodes) throws IOException {
+        if (nn != null) {
+            return nn;
+        }
+        if (inputNodes < 1 || hiddenLayers < 1 || hiddenNodes < 1 || outputNodes < 1) {
+            throw new IOException("The dimensions of the neural network have to be defined before its weights and biases");
+        }
+        return new NeuralNetwork(inputNodes, hiddenLayers, hiddenNodes, outputNodes);
+    }
+
+    // Reads a CSR matrix into an existing dense matrix; the order of the keys is free, the arrays are checked at the end
+    private static void readSparseMatrix(JsonReader reader, SimpleMatrix matrix, String name) throws IOException {
+        int rows = -1;
+        int cols = -1;
+        int[] rowPointers = null;
+        int[] columns = null;
+        double[] values = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "rows":
+                    rows = reader.nextInt();
+                    break;
+                case "cols":
+                    cols = reader.nextInt();
+                    break;
+                case "rowPointers":
+                    rowPointers = readIndices(reader);
+                    break;
+                case "columns":
+                    columns = readIndices(reader);
+                    break;
+                case "values":
+                    values = readValues(reader);
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (rows != matrix.numRows() || cols != matrix.numCols()) {
+            throw new IOException("Expected a " + matrix.numRows() + "x" + matrix.numCols() + " matrix in " + name + " but got " + rows + "x" + cols);
+        }
+        if (rowPointers == null || columns == null || values == null || rowPointers.length != rows + 1
+                || columns.length != values.length || rowPointers[0] != 0 || rowPointers[rows] != values.length) {
+            throw new IOException("Invalid CSR matrix in " + name);
+        }
+
+        double[] data = matrix.getDDRM().getData();
+        Arrays.fill(data, 0, rows * cols, 0);
+        for (int r = 0; r < rows; r++) {
+            if (rowPointers[r] > rowPointers[r + 1]) {
+                throw new IOException("Invalid CSR row pointers in " + name);
+            }
+            for (int k = rowPointers[r]; k < rowPointers[r + 1]; k++) {
+                if (columns[k] < 0 || columns[k] >= cols) {
+                    throw new IOException("Column " + columns[k] + " out of range in " + name);
+                }
+                data[r * cols + columns[k]] = values[k];
+            }
+        }
+    }
+
+    private static double[] readValues(JsonReader reader) throws IOException {
+        double[] values = new double[16];
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = reader.nextDouble();
+        }
+        reader.endArray();
+        return Arrays.copyOf(values, count);
+    }
+
+    private static int[] readIndices(JsonReader reader) throws IOException {
+        int[] indices = new int[16];
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (count == indices.length) {
+                indices = Arrays.copyOf(indices, count * 2);
+            }
+            indices[count++] = reader.nextInt();
+        }
+        reader.endArray();
+        return Arrays.copyOf(indices, count);
+    }
+
+    private static void writeMatrices(JsonWriter writer, SimpleMatrix[] matrices) throws IOException {
+        writer.beginArray();
+        for (SimpleMatrix matrix : matrices) {
+            writer.beginArray();
+            double[] data = matrix.getDDRM().getData();
+            for (int i = 0; i < matrix.getNumElements(); i++) {
+                writer.value(data[i]);
+            }
+            writer.endArray();
+        }
+        writer.endArray();
+    }
+
+    private static void writeSparseMatrices(JsonWriter writer, SimpleMatrix[] matrices) throws IOException {
+        writer.beginArray();
+        for (SimpleMatrix matrix : matrices) {
+            int rows = matrix.numRows();
+            int cols = matrix.numCols();
+            double[] data = matrix.getDDRM().getData();
+
+            writer.beginObject();
+            writer.name("rows").value(rows);
+            writer.name("cols").value(cols);
+
+            writer.name("rowPointers").beginArray();
+            int nonZero = 0;
+            writer.value(0);
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++) {
+                    if (data[r * cols + c] != 0) {
+                        nonZero++;
+                    }
+                }
+                writer.value(nonZero);
+            }
+            writer.endArray();
+
+            writer.name("columns").beginArray();
+            for (int i = 0; i < rows * cols; i++) {
+                if (data[i] != 0) {
+                    writer.value(i % cols);
+                }
+            }
+            writer.endArray();
+
+            writer.name("values").beginArray();
+            for (int i = 0; i < rows * cols; i++) {
+                if (data[i] != 0) {
+                    writer.value(data[i]);
+                }
+            }
+            writer.endArray();
+
+            writer.endObject();
+        }
+        writer.endArray();
+    }
+
+    // Reads the values straight into the existing matrices, which already have the expected dimensions
+    private static void readMatrices(JsonReader reader, SimpleMatrix[] matrices, String name) throws IOException {
+        reader.beginArray();
+        int m = 0;
+        while (reader.hasNext()) {
+            if (m >= matrices.length) {
+                throw new IOException("Too many " + name + " matrices, expected " + matrices.length);
+            }
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                readSparseMatrix(reader, matrices[m], name + "[" + m + "]");
+                m++;
+                continue;
+            }
+            double[] data = matrices[m].getDDRM().getData();
+            int expected = matrices[m].getNumElements();
+            int i = 0;
+
+            reader.beginArray();
+            while (reader.peek() != JsonToken.END_ARRAY) {
+                if (i >= expected) {
+                    throw new IOException("Too many values in " + name + "[" + m + "], expected " + expected);
+                }
+                data[i++] = reader.nextDouble();
+            }
+            reader.endArray();
+
+            if (i != expected) {
+                throw new IOException("Expected " + expected + " values in " + name + "[" + m + "] but got " + i);
+            }
+            m++;
+        }
+        reader.endArray();
+
+        if (m != matrices.length) {
+            throw new IOException("Expected " + matrices.length + " " + name + " matrices but got " + m);
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package basicneuralnetwork.weightinitializers;
+
+import basicneuralnetwork.utilities.MatrixUtilities;
+
+import java.util.SplittableRandom;
+
+// He initialization for ReLU layers
+// Weights are normal distributed with mean 0 and variance 2 / fanIn (ReLU zeroes about half of the inputs,
+// so twice the Xavier variance keeps the activations from shrinking); biases start at 0
+public class HeWeightInitializer implements WeightInitializer {
+
+    private static final String NAME = "HE";
+
+    public void initializeWeights(double[] weights, int fanIn, int fanOut, SplittableRandom random) {
+        double stdDev = Math.sqrt(2.0 / fanIn);
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = MatrixUtilities.nextGaussian(random) * stdDev;
+        }
+    }
+
+    public void initializeBiases(double[] biases, int fanIn, SplittableRandom random) {
+        for (int i = 0; i < biases.length; i++) {
+            biases[i] = 0;
+        }
+    }
+
+    public String getName() {
+        return NAME;
+    }
+}
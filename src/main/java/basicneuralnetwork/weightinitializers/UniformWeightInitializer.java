@@ -0,0 +1,28 @@
+package basicneuralnetwork.weightinitializers;
+
+import java.util.SplittableRandom;
+
+// Uniform values in [-1, 1] for weights and biases, the original initialization of NeuralNetwork
+// Independent of the layer size: with many inputs (e.g. 400 pixels) the sums are large and sigmoid/tanh units saturate
+public class UniformWeightInitializer implements WeightInitializer {
+
+    private static final String NAME = "UNIFORM";
+
+    public void initializeWeights(double[] weights, int fanIn, int fanOut, SplittableRandom random) {
+        fill(weights, random);
+    }
+
+    public void initializeBiases(double[] biases, int fanIn, SplittableRandom random) {
+        fill(biases, random);
+    }
+
+    public String getName() {
+        return NAME;
+    }
+
+    private static void fill(double[] values, SplittableRandom random) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble(-1, 1);
+        }
+    }
+}
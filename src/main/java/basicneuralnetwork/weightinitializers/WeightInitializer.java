@@ -0,0 +1,20 @@
+package basicneuralnetwork.weightinitializers;
+
+import java.util.SplittableRandom;
+
+// Draws the initial weights and biases of one layer
+// Weights are the row-major data of a fanOut x fanIn matrix (the layout of the SimpleMatrix data array),
+// biases have fanOut values. All values come from the given generator, so the same seed always gives the same network.
+// Implementations have to be stateless, they are shared by all networks and threads.
+public interface WeightInitializer {
+
+    String UNIFORM = "UNIFORM";
+    String XAVIER = "XAVIER";
+    String HE = "HE";
+
+    void initializeWeights(double[] weights, int fanIn, int fanOut, SplittableRandom random);
+
+    void initializeBiases(double[] biases, int fanIn, SplittableRandom random);
+
+    String getName();
+}
@@ -0,0 +1,43 @@
+package basicneuralnetwork.weightinitializers;
+
+import basicneuralnetwork.activationfunctions.ActivationFunction;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Looks up the WeightInitializer for a key (UNIFORM, XAVIER, HE or one added with addWeightInitializer)
+public class WeightInitializerFactory {
+
+    private static final Map<String, WeightInitializer> weightInitializerMap = new ConcurrentHashMap<>();
+
+    static {
+        WeightInitializer uniform = new UniformWeightInitializer();
+        weightInitializerMap.put(uniform.getName(), uniform);
+
+        WeightInitializer xavier = new XavierWeightInitializer();
+        weightInitializerMap.put(xavier.getName(), xavier);
+
+        WeightInitializer he = new HeWeightInitializer();
+        weightInitializerMap.put(he.getName(), he);
+    }
+
+    private WeightInitializerFactory() {
+    }
+
+    public static WeightInitializer getWeightInitializerByKey(String key) {
+        WeightInitializer weightInitializer = weightInitializerMap.get(key);
+        if (weightInitializer == null) {
+            throw new IllegalArgumentException("Unknown weight initializer: " + key);
+        }
+        return weightInitializer;
+    }
+
+    // The usual choice for an activation function: He for ReLU, Xavier for sigmoid, tanh and anything else
+    public static String getDefaultKey(String activationFunctionKey) {
+        return ActivationFunction.RELU.equals(activationFunctionKey) ? WeightInitializer.HE : WeightInitializer.XAVIER;
+    }
+
+    public static void addWeightInitializer(String key, WeightInitializer weightInitializer) {
+        weightInitializerMap.put(key, weightInitializer);
+    }
+}
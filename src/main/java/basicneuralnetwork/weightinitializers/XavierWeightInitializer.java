@@ -0,0 +1,28 @@
+package basicneuralnetwork.weightinitializers;
+
+import java.util.SplittableRandom;
+
+// Xavier/Glorot initialization for sigmoid and tanh layers
+// Weights are uniform in [-limit, limit] with limit = sqrt(6 / (fanIn + fanOut)), which keeps the variance of the
+// activations and of the gradients about the same from layer to layer; biases start at 0
+public class XavierWeightInitializer implements WeightInitializer {
+
+    private static final String NAME = "XAVIER";
+
+    public void initializeWeights(double[] weights, int fanIn, int fanOut, SplittableRandom random) {
+        double limit = Math.sqrt(6.0 / (fanIn + fanOut));
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = random.nextDouble(-limit, limit);
+        }
+    }
+
+    public void initializeBiases(double[] biases, int fanIn, SplittableRandom random) {
+        for (int i = 0; i < biases.length; i++) {
+            biases[i] = 0;
+        }
+    }
+
+    public String getName() {
+        return NAME;
+    }
+}